@@ -0,0 +1,178 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.cli;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the analyses of a batch file concurrently. Analyses are admitted in the order in which they are submitted, but
+ * only once there is both a free thread and enough of the heap budget available to cover the estimated heap required
+ * by the analysis. Any analysis estimated to need more than the entire budget will wait for all the others to finish
+ * and then run on its own. Each analysis is responsible for writing its own results as soon as it has finished.
+ * <p>
+ * Each analysis can itself use several threads to filter its variants (see {@code exomiser.analysis.threads}), so the
+ * estimated heap of an analysis includes the working set of every one of its threads. The combined heap of the running
+ * analyses is therefore bounded by the heap budget, whatever the combination of batch and analysis threads.
+ * <p>
+ * A failing analysis is logged and does not stop the remainder of the batch.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+class BatchAnalysisExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisExecutor.class);
+
+    private static final long MEGABYTE = 1024L * 1024L;
+    // rough approximations based on the heap used by the variants of a sample relative to the size of the VCF file.
+    private static final long GZIP_COMPRESSION_RATIO = 8;
+    private static final long MIN_HEAP_ESTIMATE = 256 * MEGABYTE;
+    // each analysis thread holds up to two shards of annotated variants in flight
+    private static final long ANALYSIS_THREAD_HEAP_ESTIMATE = 64 * MEGABYTE;
+
+    private final ExecutorService executorService;
+    private final Semaphore threadPermits;
+    private final Semaphore heapPermits;
+    private final int heapBudgetMb;
+
+    private final AtomicInteger numFailed = new AtomicInteger();
+
+    /**
+     * @param threads       the maximum number of analyses to run at any one time.
+     * @param heapBudget    the number of bytes of heap available to be shared between the running analyses.
+     */
+    BatchAnalysisExecutor(int threads, long heapBudget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than zero, but was " + threads);
+        }
+        this.heapBudgetMb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, heapBudget / MEGABYTE));
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("analysis-%d").build();
+        this.executorService = Executors.newFixedThreadPool(threads, threadFactory);
+        this.threadPermits = new Semaphore(threads, true);
+        this.heapPermits = new Semaphore(heapBudgetMb, true);
+        logger.info("Running batch using {} threads with a heap budget of {} MB", threads, heapBudgetMb);
+    }
+
+    /**
+     * @return an estimate of the heap available for running analyses, being the maximum heap less that currently used
+     * by the Exomiser for its reference data.
+     */
+    static long availableHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return Math.max(runtime.maxMemory() - used, MEGABYTE);
+    }
+
+    /**
+     * Estimates the heap required to analyse a VCF file. This is proportional to the size of the file, adjusted for
+     * compression and the {@link AnalysisMode} - a {@link AnalysisMode#FULL} analysis retains all of the variants
+     * whereas a {@link AnalysisMode#PASS_ONLY} analysis only retains those passing the filters. Every thread used by
+     * the analysis adds the heap required for the shards of variants it is working on.
+     *
+     * @param vcfPath         path to the VCF file to be analysed.
+     * @param analysisMode    the mode of the analysis.
+     * @param analysisThreads the number of threads used by the analysis to filter its variants.
+     * @return the estimated heap in bytes.
+     */
+    static long estimateHeap(Path vcfPath, AnalysisMode analysisMode, int analysisThreads) {
+        long fileSize = 0;
+        try {
+            fileSize = Files.size(vcfPath);
+        } catch (IOException e) {
+            logger.debug("Unable to read size of {}", vcfPath, e);
+        }
+        String fileName = String.valueOf(vcfPath.getFileName());
+        long uncompressedSize = fileName.endsWith(".gz") ? fileSize * GZIP_COMPRESSION_RATIO : fileSize;
+        long variantHeap = analysisMode == AnalysisMode.FULL ? uncompressedSize * 4 : uncompressedSize;
+        long workingHeap = Math.max(1, analysisThreads) * ANALYSIS_THREAD_HEAP_ESTIMATE;
+        return MIN_HEAP_ESTIMATE + workingHeap + variantHeap;
+    }
+
+    /**
+     * Submits an analysis for execution. This blocks until there are enough resources available to run the analysis.
+     *
+     * @param analysisName  name of the analysis used for logging.
+     * @param estimatedHeap the estimated number of bytes of heap required by the analysis.
+     * @param analysis      the analysis to run, including writing the results.
+     */
+    void submit(String analysisName, long estimatedHeap, Runnable analysis) {
+        int requiredMb = (int) Math.max(1, Math.min(heapBudgetMb, estimatedHeap / MEGABYTE));
+        try {
+            threadPermits.acquire();
+            try {
+                heapPermits.acquire(requiredMb);
+            } catch (InterruptedException e) {
+                threadPermits.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst waiting to run analysis " + analysisName, e);
+        }
+        logger.info("Running analysis: {} (estimated heap {} MB)", analysisName, requiredMb);
+        executorService.execute(() -> {
+            try {
+                analysis.run();
+            } catch (Exception e) {
+                numFailed.incrementAndGet();
+                logger.error("Analysis {} failed", analysisName, e);
+            } finally {
+                heapPermits.release(requiredMb);
+                threadPermits.release();
+            }
+        });
+    }
+
+    /**
+     * @return the number of analyses which have failed so far.
+     */
+    int getNumFailed() {
+        return numFailed.get();
+    }
+
+    /**
+     * Waits for all the submitted analyses to finish. This should only be called once all the analyses have been
+     * submitted.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
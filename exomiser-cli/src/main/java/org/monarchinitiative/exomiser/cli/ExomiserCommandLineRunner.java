@@ -59,6 +59,12 @@ public class ExomiserCommandLineRunner implements CommandLineRunner {
     @Value("buildVersion")
     private String buildVersion;
 
+    @Value("${exomiser.batch.threads:1}")
+    private int batchThreads;
+
+    @Value("${exomiser.analysis.threads:1}")
+    private int analysisThreads;
+
     @Override
     public void run(String... strings) throws Exception {
         if (strings.length == 0) {
@@ -86,18 +92,47 @@ private void runAnalyses(CommandLine commandLine) {
             List<Path> analysisScripts = BatchFileReader.readPathsFromBatchFile(analysisBatchFile);
             logger.info("Running {} analyses from analysis batch file.", analysisScripts.size());
             Instant timeStart = Instant.now();
-            //this *could* be run in parallel using parallelStream() at the expense of RAM in order to hold all the variants in memory.
-            //HOWEVER there may be threading issues so this needs investigation.
-            analysisScripts.forEach(analysis ->{
-                logger.info("Running analysis: {}", analysis);
-                runAnalysisFromScript(analysis);
-            });
+            if (batchThreads > 1) {
+                runAnalysesConcurrently(analysisScripts);
+            } else {
+                analysisScripts.forEach(analysis -> {
+                    logger.info("Running analysis: {}", analysis);
+                    runAnalysisFromScript(analysis);
+                });
+            }
             Duration duration = Duration.between(timeStart, Instant.now());
             long ms = duration.toMillis();
             logger.info("Finished batch of {} samples in {}m {}s ({} ms)", analysisScripts.size(), (ms / 1000) / 60 % 60, ms / 1000 % 60, ms);
         }
     }
 
+    private void runAnalysesConcurrently(List<Path> analysisScripts) {
+        int numFailed = 0;
+        BatchAnalysisExecutor batchAnalysisExecutor = new BatchAnalysisExecutor(batchThreads, BatchAnalysisExecutor.availableHeap());
+        try {
+            for (Path analysisScript : analysisScripts) {
+                Analysis analysis;
+                OutputSettings outputSettings;
+                try {
+                    analysis = analysisParser.parseAnalysis(analysisScript);
+                    outputSettings = analysisParser.parseOutputSettings(analysisScript);
+                } catch (Exception e) {
+                    logger.error("Unable to parse analysis {}", analysisScript, e);
+                    numFailed++;
+                    continue;
+                }
+                long estimatedHeap = BatchAnalysisExecutor.estimateHeap(analysis.getVcfPath(), analysis.getAnalysisMode(), analysisThreads);
+                batchAnalysisExecutor.submit(analysisScript.toString(), estimatedHeap, () -> runAnalysisAndWriteResults(analysis, outputSettings));
+            }
+        } finally {
+            batchAnalysisExecutor.close();
+        }
+        numFailed += batchAnalysisExecutor.getNumFailed();
+        if (numFailed > 0) {
+            logger.error("{} of {} analyses failed - check the log for details", numFailed, analysisScripts.size());
+        }
+    }
+
     private CommandLine parseCommandLineOptions(String[] args) {
         CommandLineParser parser = new DefaultParser();
         try {
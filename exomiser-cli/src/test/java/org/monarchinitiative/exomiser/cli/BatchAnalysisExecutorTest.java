@@ -0,0 +1,142 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.cli;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.analysis.AnalysisMode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class BatchAnalysisExecutorTest {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private static class ConcurrencyCounter {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+
+        Runnable job() {
+            return () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                completed.incrementAndGet();
+            };
+        }
+    }
+
+    @Test
+    void throwsExceptionWithZeroThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchAnalysisExecutor(0, MEGABYTE));
+    }
+
+    @Test
+    void runsAllAnalysesLimitedByThreads() {
+        ConcurrencyCounter counter = new ConcurrencyCounter();
+        try (BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 1000 * MEGABYTE)) {
+            for (int i = 0; i < 6; i++) {
+                instance.submit("job-" + i, MEGABYTE, counter.job());
+            }
+        }
+        assertThat(counter.completed.get(), equalTo(6));
+        assertThat(counter.maxRunning.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    void runsAnalysesLimitedByHeapBudget() {
+        ConcurrencyCounter counter = new ConcurrencyCounter();
+        try (BatchAnalysisExecutor instance = new BatchAnalysisExecutor(4, 100 * MEGABYTE)) {
+            for (int i = 0; i < 4; i++) {
+                instance.submit("job-" + i, 60 * MEGABYTE, counter.job());
+            }
+        }
+        assertThat(counter.completed.get(), equalTo(4));
+        assertThat(counter.maxRunning.get(), equalTo(1));
+    }
+
+    @Test
+    void runsAnalysisLargerThanHeapBudget() {
+        ConcurrencyCounter counter = new ConcurrencyCounter();
+        try (BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 100 * MEGABYTE)) {
+            instance.submit("huge", 1000 * MEGABYTE, counter.job());
+        }
+        assertThat(counter.completed.get(), equalTo(1));
+    }
+
+    @Test
+    void failedAnalysisDoesNotStopBatch() {
+        ConcurrencyCounter counter = new ConcurrencyCounter();
+        BatchAnalysisExecutor instance = new BatchAnalysisExecutor(2, 100 * MEGABYTE);
+        instance.submit("fails", MEGABYTE, () -> {
+            throw new IllegalStateException("Boom!");
+        });
+        instance.submit("passes", MEGABYTE, counter.job());
+        instance.close();
+
+        assertThat(instance.getNumFailed(), equalTo(1));
+        assertThat(counter.completed.get(), equalTo(1));
+    }
+
+    @Test
+    void estimateHeapFullModeIsGreaterThanPassOnly() throws Exception {
+        Path vcfPath = Files.createTempFile("test", ".vcf");
+        try {
+            Files.write(vcfPath, new byte[1024]);
+            long passOnly = BatchAnalysisExecutor.estimateHeap(vcfPath, AnalysisMode.PASS_ONLY, 1);
+            long full = BatchAnalysisExecutor.estimateHeap(vcfPath, AnalysisMode.FULL, 1);
+            assertThat(passOnly, greaterThan(256 * MEGABYTE));
+            assertThat(full, greaterThan(passOnly));
+        } finally {
+            Files.delete(vcfPath);
+        }
+    }
+
+    @Test
+    void estimateHeapMissingFile() {
+        long estimate = BatchAnalysisExecutor.estimateHeap(Paths.get("wibble.vcf"), AnalysisMode.FULL, 1);
+        assertThat(estimate, equalTo(320 * MEGABYTE));
+    }
+
+    @Test
+    void estimateHeapIncludesHeapOfEachAnalysisThread() {
+        Path vcfPath = Paths.get("wibble.vcf");
+        long singleThreaded = BatchAnalysisExecutor.estimateHeap(vcfPath, AnalysisMode.FULL, 1);
+        long fourThreads = BatchAnalysisExecutor.estimateHeap(vcfPath, AnalysisMode.FULL, 4);
+        assertThat(fourThreads - singleThreaded, equalTo(3 * 64 * MEGABYTE));
+    }
+}
@@ -20,6 +20,8 @@
 
 package org.monarchinitiative.exomiser.core.analysis;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import org.monarchinitiative.exomiser.core.analysis.util.*;
 import org.monarchinitiative.exomiser.core.filters.*;
@@ -34,11 +36,10 @@
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -60,15 +61,61 @@ abstract class AbstractAnalysisRunner implements AnalysisRunner {
     protected final VariantFilterRunner variantFilterRunner;
     private final GeneFilterRunner geneFilterRunner;
 
+    // number of threads used to load and filter variants. A value of 1 will run these steps in the calling thread.
+    private final int threads;
+    private final VariantShardMode shardMode;
+    // maximum number of VCF records in a shard
+    private final int shardSize;
+
     public AbstractAnalysisRunner(GenomeAnalysisService genomeAnalysisService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner) {
+        this(genomeAnalysisService, variantFilterRunner, geneFilterRunner, 1);
+    }
+
+    /**
+     * @param threads the number of threads to use when loading and filtering variants. Must be greater than zero.
+     * @since 12.1.0
+     */
+    public AbstractAnalysisRunner(GenomeAnalysisService genomeAnalysisService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner, int threads) {
+        this(genomeAnalysisService, variantFilterRunner, geneFilterRunner, threads, VariantShardMode.RECORDS);
+    }
+
+    /**
+     * @param threads   the number of threads to use when loading and filtering variants. Must be greater than zero.
+     * @param shardMode how the variants are partitioned for loading and filtering. Anything other than
+     *                  {@link VariantShardMode#RECORDS} will process each shard independently, even when using a single
+     *                  thread.
+     * @since 12.1.0
+     */
+    public AbstractAnalysisRunner(GenomeAnalysisService genomeAnalysisService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner, int threads, VariantShardMode shardMode) {
+        this(genomeAnalysisService, variantFilterRunner, geneFilterRunner, threads, shardMode, VariantShardIterator.DEFAULT_SHARD_SIZE);
+    }
+
+    /**
+     * @param shardSize the maximum number of VCF records in a shard. Must be greater than zero.
+     */
+    AbstractAnalysisRunner(GenomeAnalysisService genomeAnalysisService, VariantFilterRunner variantFilterRunner, GeneFilterRunner geneFilterRunner, int threads, VariantShardMode shardMode, int shardSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than zero, but was " + threads);
+        }
         this.genomeAnalysisService = genomeAnalysisService;
 
         this.variantFilterRunner = variantFilterRunner;
         this.geneFilterRunner = geneFilterRunner;
+        this.threads = threads;
+        this.shardMode = Objects.requireNonNull(shardMode);
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be greater than zero, but was " + shardSize);
+        }
+        this.shardSize = shardSize;
     }
 
     @Override
     public AnalysisResults run(Analysis analysis) {
+        return run(analysis, new FilterStats());
+    }
+
+    // package-private so that the tests can compare the filter stats of differently configured runners
+    AnalysisResults run(Analysis analysis, FilterStats filterStats) {
         logger.info("Starting analysis");
         logger.info("Using genome assembly {}", analysis.getGenomeAssembly());
         //all the sample-related bits, might be worth encapsulating
@@ -91,7 +138,6 @@ public AnalysisResults run(Analysis analysis) {
         //soo many comments - this is a bad sign that this is too complicated.
         Map<String, Gene> allGenes = makeKnownGenes();
         List<VariantEvaluation> variantEvaluations = new ArrayList<>();
-        FilterStats filterStats = new FilterStats();
 //        some kind of multi-map with ordered duplicate keys would allow for easy grouping of steps for running the groups together.
         List<List<AnalysisStep>> analysisStepGroups = analysis.getAnalysisStepsGroupedByFunction();
         boolean variantsLoaded = false;
@@ -165,24 +211,95 @@ private List<VariantEvaluation> loadAndFilterVariants(Path vcfPath, SampleIdenti
 
         List<VariantEvaluation> filteredVariants;
         VariantLogger variantLogger = new VariantLogger();
-        try (Stream<VariantEvaluation> variantStream = loadVariants(vcfPath)) {
-            filteredVariants = variantStream
-                    .peek(variantLogger.logLoadedAndPassedVariants())
-                    .filter(isObservedInProband(probandSample))
-                    .map(reassignNonCodingVariantToBestGeneInJannovarAnnotations(geneReassigner))
-                    .map(reassignNonCodingVariantToBestGeneInTad(geneReassigner))
-                    //TODO: is this a good idea here? This could seriously impact performance.
-                    // An alternative would be in a VariantFilterDataProvider
-                    .map(flagWhiteListedVariants())
-                    .filter(isAssociatedWithKnownGene(allGenes))
-                    .filter(runVariantFilters(variantFilters, filterStats))
-                    .peek(variantLogger.countPassedVariant())
-                    .collect(toList());
+        Function<Stream<VariantEvaluation>, Stream<VariantEvaluation>> variantPreparer = variantStream -> variantStream
+                .peek(variantLogger.logLoadedAndPassedVariants())
+                .filter(isObservedInProband(probandSample))
+                .map(reassignNonCodingVariantToBestGeneInJannovarAnnotations(geneReassigner))
+                .map(reassignNonCodingVariantToBestGeneInTad(geneReassigner))
+                //TODO: is this a good idea here? This could seriously impact performance.
+                // An alternative would be in a VariantFilterDataProvider
+                .map(flagWhiteListedVariants())
+                .filter(isAssociatedWithKnownGene(allGenes));
+
+        if (threads > 1 || shardMode != VariantShardMode.RECORDS) {
+            BiFunction<List<VariantEvaluation>, FilterStats, List<VariantEvaluation>> shardFilterer = (shardVariants, stats) -> {
+                List<VariantEvaluation> passedVariants = runVariantFiltersOverShard(shardVariants, variantFilters, stats);
+                passedVariants.forEach(variantLogger.countPassedVariant());
+                return passedVariants;
+            };
+            VariantShardProcessor variantShardProcessor = new VariantShardProcessor(variantPreparer, shardFilterer);
+            filteredVariants = loadAndFilterVariantsInShards(vcfPath, variantShardProcessor, filterStats);
+        } else {
+            try (Stream<VariantEvaluation> variantStream = loadVariants(vcfPath)) {
+                filteredVariants = variantPreparer.apply(variantStream)
+                        .filter(runVariantFilters(variantFilters, filterStats))
+                        .peek(variantLogger.countPassedVariant())
+                        .collect(toList());
+            }
         }
         variantLogger.logResults();
         return filteredVariants;
     }
 
+    /**
+     * Splits the VCF into consecutive shards of {@link VariantContext}, as defined by the {@link VariantShardMode}, which
+     * are annotated and filtered on a pool of worker threads. Shards are submitted in VCF order and their results are
+     * collected from the head of the queue, so the returned variants and the {@link FilterStats} are identical to those
+     * of the single-threaded path regardless of the order in which the shards complete. The number of shards in-flight
+     * is bounded in order to limit the number of unfiltered variants held in memory at any one time.
+     */
+    private List<VariantEvaluation> loadAndFilterVariantsInShards(Path vcfPath, VariantShardProcessor variantShardProcessor, FilterStats filterStats) {
+        logger.info("Loading and filtering variants in {} shards using {} threads", shardMode, threads);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("variant-worker-%d").setDaemon(true).build();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, threadFactory);
+        int maxShardsInFlight = threads * 2;
+
+        List<VariantEvaluation> filteredVariants = new ArrayList<>();
+        Deque<Future<VariantShardResult>> shardResults = new ArrayDeque<>(maxShardsInFlight);
+        try (Stream<VariantContext> variantContextStream = VcfFiles.readVariantContexts(vcfPath)) {
+            Iterator<List<VariantContext>> shardIterator = new VariantShardIterator(variantContextStream.iterator(), shardMode, shardSize, VariantShardIterator.DEFAULT_WINDOW_SIZE);
+            while (shardIterator.hasNext()) {
+                List<VariantContext> shard = shardIterator.next();
+                shardResults.add(executorService.submit(() -> processShard(shard, variantShardProcessor)));
+                if (shardResults.size() >= maxShardsInFlight) {
+                    collectShardResult(shardResults.remove(), filteredVariants, filterStats);
+                }
+            }
+            while (!shardResults.isEmpty()) {
+                collectShardResult(shardResults.remove(), filteredVariants, filterStats);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return filteredVariants;
+    }
+
+    private VariantShardResult processShard(List<VariantContext> shard, VariantShardProcessor variantShardProcessor) {
+        FilterStats shardFilterStats = new FilterStats();
+        Stream<VariantEvaluation> variantStream = shard.stream()
+                .flatMap(variantContext -> genomeAnalysisService.createVariantEvaluations(variantContext));
+        List<VariantEvaluation> preparedVariants = variantShardProcessor.variantPreparer.apply(variantStream).collect(toList());
+        List<VariantEvaluation> shardVariants = variantShardProcessor.shardFilterer.apply(preparedVariants, shardFilterStats);
+        return new VariantShardResult(shardVariants, shardFilterStats);
+    }
+
+    private void collectShardResult(Future<VariantShardResult> shardResultFuture, List<VariantEvaluation> filteredVariants, FilterStats filterStats) {
+        try {
+            VariantShardResult shardResult = shardResultFuture.get();
+            filteredVariants.addAll(shardResult.variantEvaluations);
+            filterStats.addAll(shardResult.filterStats);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst loading variants", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Unable to load variants", cause);
+        }
+    }
+
     private GeneReassigner createNonCodingVariantGeneReassigner(Analysis analysis, Map<String, Gene> allGenes) {
         ChromosomalRegionIndex<TopologicalDomain> tadIndex = genomeAnalysisService.getTopologicallyAssociatedDomainIndex();
         PriorityType mainPriorityType = analysis.getMainPrioritiserType();
@@ -201,18 +318,15 @@ private List<VariantFilter> getVariantFilterSteps(List<AnalysisStep> analysisSte
     }
 
     private Stream<VariantEvaluation> loadVariants(Path vcfPath) {
-        //WARNING!!! THIS IS NOT THREADSAFE DO NOT USE PARALLEL STREAMS
+        //WARNING!!! DO NOT USE PARALLEL STREAMS HERE - the order of the variants must be maintained. Concurrent loading
+        //is handled by loadAndFilterVariantsInShards which re-assembles the variants in their original VCF order.
         return genomeAnalysisService.createVariantEvaluations(vcfPath);
     }
 
     private Predicate<VariantEvaluation> isObservedInProband(SampleIdentifier probandSample) {
-        return variantEvaluation -> {
-            // need a nicer API for this.
-            SampleGenotype probandGenotype = variantEvaluation.getSampleGenotypes().get(probandSample.getId());
-            // a possible NPE here, but this really shouldn't happen, as the samples and pedigree should have been checked previously
-            // only add VariantEvaluation where the proband has an ALT allele (OTHER_ALT should be present as an ALT in another VariantEvaluation)
-            return probandGenotype.getCalls().contains(AlleleCall.ALT);
-        };
+        String probandId = probandSample.getId();
+        // only add VariantEvaluation where the proband has an ALT allele (OTHER_ALT should be present as an ALT in another VariantEvaluation)
+        return variantEvaluation -> variantEvaluation.getPackedSampleGenotypes().hasAltCall(probandId);
     }
 
     private Function<VariantEvaluation, VariantEvaluation> reassignNonCodingVariantToBestGeneInJannovarAnnotations(GeneReassigner geneReassigner) {
@@ -261,6 +375,20 @@ private Function<VariantEvaluation, VariantEvaluation> flagWhiteListedVariants()
      */
     abstract Predicate<VariantEvaluation> runVariantFilters(List<VariantFilter> variantFilters, FilterStats filterStats);
 
+    /**
+     * Runs the variant filters over the variants of a shard, returning those to be kept in their original order. This
+     * allows the concrete runner to run the filters over the shard in blocks, so that the data for a
+     * {@link VariantFilterDataProvider} can be looked-up in one batch for the variants reaching it. By default each
+     * variant is run through {@link #runVariantFilters(List, FilterStats)} in turn.
+     *
+     * @since 12.1.0
+     */
+    List<VariantEvaluation> runVariantFiltersOverShard(List<VariantEvaluation> variantEvaluations, List<VariantFilter> variantFilters, FilterStats filterStats) {
+        return variantEvaluations.stream()
+                .filter(runVariantFilters(variantFilters, filterStats))
+                .collect(toList());
+    }
+
     private void assignVariantsToGenes(List<VariantEvaluation> variantEvaluations, Map<String, Gene> allGenes) {
         for (VariantEvaluation variantEvaluation : variantEvaluations) {
             Gene gene = allGenes.get(variantEvaluation.getGeneSymbol());
@@ -352,6 +480,34 @@ private void collectFilterStatsForFilter(Filter filter, List<Gene> genes, Filter
         }
     }
 
+    /**
+     * Holds the steps applied to each shard of the VCF file by the worker threads. These are the same steps as those of
+     * the single-threaded path, split so that the variants of a shard can be collected between them.
+     */
+    private static class VariantShardProcessor {
+        private final Function<Stream<VariantEvaluation>, Stream<VariantEvaluation>> variantPreparer;
+        private final BiFunction<List<VariantEvaluation>, FilterStats, List<VariantEvaluation>> shardFilterer;
+
+        private VariantShardProcessor(Function<Stream<VariantEvaluation>, Stream<VariantEvaluation>> variantPreparer, BiFunction<List<VariantEvaluation>, FilterStats, List<VariantEvaluation>> shardFilterer) {
+            this.variantPreparer = variantPreparer;
+            this.shardFilterer = shardFilterer;
+        }
+    }
+
+    /**
+     * Data class holding the variants passing the initial load and filter step for a shard of the VCF file together with
+     * the filter results for that shard.
+     */
+    private static class VariantShardResult {
+        private final List<VariantEvaluation> variantEvaluations;
+        private final FilterStats filterStats;
+
+        private VariantShardResult(List<VariantEvaluation> variantEvaluations, FilterStats filterStats) {
+            this.variantEvaluations = variantEvaluations;
+            this.filterStats = filterStats;
+        }
+    }
+
     /**
      * Utility class for logging numbers of processed and passed variants.
      */
@@ -0,0 +1,260 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.analysis;
+
+import com.google.common.base.Ticker;
+import org.monarchinitiative.exomiser.core.filters.FilterResult;
+import org.monarchinitiative.exomiser.core.filters.FilterType;
+import org.monarchinitiative.exomiser.core.filters.VariantFilter;
+import org.monarchinitiative.exomiser.core.filters.VariantFilterDataProvider;
+import org.monarchinitiative.exomiser.core.filters.VariantFilterRunner;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs a group of {@link VariantFilter} over a {@link VariantEvaluation}, stopping at the first failed filter, whilst
+ * learning the cheapest order in which to run them. The time taken and the number of variants failed by each filter
+ * are recorded as the variants are filtered and every {@code reorderInterval} variants the filters are re-ranked by
+ * their expected cost per failed variant (mean cost / failure rate), so that cheap, highly selective filters are run
+ * first. See {@link org.monarchinitiative.exomiser.core.filters.SparseVariantFilterRunner} for the reasoning behind
+ * this.
+ * <p>
+ * Only filters which commute are re-ordered, so whilst the order changes the number of filters run over a variant, it
+ * does not change whether or not that variant passes all of them. A {@link VariantFilterDataProvider} provides its own
+ * data, as do the filters which only read the fields of the variant, so these commute with each other. A frequency,
+ * known variant or pathogenicity filter which is not wrapped by a data provider reads the data provided for an earlier
+ * filter, so it keeps its position relative to every data provider.
+ * <p>
+ * The {@link FilterStats} count the result of each filter run. A variant failing more than one filter is therefore
+ * counted as failing whichever of these was run first, which can differ between runs. The filters are added to the
+ * {@link FilterStats} in the order supplied, so they are reported in the same order whatever the order they were run
+ * in. This class is not thread-safe, an instance should be used for a single stream of variants.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+class AdaptiveVariantFilterOrder {
+
+    static final int DEFAULT_REORDER_INTERVAL = 256;
+
+    private static final Set<FilterType> DATA_DEPENDENT_FILTER_TYPES = EnumSet.of(FilterType.FREQUENCY_FILTER, FilterType.KNOWN_VARIANT_FILTER, FilterType.PATHOGENICITY_FILTER);
+
+    private final List<VariantFilter> filters;
+    private final int reorderInterval;
+    private final Ticker ticker;
+    // mustPrecede[i][j] is true if filter i is before filter j in the input and they do not commute
+    private final boolean[][] mustPrecede;
+
+    // statistics are indexed by the original position of the filter
+    private final long[] nanos;
+    private final long[] runs;
+    private final long[] fails;
+
+    private int[] order;
+    private int untilReorder;
+
+    AdaptiveVariantFilterOrder(List<VariantFilter> filters) {
+        this(filters, DEFAULT_REORDER_INTERVAL, Ticker.systemTicker());
+    }
+
+    AdaptiveVariantFilterOrder(List<VariantFilter> filters, int reorderInterval, Ticker ticker) {
+        if (reorderInterval < 1) {
+            throw new IllegalArgumentException("Reorder interval must be greater than zero");
+        }
+        this.filters = new ArrayList<>(filters);
+        this.reorderInterval = reorderInterval;
+        this.ticker = ticker;
+        int numFilters = this.filters.size();
+        this.mustPrecede = new boolean[numFilters][numFilters];
+        for (int i = 0; i < numFilters; i++) {
+            for (int j = i + 1; j < numFilters; j++) {
+                mustPrecede[i][j] = !commute(this.filters.get(i), this.filters.get(j));
+            }
+        }
+        this.nanos = new long[numFilters];
+        this.runs = new long[numFilters];
+        this.fails = new long[numFilters];
+        this.order = new int[numFilters];
+        for (int i = 0; i < numFilters; i++) {
+            order[i] = i;
+        }
+        this.untilReorder = reorderInterval;
+    }
+
+    private static boolean commute(VariantFilter first, VariantFilter second) {
+        return !(readsProvidedData(first) && second instanceof VariantFilterDataProvider)
+                && !(first instanceof VariantFilterDataProvider && readsProvidedData(second));
+    }
+
+    private static boolean readsProvidedData(VariantFilter variantFilter) {
+        return !(variantFilter instanceof VariantFilterDataProvider) && DATA_DEPENDENT_FILTER_TYPES.contains(variantFilter.getFilterType());
+    }
+
+    /**
+     * Adds the filters to the {@link FilterStats} in the order in which they were supplied. This should be called
+     * before any variants are filtered so that the filters are reported in this order, rather than the order in which
+     * they happened to be run.
+     */
+    void addFiltersTo(FilterStats filterStats) {
+        for (VariantFilter filter : filters) {
+            filterStats.addFilter(filter.getFilterType());
+        }
+    }
+
+    /**
+     * Runs the filters over the variant in the current order until one of them fails.
+     *
+     * @return true if the variant passed all the filters.
+     */
+    boolean runFilters(VariantEvaluation variantEvaluation, VariantFilterRunner variantFilterRunner, FilterStats filterStats) {
+        for (int index : order) {
+            if (!variantEvaluation.passedFilters()) {
+                break;
+            }
+            long start = ticker.read();
+            FilterResult result = variantFilterRunner.run(filters.get(index), variantEvaluation);
+            nanos[index] += ticker.read() - start;
+            runs[index]++;
+            if (result.failed()) {
+                fails[index]++;
+            }
+            filterStats.addResult(result);
+        }
+        if (--untilReorder == 0) {
+            reorder();
+            untilReorder = reorderInterval;
+        }
+        return variantEvaluation.passedFilters();
+    }
+
+    /**
+     * Runs the filters over a list of variants in blocks of {@code reorderInterval} variants. Each filter is run over
+     * the variants of the block which passed the preceding filters before moving on to the next, so the data for a
+     * {@link VariantFilterDataProvider} is provided in a single batch for only those variants. The filters are re-ranked
+     * after each block.
+     *
+     * @return the variants which passed all the filters, in their original order.
+     */
+    List<VariantEvaluation> runFilters(List<VariantEvaluation> variantEvaluations, VariantFilterRunner variantFilterRunner, FilterStats filterStats) {
+        List<VariantEvaluation> passed = new ArrayList<>(variantEvaluations.size());
+        for (int start = 0; start < variantEvaluations.size(); start += reorderInterval) {
+            List<VariantEvaluation> block = variantEvaluations.subList(start, Math.min(start + reorderInterval, variantEvaluations.size()));
+            passed.addAll(runFiltersOverBlock(block, variantFilterRunner, filterStats));
+            untilReorder -= block.size();
+            if (untilReorder <= 0) {
+                reorder();
+                untilReorder = reorderInterval;
+            }
+        }
+        return passed;
+    }
+
+    private List<VariantEvaluation> runFiltersOverBlock(List<VariantEvaluation> block, VariantFilterRunner variantFilterRunner, FilterStats filterStats) {
+        List<VariantEvaluation> remaining = new ArrayList<>(block.size());
+        for (VariantEvaluation variantEvaluation : block) {
+            if (variantEvaluation.passedFilters()) {
+                remaining.add(variantEvaluation);
+            }
+        }
+        for (int index : order) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            VariantFilter filter = filters.get(index);
+            long start = ticker.read();
+            if (filter instanceof VariantFilterDataProvider) {
+                ((VariantFilterDataProvider) filter).provideVariantData(remaining);
+            }
+            List<VariantEvaluation> passedFilter = new ArrayList<>(remaining.size());
+            for (VariantEvaluation variantEvaluation : remaining) {
+                FilterResult result = variantFilterRunner.run(filter, variantEvaluation);
+                runs[index]++;
+                if (result.failed()) {
+                    fails[index]++;
+                }
+                filterStats.addResult(result);
+                if (variantEvaluation.passedFilters()) {
+                    passedFilter.add(variantEvaluation);
+                }
+            }
+            nanos[index] += ticker.read() - start;
+            remaining = passedFilter;
+        }
+        return remaining;
+    }
+
+    // Repeatedly picks the lowest ranked of the filters whose non-commuting predecessors have all been picked. Ties keep
+    // their current relative positions.
+    private void reorder() {
+        int numFilters = order.length;
+        double[] ranks = new double[numFilters];
+        for (int i = 0; i < numFilters; i++) {
+            ranks[i] = expectedCostPerFail(i);
+        }
+        boolean[] picked = new boolean[numFilters];
+        int[] ranked = new int[numFilters];
+        for (int position = 0; position < numFilters; position++) {
+            int best = -1;
+            for (int index : order) {
+                if (!picked[index] && predecessorsPicked(index, picked) && (best == -1 || ranks[index] < ranks[best])) {
+                    best = index;
+                }
+            }
+            picked[best] = true;
+            ranked[position] = best;
+        }
+        order = ranked;
+    }
+
+    private boolean predecessorsPicked(int index, boolean[] picked) {
+        for (int predecessor = 0; predecessor < index; predecessor++) {
+            if (mustPrecede[predecessor][index] && !picked[predecessor]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double expectedCostPerFail(int index) {
+        if (runs[index] == 0) {
+            // never run, so try it as early as possible to find out
+            return 0;
+        }
+        double meanCost = (double) nanos[index] / runs[index];
+        // add-one smoothing ensures that filters which have yet to fail a variant still have a finite rank
+        double failRate = (fails[index] + 1d) / (runs[index] + 2d);
+        return meanCost / failRate;
+    }
+
+    /**
+     * @return the filters in the order in which they will be run over the next variant.
+     */
+    List<VariantFilter> getFilterOrder() {
+        List<VariantFilter> current = new ArrayList<>(order.length);
+        for (int index : order) {
+            current.add(filters.get(index));
+        }
+        return current;
+    }
+}
@@ -185,7 +185,7 @@ private FrequencyDataProvider makeFrequencyDependentStep(VariantFilter filter) {
             throw new IllegalArgumentException("Frequency sources have not yet been defined. Add some frequency sources before defining the analysis steps.");
         }
         GenomeAnalysisService analysisService = getGenomeAnalysisService();
-        return new FrequencyDataProvider(analysisService, frequencySources, filter);
+        return new FrequencyDataProvider(analysisService, frequencySources, pathogenicitySources, filter);
     }
 
     private GenomeAnalysisService getGenomeAnalysisService() {
@@ -228,7 +228,7 @@ private PathogenicityDataProvider makePathogenicityDependentStep(PathogenicityFi
             throw new IllegalArgumentException("Pathogenicity sources have not yet been defined. Add some pathogenicity sources before defining the analysis steps.");
         }
         GenomeAnalysisService analysisService = getGenomeAnalysisService();
-        return new PathogenicityDataProvider(analysisService, pathogenicitySources, pathogenicityFilter);
+        return new PathogenicityDataProvider(analysisService, frequencySources, pathogenicitySources, pathogenicityFilter);
     }
 
     public AnalysisBuilder addPriorityScoreFilter(PriorityType priorityType, float minPriorityScore) {
@@ -29,6 +29,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -50,11 +51,29 @@ public class AnalysisFactory {
     private final PriorityFactory priorityFactory;
     private final OntologyService ontologyService;
 
-    @Autowired
+    private final int analysisThreads;
+    private final VariantShardMode variantShardMode;
+
     public AnalysisFactory(GenomeAnalysisServiceProvider genomeAnalysisServiceProvider, PriorityFactory priorityFactory, OntologyService ontologyService) {
+        this(genomeAnalysisServiceProvider, priorityFactory, ontologyService, 1, VariantShardMode.RECORDS);
+    }
+
+    /**
+     * @param analysisThreads  number of threads used by the {@link AnalysisRunner} to load, annotate and filter the
+     *                         variants of a sample. This is configured using the {@code exomiser.analysis.threads}
+     *                         property and defaults to a single thread.
+     * @param variantShardMode how the variants of a sample are partitioned between these threads. This is configured
+     *                         using the {@code exomiser.analysis.shard-mode} property and defaults to
+     *                         {@link VariantShardMode#RECORDS}.
+     * @since 12.1.0
+     */
+    @Autowired
+    public AnalysisFactory(GenomeAnalysisServiceProvider genomeAnalysisServiceProvider, PriorityFactory priorityFactory, OntologyService ontologyService, @Value("${exomiser.analysis.threads:1}") int analysisThreads, @Value("${exomiser.analysis.shard-mode:RECORDS}") VariantShardMode variantShardMode) {
         this.genomeAnalysisServiceProvider = genomeAnalysisServiceProvider;
         this.priorityFactory = priorityFactory;
         this.ontologyService = ontologyService;
+        this.analysisThreads = analysisThreads;
+        this.variantShardMode = variantShardMode;
     }
 
     public AnalysisRunner getAnalysisRunner(GenomeAssembly genomeAssembly, AnalysisMode analysisMode) {
@@ -65,11 +84,11 @@ public AnalysisRunner getAnalysisRunner(GenomeAssembly genomeAssembly, AnalysisM
 
         switch (analysisMode) {
             case FULL:
-                return new SimpleAnalysisRunner(genomeAnalysisService);
+                return new SimpleAnalysisRunner(genomeAnalysisService, analysisThreads, variantShardMode);
             case PASS_ONLY:
             default:
                 //this guy takes up the least RAM
-                return new PassOnlyAnalysisRunner(genomeAnalysisService);
+                return new PassOnlyAnalysisRunner(genomeAnalysisService, analysisThreads, variantShardMode);
         }
     }
 
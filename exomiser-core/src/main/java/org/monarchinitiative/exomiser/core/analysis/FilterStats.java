@@ -48,6 +48,37 @@ synchronized void addResult(FilterResult result) {
         filterCounters.put(filterType, counter);
     }
 
+    /**
+     * Adds the filter without any results, so that it is reported in the order in which it was added rather than the
+     * order in which its first result was added.
+     *
+     * @param filterType the type of the filter to be reported
+     * @since 12.1.0
+     */
+    synchronized void addFilter(FilterType filterType) {
+        filtersRun.add(filterType);
+        filterCounters.putIfAbsent(filterType, new FilterCounter());
+    }
+
+    /**
+     * Adds the pass and fail counts of another {@link FilterStats} to this one. Filters not already seen are appended in
+     * the order in which they were run in the other instance, so merging the results of consecutive chunks of variants
+     * in order gives the same result as having added them all to a single instance.
+     *
+     * @param other the {@link FilterStats} to be merged into this instance
+     * @since 12.1.0
+     */
+    synchronized void addAll(FilterStats other) {
+        for (FilterType filterType : other.filtersRun) {
+            filtersRun.add(filterType);
+            FilterCounter otherCounter = other.filterCounters.get(filterType);
+            FilterCounter counter = filterCounters.getOrDefault(filterType, new FilterCounter());
+            counter.passCount += otherCounter.passCount;
+            counter.failCount += otherCounter.failCount;
+            filterCounters.put(filterType, counter);
+        }
+    }
+
     int getPassCountForFilter(FilterType filterType) {
         FilterCounter filterCounter = filterCounters.get(filterType);
         return filterCounter == null ? 0 : filterCounter.getPassCount();
@@ -20,7 +20,6 @@
 
 package org.monarchinitiative.exomiser.core.analysis;
 
-import org.monarchinitiative.exomiser.core.filters.FilterResult;
 import org.monarchinitiative.exomiser.core.filters.SimpleGeneFilterRunner;
 import org.monarchinitiative.exomiser.core.filters.SparseVariantFilterRunner;
 import org.monarchinitiative.exomiser.core.filters.VariantFilter;
@@ -46,6 +45,18 @@ class PassOnlyAnalysisRunner extends AbstractAnalysisRunner {
         super(genomeAnalysisService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner());
     }
 
+    PassOnlyAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads) {
+        super(genomeAnalysisService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), threads);
+    }
+
+    PassOnlyAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads, VariantShardMode shardMode) {
+        super(genomeAnalysisService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), threads, shardMode);
+    }
+
+    PassOnlyAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads, VariantShardMode shardMode, int shardSize) {
+        super(genomeAnalysisService, new SparseVariantFilterRunner(), new SimpleGeneFilterRunner(), threads, shardMode, shardSize);
+    }
+
     @Override
     protected Predicate<VariantEvaluation> isAssociatedWithKnownGene(Map<String, Gene> genes) {
         return variantEvaluation -> {
@@ -61,16 +72,20 @@ protected Predicate<VariantEvaluation> isAssociatedWithKnownGene(Map<String, Gen
 
     @Override
     protected Predicate<VariantEvaluation> runVariantFilters(List<VariantFilter> variantFilters, FilterStats filterStats) {
-        return variantEvaluation -> {
-            //loop through the filters and only run if the variantEvaluation has passed all prior filters
-            for (VariantFilter filter : variantFilters) {
-                if (variantEvaluation.passedFilters()) {
-                    FilterResult result = variantFilterRunner.run(filter, variantEvaluation);
-                    filterStats.addResult(result);
-                }
-            }
-            return variantEvaluation.passedFilters();
-        };
+        //only run a filter if the variantEvaluation has passed all prior filters, so the filters are run in the order
+        //learned to be cheapest for this stream of variants. This doesn't change which variants pass.
+        AdaptiveVariantFilterOrder filterOrder = new AdaptiveVariantFilterOrder(variantFilters);
+        filterOrder.addFiltersTo(filterStats);
+        return variantEvaluation -> filterOrder.runFilters(variantEvaluation, variantFilterRunner, filterStats);
+    }
+
+    @Override
+    List<VariantEvaluation> runVariantFiltersOverShard(List<VariantEvaluation> variantEvaluations, List<VariantFilter> variantFilters, FilterStats filterStats) {
+        //the filters are run over blocks of the shard, so that the data for each data provider is looked-up in one go
+        //for only those variants which have passed the filters run before it
+        AdaptiveVariantFilterOrder filterOrder = new AdaptiveVariantFilterOrder(variantFilters);
+        filterOrder.addFiltersTo(filterStats);
+        return filterOrder.runFilters(variantEvaluations, variantFilterRunner, filterStats);
     }
 
     @Override
@@ -24,6 +24,7 @@
 import org.monarchinitiative.exomiser.core.filters.SimpleGeneFilterRunner;
 import org.monarchinitiative.exomiser.core.filters.SimpleVariantFilterRunner;
 import org.monarchinitiative.exomiser.core.filters.VariantFilter;
+import org.monarchinitiative.exomiser.core.filters.VariantFilterDataProvider;
 import org.monarchinitiative.exomiser.core.genome.GenomeAnalysisService;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
@@ -43,6 +44,18 @@ class SimpleAnalysisRunner extends AbstractAnalysisRunner {
         super(genomeAnalysisService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner());
     }
 
+    SimpleAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads) {
+        super(genomeAnalysisService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner(), threads);
+    }
+
+    SimpleAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads, VariantShardMode shardMode) {
+        super(genomeAnalysisService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner(), threads, shardMode);
+    }
+
+    SimpleAnalysisRunner(GenomeAnalysisService genomeAnalysisService, int threads, VariantShardMode shardMode, int shardSize) {
+        super(genomeAnalysisService, new SimpleVariantFilterRunner(), new SimpleGeneFilterRunner(), threads, shardMode, shardSize);
+    }
+
     @Override
     protected Predicate<VariantEvaluation> isAssociatedWithKnownGene(Map<String, Gene> genes) {
         return variantEvaluation -> genes.containsKey(variantEvaluation.getGeneSymbol());
@@ -60,6 +73,20 @@ protected Predicate<VariantEvaluation> runVariantFilters(List<VariantFilter> var
         };
     }
 
+    @Override
+    List<VariantEvaluation> runVariantFiltersOverShard(List<VariantEvaluation> variantEvaluations, List<VariantFilter> variantFilters, FilterStats filterStats) {
+        //every filter is run over every variant, so the data for each data provider is looked-up for the whole shard at once
+        for (VariantFilter filter : variantFilters) {
+            if (filter instanceof VariantFilterDataProvider) {
+                ((VariantFilterDataProvider) filter).provideVariantData(variantEvaluations);
+            }
+            for (VariantEvaluation variantEvaluation : variantEvaluations) {
+                filterStats.addResult(variantFilterRunner.run(filter, variantEvaluation));
+            }
+        }
+        return variantEvaluations;
+    }
+
     @Override
     protected List<VariantEvaluation> getFinalVariantList(List<VariantEvaluation> variants) {
         return variants;
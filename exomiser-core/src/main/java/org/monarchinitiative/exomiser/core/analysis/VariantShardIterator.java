@@ -0,0 +1,100 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Partitions a stream of {@link VariantContext} into consecutive shards according to the {@link VariantShardMode}.
+ * Shards are returned in the same order as the input so that the results of processing them independently can be
+ * merged back into the original order. No shard holds more than the shard size number of records, whatever the mode,
+ * so a contig or window with more records than this is split into several consecutive shards.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+class VariantShardIterator implements Iterator<List<VariantContext>> {
+
+    static final int DEFAULT_SHARD_SIZE = 10_000;
+    static final int DEFAULT_WINDOW_SIZE = 10_000_000;
+
+    private final PeekingIterator<VariantContext> variantContexts;
+    private final VariantShardMode shardMode;
+    private final int shardSize;
+    private final int windowSize;
+
+    VariantShardIterator(Iterator<VariantContext> variantContexts, VariantShardMode shardMode) {
+        this(variantContexts, shardMode, DEFAULT_SHARD_SIZE, DEFAULT_WINDOW_SIZE);
+    }
+
+    VariantShardIterator(Iterator<VariantContext> variantContexts, VariantShardMode shardMode, int shardSize, int windowSize) {
+        this.variantContexts = Iterators.peekingIterator(variantContexts);
+        this.shardMode = Objects.requireNonNull(shardMode);
+        if (shardSize < 1 || windowSize < 1) {
+            throw new IllegalArgumentException("Shard and window sizes must be greater than zero");
+        }
+        this.shardSize = shardSize;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return variantContexts.hasNext();
+    }
+
+    @Override
+    public List<VariantContext> next() {
+        if (!variantContexts.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        VariantContext first = variantContexts.next();
+        List<VariantContext> shard = new ArrayList<>();
+        shard.add(first);
+        while (variantContexts.hasNext() && shard.size() < shardSize && isInShard(first, variantContexts.peek())) {
+            shard.add(variantContexts.next());
+        }
+        return shard;
+    }
+
+    private boolean isInShard(VariantContext first, VariantContext next) {
+        switch (shardMode) {
+            case CONTIG:
+                return first.getContig().equals(next.getContig());
+            case WINDOW:
+                return first.getContig().equals(next.getContig()) && window(first) == window(next);
+            case RECORDS:
+            default:
+                return true;
+        }
+    }
+
+    private int window(VariantContext variantContext) {
+        return variantContext.getStart() / windowSize;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+/**
+ * Specifies how the variants of a sample are partitioned into shards for loading, annotating and filtering when
+ * running an {@link Analysis}. Each shard is processed independently of the others, with the results being merged in
+ * their original VCF order before the genes are scored, so the choice of mode has no effect on the final results.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public enum VariantShardMode {
+
+    /**
+     * Consecutive runs of a fixed number of VCF records, irrespective of their contig or position. This is the default.
+     */
+    RECORDS,
+    /**
+     * Shards never span more than one contig. Contigs with more records than the shard size are split into several
+     * shards, so this bounds the number of unfiltered variants held in memory in the same way as {@link #RECORDS}.
+     */
+    CONTIG,
+    /**
+     * Shards never span more than one fixed-size genomic window within a contig. As with {@link #CONTIG}, windows with
+     * more records than the shard size are split into several shards.
+     */
+    WINDOW
+}
@@ -22,9 +22,8 @@
 
 import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.*;
-import org.monarchinitiative.exomiser.core.model.AlleleCall;
+import org.monarchinitiative.exomiser.core.model.PackedSampleGenotypes;
 import org.monarchinitiative.exomiser.core.model.Pedigree;
-import org.monarchinitiative.exomiser.core.model.SampleGenotype;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.slf4j.Logger;
@@ -168,17 +167,13 @@ private List<GenotypeCalls> buildGenotypeCalls(List<VariantEvaluation> variantEv
             ChromosomeType chromosomeType = toChromosomeType(variantEvaluation.getChromosome());
             builder.setChromType(chromosomeType);
 
-            //This could be moved into the VariantFactory and a getSampleGenotypes() method added to the VariantEvaluation
-            //then we can mostly discard the VariantContext, apart from writing out again...
-            Map<String, SampleGenotype> sampleGenotypes = variantEvaluation.getSampleGenotypes();
+            PackedSampleGenotypes sampleGenotypes = variantEvaluation.getPackedSampleGenotypes();
             logger.debug("Converting {} {} {}", variantEvaluation.getRef(), variantEvaluation.getAlt(), sampleGenotypes);
-            for (Map.Entry<String, SampleGenotype> entry : sampleGenotypes.entrySet()) {
-                String sampleName = entry.getKey();
-                SampleGenotype sampleGenotype = entry.getValue();
-
+            List<String> sampleNames = sampleGenotypes.getSampleNames();
+            for (int sampleIndex = 0; sampleIndex < sampleGenotypes.size(); sampleIndex++) {
                 GenotypeBuilder gtBuilder = new GenotypeBuilder();
-                for (AlleleCall alleleCall : sampleGenotype.getCalls()) {
-                    switch (alleleCall) {
+                for (int callIndex = 0; callIndex < sampleGenotypes.getPloidy(sampleIndex); callIndex++) {
+                    switch (sampleGenotypes.getAlleleCall(sampleIndex, callIndex)) {
                         case REF:
                             gtBuilder.getAlleleNumbers().add(Genotype.REF_CALL);
                             break;
@@ -194,7 +189,8 @@ private List<GenotypeCalls> buildGenotypeCalls(List<VariantEvaluation> variantEv
                     }
                 }
                 Genotype genotype = gtBuilder.build();
-                logger.debug("Converted {} {} to {}", sampleName, sampleGenotype, genotype);
+                String sampleName = sampleNames.get(sampleIndex);
+                logger.debug("Converted {} {} to {}", sampleName, sampleGenotypes.get(sampleIndex), genotype);
                 builder.getSampleToGenotype().put(sampleName, genotype);
             }
             result.add(builder.build());
@@ -20,7 +20,6 @@
 
 package org.monarchinitiative.exomiser.core.filters;
 
-import htsjdk.variant.variantcontext.VariantContext;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 
 /**
@@ -35,28 +34,12 @@ public class FailedVariantFilter implements VariantFilter {
     private static final FilterResult PASS = FilterResult.pass(FILTER_TYPE);
     private static final FilterResult FAIL = FilterResult.fail(FILTER_TYPE);
 
-    private enum VariantContextFilterState {
-        UNFILTERED, PASSED, FAILED
-    }
-
     @Override
     public FilterResult runFilter(VariantEvaluation variantEvaluation) {
-        VariantContextFilterState vcfFilterState = determineVariantContextState(variantEvaluation.getVariantContext());
-        if (vcfFilterState == VariantContextFilterState.PASSED || vcfFilterState == VariantContextFilterState.UNFILTERED) {
-            return PASS;
-        }
-        return FAIL;
-    }
-
-    private VariantContextFilterState determineVariantContextState(VariantContext variantContext) {
-        if (variantContext.filtersWereApplied()) {
-            if (variantContext.isNotFiltered()) {
-                return VariantContextFilterState.PASSED;
-            } else {
-                return VariantContextFilterState.FAILED;
-            }
+        if (variantEvaluation.isVcfFiltered()) {
+            return FAIL;
         }
-        return VariantContextFilterState.UNFILTERED;
+        return PASS;
     }
 
     @Override
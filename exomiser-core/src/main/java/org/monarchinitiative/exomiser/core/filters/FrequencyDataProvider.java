@@ -24,10 +24,15 @@
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Decorator implementation to provide variant frequency data to to the variant
  * just before it is needed by the decorated VariantFilter.
@@ -37,8 +42,20 @@
 public class FrequencyDataProvider extends AbstractFilterDataProvider {
 
     private final Set<FrequencySource> frequencySources;
+    private final Set<PathogenicitySource> pathogenicitySources;
 
     public FrequencyDataProvider(VariantDataService variantDataService, Set<FrequencySource> frequencySources, VariantFilter variantFilter) {
+        this(variantDataService, frequencySources, EnumSet.noneOf(PathogenicitySource.class), variantFilter);
+    }
+
+    /**
+     * Creates a {@link FrequencyDataProvider} which will also provide the default {@link PathogenicityData} for the
+     * {@code pathogenicitySources} from the same lookup, if these are not empty. A {@link PathogenicityDataProvider}
+     * further down the chain will then only need to add the scores from the optional sources, such as CADD.
+     *
+     * @since 12.1.0
+     */
+    public FrequencyDataProvider(VariantDataService variantDataService, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources, VariantFilter variantFilter) {
         super(variantDataService, variantFilter);
 
         if (frequencySources.isEmpty()) {
@@ -46,16 +63,57 @@ public FrequencyDataProvider(VariantDataService variantDataService, Set<Frequenc
         } else {
             this.frequencySources = EnumSet.copyOf(frequencySources);
         }
+        if (pathogenicitySources.isEmpty()) {
+            this.pathogenicitySources = EnumSet.noneOf(PathogenicitySource.class);
+        } else {
+            this.pathogenicitySources = EnumSet.copyOf(pathogenicitySources);
+        }
     }
 
     @Override
     public void provideVariantData(VariantEvaluation variantEvaluation) {
         //check there are no frequencies first - this may be genuine, or possibly the variant hasn't yet had the data added
         //this will cut down on trips to the database if multiple filters require frequency data.
-        if (!variantEvaluation.getFrequencyData().hasKnownFrequency()) {
+        if (!requiresData(variantEvaluation)) {
+            return;
+        }
+        if (pathogenicitySources.isEmpty()) {
             FrequencyData frequencyData = variantDataService.getVariantFrequencyData(variantEvaluation, frequencySources);
             variantEvaluation.setFrequencyData(frequencyData);
+            return;
+        }
+        if (!variantEvaluation.hasFrequencyAndPathogenicityData()) {
+            variantDataService.setVariantFrequencyAndPathogenicityData(variantEvaluation, frequencySources, pathogenicitySources);
+        }
+        // the optional pathogenicity sources are left for the pathogenicity step, so that they are only read for the
+        // variants which pass this one
+        variantDataService.addOptionalFrequencyData(variantEvaluation, frequencySources);
+    }
+
+    @Override
+    public void provideVariantData(List<VariantEvaluation> variantEvaluations) {
+        if (pathogenicitySources.isEmpty()) {
+            variantEvaluations.forEach(this::provideVariantData);
+            return;
+        }
+        List<VariantEvaluation> variantsRequiringData = variantEvaluations.stream()
+                .filter(this::requiresData)
+                .collect(toList());
+        List<VariantEvaluation> variantsRequiringDefaultData = variantsRequiringData.stream()
+                .filter(variantEvaluation -> !variantEvaluation.hasFrequencyAndPathogenicityData())
+                .collect(toList());
+        variantDataService.setVariantFrequencyAndPathogenicityData(variantsRequiringDefaultData, frequencySources, pathogenicitySources);
+        for (VariantEvaluation variantEvaluation : variantsRequiringData) {
+            variantDataService.addOptionalFrequencyData(variantEvaluation, frequencySources);
+        }
+    }
+
+    private boolean requiresData(VariantEvaluation variantEvaluation) {
+        if (variantEvaluation.hasCompleteFrequencyData()) {
+            return false;
         }
+        // the default data may have been read by a preceding pathogenicity step, without the optional frequency sources
+        return variantEvaluation.hasFrequencyAndPathogenicityData() || !variantEvaluation.getFrequencyData().hasKnownFrequency();
     }
 
 }
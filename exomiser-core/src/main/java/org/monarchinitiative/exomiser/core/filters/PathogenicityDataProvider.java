@@ -27,23 +27,45 @@
 
 import org.monarchinitiative.exomiser.core.genome.VariantDataService;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  *
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 public class PathogenicityDataProvider extends AbstractFilterDataProvider {
 
+    private final Set<FrequencySource> frequencySources;
     private final Set<PathogenicitySource> pathogenicitySources;
 
     public PathogenicityDataProvider(VariantDataService variantDataService, Set<PathogenicitySource> pathogenicitySources, VariantFilter variantFilter) {
+        this(variantDataService, EnumSet.noneOf(FrequencySource.class), pathogenicitySources, variantFilter);
+    }
+
+    /**
+     * Creates a {@link PathogenicityDataProvider} which will also provide the default {@link FrequencyData} for the
+     * {@code frequencySources} from the same lookup, if these are not empty. A {@link FrequencyDataProvider} further
+     * down the chain will then only need to add the frequencies from the optional LOCAL source.
+     *
+     * @since 12.1.0
+     */
+    public PathogenicityDataProvider(VariantDataService variantDataService, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources, VariantFilter variantFilter) {
         super(variantDataService, variantFilter);
 
+        if (frequencySources.isEmpty()) {
+            this.frequencySources = EnumSet.noneOf(FrequencySource.class);
+        } else {
+            this.frequencySources = EnumSet.copyOf(frequencySources);
+        }
         if (pathogenicitySources.isEmpty()) {
             this.pathogenicitySources = EnumSet.noneOf(PathogenicitySource.class);
         } else {
@@ -53,10 +75,46 @@ public PathogenicityDataProvider(VariantDataService variantDataService, Set<Path
 
     @Override
     public void provideVariantData(VariantEvaluation variantEvaluation) {
-        if (variantEvaluation.getPathogenicityData().isEmpty()) {
+        if (!requiresData(variantEvaluation)) {
+            return;
+        }
+        if (frequencySources.isEmpty()) {
             PathogenicityData pathData = variantDataService.getVariantPathogenicityData(variantEvaluation, pathogenicitySources);
             variantEvaluation.setPathogenicityData(pathData);
+            return;
+        }
+        if (!variantEvaluation.hasFrequencyAndPathogenicityData()) {
+            variantDataService.setVariantFrequencyAndPathogenicityData(variantEvaluation, frequencySources, pathogenicitySources);
+        }
+        // the optional frequency sources are left for the frequency step, so that they are only read for the variants
+        // which pass this one
+        variantDataService.addOptionalPathogenicityData(variantEvaluation, pathogenicitySources);
+    }
+
+    @Override
+    public void provideVariantData(List<VariantEvaluation> variantEvaluations) {
+        if (frequencySources.isEmpty()) {
+            variantEvaluations.forEach(this::provideVariantData);
+            return;
+        }
+        List<VariantEvaluation> variantsRequiringData = variantEvaluations.stream()
+                .filter(this::requiresData)
+                .collect(toList());
+        List<VariantEvaluation> variantsRequiringDefaultData = variantsRequiringData.stream()
+                .filter(variantEvaluation -> !variantEvaluation.hasFrequencyAndPathogenicityData())
+                .collect(toList());
+        variantDataService.setVariantFrequencyAndPathogenicityData(variantsRequiringDefaultData, frequencySources, pathogenicitySources);
+        for (VariantEvaluation variantEvaluation : variantsRequiringData) {
+            variantDataService.addOptionalPathogenicityData(variantEvaluation, pathogenicitySources);
+        }
+    }
+
+    private boolean requiresData(VariantEvaluation variantEvaluation) {
+        if (variantEvaluation.hasCompletePathogenicityData()) {
+            return false;
         }
+        // the default data may have been read by a preceding frequency step, without the optional pathogenicity sources
+        return variantEvaluation.hasFrequencyAndPathogenicityData() || variantEvaluation.getPathogenicityData().isEmpty();
     }
 
 }
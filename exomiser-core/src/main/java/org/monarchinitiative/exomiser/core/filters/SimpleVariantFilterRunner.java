@@ -46,6 +46,10 @@ public class SimpleVariantFilterRunner implements VariantFilterRunner {
 
     @Override
     public List<VariantEvaluation> run(VariantFilter filter, List<VariantEvaluation> variantEvaluations) {
+        if (filter instanceof VariantFilterDataProvider) {
+            // fetch the data for all the variants in one go, rather than one at a time as they are filtered
+            ((VariantFilterDataProvider) filter).provideVariantData(variantEvaluations);
+        }
         for (VariantEvaluation variantEvaluation : variantEvaluations) {
             run(filter, variantEvaluation);
         }
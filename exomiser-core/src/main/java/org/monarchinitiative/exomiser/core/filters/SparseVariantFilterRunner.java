@@ -56,6 +56,10 @@ public class SparseVariantFilterRunner implements VariantFilterRunner {
 
     @Override
     public List<VariantEvaluation> run(VariantFilter filter, List<VariantEvaluation> variantEvaluations) {
+        if (filter instanceof VariantFilterDataProvider) {
+            // fetch the data for the remaining variants in one go, rather than one at a time as they are filtered
+            ((VariantFilterDataProvider) filter).provideVariantData(passedFilteredVariants(variantEvaluations));
+        }
         for (VariantEvaluation variantEvaluation : variantEvaluations) {
             if (variantEvaluation.passedFilters()) {
                 run(filter, variantEvaluation);
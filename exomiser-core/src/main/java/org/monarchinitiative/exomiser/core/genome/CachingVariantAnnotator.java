@@ -0,0 +1,128 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.monarchinitiative.exomiser.core.model.AllelePosition;
+import org.monarchinitiative.exomiser.core.model.VariantAnnotation;
+
+import java.util.Objects;
+
+/**
+ * {@link VariantAnnotator} which holds the {@link VariantAnnotation} of recently seen alleles in a bounded in-memory
+ * cache, only delegating to the wrapped annotator for alleles not in the cache. Common variants occur in nearly every
+ * sample, so when a single instance is used for a batch of analyses, or by a long-running service, most of these are
+ * only annotated once.
+ * <p>
+ * The alleles are trimmed before lookup, in the same way as the {@link JannovarVariantAnnotator}, so that differently
+ * represented copies of an allele share the same entry. The {@link VariantAnnotation} is immutable so can be shared
+ * between analyses.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class CachingVariantAnnotator implements VariantAnnotator {
+
+    private final GenomeAssembly genomeAssembly;
+    private final VariantAnnotator variantAnnotator;
+    private final Cache<AnnotationKey, VariantAnnotation> cache;
+
+    /**
+     * @param genomeAssembly   the assembly of the alleles annotated by the variantAnnotator
+     * @param variantAnnotator the annotator to cache
+     * @param cacheSpec        a Guava {@link com.google.common.cache.CacheBuilderSpec} for the size and eviction policy
+     *                         of the cache e.g. 'maximumSize=100000,expireAfterAccess=1h'
+     */
+    public CachingVariantAnnotator(GenomeAssembly genomeAssembly, VariantAnnotator variantAnnotator, String cacheSpec) {
+        this.genomeAssembly = Objects.requireNonNull(genomeAssembly);
+        this.variantAnnotator = Objects.requireNonNull(variantAnnotator);
+        this.cache = CacheBuilder.from(cacheSpec).recordStats().build();
+    }
+
+    @Override
+    public VariantAnnotation annotate(String chr, int pos, String ref, String alt) {
+        AnnotationKey annotationKey = new AnnotationKey(genomeAssembly, chr, AllelePosition.trim(pos, ref, alt));
+        VariantAnnotation cached = cache.getIfPresent(annotationKey);
+        if (cached != null) {
+            return cached;
+        }
+        VariantAnnotation variantAnnotation = variantAnnotator.annotate(chr, pos, ref, alt);
+        cache.put(annotationKey, variantAnnotation);
+        return variantAnnotation;
+    }
+
+    public GenomeAssembly getGenomeAssembly() {
+        return genomeAssembly;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of hits, misses and evictions, from which the hit rate can be found.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats cacheStats = cache.stats();
+        return "CachingVariantAnnotator{" +
+                "genomeAssembly=" + genomeAssembly +
+                ", size=" + cache.size() +
+                ", requests=" + cacheStats.requestCount() +
+                ", hitRate=" + String.format("%.3f", cacheStats.hitRate()) +
+                ", evictions=" + cacheStats.evictionCount() +
+                '}';
+    }
+
+    private static class AnnotationKey {
+
+        private final GenomeAssembly genomeAssembly;
+        private final String chr;
+        private final AllelePosition allelePosition;
+
+        private AnnotationKey(GenomeAssembly genomeAssembly, String chr, AllelePosition allelePosition) {
+            this.genomeAssembly = genomeAssembly;
+            this.chr = chr;
+            this.allelePosition = allelePosition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AnnotationKey that = (AnnotationKey) o;
+            return genomeAssembly == that.genomeAssembly &&
+                    chr.equals(that.chr) &&
+                    allelePosition.equals(that.allelePosition);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(genomeAssembly, chr, allelePosition);
+        }
+    }
+}
@@ -28,8 +28,10 @@
 import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
+import org.monarchinitiative.exomiser.core.proto.JannovarProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,11 +51,23 @@ public class GeneFactory {
     private static final Logger logger = LoggerFactory.getLogger(GeneFactory.class);
 
     private final JannovarData jannovarData;
+    private final ChunkedJannovarData chunkedJannovarData;
 
     private Set<GeneIdentifier> geneIdentifiers;
 
     public GeneFactory(JannovarData jannovarData) {
         this.jannovarData = jannovarData;
+        this.chunkedJannovarData = null;
+    }
+
+    /**
+     * Creates the genes from the gene chunk of the {@link ChunkedJannovarData}, without loading the transcripts.
+     *
+     * @since 12.1.0
+     */
+    public GeneFactory(ChunkedJannovarData chunkedJannovarData) {
+        this.jannovarData = null;
+        this.chunkedJannovarData = chunkedJannovarData;
     }
 
     /**
@@ -78,17 +92,13 @@ public Set<GeneIdentifier> getGeneIdentifiers() {
     }
 
     private Set<GeneIdentifier> createKnownGeneIds() {
+        Map<String, List<GeneIdentifier>> transcriptGeneIdentifiers = chunkedJannovarData == null ? getTranscriptGeneIdentifiers(jannovarData) : getTranscriptGeneIdentifiers(chunkedJannovarData);
         ImmutableSet.Builder<GeneIdentifier> geneIdentifierBuilder = ImmutableSet.builder();
         int identifiers = 0;
         int noEntrezId = 0;
-        for (String geneSymbol : jannovarData.getTmByGeneSymbol().keySet()) {
-            Collection<TranscriptModel> transcriptModels = jannovarData.getTmByGeneSymbol().get(geneSymbol);
-            GeneIdentifier geneIdentifier = transcriptModels.stream()
-                    .filter(Objects::nonNull)
-                    .filter(transcriptModel -> transcriptModel.getGeneID() != null)
-                    .filter(transcriptModel -> !transcriptModel.getGeneID().equals("null"))
-                    .map(toGeneIdentifier())
-                    .distinct()
+        for (Map.Entry<String, List<GeneIdentifier>> entry : transcriptGeneIdentifiers.entrySet()) {
+            String geneSymbol = entry.getKey();
+            GeneIdentifier geneIdentifier = entry.getValue().stream()
                     .findFirst()
                     .orElse(GeneIdentifier.builder().geneSymbol(geneSymbol).build());
 
@@ -105,25 +115,55 @@ private Set<GeneIdentifier> createKnownGeneIds() {
         return geneIdentifiers;
     }
 
+    // The gene identifiers of the transcripts with a gene id for each gene symbol, in transcript order
+    private Map<String, List<GeneIdentifier>> getTranscriptGeneIdentifiers(JannovarData jannovarData) {
+        Map<String, List<GeneIdentifier>> transcriptGeneIdentifiers = new LinkedHashMap<>();
+        Function<TranscriptModel, GeneIdentifier> toGeneIdentifier = toGeneIdentifier();
+        for (String geneSymbol : jannovarData.getTmByGeneSymbol().keySet()) {
+            List<GeneIdentifier> geneIdentifiers = jannovarData.getTmByGeneSymbol().get(geneSymbol).stream()
+                    .filter(Objects::nonNull)
+                    .filter(transcriptModel -> hasGeneId(transcriptModel.getGeneID()))
+                    .map(toGeneIdentifier)
+                    .collect(toList());
+            transcriptGeneIdentifiers.put(geneSymbol, geneIdentifiers);
+        }
+        return transcriptGeneIdentifiers;
+    }
+
+    private Map<String, List<GeneIdentifier>> getTranscriptGeneIdentifiers(ChunkedJannovarData chunkedJannovarData) {
+        Map<String, List<GeneIdentifier>> transcriptGeneIdentifiers = new LinkedHashMap<>();
+        for (JannovarProto.TranscriptModel transcriptModel : chunkedJannovarData.loadGeneTranscriptModels()) {
+            List<GeneIdentifier> geneIdentifiers = transcriptGeneIdentifiers.computeIfAbsent(transcriptModel.getGeneSymbol(), key -> new ArrayList<>());
+            if (hasGeneId(transcriptModel.getGeneID())) {
+                geneIdentifiers.add(toGeneIdentifier(transcriptModel.getGeneSymbol(), transcriptModel.getGeneID(), transcriptModel.getAltGeneIdsMap()));
+            }
+        }
+        return transcriptGeneIdentifiers;
+    }
+
+    private static boolean hasGeneId(String geneId) {
+        return geneId != null && !geneId.equals("null");
+    }
+
     private Function<TranscriptModel, GeneIdentifier> toGeneIdentifier() {
         //logger.info("{} {} {} {}", transcriptModel.getGeneSymbol(), transcriptModel.getGeneID(), transcriptModel.getAccession(), transcriptModel.getAltGeneIDs());
         //Using ucsc_hg19: LMOD1 ENTREZ25802 uc010ppu.2 null (pre-jannovar 0.19)
         //Using hg19_ucsc: LMOD1 25802 uc010ppu.2 {CCDS_ID=CCDS53457, COSMIC_ID=LMOD1, ENSEMBL_GENE_ID=ENSG00000163431, ENTREZ_ID=25802, HGNC_ALIAS=64kD|D1|1D, HGNC_ID=HGNC:6647, HGNC_PREVIOUS=, HGNC_SYMBOL=LMOD1, MGD_ID=MGI:2135671, OMIM_ID=602715, PUBMED_ID=, REFSEQ_ACCESSION=NM_012134, RGD_ID=RGD:1307236, UCSC_ID=uc057oju.1, UNIPROT_ID=P29536, VEGA_ID=OTTHUMG00000035802}
         //Using hg19_ensembl: LMOD1 ENSG00000163431 ENST00000367288 {CCDS_ID=CCDS53457, COSMIC_ID=LMOD1, ENSEMBL_GENE_ID=ENSG00000163431, ENTREZ_ID=25802, HGNC_ALIAS=64kD|D1|1D, HGNC_ID=HGNC:6647, HGNC_PREVIOUS=, HGNC_SYMBOL=LMOD1, MGD_ID=MGI:2135671, OMIM_ID=602715, PUBMED_ID=, REFSEQ_ACCESSION=NM_012134, RGD_ID=RGD:1307236, UCSC_ID=uc057oju.1, UNIPROT_ID=P29536, VEGA_ID=OTTHUMG00000035802}
-        return transcriptModel -> {
-            String geneId = transcriptModel.getGeneID();
-            String geneSymbol = transcriptModel.getGeneSymbol();
-            Map<String, String> altGeneIds = transcriptModel.getAltGeneIDs();
-            return GeneIdentifier.builder()
-                    .geneSymbol(geneSymbol)
-                    .geneId((geneId == null || geneId.equals("null"))? "" : geneId)
-                    .hgncId(altGeneIds.getOrDefault("HGNC_ID", ""))
-                    .hgncSymbol(altGeneIds.getOrDefault("HGNC_SYMBOL", ""))
-                    .entrezId(altGeneIds.getOrDefault("ENTREZ_ID", ""))
-                    .ensemblId(altGeneIds.getOrDefault("ENSEMBL_GENE_ID", ""))
-                    .ucscId(altGeneIds.getOrDefault("UCSC_ID", ""))
-                    .build();
-        };
+        return transcriptModel -> toGeneIdentifier(transcriptModel.getGeneSymbol(), transcriptModel.getGeneID(), transcriptModel
+                .getAltGeneIDs());
+    }
+
+    private static GeneIdentifier toGeneIdentifier(String geneSymbol, String geneId, Map<String, String> altGeneIds) {
+        return GeneIdentifier.builder()
+                .geneSymbol(geneSymbol)
+                .geneId((geneId == null || geneId.equals("null")) ? "" : geneId)
+                .hgncId(altGeneIds.getOrDefault("HGNC_ID", ""))
+                .hgncSymbol(altGeneIds.getOrDefault("HGNC_SYMBOL", ""))
+                .entrezId(altGeneIds.getOrDefault("ENTREZ_ID", ""))
+                .ensemblId(altGeneIds.getOrDefault("ENSEMBL_GENE_ID", ""))
+                .ucscId(altGeneIds.getOrDefault("UCSC_ID", ""))
+                .build();
     }
 
 }
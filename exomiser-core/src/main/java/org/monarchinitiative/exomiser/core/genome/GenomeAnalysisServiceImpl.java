@@ -89,8 +89,33 @@ public PathogenicityData getVariantPathogenicityData(Variant variant, Set<Pathog
         return variantDataService.getVariantPathogenicityData(variant, pathogenicitySources);
     }
 
+    @Override
+    public void setVariantFrequencyAndPathogenicityData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        variantDataService.setVariantFrequencyAndPathogenicityData(variantEvaluation, frequencySources, pathogenicitySources);
+    }
+
+    @Override
+    public void setVariantFrequencyAndPathogenicityData(List<VariantEvaluation> variantEvaluations, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        variantDataService.setVariantFrequencyAndPathogenicityData(variantEvaluations, frequencySources, pathogenicitySources);
+    }
+
+    @Override
+    public void addOptionalFrequencyData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources) {
+        variantDataService.addOptionalFrequencyData(variantEvaluation, frequencySources);
+    }
+
+    @Override
+    public void addOptionalPathogenicityData(VariantEvaluation variantEvaluation, Set<PathogenicitySource> pathogenicitySources) {
+        variantDataService.addOptionalPathogenicityData(variantEvaluation, pathogenicitySources);
+    }
+
     @Override
     public Stream<VariantEvaluation> createVariantEvaluations(Stream<VariantContext> variantContextStream) {
         return variantFactory.createVariantEvaluations(variantContextStream);
     }
+
+    @Override
+    public Stream<VariantEvaluation> createVariantEvaluations(VariantContext variantContext) {
+        return variantFactory.createVariantEvaluations(variantContext);
+    }
 }
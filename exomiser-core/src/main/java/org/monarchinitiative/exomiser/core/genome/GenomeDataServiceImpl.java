@@ -20,6 +20,7 @@
 
 package org.monarchinitiative.exomiser.core.genome;
 
+import org.monarchinitiative.exomiser.core.genome.dao.GenomeFeatureSnapshot;
 import org.monarchinitiative.exomiser.core.genome.dao.RegulatoryFeatureDao;
 import org.monarchinitiative.exomiser.core.genome.dao.TadDao;
 import org.monarchinitiative.exomiser.core.model.Gene;
@@ -38,11 +39,22 @@ public class GenomeDataServiceImpl implements GenomeDataService {
     private final GeneFactory geneFactory;
     private final RegulatoryFeatureDao regulatoryFeatureDao;
     private final TadDao tadDao;
+    private final GenomeFeatureSnapshot genomeFeatureSnapshot;
 
     public GenomeDataServiceImpl(GeneFactory geneFactory, RegulatoryFeatureDao regulatoryFeatureDao, TadDao tadDao) {
+        this(geneFactory, regulatoryFeatureDao, tadDao, null);
+    }
+
+    /**
+     * @param genomeFeatureSnapshot optional snapshot of the regulatory features and TADs which is used in preference to
+     *                              the DAOs if not null.
+     * @since 12.1.0
+     */
+    public GenomeDataServiceImpl(GeneFactory geneFactory, RegulatoryFeatureDao regulatoryFeatureDao, TadDao tadDao, GenomeFeatureSnapshot genomeFeatureSnapshot) {
         this.geneFactory = geneFactory;
         this.regulatoryFeatureDao = regulatoryFeatureDao;
         this.tadDao = tadDao;
+        this.genomeFeatureSnapshot = genomeFeatureSnapshot;
     }
 
     @Override
@@ -57,11 +69,17 @@ public Set<GeneIdentifier> getKnownGeneIdentifiers() {
 
     @Override
     public List<RegulatoryFeature> getRegulatoryFeatures() {
+        if (genomeFeatureSnapshot != null) {
+            return genomeFeatureSnapshot.getRegulatoryFeatures();
+        }
         return regulatoryFeatureDao.getRegulatoryFeatures();
     }
 
     @Override
     public List<TopologicalDomain> getTopologicallyAssociatedDomains() {
+        if (genomeFeatureSnapshot != null) {
+            return genomeFeatureSnapshot.getTopologicallyAssociatedDomains();
+        }
         return tadDao.getAllTads();
     }
 
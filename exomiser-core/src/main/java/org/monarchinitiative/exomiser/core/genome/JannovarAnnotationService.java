@@ -20,18 +20,24 @@
 
 package org.monarchinitiative.exomiser.core.genome;
 
+import com.google.common.collect.ImmutableMap;
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.PositionType;
 import de.charite.compbio.jannovar.reference.Strand;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Wrapper to build Jannovar annotations for variants. CAUTION! This class returns native Jannovar objects which use zero-based
  * coordinates.
@@ -49,11 +55,29 @@ public class JannovarAnnotationService {
     private final ReferenceDictionary referenceDictionary;
     private final VariantAnnotator variantAnnotator;
 
+    // Used instead of the single variantAnnotator when the transcripts are loaded lazily, with an annotator for each
+    // chromosome created on first use.
+    private final ChunkedJannovarData chunkedJannovarData;
+    private final Map<Integer, LazyChromosomeVariantAnnotator> chromosomeVariantAnnotators;
 
     public JannovarAnnotationService(JannovarData jannovarData) {
         this.referenceDictionary = jannovarData.getRefDict();
         this.variantAnnotator = new VariantAnnotator(jannovarData.getRefDict(), jannovarData.getChromosomes(), new AnnotationBuilderOptions());
+        this.chunkedJannovarData = null;
+        this.chromosomeVariantAnnotators = null;
+    }
 
+    /**
+     * Annotates variants using the transcripts of the {@link ChunkedJannovarData}, which are loaded for each chromosome
+     * when a variant on that chromosome is first annotated.
+     *
+     * @since 12.1.0
+     */
+    public JannovarAnnotationService(ChunkedJannovarData chunkedJannovarData) {
+        this.referenceDictionary = chunkedJannovarData.getRefDict();
+        this.variantAnnotator = null;
+        this.chunkedJannovarData = chunkedJannovarData;
+        this.chromosomeVariantAnnotators = new ConcurrentHashMap<>();
     }
 
     /**
@@ -87,8 +111,10 @@ private VariantAnnotations annotateGenomeVariant(GenomeVariant genomeVariant) {
             //Need to check this here and return otherwise the variantAnnotator will throw a NPE.
             return VariantAnnotations.buildEmptyList(genomeVariant);
         }
+        // a chromosome which cannot be loaded would leave every variant on it without annotations, so this is thrown
+        VariantAnnotator chromosomeVariantAnnotator = getVariantAnnotator(genomeVariant.getChr());
         try {
-            return variantAnnotator.buildAnnotations(genomeVariant);
+            return chromosomeVariantAnnotator.buildAnnotations(genomeVariant);
         } catch (Exception e) {
             logger.debug("Unable to annotate variant {}-{}-{}-{}",
                     genomeVariant.getChrName(),
@@ -100,4 +126,47 @@ private VariantAnnotations annotateGenomeVariant(GenomeVariant genomeVariant) {
         return VariantAnnotations.buildEmptyList(genomeVariant);
     }
 
+    private VariantAnnotator getVariantAnnotator(int chr) {
+        if (variantAnnotator != null) {
+            return variantAnnotator;
+        }
+        // the chromosome is loaded outside of computeIfAbsent, so that this doesn't block the other chromosomes
+        return chromosomeVariantAnnotators.computeIfAbsent(chr, LazyChromosomeVariantAnnotator::new).get();
+    }
+
+    private VariantAnnotator createChromosomeVariantAnnotator(int chr) {
+        ImmutableMap<Integer, Chromosome> chromosomes = chunkedJannovarData.loadChromosome(chr)
+                .map(chromosome -> ImmutableMap.of(chr, chromosome))
+                .orElse(ImmutableMap.of());
+        return new VariantAnnotator(referenceDictionary, chromosomes, new AnnotationBuilderOptions());
+    }
+
+    /**
+     * Creates the {@link VariantAnnotator} for a chromosome on first use. Concurrent calls for the same chromosome wait
+     * for the first to load it, rather than loading it again. Should the chromosome fail to load it will be tried again
+     * on the next call.
+     */
+    private final class LazyChromosomeVariantAnnotator {
+
+        private final int chr;
+        private volatile VariantAnnotator chromosomeVariantAnnotator;
+
+        private LazyChromosomeVariantAnnotator(int chr) {
+            this.chr = chr;
+        }
+
+        private VariantAnnotator get() {
+            VariantAnnotator annotator = chromosomeVariantAnnotator;
+            if (annotator == null) {
+                synchronized (this) {
+                    annotator = chromosomeVariantAnnotator;
+                    if (annotator == null) {
+                        annotator = createChromosomeVariantAnnotator(chr);
+                        chromosomeVariantAnnotator = annotator;
+                    }
+                }
+            }
+            return annotator;
+        }
+    }
 }
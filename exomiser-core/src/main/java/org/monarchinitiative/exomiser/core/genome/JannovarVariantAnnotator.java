@@ -27,6 +27,7 @@
 import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,8 +50,19 @@ public class JannovarVariantAnnotator implements VariantAnnotator {
     private final ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex;
 
     public JannovarVariantAnnotator(GenomeAssembly genomeAssembly, JannovarData jannovarData, ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex) {
+        this(genomeAssembly, new JannovarAnnotationService(jannovarData), regulatoryRegionIndex);
+    }
+
+    /**
+     * @since 12.1.0
+     */
+    public JannovarVariantAnnotator(GenomeAssembly genomeAssembly, ChunkedJannovarData chunkedJannovarData, ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex) {
+        this(genomeAssembly, new JannovarAnnotationService(chunkedJannovarData), regulatoryRegionIndex);
+    }
+
+    private JannovarVariantAnnotator(GenomeAssembly genomeAssembly, JannovarAnnotationService jannovarAnnotationService, ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex) {
         this.genomeAssembly = genomeAssembly;
-        this.jannovarAnnotationService = new JannovarAnnotationService(jannovarData);
+        this.jannovarAnnotationService = jannovarAnnotationService;
         this.regulatoryRegionIndex = regulatoryRegionIndex;
     }
 
@@ -140,9 +152,7 @@ private TranscriptAnnotation toTranscriptAnnotation(Annotation annotation) {
                 .variantEffect(annotation.getMostPathogenicVarType())
                 .accession(getTranscriptAccession(annotation))
                 .geneSymbol(buildGeneSymbol(annotation))
-                .hgvsGenomic((annotation.getGenomicNTChange() == null) ? "" : annotation.getGenomicNTChangeStr())
-                .hgvsCdna(annotation.getCDSNTChangeStr())
-                .hgvsProtein(annotation.getProteinChangeStr(AminoAcidCode.THREE_LETTER))
+                .hgvsFormatter(new JannovarHgvsFormatter(annotation))
                 .distanceFromNearestGene(getDistFromNearestGene(annotation))
                 .build();
     }
@@ -210,4 +220,31 @@ private boolean isIntergenicOrUpstreamOfGene(VariantEffect variantEffect) {
         return variantEffect == VariantEffect.INTERGENIC_VARIANT || variantEffect == VariantEffect.UPSTREAM_GENE_VARIANT;
     }
 
+    /**
+     * Keeps the Jannovar {@link Annotation} in order to format the HGVS strings only for the variants which are actually
+     * written out, rather than for every transcript of every variant.
+     */
+    private static class JannovarHgvsFormatter implements TranscriptAnnotation.HgvsFormatter {
+
+        private final Annotation annotation;
+
+        private JannovarHgvsFormatter(Annotation annotation) {
+            this.annotation = annotation;
+        }
+
+        @Override
+        public String formatHgvsGenomic() {
+            return (annotation.getGenomicNTChange() == null) ? "" : annotation.getGenomicNTChangeStr();
+        }
+
+        @Override
+        public String formatHgvsCdna() {
+            return annotation.getCDSNTChangeStr();
+        }
+
+        @Override
+        public String formatHgvsProtein() {
+            return annotation.getProteinChangeStr(AminoAcidCode.THREE_LETTER);
+        }
+    }
 }
@@ -25,6 +25,7 @@
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.monarchinitiative.exomiser.core.model.AlleleCall;
+import org.monarchinitiative.exomiser.core.model.PackedSampleGenotypes;
 import org.monarchinitiative.exomiser.core.model.SampleGenotype;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +77,42 @@ public static Map<String, SampleGenotype> createAlleleSampleGenotypes(VariantCon
         return builder.build();
     }
 
+    /**
+     * Converts the genotypes of the {@link VariantContext} into a {@link PackedSampleGenotypes} for the
+     * {@param altAlleleId}. This is equivalent to {@link #createAlleleSampleGenotypes(VariantContext, int)}, but uses a
+     * fraction of the memory for multi-sample VCF files.
+     *
+     * @param variantContext
+     * @param altAlleleId
+     * @return the packed sample genotypes for the allele
+     * @since 12.1.0
+     */
+    public static PackedSampleGenotypes createPackedAlleleSampleGenotypes(VariantContext variantContext, int altAlleleId) {
+        return createPackedAlleleSampleGenotypes(variantContext, altAlleleId, VcfCodecs.sampleNames(variantContext));
+    }
+
+    /**
+     * As {@link #createPackedAlleleSampleGenotypes(VariantContext, int)}, but using the already known sample names of
+     * the {@link VariantContext} so that these are not re-computed for each allele.
+     *
+     * @param variantContext
+     * @param altAlleleId
+     * @param sampleNames    the names of the samples of the {@link VariantContext}, as returned by
+     *                       {@link VcfCodecs#sampleNames(VariantContext)}
+     * @return the packed sample genotypes for the allele
+     * @since 12.1.0
+     */
+    public static PackedSampleGenotypes createPackedAlleleSampleGenotypes(VariantContext variantContext, int altAlleleId, List<String> sampleNames) {
+        Allele refAllele = variantContext.getReference();
+        Allele altAllele = variantContext.getAlternateAllele(altAlleleId);
+
+        PackedSampleGenotypes.Builder builder = PackedSampleGenotypes.builder(sampleNames);
+        for (Genotype genotype : variantContext.getGenotypes()) {
+            builder.add(genotype.isPhased(), buildAlleleCalls(refAllele, altAllele, genotype.getAlleles()));
+        }
+        return builder.build();
+    }
+
     private static AlleleCall[] buildAlleleCalls(Allele refAllele, Allele altAllele, List<Allele> genotypeAlleles) {
         AlleleCall[] alleleCalls = new AlleleCall[genotypeAlleles.size()];
         logger.trace("Checking genotype {} against {} {}", genotypeAlleles, refAllele, altAllele);
@@ -26,11 +26,13 @@
 package org.monarchinitiative.exomiser.core.genome;
 
 import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -45,4 +47,55 @@ public interface VariantDataService {
 
     PathogenicityData getVariantPathogenicityData(Variant variant, Set<PathogenicitySource> pathogenicitySources);
 
+    /**
+     * Sets the default {@link FrequencyData} and {@link PathogenicityData} on the {@link VariantEvaluation} using
+     * {@link VariantEvaluation#setFrequencyAndPathogenicityData(FrequencyData, PathogenicityData)}. Implementations
+     * where both are held in the same data store should override this so that the store is only read once. These
+     * implementations should not read the optional data sources which are held elsewhere, leaving these to
+     * {@link #addOptionalFrequencyData(VariantEvaluation, Set)} and
+     * {@link #addOptionalPathogenicityData(VariantEvaluation, Set)} so that they are only read for the variants which
+     * need them.
+     *
+     * @since 12.1.0
+     */
+    default void setVariantFrequencyAndPathogenicityData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        FrequencyData frequencyData = getVariantFrequencyData(variantEvaluation, frequencySources);
+        PathogenicityData pathogenicityData = getVariantPathogenicityData(variantEvaluation, pathogenicitySources);
+        variantEvaluation.setFrequencyAndPathogenicityData(frequencyData, pathogenicityData);
+    }
+
+    /**
+     * Batch version of {@link #setVariantFrequencyAndPathogenicityData(VariantEvaluation, Set, Set)}. Implementations
+     * should override this where the data store can be more efficiently read for a block of variants at a time.
+     *
+     * @since 12.1.0
+     */
+    default void setVariantFrequencyAndPathogenicityData(List<VariantEvaluation> variantEvaluations, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        for (VariantEvaluation variantEvaluation : variantEvaluations) {
+            setVariantFrequencyAndPathogenicityData(variantEvaluation, frequencySources, pathogenicitySources);
+        }
+    }
+
+    /**
+     * Adds the {@link FrequencyData} from any sources not read by
+     * {@link #setVariantFrequencyAndPathogenicityData(VariantEvaluation, Set, Set)} to the frequency data of the
+     * {@link VariantEvaluation}, completing it.
+     *
+     * @since 12.1.0
+     */
+    default void addOptionalFrequencyData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources) {
+        variantEvaluation.setFrequencyData(variantEvaluation.getFrequencyData());
+    }
+
+    /**
+     * Adds the {@link PathogenicityData} from any sources not read by
+     * {@link #setVariantFrequencyAndPathogenicityData(VariantEvaluation, Set, Set)} to the pathogenicity data of the
+     * {@link VariantEvaluation}, completing it.
+     *
+     * @since 12.1.0
+     */
+    default void addOptionalPathogenicityData(VariantEvaluation variantEvaluation, Set<PathogenicitySource> pathogenicitySources) {
+        variantEvaluation.setPathogenicityData(variantEvaluation.getPathogenicityData());
+    }
+
 }
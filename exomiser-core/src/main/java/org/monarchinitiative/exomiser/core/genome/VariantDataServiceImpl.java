@@ -22,17 +22,22 @@
 package org.monarchinitiative.exomiser.core.genome;
 
 import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.monarchinitiative.exomiser.core.genome.dao.AllelePropertiesDao;
+import org.monarchinitiative.exomiser.core.genome.dao.AllelePropertiesDaoAdapter;
 import org.monarchinitiative.exomiser.core.genome.dao.FrequencyDao;
 import org.monarchinitiative.exomiser.core.genome.dao.InMemoryVariantWhiteList;
 import org.monarchinitiative.exomiser.core.genome.dao.PathogenicityDao;
 import org.monarchinitiative.exomiser.core.genome.dao.VariantWhiteList;
+import org.monarchinitiative.exomiser.core.model.AlleleProtoAdaptor;
 import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityScore;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,7 +57,9 @@ public class VariantDataServiceImpl implements VariantDataService {
     private static final Logger logger = LoggerFactory.getLogger(VariantDataServiceImpl.class);
 
     private final VariantWhiteList whiteList;
-    // Default data sources
+    // Default data sources - if present the allelePropertiesDao is the source for both the default frequency and
+    // pathogenicity data
+    private final AllelePropertiesDao allelePropertiesDao;
     private final FrequencyDao defaultFrequencyDao;
     private final PathogenicityDao defaultPathogenicityDao;
 
@@ -68,6 +75,7 @@ private VariantDataServiceImpl(Builder builder) {
 
         this.whiteList = builder.variantWhiteList;
 
+        this.allelePropertiesDao = builder.allelePropertiesDao;
         this.defaultFrequencyDao = builder.defaultFrequencyDao;
         this.defaultPathogenicityDao = builder.defaultPathogenicityDao;
 
@@ -86,48 +94,143 @@ public boolean variantIsWhiteListed(Variant variant) {
 
     @Override
     public FrequencyData getVariantFrequencyData(Variant variant, Set<FrequencySource> frequencySources) {
-
-        // This could be run alongside the pathogenicities as they are all stored in the same datastore
         FrequencyData defaultFrequencyData = defaultFrequencyDao.getFrequencyData(variant);
+        return mergeFrequencyData(variant, defaultFrequencyData, frequencySources);
+    }
 
-        List<Frequency> allFrequencies = new ArrayList<>();
+    private FrequencyData mergeFrequencyData(Variant variant, FrequencyData defaultFrequencyData, Set<FrequencySource> frequencySources) {
+        FrequencyData wantedFrequencyData = selectWantedFrequencyData(defaultFrequencyData, frequencySources);
+        return addLocalFrequencyData(variant, wantedFrequencyData, frequencySources);
+    }
+
+    private FrequencyData selectWantedFrequencyData(FrequencyData defaultFrequencyData, Set<FrequencySource> frequencySources) {
+        List<Frequency> wantedFrequencies = new ArrayList<>();
         for (Frequency frequency : defaultFrequencyData.getKnownFrequencies()) {
             if (frequencySources.contains(frequency.getSource())) {
-                allFrequencies.add(frequency);
+                wantedFrequencies.add(frequency);
             }
         }
+        return FrequencyData.of(defaultFrequencyData.getRsId(), wantedFrequencies);
+    }
 
-        if (frequencySources.contains(FrequencySource.LOCAL)) {
-            FrequencyData localFrequencyData = localFrequencyDao.getFrequencyData(variant);
-            allFrequencies.addAll(localFrequencyData.getKnownFrequencies());
+    private FrequencyData addLocalFrequencyData(Variant variant, FrequencyData frequencyData, Set<FrequencySource> frequencySources) {
+        if (!frequencySources.contains(FrequencySource.LOCAL)) {
+            return frequencyData;
         }
-
-        return FrequencyData.of(defaultFrequencyData.getRsId(), allFrequencies);
+        FrequencyData localFrequencyData = localFrequencyDao.getFrequencyData(variant);
+        List<Frequency> allFrequencies = new ArrayList<>(frequencyData.getKnownFrequencies());
+        allFrequencies.addAll(localFrequencyData.getKnownFrequencies());
+        return FrequencyData.of(frequencyData.getRsId(), allFrequencies);
     }
 
     @Override
     public PathogenicityData getVariantPathogenicityData(Variant variant, Set<PathogenicitySource> pathogenicitySources) {
-
-        // This could be run alongside the frequencies as they are all stored in the same datastore
         PathogenicityData defaultPathogenicityData = defaultPathogenicityDao.getPathogenicityData(variant);
+        return mergePathogenicityData(variant, defaultPathogenicityData, pathogenicitySources);
+    }
+
+    private PathogenicityData mergePathogenicityData(Variant variant, PathogenicityData defaultPathogenicityData, Set<PathogenicitySource> pathogenicitySources) {
+        PathogenicityData wantedPathogenicityData = selectWantedPathogenicityData(variant, defaultPathogenicityData, pathogenicitySources);
+        return addOptionalPathogenicityData(variant, wantedPathogenicityData, pathogenicitySources);
+    }
+
+    private PathogenicityData selectWantedPathogenicityData(Variant variant, PathogenicityData defaultPathogenicityData, Set<PathogenicitySource> pathogenicitySources) {
         if (pathogenicitySources.isEmpty()) {
             // Fast-path for the unlikely case when no sources are defined - we'll just return the ClinVar data
             return PathogenicityData.of(defaultPathogenicityData.getClinVarData());
         }
 
-        List<PathogenicityScore> allPathScores = new ArrayList<>();
+        List<PathogenicityScore> wantedPathScores = new ArrayList<>();
         // we're going to deliberately ignore synonymous variants from dbNSFP as these shouldn't be there
         // e.g. ?assembly=hg37&chr=1&start=158581087&ref=G&alt=A has a MutationTaster score of 1
         if (variant.getVariantEffect() != VariantEffect.SYNONYMOUS_VARIANT) {
-            addAllWantedScores(pathogenicitySources, defaultPathogenicityData, allPathScores);
+            addAllWantedScores(pathogenicitySources, defaultPathogenicityData, wantedPathScores);
         }
+        return PathogenicityData.of(defaultPathogenicityData.getClinVarData(), wantedPathScores);
+    }
 
+    private PathogenicityData addOptionalPathogenicityData(Variant variant, PathogenicityData pathogenicityData, Set<PathogenicitySource> pathogenicitySources) {
         List<PathogenicityData> optionalPathData = getOptionalPathogenicityData(variant, pathogenicitySources);
-        for (PathogenicityData pathogenicityData : optionalPathData) {
-            allPathScores.addAll(pathogenicityData.getPredictedPathogenicityScores());
+        if (optionalPathData.isEmpty()) {
+            return pathogenicityData;
+        }
+        List<PathogenicityScore> allPathScores = new ArrayList<>(pathogenicityData.getPredictedPathogenicityScores());
+        for (PathogenicityData optionalData : optionalPathData) {
+            allPathScores.addAll(optionalData.getPredictedPathogenicityScores());
+        }
+        return PathogenicityData.of(pathogenicityData.getClinVarData(), allPathScores);
+    }
+
+    /**
+     * Reads the default frequency and pathogenicity data for the variant from a single lookup of the
+     * {@link AllelePropertiesDao}, if one was provided, rather than one lookup each for the frequency and pathogenicity
+     * data. This does not rely on the allele cache being enabled. The optional LOCAL frequency and CADD, REMM etc.
+     * pathogenicity sources are not read here, these are added by
+     * {@link #addOptionalFrequencyData(VariantEvaluation, Set)} and
+     * {@link #addOptionalPathogenicityData(VariantEvaluation, Set)} when the variant reaches the step requiring them.
+     */
+    @Override
+    public void setVariantFrequencyAndPathogenicityData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        if (allelePropertiesDao == null) {
+            FrequencyData defaultFrequencyData = defaultFrequencyDao.getFrequencyData(variantEvaluation);
+            PathogenicityData defaultPathogenicityData = defaultPathogenicityDao.getPathogenicityData(variantEvaluation);
+            setDefaultFrequencyAndPathogenicityData(variantEvaluation, defaultFrequencyData, defaultPathogenicityData, frequencySources, pathogenicitySources);
+            return;
+        }
+        AlleleProto.AlleleProperties alleleProperties = allelePropertiesDao.getAlleleProperties(variantEvaluation);
+        setDefaultFrequencyAndPathogenicityData(variantEvaluation, alleleProperties, frequencySources, pathogenicitySources);
+    }
+
+    /**
+     * Reads the default frequency and pathogenicity data for all the variants in a single batch from the
+     * {@link AllelePropertiesDao}, if one was provided.
+     */
+    @Override
+    public void setVariantFrequencyAndPathogenicityData(List<VariantEvaluation> variantEvaluations, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        if (allelePropertiesDao == null || variantEvaluations.isEmpty()) {
+            for (VariantEvaluation variantEvaluation : variantEvaluations) {
+                setVariantFrequencyAndPathogenicityData(variantEvaluation, frequencySources, pathogenicitySources);
+            }
+            return;
+        }
+        List<AlleleProto.AlleleKey> alleleKeys = new ArrayList<>(variantEvaluations.size());
+        for (VariantEvaluation variantEvaluation : variantEvaluations) {
+            alleleKeys.add(AlleleProtoAdaptor.toAlleleKey(variantEvaluation));
         }
+        GenomeAssembly genomeAssembly = variantEvaluations.get(0).getGenomeAssembly();
+        List<AlleleProto.AlleleProperties> allelePropertiesList = allelePropertiesDao.getAlleleProperties(alleleKeys, genomeAssembly);
+        for (int i = 0; i < variantEvaluations.size(); i++) {
+            setDefaultFrequencyAndPathogenicityData(variantEvaluations.get(i), allelePropertiesList.get(i), frequencySources, pathogenicitySources);
+        }
+    }
+
+    private void setDefaultFrequencyAndPathogenicityData(VariantEvaluation variantEvaluation, AlleleProto.AlleleProperties alleleProperties, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        FrequencyData defaultFrequencyData = AlleleProtoAdaptor.toFrequencyData(alleleProperties);
+        PathogenicityData defaultPathogenicityData = AlleleProtoAdaptor.toPathogenicityData(alleleProperties);
+        setDefaultFrequencyAndPathogenicityData(variantEvaluation, defaultFrequencyData, defaultPathogenicityData, frequencySources, pathogenicitySources);
+    }
 
-        return PathogenicityData.of(defaultPathogenicityData.getClinVarData(), allPathScores);
+    private void setDefaultFrequencyAndPathogenicityData(VariantEvaluation variantEvaluation, FrequencyData defaultFrequencyData, PathogenicityData defaultPathogenicityData, Set<FrequencySource> frequencySources, Set<PathogenicitySource> pathogenicitySources) {
+        FrequencyData frequencyData = selectWantedFrequencyData(defaultFrequencyData, frequencySources);
+        PathogenicityData pathogenicityData = selectWantedPathogenicityData(variantEvaluation, defaultPathogenicityData, pathogenicitySources);
+        variantEvaluation.setFrequencyAndPathogenicityData(frequencyData, pathogenicityData);
+    }
+
+    /**
+     * Adds the LOCAL frequency data, if required, to the default frequency data of the variant.
+     */
+    @Override
+    public void addOptionalFrequencyData(VariantEvaluation variantEvaluation, Set<FrequencySource> frequencySources) {
+        variantEvaluation.setFrequencyData(addLocalFrequencyData(variantEvaluation, variantEvaluation.getFrequencyData(), frequencySources));
+    }
+
+    /**
+     * Adds the pathogenicity scores from the optional CADD, REMM, DANN, NCBoost and TEST sources, if required, to the
+     * default pathogenicity data of the variant.
+     */
+    @Override
+    public void addOptionalPathogenicityData(VariantEvaluation variantEvaluation, Set<PathogenicitySource> pathogenicitySources) {
+        variantEvaluation.setPathogenicityData(addOptionalPathogenicityData(variantEvaluation, variantEvaluation.getPathogenicityData(), pathogenicitySources));
     }
 
     private void addAllWantedScores(Set<PathogenicitySource> pathogenicitySources, PathogenicityData defaultPathogenicityData, List<PathogenicityScore> allPathScores) {
@@ -177,6 +280,7 @@ public static class Builder {
 
         private VariantWhiteList variantWhiteList = InMemoryVariantWhiteList.empty();
 
+        private AllelePropertiesDao allelePropertiesDao;
         private FrequencyDao defaultFrequencyDao;
         private PathogenicityDao defaultPathogenicityDao;
 
@@ -193,6 +297,20 @@ public Builder variantWhiteList(VariantWhiteList variantWhiteList) {
             return this;
         }
 
+        /**
+         * Sets the {@link AllelePropertiesDao} as the source of both the default frequency and pathogenicity data, in
+         * place of the {@code defaultFrequencyDao} and {@code defaultPathogenicityDao}.
+         *
+         * @since 12.1.0
+         */
+        public Builder allelePropertiesDao(AllelePropertiesDao allelePropertiesDao) {
+            this.allelePropertiesDao = allelePropertiesDao;
+            AllelePropertiesDaoAdapter allelePropertiesDaoAdapter = new AllelePropertiesDaoAdapter(allelePropertiesDao);
+            this.defaultFrequencyDao = allelePropertiesDaoAdapter;
+            this.defaultPathogenicityDao = allelePropertiesDaoAdapter;
+            return this;
+        }
+
         public Builder defaultFrequencyDao(FrequencyDao defaultFrequencyDao) {
             this.defaultFrequencyDao = defaultFrequencyDao;
             return this;
@@ -41,4 +41,16 @@ default Stream<VariantEvaluation> createVariantEvaluations(Path vcfPath) {
 
     Stream<VariantEvaluation> createVariantEvaluations(Stream<VariantContext> variantContextStream);
 
+    /**
+     * Converts a single, possibly multi-allelic, {@link VariantContext} into a {@link VariantEvaluation} for each of its
+     * alternate alleles observed in the sample genotypes. Unlike {@link #createVariantEvaluations(Stream)} this does not
+     * log progress, so is suitable for use by callers processing chunks of a VCF file concurrently. Implementations
+     * must be safe for use by multiple threads.
+     *
+     * @param variantContext the {@link VariantContext} to convert
+     * @return a {@code Stream} of {@link VariantEvaluation}, one for each observed alternate allele
+     * @since 12.1.0
+     */
+    Stream<VariantEvaluation> createVariantEvaluations(VariantContext variantContext);
+
 }
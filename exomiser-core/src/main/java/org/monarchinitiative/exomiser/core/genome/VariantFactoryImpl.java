@@ -30,7 +30,7 @@
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
-import org.monarchinitiative.exomiser.core.model.SampleGenotype;
+import org.monarchinitiative.exomiser.core.model.PackedSampleGenotypes;
 import org.monarchinitiative.exomiser.core.model.TranscriptAnnotation;
 import org.monarchinitiative.exomiser.core.model.VariantAnnotation;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
@@ -40,7 +40,6 @@
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -73,31 +72,41 @@ public Stream<VariantEvaluation> createVariantEvaluations(Stream<VariantContext>
                 .onClose(counter::logCount);
     }
 
+    @Override
+    public Stream<VariantEvaluation> createVariantEvaluations(VariantContext variantContext) {
+        return toVariantEvaluations().apply(variantContext);
+    }
+
     /**
      * An Exomiser VariantEvaluation is a single-allele variant whereas the VariantContext can have multiple alleles.
      * This means that a multi allele Variant record in a VCF can result in several VariantEvaluations - one for each
      * alternate allele.
      */
     private Function<VariantContext, Stream<VariantEvaluation>> toVariantEvaluations() {
-        return variantContext -> variantContext.getAlternateAlleles().stream()
-                .map(buildAlleleVariantEvaluation(variantContext))
-                .filter(Optional::isPresent)
-                .map(Optional::get);
+        return variantContext -> {
+            // shared by all the alleles of the record
+            List<String> sampleNames = VcfCodecs.sampleNames(variantContext);
+            return variantContext.getAlternateAlleles().stream()
+                    .map(buildAlleleVariantEvaluation(variantContext, sampleNames))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get);
+        };
     }
 
-    private Function<Allele, Optional<VariantEvaluation>> buildAlleleVariantEvaluation(VariantContext variantContext) {
+    private Function<Allele, Optional<VariantEvaluation>> buildAlleleVariantEvaluation(VariantContext variantContext, List<String> sampleNames) {
         return altAllele -> {
             //alternate Alleles are always after the reference allele, which is 0
             int altAlleleId = variantContext.getAlleleIndex(altAllele) - 1;
             if (alleleIsObservedInGenotypes(altAllele, variantContext.getGenotypes())) {
-                return Optional.of(buildVariantEvaluation(variantContext, altAlleleId, altAllele));
+                VariantAnnotation variantAnnotation = annotateVariantAllele(variantContext, altAllele);
+                return Optional.of(buildVariantEvaluation(variantContext, altAlleleId, sampleNames, variantAnnotation));
             }
             return Optional.empty();
         };
     }
 
     // this is required in case of incorrectly merged multi-sample VCF files to remove alleles not represented in the sample genotypes
-    private synchronized boolean alleleIsObservedInGenotypes(Allele allele, GenotypesContext genotypesContext) {
+    private boolean alleleIsObservedInGenotypes(Allele allele, GenotypesContext genotypesContext) {
         return genotypesContext.stream()
                 .map(Genotype::getAlleles)
                 .anyMatch(genotypeAlleles -> genotypeAlleles.contains(allele));
@@ -124,7 +133,7 @@ VariantEvaluation buildVariantEvaluation(VariantContext variantContext, int altA
         // also consider <STR27> RU=CAG expands to (CAG)*27 STR = Short Tandem Repeats RU = Repeat Unit
         // link to https://panelapp.genomicsengland.co.uk/panels/20/str/PPP2R2B_CAG/
         // https://panelapp.genomicsengland.co.uk/WebServices/get_panel/20/?format=json
-        return buildVariantEvaluation(variantContext, altAlleleId, variantAnnotation);
+        return buildVariantEvaluation(variantContext, altAlleleId, VcfCodecs.sampleNames(variantContext), variantAnnotation);
     }
 
     private VariantAnnotation annotateVariantAllele(VariantContext variantContext, Allele altAllele) {
@@ -136,10 +145,10 @@ private VariantAnnotation annotateVariantAllele(VariantContext variantContext, A
         return variantAnnotator.annotate(contig, pos, ref, alt);
     }
 
-    private VariantEvaluation buildVariantEvaluation(VariantContext variantContext, int altAlleleId, VariantAnnotation variantAnnotation) {
+    private VariantEvaluation buildVariantEvaluation(VariantContext variantContext, int altAlleleId, List<String> sampleNames, VariantAnnotation variantAnnotation) {
 
         //See also notes in InheritanceModeAnnotator.
-        Map<String, SampleGenotype> sampleGenotypes = VariantContextSampleGenotypeConverter.createAlleleSampleGenotypes(variantContext, altAlleleId);
+        PackedSampleGenotypes sampleGenotypes = VariantContextSampleGenotypeConverter.createPackedAlleleSampleGenotypes(variantContext, altAlleleId, sampleNames);
 
         GenomeAssembly genomeAssembly = variantAnnotation.getGenomeAssembly();
         int chr = variantAnnotation.getChromosome();
@@ -155,16 +164,13 @@ private VariantEvaluation buildVariantEvaluation(VariantContext variantContext,
 
         return VariantEvaluation.builder(chr, pos, ref, alt)
                 .genomeAssembly(genomeAssembly)
-                //HTSJDK derived data are used for writing out the
-                //HTML (VariantEffectCounter) VCF/TSV-VARIANT formatted files
-                //can be removed from InheritanceModeAnalyser as Jannovar 0.18+ is not reliant on the VariantContext
-                //need most/all of the info in order to write it all out again.
-                //If we could remove this direct dependency the RAM usage can be halved such that a SPARSE analysis of the POMP sample can be held comfortably in 8GB RAM
-                //To do this we could just store the string value here - it can be re-hydrated later. See TestVcfParser
-                .variantContext(variantContext)
+                //HTSJDK derived data are used for writing out the VCF/TSV-VARIANT formatted files
+                //need most/all of the info in order to write it all out again. This is stored in an encoded form by the
+                //VariantEvaluation and re-hydrated when required, which considerably reduces the RAM requirements.
+                .variantContext(variantContext, sampleNames)
                 .altAlleleId(altAlleleId)
                 .id((".".equals(variantContext.getID())) ? "" : variantContext.getID())
-                .sampleGenotypes(sampleGenotypes)
+                .packedSampleGenotypes(sampleGenotypes)
                 //quality is the only value from the VCF file directly required for analysis
                 .quality(variantContext.getPhredScaledQual())
                 //jannovar derived data
@@ -20,6 +20,11 @@
 
 package org.monarchinitiative.exomiser.core.genome;
 
+import com.google.common.cache.CacheBuilder;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFEncoder;
 import htsjdk.variant.vcf.VCFHeader;
@@ -27,7 +32,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class enabling trivial inter-conversion of {@link htsjdk.variant.variantcontext.VariantContext} to the VCF format and
@@ -41,8 +48,28 @@ public class VcfCodecs {
     private static final Logger logger = LoggerFactory.getLogger(VcfCodecs.class);
 
     // TODO: use Caffeine cache with TTL as this could get really large for a long-running process
-    private static Map<Set<String>, VCFEncoder> encoderCache = new HashMap<>();
-    private static Map<Set<String>, VCFCodec> decoderCache = new HashMap<>();
+    private static Map<Set<String>, VCFEncoder> encoderCache = new ConcurrentHashMap<>();
+    private static Map<Set<String>, VCFCodec> decoderCache = new ConcurrentHashMap<>();
+
+    // caches for the byte encoding/decoding. These are keyed by List as the order of the samples is significant. The
+    // shared sample names are only needed while the VariantEvaluations referring to them are reachable, so these are
+    // weakly held. The number of encoders is bounded as a long-running service will see many different sets of samples.
+    private static final int MAX_CACHED_ENCODERS = 100;
+    private static final Map<List<String>, List<String>> sampleNamesCache = CacheBuilder.newBuilder()
+            .weakValues()
+            .<List<String>, List<String>>build()
+            .asMap();
+    // All the records of a VCF file have the same samples, so the sample names last seen by each thread are checked
+    // first. This means the list of names is only created once per VCF header rather than once per record.
+    private static final ThreadLocal<List<String>> lastSampleNames = ThreadLocal.withInitial(Collections::emptyList);
+    private static final Map<List<String>, VCFEncoder> listEncoderCache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_ENCODERS)
+            .<List<String>, VCFEncoder>build()
+            .asMap();
+    // The VCFCodec re-uses internal buffers when decoding a line and when lazily decoding the genotypes, so each thread
+    // decodes using its own codec rather than contending for a shared one. Only the codec for the samples last decoded
+    // by the thread is kept, so a pooled thread holds at most one codec however many analyses it runs.
+    private static final ThreadLocal<ThreadDecoder> threadDecoder = new ThreadLocal<>();
 
     private VcfCodecs() {
     }
@@ -78,4 +105,93 @@ public static VCFCodec decoder(Set<String> sampleGenotypes) {
             return vcfCodec;
         });
     }
+
+    /**
+     * Returns the names of the samples in the {@link VariantContext} in the order in which their genotypes are found.
+     * Identical lists of sample names are returned as the same instance so that these can be retained alongside
+     * {@link #encode(List, VariantContext)} output for the lifetime of an analysis without using extra memory.
+     *
+     * @param variantContext the {@link VariantContext} for which the sample names are required
+     * @return an immutable list of the sample names in the {@link VariantContext}
+     * @since 12.1.0
+     */
+    public static List<String> sampleNames(VariantContext variantContext) {
+        GenotypesContext genotypes = variantContext.getGenotypes();
+        List<String> previousSampleNames = lastSampleNames.get();
+        if (hasSampleNames(genotypes, previousSampleNames)) {
+            return previousSampleNames;
+        }
+        List<String> sampleNames = new ArrayList<>(genotypes.size());
+        for (Genotype genotype : genotypes) {
+            sampleNames.add(genotype.getSampleName());
+        }
+        List<String> sharedSampleNames = sampleNamesCache.computeIfAbsent(sampleNames, Collections::unmodifiableList);
+        lastSampleNames.set(sharedSampleNames);
+        return sharedSampleNames;
+    }
+
+    private static boolean hasSampleNames(GenotypesContext genotypes, List<String> sampleNames) {
+        if (genotypes.size() != sampleNames.size()) {
+            return false;
+        }
+        for (int i = 0; i < sampleNames.size(); i++) {
+            if (!sampleNames.get(i).equals(genotypes.get(i).getSampleName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the {@link VariantContext} as the bytes of a VCF line. This is considerably smaller than the
+     * {@link VariantContext} and can be decoded back into an equivalent {@link VariantContext} using
+     * {@link #decode(List, byte[])}. This method is thread-safe.
+     *
+     * @param sampleNames    the ordered sample names, as returned by {@link #sampleNames(VariantContext)}
+     * @param variantContext the {@link VariantContext} to encode
+     * @return the UTF-8 bytes of the VCF line representing the {@link VariantContext}
+     * @since 12.1.0
+     */
+    public static byte[] encode(List<String> sampleNames, VariantContext variantContext) {
+        VCFEncoder vcfEncoder = listEncoderCache.computeIfAbsent(sampleNames, key -> {
+            VCFHeader vcfHeader = new VCFHeader(Collections.emptySet(), sampleNames);
+            return new VCFEncoder(vcfHeader, true, true);
+        });
+        return vcfEncoder.encode(variantContext).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the output of {@link #encode(List, VariantContext)} back into a fully-decoded {@link VariantContext}.
+     * This method is thread-safe.
+     *
+     * @param sampleNames the ordered sample names used to encode the {@link VariantContext}
+     * @param vcfLine     the encoded VCF line
+     * @return a new {@link VariantContext} instance equivalent to the one originally encoded
+     * @since 12.1.0
+     */
+    public static VariantContext decode(List<String> sampleNames, byte[] vcfLine) {
+        ThreadDecoder decoder = threadDecoder.get();
+        if (decoder == null || (decoder.sampleNames != sampleNames && !decoder.sampleNames.equals(sampleNames))) {
+            decoder = new ThreadDecoder(sampleNames);
+            threadDecoder.set(decoder);
+        }
+        VariantContext variantContext = decoder.vcfCodec.decode(new String(vcfLine, StandardCharsets.UTF_8));
+        GenotypesContext genotypes = variantContext.getGenotypes();
+        if (genotypes instanceof LazyGenotypesContext) {
+            ((LazyGenotypesContext) genotypes).decode();
+        }
+        return variantContext;
+    }
+
+    private static class ThreadDecoder {
+
+        private final List<String> sampleNames;
+        private final VCFCodec vcfCodec;
+
+        private ThreadDecoder(List<String> sampleNames) {
+            this.sampleNames = sampleNames;
+            this.vcfCodec = new VCFCodec();
+            vcfCodec.setVCFHeader(new VCFHeader(Collections.emptySet(), sampleNames), VCFHeaderVersion.VCF4_2);
+        }
+    }
 }
@@ -24,6 +24,9 @@
 import org.monarchinitiative.exomiser.core.model.Variant;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @since 12.0.0
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -34,4 +37,22 @@ public interface AllelePropertiesDao {
 
     AlleleProto.AlleleProperties getAlleleProperties(Variant variant);
 
+    /**
+     * Batch version of {@link #getAlleleProperties(AlleleProto.AlleleKey, GenomeAssembly)}. Implementations are free to
+     * re-order the lookups, e.g. to access the underlying store in key order, but the returned list will be in the
+     * same order as the input keys. Missing keys will return the default {@link AlleleProto.AlleleProperties} instance.
+     *
+     * @param alleleKeys     keys to lookup - these are best supplied in genomic order, as found in a VCF file.
+     * @param genomeAssembly assembly of the keys
+     * @return a list of {@link AlleleProto.AlleleProperties} corresponding to the input keys
+     * @since 12.1.0
+     */
+    default List<AlleleProto.AlleleProperties> getAlleleProperties(List<AlleleProto.AlleleKey> alleleKeys, GenomeAssembly genomeAssembly) {
+        List<AlleleProto.AlleleProperties> allelePropertiesList = new ArrayList<>(alleleKeys.size());
+        for (AlleleProto.AlleleKey alleleKey : alleleKeys) {
+            allelePropertiesList.add(getAlleleProperties(alleleKey, genomeAssembly));
+        }
+        return allelePropertiesList;
+    }
+
 }
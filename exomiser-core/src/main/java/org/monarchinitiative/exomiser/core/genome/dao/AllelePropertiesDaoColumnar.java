@@ -0,0 +1,300 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.InvalidAlleleProtoException;
+import org.monarchinitiative.exomiser.core.model.AlleleProtoAdaptor;
+import org.monarchinitiative.exomiser.core.model.TypedAlleleProperties;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat.*;
+
+/**
+ * Read-only {@link AllelePropertiesDao} backed by a memory-mapped file in the {@link ColumnarAlleleFormat}. Lookups
+ * are a binary search of the positions of the chromosome followed by reading the property columns at the index of the
+ * matching allele, so no protobuf messages need to be de-serialised apart from the occasional ClinVar record. As the
+ * file is mapped rather than read into the heap, the OS page cache holding the file can be shared between JVMs on the
+ * same machine.
+ * <p>
+ * This class is thread-safe as only absolute reads are made on the shared buffers.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class AllelePropertiesDaoColumnar implements AllelePropertiesDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(AllelePropertiesDaoColumnar.class);
+
+    private final String[] columnNames;
+    // AlleleProperty number of each column, or -1 where the column name is not an AlleleProperty
+    private final int[] columnPropertyNumbers;
+    private final Map<Integer, ChromosomeColumns> chromosomes;
+
+    private AllelePropertiesDaoColumnar(String[] columnNames, Map<Integer, ChromosomeColumns> chromosomes) {
+        this.columnNames = columnNames;
+        this.columnPropertyNumbers = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnPropertyNumbers[i] = TypedAlleleProperties.propertyNumber(columnNames[i]);
+        }
+        this.chromosomes = chromosomes;
+    }
+
+    /**
+     * Maps the file written by the {@link org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleWriter}
+     * into memory. The file handle is closed once the regions are mapped.
+     */
+    public static AllelePropertiesDaoColumnar open(Path path) {
+        logger.debug("Mapping allele store {}", path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != MAGIC) {
+                throw new ColumnarAlleleStoreException(path + " is not a columnar allele store");
+            }
+            if (version != VERSION) {
+                throw new ColumnarAlleleStoreException(String.format("Unsupported columnar allele store version %d in %s - expected version %d", version, path, VERSION));
+            }
+            long tocOffset = header.getLong();
+            ByteBuffer toc = channel.map(FileChannel.MapMode.READ_ONLY, tocOffset, channel.size() - tocOffset);
+
+            String[] columnNames = new String[toc.getInt()];
+            for (int i = 0; i < columnNames.length; i++) {
+                byte[] name = new byte[toc.getInt()];
+                toc.get(name);
+                columnNames[i] = new String(name, StandardCharsets.US_ASCII);
+            }
+
+            int chromosomeCount = toc.getInt();
+            Map<Integer, ChromosomeColumns> chromosomes = new HashMap<>();
+            for (int i = 0; i < chromosomeCount; i++) {
+                int chr = toc.getInt();
+                int alleleCount = toc.getInt();
+                long positionsOffset = toc.getLong();
+                long recordOffsetsOffset = toc.getLong();
+                long allelesOffset = toc.getLong();
+                long allelesLength = toc.getLong();
+                long intColumnLength = (long) alleleCount * Integer.BYTES;
+                IntBuffer positions = channel.map(FileChannel.MapMode.READ_ONLY, positionsOffset, intColumnLength).asIntBuffer();
+                IntBuffer recordOffsets = channel.map(FileChannel.MapMode.READ_ONLY, recordOffsetsOffset, intColumnLength).asIntBuffer();
+                ByteBuffer alleles = channel.map(FileChannel.MapMode.READ_ONLY, allelesOffset, allelesLength);
+                FloatBuffer[] columns = new FloatBuffer[columnNames.length];
+                for (int j = 0; j < columns.length; j++) {
+                    long columnOffset = toc.getLong();
+                    if (columnOffset != ABSENT_COLUMN) {
+                        columns[j] = channel.map(FileChannel.MapMode.READ_ONLY, columnOffset, (long) alleleCount * Float.BYTES).asFloatBuffer();
+                    }
+                }
+                chromosomes.put(chr, new ChromosomeColumns(alleleCount, positions, recordOffsets, alleles, columns));
+            }
+            logger.debug("Mapped {} chromosomes with columns {}", chromosomes.size(), columnNames);
+            return new AllelePropertiesDaoColumnar(columnNames, chromosomes);
+        } catch (IOException e) {
+            throw new ColumnarAlleleStoreException("Unable to open columnar allele store " + path, e);
+        }
+    }
+
+    @Caching(cacheable = {
+            @Cacheable(cacheNames = "hg19.allele", key = "#alleleKey", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
+            @Cacheable(cacheNames = "hg38.allele", key = "#alleleKey", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
+    })
+    @Override
+    public AlleleProto.AlleleProperties getAlleleProperties(AlleleProto.AlleleKey alleleKey, GenomeAssembly genomeAssembly) {
+        ChromosomeColumns chromosomeColumns = chromosomes.get(alleleKey.getChr());
+        if (chromosomeColumns == null) {
+            return AlleleProto.AlleleProperties.getDefaultInstance();
+        }
+        AlleleProto.AlleleProperties alleleProperties = chromosomeColumns.find(alleleKey, columnNames, columnPropertyNumbers);
+        logger.debug("{} {}", alleleKey, alleleProperties);
+        return alleleProperties;
+    }
+
+    @Caching(cacheable = {
+            @Cacheable(cacheNames = "hg19.allele", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
+            @Cacheable(cacheNames = "hg38.allele", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
+    })
+    @Override
+    public AlleleProto.AlleleProperties getAlleleProperties(Variant variant) {
+        AlleleProto.AlleleKey alleleKey = AlleleProtoAdaptor.toAlleleKey(variant);
+        return getAlleleProperties(alleleKey, variant.getGenomeAssembly());
+    }
+
+    private static class ChromosomeColumns {
+
+        private final int alleleCount;
+        private final IntBuffer positions;
+        private final IntBuffer recordOffsets;
+        private final ByteBuffer alleles;
+        private final FloatBuffer[] columns;
+
+        private ChromosomeColumns(int alleleCount, IntBuffer positions, IntBuffer recordOffsets, ByteBuffer alleles, FloatBuffer[] columns) {
+            this.alleleCount = alleleCount;
+            this.positions = positions;
+            this.recordOffsets = recordOffsets;
+            this.alleles = alleles;
+            this.columns = columns;
+        }
+
+        private AlleleProto.AlleleProperties find(AlleleProto.AlleleKey alleleKey, String[] columnNames, int[] columnPropertyNumbers) {
+            int position = alleleKey.getPosition();
+            byte[] ref = alleleKey.getRef().getBytes(StandardCharsets.US_ASCII);
+            byte[] alt = alleleKey.getAlt().getBytes(StandardCharsets.US_ASCII);
+            for (int index = firstIndexOf(position); index < alleleCount && positions.get(index) == position; index++) {
+                int recordOffset = recordOffsets.get(index);
+                int altOffset = matchBytes(recordOffset, ref);
+                if (altOffset != -1) {
+                    int rsIdOffset = matchBytes(altOffset, alt);
+                    if (rsIdOffset != -1) {
+                        return readAlleleProperties(index, rsIdOffset, columnNames, columnPropertyNumbers);
+                    }
+                }
+            }
+            return AlleleProto.AlleleProperties.getDefaultInstance();
+        }
+
+        /**
+         * Binary search for the lowest index with a position greater than or equal to the one given.
+         */
+        private int firstIndexOf(int position) {
+            int low = 0;
+            int high = alleleCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions.get(mid) < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Compares the length-prefixed bytes at the offset with the expected bytes, returning the offset of the next
+         * field if they are equal, or -1 if not.
+         */
+        private int matchBytes(int offset, byte[] expected) {
+            long lengthAndSize = ColumnarAlleleFormat.readVarInt(alleles, offset);
+            int length = (int) lengthAndSize;
+            if (length != expected.length) {
+                return -1;
+            }
+            int start = offset + (int) (lengthAndSize >>> 32);
+            for (int i = 0; i < length; i++) {
+                if (alleles.get(start + i) != expected[i]) {
+                    return -1;
+                }
+            }
+            return start + length;
+        }
+
+        private AlleleProto.AlleleProperties readAlleleProperties(int index, int rsIdOffset, String[] columnNames, int[] columnPropertyNumbers) {
+            AlleleProto.AlleleProperties.Builder builder = AlleleProto.AlleleProperties.newBuilder();
+
+            long rsIdLengthAndSize = ColumnarAlleleFormat.readVarInt(alleles, rsIdOffset);
+            int rsIdLength = (int) rsIdLengthAndSize;
+            int rsIdStart = rsIdOffset + (int) (rsIdLengthAndSize >>> 32);
+            if (rsIdLength > 0) {
+                builder.setRsId(new String(readBytes(rsIdStart, rsIdLength), StandardCharsets.US_ASCII));
+            }
+
+            int clinVarOffset = rsIdStart + rsIdLength;
+            long clinVarLengthAndSize = ColumnarAlleleFormat.readVarInt(alleles, clinVarOffset);
+            int clinVarLength = (int) clinVarLengthAndSize;
+            if (clinVarLength > 0) {
+                byte[] clinVarBytes = readBytes(clinVarOffset + (int) (clinVarLengthAndSize >>> 32), clinVarLength);
+                try {
+                    builder.setClinVar(AlleleProto.ClinVar.parseFrom(clinVarBytes));
+                } catch (InvalidProtocolBufferException e) {
+                    throw new InvalidAlleleProtoException(e);
+                }
+            }
+
+            float[] valuesByNumber = new float[TypedAlleleProperties.MAX_PROPERTIES];
+            Arrays.fill(valuesByNumber, Float.NaN);
+            for (int i = 0; i < columns.length; i++) {
+                FloatBuffer column = columns[i];
+                if (column != null) {
+                    float value = column.get(index);
+                    if (Float.isNaN(value)) {
+                        continue;
+                    }
+                    if (columnPropertyNumbers[i] == -1) {
+                        builder.putProperties(columnNames[i], value);
+                    } else {
+                        valuesByNumber[columnPropertyNumbers[i]] = value;
+                    }
+                }
+            }
+            return setTypedValues(builder, valuesByNumber).build();
+        }
+
+        private static AlleleProto.AlleleProperties.Builder setTypedValues(AlleleProto.AlleleProperties.Builder builder, float[] valuesByNumber) {
+            // TypedAlleleProperties.setValues would also clear any properties from columns which are not an AlleleProperty
+            long mask = 0L;
+            for (int number = 0; number < valuesByNumber.length; number++) {
+                if (!Float.isNaN(valuesByNumber[number])) {
+                    mask |= 1L << number;
+                    builder.addPropertyValues(valuesByNumber[number]);
+                }
+            }
+            return builder.setPropertiesMask(mask);
+        }
+
+        private byte[] readBytes(int start, int length) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = alleles.get(start + i);
+            }
+            return bytes;
+        }
+    }
+
+    private static class ColumnarAlleleStoreException extends RuntimeException {
+
+        private ColumnarAlleleStoreException(String message) {
+            super(message);
+        }
+
+        private ColumnarAlleleStoreException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
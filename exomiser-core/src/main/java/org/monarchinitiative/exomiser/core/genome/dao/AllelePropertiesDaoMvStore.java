@@ -20,20 +20,40 @@
 
 package org.monarchinitiative.exomiser.core.genome.dao;
 
+import com.google.common.hash.BloomFilter;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
+import org.h2.mvstore.type.DataType;
 import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
 import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
 import org.monarchinitiative.exomiser.core.model.AlleleProtoAdaptor;
 import org.monarchinitiative.exomiser.core.model.Variant;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
 /**
- * MVStore implementation of the {@link AllelePropertiesDao}
+ * MVStore implementation of the {@link AllelePropertiesDao}. Both the original protobuf and the newer binary
+ * {@link AlleleKeyFormat} are supported, the format being detected when the store is opened. An optional
+ * {@link BloomFilter} of the keys in the store can be supplied in order to skip the lookup of novel alleles.
+ * <p>
+ * All the lookups share the assembly-specific 'hg19.allele' and 'hg38.allele' caches, keyed by the
+ * {@link AlleleProto.AlleleKey}. The single lookups are cached by Spring, whereas the batch lookup reads and fills the
+ * caches of the {@link CacheManager} directly, if one has been set.
  *
  * @since 12.0.0
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -43,19 +63,71 @@ public class AllelePropertiesDaoMvStore implements AllelePropertiesDao {
 
     private static final Logger logger = LoggerFactory.getLogger(AllelePropertiesDaoMvStore.class);
 
-    private final MVMap<AlleleProto.AlleleKey, AlleleProto.AlleleProperties> map;
+    // Number of entries a cursor will be walked forwards to find the next key in a batch before it is cheaper to re-seek
+    // from the root of the tree. This is a bit more than the number of keys held in a leaf page.
+    static final int MAX_CURSOR_STEPS = 64;
+
+    // The map keys are either AlleleKey or byte[] depending on the AlleleKeyFormat of the store. These are converted
+    // from the AlleleKey of the query using the storeKeyEncoder and compared using the storeKeyType.
+    private final MVMap<Object, AlleleProto.AlleleProperties> map;
+    private final DataType storeKeyType;
+    private final Function<AlleleProto.AlleleKey, Object> storeKeyEncoder;
+    // Optional filter of the keys in the map, used to skip looking-up alleles which are definitely not present.
+    private final BloomFilter<AlleleProto.AlleleKey> alleleKeyFilter;
+    // Optional source of the caches used by the @Cacheable lookups, in order that the batch lookup can share them.
+    private CacheManager cacheManager;
 
     public AllelePropertiesDaoMvStore(MVStore mvStore) {
-        map = MvStoreUtil.openAlleleMVMap(mvStore);
+        this(mvStore, null);
+    }
+
+    /**
+     * @param mvStore         the variants store
+     * @param alleleKeyFilter a filter containing all the keys in the store, as created by
+     *                        {@link AlleleKeyBloomFilter#buildFrom(MVStore)}, or null if there is none.
+     * @since 12.1.0
+     */
+    public AllelePropertiesDaoMvStore(MVStore mvStore, BloomFilter<AlleleProto.AlleleKey> alleleKeyFilter) {
+        this.alleleKeyFilter = alleleKeyFilter;
+        AlleleKeyFormat alleleKeyFormat = MvStoreUtil.detectAlleleKeyFormat(mvStore);
+        logger.debug("Using {} allele key format", alleleKeyFormat);
+        if (alleleKeyFormat == AlleleKeyFormat.BINARY) {
+            map = untyped(MvStoreUtil.openBinaryAlleleMVMap(mvStore));
+            storeKeyType = BinaryAlleleKeyDataType.INSTANCE;
+            storeKeyEncoder = BinaryAlleleKeyDataType::toBytes;
+        } else {
+            map = untyped(MvStoreUtil.openAlleleMVMap(mvStore));
+            storeKeyType = AlleleKeyDataType.INSTANCE;
+            storeKeyEncoder = alleleKey -> alleleKey;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MVMap<Object, AlleleProto.AlleleProperties> untyped(MVMap<?, AlleleProto.AlleleProperties> map) {
+        return (MVMap<Object, AlleleProto.AlleleProperties>) map;
+    }
+
+    /**
+     * Sets the {@link CacheManager} holding the 'hg19.allele' and 'hg38.allele' caches used by the {@link Cacheable}
+     * lookups so that {@link #getAlleleProperties(List, GenomeAssembly)} only reads the keys missing from these.
+     *
+     * @since 12.1.0
+     */
+    @Autowired(required = false)
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
     }
 
     @Caching(cacheable = {
-            @Cacheable(cacheNames = "hg19.allele", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
-            @Cacheable(cacheNames = "hg38.allele", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
+            @Cacheable(cacheNames = "hg19.allele", key = "#alleleKey", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
+            @Cacheable(cacheNames = "hg38.allele", key = "#alleleKey", condition = "#genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
     })
     @Override
     public AlleleProto.AlleleProperties getAlleleProperties(AlleleProto.AlleleKey alleleKey, GenomeAssembly genomeAssembly) {
-        AlleleProto.AlleleProperties alleleProperties = map.getOrDefault(alleleKey, AlleleProto.AlleleProperties.getDefaultInstance());
+        if (isDefinitelyAbsent(alleleKey)) {
+            return AlleleProto.AlleleProperties.getDefaultInstance();
+        }
+        AlleleProto.AlleleProperties alleleProperties = map.getOrDefault(storeKeyEncoder.apply(alleleKey), AlleleProto.AlleleProperties.getDefaultInstance());
         logger.debug("{} {}", alleleKey, alleleProperties);
         return alleleProperties;
     }
@@ -70,4 +142,78 @@ public AlleleProto.AlleleProperties getAlleleProperties(Variant variant) {
         return getAlleleProperties(alleleKey, variant.getGenomeAssembly());
     }
 
+    private boolean isDefinitelyAbsent(AlleleProto.AlleleKey alleleKey) {
+        return alleleKeyFilter != null && !alleleKeyFilter.mightContain(alleleKey);
+    }
+
+    /**
+     * Looks up the keys in ascending key order using a single forward {@link Cursor} over the map, which re-uses the
+     * leaf page of the last key when the next key is close by. When given the keys for a block of variants from a VCF
+     * file the store is therefore read more-or-less sequentially rather than with a full B-tree descent for each key.
+     * The cursor is only re-positioned when the next key is more than {@link #MAX_CURSOR_STEPS} entries ahead.
+     * Keys already in the allele cache for the assembly are not read from the store, and those which are read are
+     * added to the cache.
+     */
+    @Override
+    public List<AlleleProto.AlleleProperties> getAlleleProperties(List<AlleleProto.AlleleKey> alleleKeys, GenomeAssembly genomeAssembly) {
+        AlleleProto.AlleleProperties[] results = new AlleleProto.AlleleProperties[alleleKeys.size()];
+        Object[] keys = new Object[alleleKeys.size()];
+        Cache alleleCache = getAlleleCache(genomeAssembly);
+        int numKeysToFind = 0;
+        for (int i = 0; i < keys.length; i++) {
+            AlleleProto.AlleleKey alleleKey = alleleKeys.get(i);
+            AlleleProto.AlleleProperties cached = alleleCache == null ? null : alleleCache.get(alleleKey, AlleleProto.AlleleProperties.class);
+            if (cached != null) {
+                results[i] = cached;
+            } else if (isDefinitelyAbsent(alleleKey)) {
+                results[i] = AlleleProto.AlleleProperties.getDefaultInstance();
+            } else {
+                keys[i] = storeKeyEncoder.apply(alleleKey);
+                numKeysToFind++;
+            }
+        }
+        Integer[] keyOrder = new Integer[numKeysToFind];
+        for (int i = 0, k = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                keyOrder[k++] = i;
+            }
+        }
+        // variants from a VCF are very nearly in key order already, so this should be cheap
+        Arrays.sort(keyOrder, (i, j) -> storeKeyType.compare(keys[i], keys[j]));
+
+        Cursor<Object, AlleleProto.AlleleProperties> cursor = null;
+        // the key at the current cursor position - this is always the smallest key in the map greater than or equal to
+        // the last key looked-up, or null if there are none.
+        Object cursorKey = null;
+        for (int index : keyOrder) {
+            Object storeKey = keys[index];
+            int steps = 0;
+            while (cursorKey != null && storeKeyType.compare(cursorKey, storeKey) < 0 && steps < MAX_CURSOR_STEPS) {
+                cursorKey = cursor.hasNext() ? cursor.next() : null;
+                steps++;
+            }
+            if (cursor == null || cursorKey != null && storeKeyType.compare(cursorKey, storeKey) < 0) {
+                cursor = map.cursor(storeKey);
+                cursorKey = cursor.hasNext() ? cursor.next() : null;
+            }
+            if (cursorKey != null && storeKeyType.compare(cursorKey, storeKey) == 0) {
+                results[index] = cursor.getValue();
+            } else {
+                results[index] = AlleleProto.AlleleProperties.getDefaultInstance();
+            }
+        }
+        if (alleleCache != null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    alleleCache.put(alleleKeys.get(i), results[i]);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Cache getAlleleCache(GenomeAssembly genomeAssembly) {
+        return cacheManager == null ? null : cacheManager.getCache(genomeAssembly + ".allele");
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+import org.monarchinitiative.exomiser.core.model.AllelePosition;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.CaddScore;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+
+/**
+ * Alternative to the {@link CaddDao} which reads the SNV scores from a {@link PositionScores} array converted from the
+ * CADD whole genome SNV tabix file, rather than the tabix file itself. The PHRED-scaled scores are quantised so may
+ * differ from those in the tabix file by up to 0.001. The array is indexed by the reference and alternate bases, so
+ * unlike the tabix lookup the reference base is assumed to match the genome. As there is no equivalent for the InDels,
+ * these are passed to the supplied InDel DAO.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class CaddDaoPositionScores implements PathogenicityDao {
+
+    private final Logger logger = LoggerFactory.getLogger(CaddDaoPositionScores.class);
+
+    private final PositionScores caddSnvScores;
+    private final PathogenicityDao caddInDelDao;
+
+    /**
+     * @param caddSnvScores the SNV scores with three slots per position as given by
+     *                      {@link PositionScoreFormat#snvSlot(String, String)}
+     * @param caddInDelDao  DAO to use for all other variants, usually a {@link CaddDao}
+     */
+    public CaddDaoPositionScores(PositionScores caddSnvScores, PathogenicityDao caddInDelDao) {
+        this.caddSnvScores = caddSnvScores;
+        this.caddInDelDao = caddInDelDao;
+    }
+
+    @Caching(cacheable = {
+            @Cacheable(cacheNames = "hg19.cadd", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
+            @Cacheable(cacheNames = "hg38.cadd", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
+    })
+    @Override
+    public PathogenicityData getPathogenicityData(Variant variant) {
+        String ref = variant.getRef();
+        String alt = variant.getAlt();
+        if (!AllelePosition.isSnv(ref, alt)) {
+            return caddInDelDao.getPathogenicityData(variant);
+        }
+        logger.debug("Getting CADD data for {}", variant);
+        float score = caddSnvScores.getScore(variant.getChromosome(), variant.getPosition(), PositionScoreFormat.snvSlot(ref, alt));
+        if (Float.isNaN(score)) {
+            return PathogenicityData.empty();
+        }
+        return PathogenicityData.of(CaddScore.of(score));
+    }
+}
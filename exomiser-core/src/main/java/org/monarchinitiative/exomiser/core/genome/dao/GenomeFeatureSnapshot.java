@@ -0,0 +1,325 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.monarchinitiative.exomiser.core.model.RegulatoryFeature;
+import org.monarchinitiative.exomiser.core.model.RegulatoryFeature.FeatureType;
+import org.monarchinitiative.exomiser.core.model.TopologicalDomain;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of the {@link RegulatoryFeature} and {@link TopologicalDomain} held in the genome database. These are
+ * written by the exomiser-data-genome module once the genome database has been built, and can be read in a single
+ * mapped read at startup rather than the full table scans of the {@link RegulatoryFeatureDao} and {@link TadDao}.
+ * <p>
+ * The regions are stored as primitive arrays sorted by chromosome, start and end. The gene symbols of the TADs are held
+ * in a string table which the TAD genes reference by index.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class GenomeFeatureSnapshot {
+
+    public static final String FILE_EXTENSION = ".features";
+
+    private static final int MAGIC = 0x45584746;
+    private static final int VERSION = 1;
+
+    private static final FeatureType[] FEATURE_TYPES = FeatureType.values();
+
+    // regulatory features
+    private final int[] featureChrs;
+    private final int[] featureStarts;
+    private final int[] featureEnds;
+    private final byte[] featureTypes;
+
+    // TADs and their genes, where the genes of TAD i are geneOffsets[i] until geneOffsets[i + 1]
+    private final int[] tadChrs;
+    private final int[] tadStarts;
+    private final int[] tadEnds;
+    private final int[] geneOffsets;
+    private final int[] geneSymbols;
+    private final int[] geneIds;
+    private final String[] symbolTable;
+
+    private GenomeFeatureSnapshot(int[] featureChrs, int[] featureStarts, int[] featureEnds, byte[] featureTypes, int[] tadChrs, int[] tadStarts, int[] tadEnds, int[] geneOffsets, int[] geneSymbols, int[] geneIds, String[] symbolTable) {
+        this.featureChrs = featureChrs;
+        this.featureStarts = featureStarts;
+        this.featureEnds = featureEnds;
+        this.featureTypes = featureTypes;
+        this.tadChrs = tadChrs;
+        this.tadStarts = tadStarts;
+        this.tadEnds = tadEnds;
+        this.geneOffsets = geneOffsets;
+        this.geneSymbols = geneSymbols;
+        this.geneIds = geneIds;
+        this.symbolTable = symbolTable;
+    }
+
+    public static GenomeFeatureSnapshot of(List<RegulatoryFeature> regulatoryFeatures, List<TopologicalDomain> topologicalDomains) {
+        List<RegulatoryFeature> sortedFeatures = new ArrayList<>(regulatoryFeatures);
+        sortedFeatures.sort(Comparator.comparingInt(RegulatoryFeature::getChromosome)
+                .thenComparingInt(RegulatoryFeature::getStart)
+                .thenComparingInt(RegulatoryFeature::getEnd));
+        int numFeatures = sortedFeatures.size();
+        int[] featureChrs = new int[numFeatures];
+        int[] featureStarts = new int[numFeatures];
+        int[] featureEnds = new int[numFeatures];
+        byte[] featureTypes = new byte[numFeatures];
+        for (int i = 0; i < numFeatures; i++) {
+            RegulatoryFeature feature = sortedFeatures.get(i);
+            featureChrs[i] = feature.getChromosome();
+            featureStarts[i] = feature.getStart();
+            featureEnds[i] = feature.getEnd();
+            featureTypes[i] = (byte) feature.getFeatureType().ordinal();
+        }
+
+        List<TopologicalDomain> sortedTads = new ArrayList<>(topologicalDomains);
+        sortedTads.sort(Comparator.comparingInt(TopologicalDomain::getChromosome)
+                .thenComparingInt(TopologicalDomain::getStart)
+                .thenComparingInt(TopologicalDomain::getEnd));
+        int numTads = sortedTads.size();
+        int[] tadChrs = new int[numTads];
+        int[] tadStarts = new int[numTads];
+        int[] tadEnds = new int[numTads];
+        int[] geneOffsets = new int[numTads + 1];
+        Map<String, Integer> symbolIndex = new LinkedHashMap<>();
+        List<Integer> geneSymbols = new ArrayList<>();
+        List<Integer> geneIds = new ArrayList<>();
+        for (int i = 0; i < numTads; i++) {
+            TopologicalDomain tad = sortedTads.get(i);
+            tadChrs[i] = tad.getChromosome();
+            tadStarts[i] = tad.getStart();
+            tadEnds[i] = tad.getEnd();
+            for (Map.Entry<String, Integer> gene : tad.getGenes().entrySet()) {
+                String symbol = gene.getKey();
+                geneSymbols.add(symbol == null ? -1 : symbolIndex.computeIfAbsent(symbol, key -> symbolIndex.size()));
+                geneIds.add(gene.getValue());
+            }
+            geneOffsets[i + 1] = geneSymbols.size();
+        }
+        String[] symbolTable = symbolIndex.keySet().toArray(new String[0]);
+
+        return new GenomeFeatureSnapshot(featureChrs, featureStarts, featureEnds, featureTypes, tadChrs, tadStarts, tadEnds, geneOffsets, toIntArray(geneSymbols), toIntArray(geneIds), symbolTable);
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        int[] ints = new int[values.size()];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = values.get(i);
+        }
+        return ints;
+    }
+
+    /**
+     * Returns the path of the snapshot for the genome database, e.g. data/1902_hg19_genome.features for
+     * data/1902_hg19_genome.mv.db or data/1902_hg19_genome.
+     */
+    public static Path snapshotPathFor(Path genomeDbPath) {
+        String fileName = genomeDbPath.getFileName().toString().replace(".mv.db", "").replace(".h2.db", "");
+        return genomeDbPath.resolveSibling(fileName + FILE_EXTENSION);
+    }
+
+    public int getRegulatoryFeatureCount() {
+        return featureChrs.length;
+    }
+
+    public int getTopologicalDomainCount() {
+        return tadChrs.length;
+    }
+
+    public List<RegulatoryFeature> getRegulatoryFeatures() {
+        List<RegulatoryFeature> regulatoryFeatures = new ArrayList<>(featureChrs.length);
+        for (int i = 0; i < featureChrs.length; i++) {
+            regulatoryFeatures.add(new RegulatoryFeature(featureChrs[i], featureStarts[i], featureEnds[i], FEATURE_TYPES[featureTypes[i]]));
+        }
+        return regulatoryFeatures;
+    }
+
+    public List<TopologicalDomain> getTopologicallyAssociatedDomains() {
+        List<TopologicalDomain> tads = new ArrayList<>(tadChrs.length);
+        for (int i = 0; i < tadChrs.length; i++) {
+            Map<String, Integer> genes = new LinkedHashMap<>();
+            for (int j = geneOffsets[i]; j < geneOffsets[i + 1]; j++) {
+                int symbol = geneSymbols[j];
+                genes.put(symbol == -1 ? null : symbolTable[symbol], geneIds[j]);
+            }
+            tads.add(new TopologicalDomain(tadChrs[i], tadStarts[i], tadEnds[i], genes));
+        }
+        return tads;
+    }
+
+    public static GenomeFeatureSnapshot readFrom(Path snapshotPath) {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new GenomeFeatureSnapshotException(snapshotPath + " is not a genome feature snapshot file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new GenomeFeatureSnapshotException("Unsupported genome feature snapshot version " + version + " in " + snapshotPath);
+            }
+            // the feature types are stored by name so that the snapshot does not depend on the order of the enum
+            byte[] featureTypeMapping = readFeatureTypeMapping(buffer);
+            int numFeatures = buffer.getInt();
+            int[] featureChrs = readInts(buffer, numFeatures);
+            int[] featureStarts = readInts(buffer, numFeatures);
+            int[] featureEnds = readInts(buffer, numFeatures);
+            byte[] featureTypes = new byte[numFeatures];
+            buffer.get(featureTypes);
+            for (int i = 0; i < numFeatures; i++) {
+                featureTypes[i] = featureTypeMapping[featureTypes[i]];
+            }
+
+            String[] symbolTable = readStrings(buffer);
+            int numTads = buffer.getInt();
+            int[] tadChrs = readInts(buffer, numTads);
+            int[] tadStarts = readInts(buffer, numTads);
+            int[] tadEnds = readInts(buffer, numTads);
+            int[] geneOffsets = readInts(buffer, numTads + 1);
+            int numGenes = geneOffsets[numTads];
+            int[] geneSymbols = readInts(buffer, numGenes);
+            int[] geneIds = readInts(buffer, numGenes);
+            return new GenomeFeatureSnapshot(featureChrs, featureStarts, featureEnds, featureTypes, tadChrs, tadStarts, tadEnds, geneOffsets, geneSymbols, geneIds, symbolTable);
+        } catch (IOException | BufferUnderflowException e) {
+            throw new GenomeFeatureSnapshotException("Unable to read genome feature snapshot " + snapshotPath, e);
+        }
+    }
+
+    private static byte[] readFeatureTypeMapping(ByteBuffer buffer) {
+        String[] featureTypeNames = readStrings(buffer);
+        byte[] mapping = new byte[featureTypeNames.length];
+        for (int i = 0; i < featureTypeNames.length; i++) {
+            FeatureType featureType = FeatureType.UNKNOWN;
+            for (FeatureType type : FEATURE_TYPES) {
+                if (type.name().equals(featureTypeNames[i])) {
+                    featureType = type;
+                }
+            }
+            mapping[i] = (byte) featureType.ordinal();
+        }
+        return mapping;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] ints = new int[length];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return ints;
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    public void writeTo(Path snapshotPath) {
+        String[] featureTypeNames = Arrays.stream(FEATURE_TYPES).map(FeatureType::name).toArray(String[]::new);
+        byte[][] encodedFeatureTypes = encode(featureTypeNames);
+        byte[][] encodedSymbols = encode(symbolTable);
+        int numFeatures = featureChrs.length;
+        int numTads = tadChrs.length;
+        int numGenes = geneIds.length;
+        long length = 2L * Integer.BYTES
+                + stringsLength(encodedFeatureTypes)
+                + Integer.BYTES + 3L * numFeatures * Integer.BYTES + numFeatures
+                + stringsLength(encodedSymbols)
+                + Integer.BYTES + (4L * numTads + 1) * Integer.BYTES + 2L * numGenes * Integer.BYTES;
+        if (length > Integer.MAX_VALUE) {
+            throw new GenomeFeatureSnapshotException("Genome feature snapshot too large to write " + snapshotPath);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        writeStrings(buffer, encodedFeatureTypes);
+        buffer.putInt(numFeatures);
+        writeInts(buffer, featureChrs);
+        writeInts(buffer, featureStarts);
+        writeInts(buffer, featureEnds);
+        buffer.put(featureTypes);
+
+        writeStrings(buffer, encodedSymbols);
+        buffer.putInt(numTads);
+        writeInts(buffer, tadChrs);
+        writeInts(buffer, tadStarts);
+        writeInts(buffer, tadEnds);
+        writeInts(buffer, geneOffsets);
+        writeInts(buffer, geneSymbols);
+        writeInts(buffer, geneIds);
+        try {
+            Files.write(snapshotPath, buffer.array());
+        } catch (IOException e) {
+            throw new GenomeFeatureSnapshotException("Unable to write genome feature snapshot " + snapshotPath, e);
+        }
+    }
+
+    private static byte[][] encode(String[] strings) {
+        byte[][] encoded = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long stringsLength(byte[][] encodedStrings) {
+        long length = Integer.BYTES;
+        for (byte[] bytes : encodedStrings) {
+            length += Integer.BYTES + bytes.length;
+        }
+        return length;
+    }
+
+    private static void writeStrings(ByteBuffer buffer, byte[][] encodedStrings) {
+        buffer.putInt(encodedStrings.length);
+        for (byte[] bytes : encodedStrings) {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] ints) {
+        buffer.asIntBuffer().put(ints);
+        buffer.position(buffer.position() + ints.length * Integer.BYTES);
+    }
+
+    private static class GenomeFeatureSnapshotException extends RuntimeException {
+
+        private GenomeFeatureSnapshotException(String message) {
+            super(message);
+        }
+
+        private GenomeFeatureSnapshotException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
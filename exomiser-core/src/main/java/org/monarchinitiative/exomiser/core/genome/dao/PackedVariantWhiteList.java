@@ -0,0 +1,396 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.monarchinitiative.exomiser.core.genome.Contig;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compact implementation of the {@link VariantWhiteList}. Alleles are held in packed primitive arrays and indexed by an
+ * open-addressing table of their 64-bit hashes, so that a whitelist entry costs a few tens of bytes rather than an
+ * {@link org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey} and its Strings, and checking a
+ * {@link Variant} does not allocate. Matching hashes are verified against the packed allele.
+ * <p>
+ * The whitelist can be written to, and read from, a binary file in order that the gzipped text file does not need
+ * parsing on startup. The binary file records the size and last modified time of the text file it was written from, and
+ * is only read while these match, so that a replaced text file is not shadowed by a stale binary file.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PackedVariantWhiteList implements VariantWhiteList {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackedVariantWhiteList.class);
+
+    public static final String FILE_EXTENSION = ".wl";
+
+    private static final int MAGIC = 0x45585756;
+    private static final int VERSION = 2;
+    // magic, version, source size, source last modified time and number of alleles
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + 2 * Long.BYTES;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int numAlleles;
+    private final int size;
+    private final int[] chrs;
+    private final int[] positions;
+    // the ref of allele i is alleleBytes[alleleOffsets[2i]..alleleOffsets[2i + 1]) and the alt runs from there to
+    // alleleOffsets[2i + 2]
+    private final int[] alleleOffsets;
+    private final byte[] alleleBytes;
+
+    // open-addressing hash table. The slots hold the index + 1 of the allele with the hash, 0 being an empty slot.
+    private final long[] hashes;
+    private final int[] slots;
+    private final int mask;
+
+    private PackedVariantWhiteList(int numAlleles, int[] chrs, int[] positions, int[] alleleOffsets, byte[] alleleBytes) {
+        this.numAlleles = numAlleles;
+        this.chrs = chrs;
+        this.positions = positions;
+        this.alleleOffsets = alleleOffsets;
+        this.alleleBytes = alleleBytes;
+
+        // keep the load factor at or below 0.5 so that the probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(2, numAlleles) * 2 - 1) << 1;
+        this.hashes = new long[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        int numInserted = 0;
+        for (int i = 0; i < numAlleles; i++) {
+            if (insert(i)) {
+                numInserted++;
+            }
+        }
+        this.size = numInserted;
+        if (size != numAlleles) {
+            logger.debug("Ignored {} duplicate alleles in variant whitelist", numAlleles - size);
+        }
+    }
+
+    // returns false if the allele is a duplicate of one already in the table
+    private boolean insert(int index) {
+        long hash = hash(chrs[index], positions[index], alleleBytes, alleleOffsets[2 * index], alleleOffsets[2 * index + 1], alleleOffsets[2 * index + 2]);
+        int slot = (int) hash & mask;
+        while (slots[slot] != 0) {
+            if (hashes[slot] == hash && isDuplicate(slots[slot] - 1, index)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        slots[slot] = index + 1;
+        return true;
+    }
+
+    private boolean isDuplicate(int index, int other) {
+        int start = alleleOffsets[2 * index];
+        int otherStart = alleleOffsets[2 * other];
+        int length = alleleOffsets[2 * index + 2] - start;
+        if (chrs[index] != chrs[other] || positions[index] != positions[other]
+                || alleleOffsets[2 * index + 1] - start != alleleOffsets[2 * other + 1] - otherStart
+                || alleleOffsets[2 * other + 2] - otherStart != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (alleleBytes[start + i] != alleleBytes[otherStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of unique alleles in the whitelist
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Variant variant) {
+        return contains(variant.getChromosome(), variant.getPosition(), variant.getRef(), variant.getAlt());
+    }
+
+    public boolean contains(int chr, int position, String ref, String alt) {
+        long hash = hash(chr, position, ref, alt);
+        int slot = (int) hash & mask;
+        while (slots[slot] != 0) {
+            if (hashes[slot] == hash && matches(slots[slot] - 1, chr, position, ref, alt)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean matches(int index, int chr, int position, String ref, String alt) {
+        return chrs[index] == chr && positions[index] == position
+                && matches(ref, alleleOffsets[2 * index], alleleOffsets[2 * index + 1])
+                && matches(alt, alleleOffsets[2 * index + 1], alleleOffsets[2 * index + 2]);
+    }
+
+    private boolean matches(String allele, int start, int end) {
+        if (allele.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < allele.length(); i++) {
+            if (allele.charAt(i) != alleleBytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(int chr, int position, String ref, String alt) {
+        long hash = startHash(chr, position);
+        for (int i = 0; i < ref.length(); i++) {
+            hash = (hash ^ ref.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ '>') * FNV_PRIME;
+        for (int i = 0; i < alt.length(); i++) {
+            hash = (hash ^ alt.charAt(i)) * FNV_PRIME;
+        }
+        return finishHash(hash);
+    }
+
+    // this must return the same value as hash(int, int, String, String) for the same allele
+    private static long hash(int chr, int position, byte[] bytes, int refStart, int altStart, int altEnd) {
+        long hash = startHash(chr, position);
+        for (int i = refStart; i < altStart; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+        }
+        hash = (hash ^ '>') * FNV_PRIME;
+        for (int i = altStart; i < altEnd; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+        }
+        return finishHash(hash);
+    }
+
+    private static long startHash(int chr, int position) {
+        return finishHash(((long) chr << 32) | (position & 0xffffffffL));
+    }
+
+    // MurmurHash3 fmix64 finaliser to spread the bits used to index the table
+    private static long finishHash(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns the path of the binary whitelist for the gzipped text whitelist, e.g. 1902_hg19_clinvar_whitelist.tsv.gz
+     * will return 1902_hg19_clinvar_whitelist.wl in the same directory.
+     */
+    public static Path binaryPathFor(Path whiteListPath) {
+        String fileName = whiteListPath.getFileName().toString();
+        String baseName = fileName.endsWith(".tsv.gz") ? fileName.substring(0, fileName.length() - ".tsv.gz".length()) : fileName;
+        return whiteListPath.resolveSibling(baseName + FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the gzipped, tab-separated whitelist where the first four columns of each line are the chr, pos, ref and alt
+     * of the whitelisted allele. Lines starting with '#' are ignored.
+     */
+    public static PackedVariantWhiteList readFromTsvGz(Path whiteListPath) {
+        Builder builder = builder();
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(whiteListPath)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    // comment line
+                    continue;
+                }
+                String[] tokens = line.split("\t");
+                if (tokens.length < 4) {
+                    logger.error("Error parsing variant whitelist. Require minimum 4 tokens in line {}", line);
+                    continue;
+                }
+                // Exomiser - simple VCF format
+                builder.add(Contig.parseId(tokens[0]), Integer.parseInt(tokens[1]), tokens[2], tokens[3]);
+            }
+        } catch (IOException e) {
+            throw new VariantWhiteListIOException("Unable to load variant whitelist " + whiteListPath, e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads a whitelist written by {@link #writeTo(Path, Path)} from the given gzipped text whitelist. An exception is
+     * thrown if the binary file cannot be read, or if the text file has changed since the binary file was written.
+     *
+     * @param binaryPath path of the binary whitelist
+     * @param sourcePath path of the gzipped text whitelist the binary whitelist was written from
+     */
+    public static PackedVariantWhiteList readFrom(Path binaryPath, Path sourcePath) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(binaryPath));
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new VariantWhiteListIOException(binaryPath + " is not a variant whitelist file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new VariantWhiteListIOException("Unsupported variant whitelist version " + version + " in " + binaryPath);
+            }
+            long sourceSize = buffer.getLong();
+            long sourceLastModified = buffer.getLong();
+            if (sourceSize != Files.size(sourcePath) || sourceLastModified != lastModifiedMillis(sourcePath)) {
+                throw new VariantWhiteListIOException("Variant whitelist " + binaryPath + " was not written from the current " + sourcePath);
+            }
+            int size = buffer.getInt();
+            int[] chrs = new int[size];
+            buffer.asIntBuffer().get(chrs);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+            int[] positions = new int[size];
+            buffer.asIntBuffer().get(positions);
+            buffer.position(buffer.position() + size * Integer.BYTES);
+            int[] alleleOffsets = new int[2 * size + 1];
+            buffer.asIntBuffer().get(alleleOffsets);
+            buffer.position(buffer.position() + alleleOffsets.length * Integer.BYTES);
+            byte[] alleleBytes = new byte[alleleOffsets[2 * size]];
+            buffer.get(alleleBytes);
+            return new PackedVariantWhiteList(size, chrs, positions, alleleOffsets, alleleBytes);
+        } catch (IOException e) {
+            throw new VariantWhiteListIOException("Unable to read variant whitelist " + binaryPath, e);
+        }
+    }
+
+    private static long lastModifiedMillis(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).toMillis();
+    }
+
+    /**
+     * Writes the whitelist to the binary file, along with the size and last modified time of the gzipped text whitelist
+     * it was read from.
+     *
+     * @param binaryPath path of the binary whitelist to write
+     * @param sourcePath path of the gzipped text whitelist this was read from
+     */
+    public void writeTo(Path binaryPath, Path sourcePath) {
+        int alleleBytesLength = alleleOffsets[2 * numAlleles];
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (4 * numAlleles + 1) * Integer.BYTES + alleleBytesLength);
+        try {
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(Files.size(sourcePath)).putLong(lastModifiedMillis(sourcePath)).putInt(numAlleles);
+        } catch (IOException e) {
+            throw new VariantWhiteListIOException("Unable to read the size and modification time of " + sourcePath, e);
+        }
+        buffer.asIntBuffer().put(chrs, 0, numAlleles);
+        buffer.position(buffer.position() + numAlleles * Integer.BYTES);
+        buffer.asIntBuffer().put(positions, 0, numAlleles);
+        buffer.position(buffer.position() + numAlleles * Integer.BYTES);
+        buffer.asIntBuffer().put(alleleOffsets, 0, 2 * numAlleles + 1);
+        buffer.position(buffer.position() + (2 * numAlleles + 1) * Integer.BYTES);
+        buffer.put(alleleBytes, 0, alleleBytesLength);
+        try {
+            Files.write(binaryPath, buffer.array());
+        } catch (IOException e) {
+            throw new VariantWhiteListIOException("Unable to write variant whitelist " + binaryPath, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PackedVariantWhiteList{" +
+                "size=" + size +
+                '}';
+    }
+
+    public static class Builder {
+
+        private int size = 0;
+        private int[] chrs = new int[1024];
+        private int[] positions = new int[1024];
+        private int[] alleleOffsets = new int[2 * 1024 + 1];
+        private byte[] alleleBytes = new byte[4 * 1024];
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the allele to the whitelist. The ref and alt are expected to be ASCII, as per the VCF specification.
+         */
+        public Builder add(int chr, int position, String ref, String alt) {
+            if (size == chrs.length) {
+                chrs = Arrays.copyOf(chrs, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+                alleleOffsets = Arrays.copyOf(alleleOffsets, size * 4 + 1);
+            }
+            int start = alleleOffsets[2 * size];
+            int end = start + ref.length() + alt.length();
+            if (end > alleleBytes.length) {
+                alleleBytes = Arrays.copyOf(alleleBytes, Math.max(end, alleleBytes.length * 2));
+            }
+            chrs[size] = chr;
+            positions[size] = position;
+            putAscii(ref, start);
+            alleleOffsets[2 * size + 1] = start + ref.length();
+            putAscii(alt, start + ref.length());
+            alleleOffsets[2 * size + 2] = end;
+            size++;
+            return this;
+        }
+
+        private void putAscii(String allele, int offset) {
+            for (int i = 0; i < allele.length(); i++) {
+                alleleBytes[offset + i] = (byte) allele.charAt(i);
+            }
+        }
+
+        /**
+         * Builds the whitelist. Any duplicate alleles are ignored.
+         */
+        public PackedVariantWhiteList build() {
+            return new PackedVariantWhiteList(size, Arrays.copyOf(chrs, size), Arrays.copyOf(positions, size),
+                    Arrays.copyOf(alleleOffsets, 2 * size + 1), Arrays.copyOf(alleleBytes, alleleOffsets[2 * size]));
+        }
+    }
+
+    private static class VariantWhiteListIOException extends RuntimeException {
+
+        private VariantWhiteListIOException(String message) {
+            super(message);
+        }
+
+        private VariantWhiteListIOException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
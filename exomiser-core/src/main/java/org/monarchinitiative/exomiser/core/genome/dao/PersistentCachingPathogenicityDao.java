@@ -0,0 +1,88 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.monarchinitiative.exomiser.core.model.AlleleProtoAdaptor;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * {@link PathogenicityDao} which checks a {@link PersistentPathogenicityCache} before delegating to the wrapped dao,
+ * caching the result of the delegate. This is intended for the tabix backed sources, where the same common variants
+ * are otherwise read from disk on every run. Only the predicted pathogenicity scores are cached, so this should not be
+ * used for sources which return ClinVar data.
+ * <p>
+ * The cache is keyed by the {@link AlleleKey} alone, so sources whose results also depend on the annotations of the
+ * variant, such as REMM which skips missense variants, must supply a predicate selecting the variants for which this
+ * is not the case. The remaining variants are always read from the delegate.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PersistentCachingPathogenicityDao implements PathogenicityDao {
+
+    private final String cacheName;
+    private final PathogenicityDao pathogenicityDao;
+    private final PersistentPathogenicityCache cache;
+    private final Predicate<Variant> isCacheable;
+
+    /**
+     * @param cacheName        name of the cache, which must be unique to the source and genome assembly e.g. 'hg19.cadd'
+     * @param sourceIdentity   identity of the source data e.g. its version and files. Any entries cached from a source
+     *                         with a different identity are dropped.
+     * @param pathogenicityDao the dao to cache
+     * @param cache            the cache
+     */
+    public PersistentCachingPathogenicityDao(String cacheName, String sourceIdentity, PathogenicityDao pathogenicityDao, PersistentPathogenicityCache cache) {
+        this(cacheName, sourceIdentity, pathogenicityDao, cache, variant -> true);
+    }
+
+    /**
+     * @param isCacheable selects the variants for which the result of the pathogenicityDao only depends on the
+     *                    {@link AlleleKey}. Only these are cached.
+     */
+    public PersistentCachingPathogenicityDao(String cacheName, String sourceIdentity, PathogenicityDao pathogenicityDao, PersistentPathogenicityCache cache, Predicate<Variant> isCacheable) {
+        this.cacheName = Objects.requireNonNull(cacheName);
+        this.pathogenicityDao = Objects.requireNonNull(pathogenicityDao);
+        this.cache = Objects.requireNonNull(cache);
+        this.isCacheable = Objects.requireNonNull(isCacheable);
+        cache.useSource(cacheName, sourceIdentity);
+    }
+
+    @Override
+    public PathogenicityData getPathogenicityData(Variant variant) {
+        if (!isCacheable.test(variant)) {
+            return pathogenicityDao.getPathogenicityData(variant);
+        }
+        AlleleKey alleleKey = AlleleProtoAdaptor.toAlleleKey(variant);
+        PathogenicityData cached = cache.get(cacheName, alleleKey);
+        if (cached != null) {
+            return cached;
+        }
+        PathogenicityData pathogenicityData = pathogenicityDao.getPathogenicityData(variant);
+        cache.put(cacheName, alleleKey, pathogenicityData);
+        return pathogenicityData;
+    }
+}
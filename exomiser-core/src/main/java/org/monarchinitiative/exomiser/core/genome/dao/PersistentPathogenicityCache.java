@@ -0,0 +1,240 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.model.AlleleProtoAdaptor;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded cache of {@link PathogenicityData} held in an {@link MVStore} file so that the results of looking-up
+ * variants in the tabix pathogenicity sources survive between runs. Each named cache, e.g. 'hg19.cadd', is keyed by the
+ * {@link AlleleKey} of the variant and holds at most {@code maxEntries}, including the empty results for variants which
+ * were not found in the source.
+ * <p>
+ * Eviction is approximately least-recently-used. Each cache is split into a current and a previous generation of
+ * {@code maxEntries / 2}. New entries are written to the current generation and entries found in the previous
+ * generation are copied back into the current one. When the current generation is full the previous generation is
+ * cleared and the two are swapped, dropping all the entries which were not used since the last swap.
+ * <p>
+ * The identity of the source data of each cache, e.g. the data version and the path, size and modification time of the
+ * source files, is stored alongside the entries by {@link #useSource(String, String)}. A cache whose source has changed
+ * is dropped, so that results of an earlier release of the data are never returned.
+ * <p>
+ * Only one process can open the file at a time.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PersistentPathogenicityCache implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentPathogenicityCache.class);
+
+    private static final String GENERATIONS_MAP_NAME = "generations";
+    private static final String SOURCES_MAP_NAME = "sources";
+
+    private final MVStore mvStore;
+    private final long generationSize;
+    // the index of the current generation of each cache
+    private final MVMap<String, Integer> generations;
+    // the identity of the source data of each cache
+    private final MVMap<String, String> sources;
+    private final Map<String, Generations> caches = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens, or creates, the cache file.
+     *
+     * @param cachePath  path of the cache file
+     * @param maxEntries maximum number of entries held for each cache name
+     * @throws RuntimeException if the file cannot be opened, for instance when it is in use by another process.
+     */
+    public static PersistentPathogenicityCache open(Path cachePath, long maxEntries) {
+        try {
+            MVStore mvStore = new MVStore.Builder()
+                    .fileName(cachePath.toAbsolutePath().toString())
+                    .open();
+            return new PersistentPathogenicityCache(mvStore, maxEntries);
+        } catch (IllegalStateException e) {
+            throw new PersistentPathogenicityCacheException("Unable to open pathogenicity cache " + cachePath, e);
+        }
+    }
+
+    /**
+     * @param mvStore    a writable store to hold the caches
+     * @param maxEntries maximum number of entries held for each cache name
+     */
+    public PersistentPathogenicityCache(MVStore mvStore, long maxEntries) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2, but was " + maxEntries);
+        }
+        this.mvStore = Objects.requireNonNull(mvStore);
+        this.generationSize = maxEntries / 2;
+        this.generations = mvStore.openMap(GENERATIONS_MAP_NAME);
+        this.sources = mvStore.openMap(SOURCES_MAP_NAME);
+    }
+
+    /**
+     * Records the identity of the source data of the cache, dropping all the entries of the cache if these were
+     * cached from a different source, or from a source of unknown identity. This should be called before the cache is
+     * used.
+     *
+     * @param cacheName      name of the cache
+     * @param sourceIdentity identity of the data from which the cached values are read
+     */
+    public void useSource(String cacheName, String sourceIdentity) {
+        Objects.requireNonNull(sourceIdentity);
+        Generations cache = getCache(cacheName);
+        String cachedSourceIdentity = sources.get(cacheName);
+        if (!sourceIdentity.equals(cachedSourceIdentity)) {
+            if (cache.size() > 0) {
+                logger.info("Source of pathogenicity cache '{}' has changed from {} to {} - dropping {} entries", cacheName, cachedSourceIdentity, sourceIdentity, cache.size());
+            }
+            cache.clear();
+            sources.put(cacheName, sourceIdentity);
+        }
+    }
+
+    /**
+     * @return the cached data for the key, or null if this has not been cached.
+     */
+    public PathogenicityData get(String cacheName, AlleleKey alleleKey) {
+        Generations cache = getCache(cacheName);
+        AlleleProperties alleleProperties = cache.current.get(alleleKey);
+        if (alleleProperties == null) {
+            alleleProperties = cache.previous.get(alleleKey);
+            if (alleleProperties == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            cache.put(alleleKey, alleleProperties);
+        }
+        hits.incrementAndGet();
+        return AlleleProtoAdaptor.toPathogenicityData(alleleProperties);
+    }
+
+    public void put(String cacheName, AlleleKey alleleKey, PathogenicityData pathogenicityData) {
+        getCache(cacheName).put(alleleKey, AlleleProtoAdaptor.toAlleleProperties(pathogenicityData));
+    }
+
+    /**
+     * @return the number of entries currently held for the cache name.
+     */
+    public long size(String cacheName) {
+        return getCache(cacheName).size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private Generations getCache(String cacheName) {
+        return caches.computeIfAbsent(cacheName, Generations::new);
+    }
+
+    @Override
+    public void close() {
+        if (!mvStore.isClosed()) {
+            logger.info("Closing pathogenicity cache - {} hits, {} misses, {} evictions", hits.get(), misses.get(), evictions.get());
+            mvStore.close();
+        }
+    }
+
+    private class Generations {
+
+        private final String cacheName;
+        private final MVMap<AlleleKey, AlleleProperties> first;
+        private final MVMap<AlleleKey, AlleleProperties> second;
+
+        private volatile MVMap<AlleleKey, AlleleProperties> current;
+        private volatile MVMap<AlleleKey, AlleleProperties> previous;
+
+        private Generations(String cacheName) {
+            this.cacheName = cacheName;
+            this.first = mvStore.openMap(cacheName + "#0", MvStoreUtil.alleleMapBuilder());
+            this.second = mvStore.openMap(cacheName + "#1", MvStoreUtil.alleleMapBuilder());
+            boolean firstIsCurrent = generations.getOrDefault(cacheName, 0) == 0;
+            this.current = firstIsCurrent ? first : second;
+            this.previous = firstIsCurrent ? second : first;
+            logger.debug("Opened pathogenicity cache '{}' with {} entries", cacheName, size());
+        }
+
+        private long size() {
+            return current.sizeAsLong() + previous.sizeAsLong();
+        }
+
+        private synchronized void clear() {
+            current.clear();
+            previous.clear();
+        }
+
+        private void put(AlleleKey alleleKey, AlleleProperties alleleProperties) {
+            current.put(alleleKey, alleleProperties);
+            if (current.sizeAsLong() >= generationSize) {
+                swapGenerations();
+            }
+        }
+
+        private synchronized void swapGenerations() {
+            if (current.sizeAsLong() < generationSize) {
+                // already swapped by another thread
+                return;
+            }
+            MVMap<AlleleKey, AlleleProperties> evicted = previous;
+            evictions.addAndGet(evicted.sizeAsLong());
+            evicted.clear();
+            previous = current;
+            current = evicted;
+            generations.put(cacheName, current == first ? 0 : 1);
+            logger.debug("Swapped generations of pathogenicity cache '{}'", cacheName);
+        }
+    }
+
+    private static class PersistentPathogenicityCacheException extends RuntimeException {
+
+        private PersistentPathogenicityCacheException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import htsjdk.tribble.readers.TabixReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * {@link TabixDataSource} which leases each query to one of a pool of {@link TabixDataSource} over the same file, so
+ * that concurrent analyses can query the file at the same time rather than queueing for the lock on a single
+ * {@link TabixReaderAdaptor}. New data sources are created on demand, up to the maximum pool size, after which
+ * queries wait for one to be returned to the pool. Each pooled data source has its own file handle and copy of the
+ * tabix index, so the pool should be no larger than the number of threads expected to query it concurrently.
+ * <p>
+ * Each thread is pinned to the data source it last used, which it is given again whenever this is idle. A thread
+ * without one of its own is given an idle data source which is not pinned to another live thread, or a new data source
+ * until the pool is full, after which it will take over the most recently returned one. So long as the pool is at least
+ * as large as the number of querying threads each thread therefore keeps its own data source, which keeps the queries
+ * of a {@link SweepingTabixReaderAdaptor} in the order they were made by that thread, e.g. the variants of a shard.
+ * The data sources of threads which have finished are given to the next threads to query the pool.
+ * <p>
+ * Data sources which are in use when the pool is closed are closed when they are returned.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PooledTabixDataSource implements TabixDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledTabixDataSource.class);
+
+    private final Supplier<TabixDataSource> tabixDataSourceFactory;
+    private final int maxPoolSize;
+    private final String source;
+
+    // guarded by this
+    private final Deque<TabixDataSource> idle = new ArrayDeque<>();
+    private final List<TabixDataSource> all = new ArrayList<>();
+    // the thread each data source is pinned to, held weakly so that the data sources of finished threads can be reused
+    private final Map<TabixDataSource, WeakReference<Thread>> pinnedThreads = new IdentityHashMap<>();
+    private int numCreating = 0;
+    private boolean closed = false;
+
+    // the data source last leased by each thread
+    private final ThreadLocal<TabixDataSource> pinned = new ThreadLocal<>();
+
+    private final AtomicLong numLeases = new AtomicLong();
+    private final AtomicLong numWaits = new AtomicLong();
+
+    /**
+     * @param maxPoolSize            maximum number of data sources to create
+     * @param tabixDataSourceFactory creates a new data source for the file. This is called once on construction in
+     *                               order that any problems with the file are found immediately.
+     */
+    public PooledTabixDataSource(int maxPoolSize, Supplier<TabixDataSource> tabixDataSourceFactory) {
+        if (maxPoolSize < 1) {
+            throw new IllegalArgumentException("maxPoolSize must be at least 1, but was " + maxPoolSize);
+        }
+        this.maxPoolSize = maxPoolSize;
+        this.tabixDataSourceFactory = Objects.requireNonNull(tabixDataSourceFactory);
+        TabixDataSource first = tabixDataSourceFactory.get();
+        this.source = first.getSource();
+        idle.push(first);
+        all.add(first);
+    }
+
+    @Override
+    public TabixReader.Iterator query(String query) {
+        TabixDataSource tabixDataSource = lease();
+        try {
+            return tabixDataSource.query(query);
+        } finally {
+            release(tabixDataSource);
+        }
+    }
+
+    @Override
+    public TabixReader.Iterator query(String chromosome, int start, int end) {
+        TabixDataSource tabixDataSource = lease();
+        try {
+            return tabixDataSource.query(chromosome, start, end);
+        } finally {
+            release(tabixDataSource);
+        }
+    }
+
+    private TabixDataSource lease() {
+        TabixDataSource tabixDataSource = leaseExisting();
+        if (tabixDataSource == null) {
+            tabixDataSource = create();
+        }
+        pinned.set(tabixDataSource);
+        return tabixDataSource;
+    }
+
+    /**
+     * @return the data source pinned to this thread, else an idle one not pinned to another live thread, else any idle
+     * one if the pool is full, or null if a new data source can be created.
+     */
+    private synchronized TabixDataSource leaseExisting() {
+        numLeases.incrementAndGet();
+        checkNotClosed();
+        TabixDataSource pinnedDataSource = pinned.get();
+        if (pinnedDataSource != null && idle.remove(pinnedDataSource)) {
+            pinToCurrentThread(pinnedDataSource);
+            return pinnedDataSource;
+        }
+        for (TabixDataSource idleDataSource : idle) {
+            if (!isPinnedToOtherLiveThread(idleDataSource)) {
+                idle.remove(idleDataSource);
+                pinToCurrentThread(idleDataSource);
+                return idleDataSource;
+            }
+        }
+        if (all.size() + numCreating < maxPoolSize) {
+            numCreating++;
+            return null;
+        }
+        if (idle.isEmpty()) {
+            numWaits.incrementAndGet();
+            while (idle.isEmpty()) {
+                waitForRelease();
+                checkNotClosed();
+            }
+        }
+        TabixDataSource takenOver = idle.pop();
+        pinToCurrentThread(takenOver);
+        return takenOver;
+    }
+
+    private boolean isPinnedToOtherLiveThread(TabixDataSource tabixDataSource) {
+        WeakReference<Thread> pinnedThreadRef = pinnedThreads.get(tabixDataSource);
+        Thread pinnedThread = pinnedThreadRef == null ? null : pinnedThreadRef.get();
+        return pinnedThread != null && pinnedThread != Thread.currentThread() && pinnedThread.isAlive();
+    }
+
+    private void pinToCurrentThread(TabixDataSource tabixDataSource) {
+        WeakReference<Thread> pinnedThreadRef = pinnedThreads.get(tabixDataSource);
+        if (pinnedThreadRef == null || pinnedThreadRef.get() != Thread.currentThread()) {
+            pinnedThreads.put(tabixDataSource, new WeakReference<>(Thread.currentThread()));
+        }
+    }
+
+    // creating a new data source requires reading the tabix index, so this is done without holding the lock
+    private TabixDataSource create() {
+        TabixDataSource tabixDataSource = null;
+        boolean closedWhileCreating;
+        try {
+            tabixDataSource = tabixDataSourceFactory.get();
+            logger.debug("Created new data source for {}", source);
+        } finally {
+            synchronized (this) {
+                numCreating--;
+                closedWhileCreating = closed;
+                if (tabixDataSource != null && !closed) {
+                    all.add(tabixDataSource);
+                    pinToCurrentThread(tabixDataSource);
+                }
+            }
+        }
+        if (closedWhileCreating) {
+            closeQuietly(tabixDataSource);
+            throw new PooledTabixDataSourceException("Data source " + source + " is closed", null);
+        }
+        return tabixDataSource;
+    }
+
+    private void waitForRelease() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PooledTabixDataSourceException("Interrupted waiting for data source " + source, e);
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new PooledTabixDataSourceException("Data source " + source + " is closed", null);
+        }
+    }
+
+    private synchronized void release(TabixDataSource tabixDataSource) {
+        if (closed) {
+            all.remove(tabixDataSource);
+            pinnedThreads.remove(tabixDataSource);
+            closeQuietly(tabixDataSource);
+            return;
+        }
+        idle.push(tabixDataSource);
+        notifyAll();
+    }
+
+    private void closeQuietly(TabixDataSource tabixDataSource) {
+        try {
+            tabixDataSource.close();
+        } catch (Exception e) {
+            logger.error("Unable to close data source {}", source, e);
+        }
+    }
+
+    /**
+     * @return the number of data sources created by the pool so far
+     */
+    public synchronized int getPoolSize() {
+        return all.size();
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @return the total number of queries made
+     */
+    public long getNumLeases() {
+        return numLeases.get();
+    }
+
+    /**
+     * @return the number of queries which had to wait for a data source to be returned to the pool
+     */
+    public long getNumWaits() {
+        return numWaits.get();
+    }
+
+    /**
+     * Closes the idle data sources. Those still in use are closed as soon as they are returned to the pool.
+     */
+    @Override
+    public synchronized void close() {
+        logger.debug("Closing {}", this);
+        closed = true;
+        for (TabixDataSource tabixDataSource : idle) {
+            all.remove(tabixDataSource);
+            pinnedThreads.remove(tabixDataSource);
+            closeQuietly(tabixDataSource);
+        }
+        idle.clear();
+        notifyAll();
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledTabixDataSource{" +
+                "source='" + source + '\'' +
+                ", poolSize=" + getPoolSize() +
+                ", maxPoolSize=" + maxPoolSize +
+                ", numLeases=" + numLeases +
+                ", numWaits=" + numWaits +
+                '}';
+    }
+
+    private static class PooledTabixDataSourceException extends RuntimeException {
+
+        private PooledTabixDataSourceException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
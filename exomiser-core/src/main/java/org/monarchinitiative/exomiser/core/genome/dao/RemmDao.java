@@ -72,7 +72,7 @@ private PathogenicityData processResults(Variant variant) {
         return getRemmData(chromosome, start, end);
     }
 
-    private int calculateEndPosition(Variant variant) {
+    static int calculateEndPosition(Variant variant) {
         int pos = variant.getPosition();
 
         //we're doing this here in order not to have to count all this each time we need the value
@@ -0,0 +1,76 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.RemmScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+
+/**
+ * Alternative to the {@link RemmDao} which reads the scores from a {@link PositionScores} array converted from the
+ * REMM tabix file, rather than the tabix file itself. The same positions are checked for each variant as for the
+ * {@link RemmDao}, but the scores are quantised so may differ from those in the tabix file by a few parts per million.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class RemmDaoPositionScores implements PathogenicityDao {
+
+    private final Logger logger = LoggerFactory.getLogger(RemmDaoPositionScores.class);
+
+    private final PositionScores remmScores;
+
+    public RemmDaoPositionScores(PositionScores remmScores) {
+        this.remmScores = remmScores;
+    }
+
+    @Caching(cacheable = {
+            @Cacheable(cacheNames = "hg19.remm", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG19"),
+            @Cacheable(cacheNames = "hg38.remm", keyGenerator = "variantKeyGenerator", condition = "#variant.genomeAssembly == T(org.monarchinitiative.exomiser.core.genome.GenomeAssembly).HG38"),
+    })
+    @Override
+    public PathogenicityData getPathogenicityData(Variant variant) {
+        logger.debug("Getting REMM data for {}", variant);
+        // REMM has not been trained on missense variants so skip these
+        if (variant.getVariantEffect() == VariantEffect.MISSENSE_VARIANT) {
+            return PathogenicityData.empty();
+        }
+        int chr = variant.getChromosome();
+        int end = RemmDao.calculateEndPosition(variant);
+        float score = Float.NaN;
+        for (int position = variant.getPosition(); position <= end; position++) {
+            float positionScore = remmScores.getScore(chr, position, 0);
+            if (Float.isNaN(score) || positionScore > score) {
+                score = positionScore;
+            }
+        }
+        if (Float.isNaN(score)) {
+            return PathogenicityData.empty();
+        }
+        return PathogenicityData.of(RemmScore.of(score));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import htsjdk.tribble.readers.TabixReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Wrapper for an HTSJDK TabixReader which is optimised for queries arriving in ascending position order, as they do
+ * when annotating the variants from a sorted VCF file. Rather than seeking to, and decompressing, the BGZF block for
+ * each query this keeps a single forward iterator open over a window of the current contig and moves it along as the
+ * queries arrive, so that consecutive nearby queries become a sequential read of the file. The iterator is only
+ * re-positioned when a query is on a different contig, is behind the previous query, or is further ahead of the
+ * iterator than the maximum skip distance, in which case a seek is cheaper than reading the intervening lines.
+ * <p>
+ * This is only suitable for files where each line is a single position, with the 1-based position in the second
+ * column, such as the CADD, DANN, REMM, NCBoost and local frequency files. Queries return the same lines as the
+ * {@link TabixReaderAdaptor} for these files, regardless of the order in which they arrive. As with the
+ * {@link TabixReaderAdaptor} the query results are read in full whilst holding a lock on the reader.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class SweepingTabixReaderAdaptor implements TabixDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(SweepingTabixReaderAdaptor.class);
+
+    /**
+     * Roughly the number of positions in a single 64 KB BGZF block of a CADD SNV file.
+     */
+    public static final int DEFAULT_MAX_SKIP_DISTANCE = 1_000;
+
+    // The length of contig covered by each sweep iterator. This limits the number of index bins which need to be
+    // searched when re-positioning the iterator.
+    private static final int SWEEP_WINDOW_LENGTH = 1_000_000;
+
+    private final TabixReader tabixReader;
+    private final int maxSkipDistance;
+
+    // the lines read from the sweep iterator which have not yet been passed by a query, in position order
+    private final Deque<PositionedLine> buffer = new ArrayDeque<>();
+    private String sweepContig = null;
+    private TabixReader.Iterator sweepIterator;
+    // 0-based start and end of the window covered by the sweep iterator
+    private int sweepStart;
+    private int sweepEnd;
+    // the 1-based position of the last line read from the sweep iterator, or the start of the sweep if none have been
+    private int sweepPosition;
+    private boolean sweepExhausted;
+
+    public SweepingTabixReaderAdaptor(TabixReader tabixReader) {
+        this(tabixReader, DEFAULT_MAX_SKIP_DISTANCE);
+    }
+
+    public SweepingTabixReaderAdaptor(TabixReader tabixReader, int maxSkipDistance) {
+        this.tabixReader = tabixReader;
+        this.maxSkipDistance = maxSkipDistance;
+    }
+
+    /**
+     * @param query a region in the form chr:start-end where the start and end are 1-based and inclusive. Queries in
+     *              any other form are passed directly to the underlying {@link TabixReader}.
+     */
+    @Override
+    public synchronized TabixReader.Iterator query(String query) {
+        int colon = query.lastIndexOf(':');
+        int hyphen = query.indexOf('-', colon + 1);
+        if (colon <= 0 || hyphen < 0) {
+            return readAll(tabixReader.query(query));
+        }
+        try {
+            int start = Integer.parseInt(query.substring(colon + 1, hyphen));
+            int end = Integer.parseInt(query.substring(hyphen + 1));
+            return sweep(query.substring(0, colon), start - 1, end);
+        } catch (NumberFormatException e) {
+            return readAll(tabixReader.query(query));
+        }
+    }
+
+    /**
+     * @param chromosome the contig name
+     * @param start      0-based start, as for {@link TabixReader#query(String, int, int)}
+     * @param end        end position
+     */
+    @Override
+    public synchronized TabixReader.Iterator query(String chromosome, int start, int end) {
+        return sweep(chromosome, start, end);
+    }
+
+    /**
+     * Returns all the lines with a position greater than the 0-based start and less than or equal to the end.
+     */
+    private TabixReader.Iterator sweep(String contig, int start, int end) {
+        if (!contig.equals(sweepContig) || start < sweepStart || end > sweepEnd || start >= sweepPosition + maxSkipDistance) {
+            reposition(contig, start, end);
+        }
+        sweepStart = start;
+        while (!buffer.isEmpty() && buffer.peekFirst().position <= start) {
+            buffer.removeFirst();
+        }
+        try {
+            while (!sweepExhausted && sweepPosition <= end) {
+                String line = sweepIterator.next();
+                if (line == null) {
+                    sweepExhausted = true;
+                } else {
+                    sweepPosition = parsePosition(line);
+                    // skip over any lines between the previous query and this one
+                    if (sweepPosition > start) {
+                        buffer.addLast(new PositionedLine(sweepPosition, line));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the iterator cannot be relied upon after this, so start afresh on the next query
+            sweepContig = null;
+            buffer.clear();
+            return () -> {
+                throw e;
+            };
+        }
+        List<String> lines = new ArrayList<>();
+        for (PositionedLine positionedLine : buffer) {
+            if (positionedLine.position > end) {
+                break;
+            }
+            lines.add(positionedLine.line);
+        }
+        return iteratorOf(lines);
+    }
+
+    private void reposition(String contig, int start, int end) {
+        logger.trace("Repositioning sweep of {} to {}:{}-{}", getSource(), contig, start, end);
+        sweepContig = contig;
+        sweepStart = start;
+        sweepEnd = (int) Math.min(Integer.MAX_VALUE, Math.max((long) end, (long) start + SWEEP_WINDOW_LENGTH));
+        sweepPosition = start;
+        sweepIterator = tabixReader.query(contig, start, sweepEnd);
+        sweepExhausted = false;
+        buffer.clear();
+    }
+
+    private static int parsePosition(String line) {
+        int firstTab = line.indexOf('\t');
+        int secondTab = line.indexOf('\t', firstTab + 1);
+        return Integer.parseInt(secondTab < 0 ? line.substring(firstTab + 1) : line.substring(firstTab + 1, secondTab));
+    }
+
+    private TabixReader.Iterator readAll(TabixReader.Iterator results) {
+        List<String> lines = new ArrayList<>();
+        try {
+            String line;
+            while ((line = results.next()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            return () -> {
+                throw e;
+            };
+        }
+        return iteratorOf(lines);
+    }
+
+    private static TabixReader.Iterator iteratorOf(List<String> lines) {
+        Iterator<String> lineIterator = lines.iterator();
+        return () -> lineIterator.hasNext() ? lineIterator.next() : null;
+    }
+
+    @Override
+    public void close() {
+        tabixReader.close();
+    }
+
+    @Override
+    public String getSource() {
+        return tabixReader.getSource();
+    }
+
+    private static class PositionedLine {
+
+        private final int position;
+        private final String line;
+
+        private PositionedLine(int position, String line) {
+            this.position = position;
+            this.line = line;
+        }
+    }
+}
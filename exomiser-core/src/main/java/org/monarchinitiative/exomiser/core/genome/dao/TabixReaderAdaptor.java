@@ -22,8 +22,16 @@
 
 import htsjdk.tribble.readers.TabixReader;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 /**
- * Wrapper for an HTSJDK TabixReader.
+ * Wrapper for an HTSJDK TabixReader. The HTSJDK {@link TabixReader.Iterator} reads lazily from the single underlying
+ * file stream shared by all iterators created by the reader, so concurrent queries would corrupt each other. In order
+ * that this class can be safely shared between threads, query results are read in full whilst holding a lock on the
+ * reader. Queries are expected to be for a single position or small region so this is not an issue.
  *
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
  */
@@ -36,13 +44,31 @@ public TabixReaderAdaptor(TabixReader tabixReader) {
     }
 
     @Override
-    public TabixReader.Iterator query(String query) {
-        return tabixReader.query(query);
+    public synchronized TabixReader.Iterator query(String query) {
+        return readAll(tabixReader.query(query));
     }
 
     @Override
-    public TabixReader.Iterator query(String chromosome, int start, int end) {
-        return tabixReader.query(chromosome, start, end);
+    public synchronized TabixReader.Iterator query(String chromosome, int start, int end) {
+        return readAll(tabixReader.query(chromosome, start, end));
+    }
+
+    private TabixReader.Iterator readAll(TabixReader.Iterator results) {
+        List<String> lines = new ArrayList<>();
+        try {
+            String line;
+            while ((line = results.next()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            // defer the exception to the caller so that the error handling is the same as for reading directly from the
+            // TabixReader.Iterator
+            return () -> {
+                throw e;
+            };
+        }
+        Iterator<String> lineIterator = lines.iterator();
+        return () -> lineIterator.hasNext() ? lineIterator.next() : null;
     }
 
     @Override
@@ -0,0 +1,234 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Utility methods for creating, reading and writing a {@link BloomFilter} of all the {@link AlleleKey} in the
+ * variants {@link MVStore}. This is written next to the store and can be used to skip the lookup of novel alleles,
+ * which are the majority of the alleles in a typical sample, as these are definitely not in the store.
+ * <p>
+ * The file starts with a header identifying the store from which the filter was built, i.e. the number of keys and the
+ * first and last keys of the store. This is checked against the store when the filter is read, so that a filter is
+ * never used with a store it does not belong to, for instance after the store has been rebuilt or replaced with
+ * another release. The key format of the store is not part of this, so a filter remains valid after converting the
+ * store to {@link AlleleKeyFormat#BINARY} keys.
+ * <p>
+ * Note that the whole filter is held on the heap. At about 9.6 bits per allele this comes to 1.2 MB per million
+ * alleles, so the filter for a full assembly of several hundred million alleles will need several hundred MB of heap.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public final class AlleleKeyBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlleleKeyBloomFilter.class);
+
+    public static final String FILE_EXTENSION = ".bloom";
+
+    // 'AKBF' followed by the version of the header
+    private static final int MAGIC = 0x414b4246;
+    private static final int VERSION = 1;
+
+    /**
+     * 1% false positive probability requires about 9.6 bits per allele.
+     */
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private AlleleKeyBloomFilter() {
+        //un-instantiable utility class
+    }
+
+    public static BloomFilter<AlleleKey> create(long expectedInsertions) {
+        return BloomFilter.create(AlleleKeyFunnel.INSTANCE, Math.max(1L, expectedInsertions), DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Creates a new {@link BloomFilter} containing all the keys of the alleles map of the store, in either
+     * {@link AlleleKeyFormat}.
+     */
+    public static BloomFilter<AlleleKey> buildFrom(MVStore mvStore) {
+        AlleleKeyFormat alleleKeyFormat = MvStoreUtil.detectAlleleKeyFormat(mvStore);
+        if (alleleKeyFormat == AlleleKeyFormat.BINARY) {
+            MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+            logger.info("Creating filter for {} alleles", map.sizeAsLong());
+            BloomFilter<AlleleKey> bloomFilter = create(map.sizeAsLong());
+            for (byte[] key : map.keySet()) {
+                bloomFilter.put(BinaryAlleleKeyDataType.toAlleleKey(key));
+            }
+            return bloomFilter;
+        }
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(mvStore);
+        logger.info("Creating filter for {} alleles", map.sizeAsLong());
+        BloomFilter<AlleleKey> bloomFilter = create(map.sizeAsLong());
+        for (AlleleKey key : map.keySet()) {
+            bloomFilter.put(key);
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * Reads the filter written for the given store by {@link #writeTo(BloomFilter, MVStore, Path)}.
+     *
+     * @throws AlleleKeyFilterException if the filter cannot be read or was not built from the store.
+     */
+    public static BloomFilter<AlleleKey> readFrom(Path path, MVStore mvStore) {
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+                throw new AlleleKeyFilterException("Allele key filter " + path + " has an unknown header - this should be re-written from the store");
+            }
+            StoreIdentity filterStoreIdentity = StoreIdentity.readFrom(inputStream);
+            StoreIdentity storeIdentity = StoreIdentity.of(mvStore);
+            if (!filterStoreIdentity.equals(storeIdentity)) {
+                throw new AlleleKeyFilterException(String.format("Allele key filter %s was built from a different store. Expected %s but store has %s", path, filterStoreIdentity, storeIdentity));
+            }
+            return BloomFilter.readFrom(inputStream, AlleleKeyFunnel.INSTANCE);
+        } catch (IOException e) {
+            throw new AlleleKeyFilterException("Unable to read allele key filter " + path, e);
+        }
+    }
+
+    /**
+     * Writes the filter to the path, preceded by a header identifying the store from which it was built.
+     */
+    public static void writeTo(BloomFilter<AlleleKey> bloomFilter, MVStore mvStore, Path path) {
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            StoreIdentity.of(mvStore).writeTo(outputStream);
+            bloomFilter.writeTo(outputStream);
+        } catch (IOException e) {
+            throw new AlleleKeyFilterException("Unable to write allele key filter " + path, e);
+        }
+    }
+
+    /**
+     * The number of keys and the first and last keys of the alleles map, which are cheap to find in either
+     * {@link AlleleKeyFormat} and between them change with any rebuild of the store.
+     */
+    private static final class StoreIdentity {
+
+        private final long keyCount;
+        private final AlleleKey firstKey;
+        private final AlleleKey lastKey;
+
+        private StoreIdentity(long keyCount, AlleleKey firstKey, AlleleKey lastKey) {
+            this.keyCount = keyCount;
+            this.firstKey = firstKey;
+            this.lastKey = lastKey;
+        }
+
+        private static StoreIdentity of(MVStore mvStore) {
+            if (MvStoreUtil.detectAlleleKeyFormat(mvStore) == AlleleKeyFormat.BINARY) {
+                MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+                if (map.isEmpty()) {
+                    return new StoreIdentity(0, AlleleKey.getDefaultInstance(), AlleleKey.getDefaultInstance());
+                }
+                return new StoreIdentity(map.sizeAsLong(), BinaryAlleleKeyDataType.toAlleleKey(map.firstKey()), BinaryAlleleKeyDataType.toAlleleKey(map.lastKey()));
+            }
+            MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(mvStore);
+            if (map.isEmpty()) {
+                return new StoreIdentity(0, AlleleKey.getDefaultInstance(), AlleleKey.getDefaultInstance());
+            }
+            return new StoreIdentity(map.sizeAsLong(), map.firstKey(), map.lastKey());
+        }
+
+        private static StoreIdentity readFrom(DataInputStream inputStream) throws IOException {
+            long keyCount = inputStream.readLong();
+            AlleleKey firstKey = AlleleKey.parseDelimitedFrom(inputStream);
+            AlleleKey lastKey = AlleleKey.parseDelimitedFrom(inputStream);
+            return new StoreIdentity(keyCount, firstKey, lastKey);
+        }
+
+        private void writeTo(DataOutputStream outputStream) throws IOException {
+            outputStream.writeLong(keyCount);
+            firstKey.writeDelimitedTo(outputStream);
+            lastKey.writeDelimitedTo(outputStream);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            StoreIdentity that = (StoreIdentity) o;
+            return keyCount == that.keyCount &&
+                    Objects.equals(firstKey, that.firstKey) &&
+                    Objects.equals(lastKey, that.lastKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(keyCount, firstKey, lastKey);
+        }
+
+        @Override
+        public String toString() {
+            return "StoreIdentity{" +
+                    "keyCount=" + keyCount +
+                    ", firstKey=" + firstKey +
+                    ", lastKey=" + lastKey +
+                    '}';
+        }
+    }
+
+    /**
+     * The funnel must not be changed as it determines the hashes of the keys in filters which have already been
+     * written.
+     */
+    private enum AlleleKeyFunnel implements Funnel<AlleleKey> {
+        INSTANCE;
+
+        @Override
+        public void funnel(AlleleKey alleleKey, PrimitiveSink into) {
+            into.putInt(alleleKey.getChr())
+                    .putInt(alleleKey.getPosition())
+                    .putString(alleleKey.getRef(), StandardCharsets.US_ASCII)
+                    // separator so that the boundary between ref and alt is unambiguous
+                    .putByte((byte) 0)
+                    .putString(alleleKey.getAlt(), StandardCharsets.US_ASCII);
+        }
+    }
+
+    public static class AlleleKeyFilterException extends RuntimeException {
+
+        private AlleleKeyFilterException(String message) {
+            super(message);
+        }
+
+        private AlleleKeyFilterException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
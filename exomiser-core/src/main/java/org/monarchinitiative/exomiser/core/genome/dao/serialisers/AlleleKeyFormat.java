@@ -0,0 +1,38 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+/**
+ * The format of the keys in the alleles map of the variants {@link org.h2.mvstore.MVStore}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public enum AlleleKeyFormat {
+    /**
+     * Original format where the keys are serialised {@link org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey}
+     * protobuf messages. See {@link AlleleKeyDataType}.
+     */
+    PROTOBUF,
+    /**
+     * Fixed-width chromosome and position followed by the raw allele bytes. See {@link BinaryAlleleKeyDataType}.
+     */
+    BINARY
+}
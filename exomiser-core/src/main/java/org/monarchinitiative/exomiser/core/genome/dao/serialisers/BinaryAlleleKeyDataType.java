@@ -0,0 +1,134 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+import org.h2.util.Utils;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Specialised {@link DataType} for (de)serialising binary encoded {@link AlleleKey} into and out of the
+ * {@link org.h2.mvstore.MVStore}. Keys are held as a {@code byte[]} consisting of a big-endian packed long of the
+ * chromosome (upper 32 bits) and position (lower 32 bits) followed by the ref bases, a zero byte separator and the alt
+ * bases. An unsigned lexicographical comparison of these bytes sorts the keys in exactly the same order as the
+ * {@link AlleleKeyDataType}, i.e. by chromosome, position, ref then alt, but without having to parse protobuf messages
+ * when reading the keys from the store or call any of their getters when comparing them.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class BinaryAlleleKeyDataType implements DataType {
+
+    public static final BinaryAlleleKeyDataType INSTANCE = new BinaryAlleleKeyDataType();
+
+    private static final int POSITION_BYTES = Long.BYTES;
+    private static final byte ALLELE_SEPARATOR = 0;
+
+    /**
+     * Encodes the {@link AlleleKey} into the binary key format.
+     */
+    public static byte[] toBytes(AlleleKey alleleKey) {
+        byte[] ref = alleleKey.getRef().getBytes(StandardCharsets.US_ASCII);
+        byte[] alt = alleleKey.getAlt().getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = new byte[POSITION_BYTES + ref.length + 1 + alt.length];
+        long chrPos = ((long) alleleKey.getChr() << 32) | (alleleKey.getPosition() & 0xFFFF_FFFFL);
+        for (int i = 0; i < POSITION_BYTES; i++) {
+            bytes[i] = (byte) (chrPos >>> (56 - 8 * i));
+        }
+        System.arraycopy(ref, 0, bytes, POSITION_BYTES, ref.length);
+        bytes[POSITION_BYTES + ref.length] = ALLELE_SEPARATOR;
+        System.arraycopy(alt, 0, bytes, POSITION_BYTES + ref.length + 1, alt.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes a binary key created with {@link #toBytes(AlleleKey)} back into an {@link AlleleKey}.
+     */
+    public static AlleleKey toAlleleKey(byte[] bytes) {
+        long chrPos = 0;
+        for (int i = 0; i < POSITION_BYTES; i++) {
+            chrPos = (chrPos << 8) | (bytes[i] & 0xFF);
+        }
+        int separator = POSITION_BYTES;
+        while (bytes[separator] != ALLELE_SEPARATOR) {
+            separator++;
+        }
+        return AlleleKey.newBuilder()
+                .setChr((int) (chrPos >>> 32))
+                .setPosition((int) chrPos)
+                .setRef(new String(bytes, POSITION_BYTES, separator - POSITION_BYTES, StandardCharsets.US_ASCII))
+                .setAlt(new String(bytes, separator + 1, bytes.length - separator - 1, StandardCharsets.US_ASCII))
+                .build();
+    }
+
+    @Override
+    public int compare(Object a, Object b) {
+        byte[] keyA = (byte[]) a;
+        byte[] keyB = (byte[]) b;
+        int length = Math.min(keyA.length, keyB.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (keyA[i] & 0xFF) - (keyB[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return keyA.length - keyB.length;
+    }
+
+    @Override
+    public int getMemory(Object obj) {
+        // approximate size of the array header plus the data
+        return 16 + ((byte[]) obj).length;
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            obj[i] = read(buff);
+        }
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object[] obj, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            write(buff, obj[i]);
+        }
+    }
+
+    @Override
+    public byte[] read(ByteBuffer buff) {
+        int len = DataUtils.readVarInt(buff);
+        byte[] data = Utils.newBytes(len);
+        buff.get(data);
+        return data;
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object obj) {
+        byte[] data = (byte[]) obj;
+        buff.putVarInt(data.length).put(data);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and shared encoding helpers for the read-only, memory-mappable columnar allele store written by the
+ * {@link ColumnarAlleleWriter} and read by the
+ * {@link org.monarchinitiative.exomiser.core.genome.dao.AllelePropertiesDaoColumnar}.
+ * <p>
+ * All numbers are big-endian. The file consists of a fixed header, the data regions for each chromosome and a table of
+ * contents (TOC) at the end of the file:
+ * <pre>
+ * header:  int magic, int version, long tocOffset
+ * regions: per chromosome, each starting on an 8-byte boundary
+ *              int[alleleCount]   positions - sorted ascending
+ *              int[alleleCount]   record offsets into the alleles region
+ *              byte[]             alleles - one variable-length record per allele (see below)
+ *              float[alleleCount] one column per property, NaN where the allele has no value
+ * toc:     int columnCount, then for each column: int nameLength, byte[] name (US-ASCII)
+ *          int chromosomeCount, then for each chromosome:
+ *              int chr, int alleleCount, long positionsOffset, long recordOffsetsOffset, long allelesOffset,
+ *              long allelesLength, then for each column: long columnOffset (or -1 if no allele has a value)
+ * </pre>
+ * An allele record is a sequence of length-prefixed byte strings, the lengths being encoded as unsigned varints: ref,
+ * alt, rsId and finally the serialised {@link org.monarchinitiative.exomiser.core.proto.AlleleProto.ClinVar} message
+ * which is empty when there is no ClinVar data for the allele.
+ * <p>
+ * Each region is limited to {@link Integer#MAX_VALUE} bytes so that it can be mapped into a single buffer.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public final class ColumnarAlleleFormat {
+
+    public static final int MAGIC = 0x4558414C; // 'EXAL'
+    public static final int VERSION = 1;
+
+    public static final int HEADER_LENGTH = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    public static final int TOC_OFFSET_POSITION = Integer.BYTES + Integer.BYTES;
+
+    public static final long ABSENT_COLUMN = -1L;
+
+    public static final String FILE_EXTENSION = ".alleles";
+
+    private ColumnarAlleleFormat() {
+        //un-instantiable utility class
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Reads the unsigned varint starting at the absolute index of the buffer, returning the value in the lower 32 bits
+     * and the number of bytes read in the upper 32 bits. This does not change the position of the buffer, so is safe
+     * for concurrent readers of a shared buffer.
+     */
+    public static long readVarInt(ByteBuffer buffer, int index) {
+        int value = 0;
+        int shift = 0;
+        int length = 0;
+        byte b;
+        do {
+            b = buffer.get(index + length);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+            length++;
+        } while ((b & 0x80) != 0);
+        return ((long) length << 32) | (value & 0xFFFF_FFFFL);
+    }
+
+}
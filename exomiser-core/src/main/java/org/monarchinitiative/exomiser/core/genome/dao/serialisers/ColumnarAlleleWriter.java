@@ -0,0 +1,360 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.monarchinitiative.exomiser.core.model.TypedAlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperty;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.ClinVar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat.*;
+
+/**
+ * Writes alleles into the columnar format described in {@link ColumnarAlleleFormat}. Alleles must be written in
+ * ascending chromosome and position order, as they are found in the variants {@link org.h2.mvstore.MVStore}. The
+ * columns of a chromosome are buffered in temporary files next to the output file until the next chromosome is
+ * started, at which point they are appended to the output.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class ColumnarAlleleWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarAlleleWriter.class);
+
+    private final FileChannel channel;
+    private final Path tempDir;
+    private final List<String> columnNames;
+    private final Map<String, Integer> columnIndices;
+    // AlleleProperty number of each column, or -1 where the column name is not an AlleleProperty
+    private final int[] columnPropertyNumbers;
+    private final long columnsMask;
+    private final Set<String> ignoredProperties = new HashSet<>();
+    private final List<ChromosomeEntry> chromosomeEntries = new ArrayList<>();
+
+    private long position = HEADER_LENGTH;
+
+    private ChromosomeBuffer chromosomeBuffer;
+
+    public ColumnarAlleleWriter(Path outputPath, List<String> columnNames) {
+        this.columnNames = new ArrayList<>(columnNames);
+        this.columnIndices = new HashMap<>();
+        this.columnPropertyNumbers = new int[columnNames.size()];
+        long mask = 0L;
+        for (int i = 0; i < columnNames.size(); i++) {
+            columnIndices.put(columnNames.get(i), i);
+            int propertyNumber = TypedAlleleProperties.propertyNumber(columnNames.get(i));
+            columnPropertyNumbers[i] = propertyNumber;
+            if (propertyNumber != -1) {
+                mask |= 1L << propertyNumber;
+            }
+        }
+        this.columnsMask = mask;
+        try {
+            Path parent = outputPath.toAbsolutePath().getParent();
+            this.tempDir = Files.createTempDirectory(parent, outputPath.getFileName().toString() + ".tmp");
+            this.channel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            // the TOC offset is not known until close() is called
+            header.putInt(MAGIC).putInt(VERSION).putLong(0L).flip();
+            writeFully(header, 0);
+        } catch (IOException e) {
+            throw new ColumnarAlleleWriterException("Unable to create " + outputPath, e);
+        }
+    }
+
+    /**
+     * Adds the allele to the store. Properties whose names are not one of the columns of the store are ignored.
+     *
+     * @throws IllegalArgumentException if the allele is out of order
+     */
+    public void write(AlleleKey alleleKey, AlleleProperties alleleProperties) {
+        try {
+            if (chromosomeBuffer == null || chromosomeBuffer.chr != alleleKey.getChr()) {
+                if (chromosomeBuffer != null && alleleKey.getChr() < chromosomeBuffer.chr) {
+                    throw new IllegalArgumentException(String.format("Allele %d-%d is not in chromosome order", alleleKey.getChr(), alleleKey.getPosition()));
+                }
+                finishChromosome();
+                chromosomeBuffer = new ChromosomeBuffer(alleleKey.getChr(), tempDir, columnNames.size());
+            }
+            chromosomeBuffer.add(alleleKey, alleleProperties, toColumnValues(alleleProperties));
+        } catch (IOException e) {
+            throw new ColumnarAlleleWriterException("Unable to write allele " + alleleKey, e);
+        }
+    }
+
+    private float[] toColumnValues(AlleleProperties alleleProperties) {
+        float[] valuesByNumber = TypedAlleleProperties.toValueArray(alleleProperties);
+        float[] values = new float[columnNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            int propertyNumber = columnPropertyNumbers[i];
+            values[i] = propertyNumber == -1 ? alleleProperties.getPropertiesOrDefault(columnNames.get(i), Float.NaN) : valuesByNumber[propertyNumber];
+        }
+        logIgnoredProperties(alleleProperties);
+        return values;
+    }
+
+    private void logIgnoredProperties(AlleleProperties alleleProperties) {
+        long ignoredMask = alleleProperties.getPropertiesMask() & ~columnsMask;
+        while (ignoredMask != 0L) {
+            int propertyNumber = Long.numberOfTrailingZeros(ignoredMask);
+            AlleleProperty alleleProperty = AlleleProperty.forNumber(propertyNumber);
+            warnIgnored(alleleProperty == null ? "number " + propertyNumber : alleleProperty.name());
+            ignoredMask &= ignoredMask - 1;
+        }
+        for (String propertyName : alleleProperties.getPropertiesMap().keySet()) {
+            if (!columnIndices.containsKey(propertyName)) {
+                warnIgnored(propertyName);
+            }
+        }
+    }
+
+    private void warnIgnored(String propertyName) {
+        if (ignoredProperties.add(propertyName)) {
+            logger.warn("No column for property {} - these values will not be written", propertyName);
+        }
+    }
+
+    private void finishChromosome() throws IOException {
+        if (chromosomeBuffer == null) {
+            return;
+        }
+        ChromosomeBuffer buffer = chromosomeBuffer;
+        buffer.closeStreams();
+
+        long positionsOffset = appendRegion(buffer.positionsFile);
+        long recordOffsetsOffset = appendRegion(buffer.recordOffsetsFile);
+        long allelesOffset = appendRegion(buffer.allelesFile);
+        long[] columnOffsets = new long[columnNames.size()];
+        for (int i = 0; i < columnOffsets.length; i++) {
+            columnOffsets[i] = buffer.columnHasValues[i] ? appendRegion(buffer.columnFiles[i]) : ABSENT_COLUMN;
+        }
+        chromosomeEntries.add(new ChromosomeEntry(buffer.chr, buffer.alleleCount, positionsOffset, recordOffsetsOffset, allelesOffset, buffer.allelesLength, columnOffsets));
+        logger.info("Written {} alleles for chromosome {}", buffer.alleleCount, buffer.chr);
+
+        buffer.deleteFiles();
+        chromosomeBuffer = null;
+    }
+
+    private long appendRegion(Path regionFile) throws IOException {
+        // align the start of each region so that the int and float views of the mapped buffers are aligned. The padding
+        // has to be written as transferFrom will not write past the end of the file.
+        int padding = (int) (-position & 7L);
+        writeFully(ByteBuffer.allocate(padding), position);
+        position += padding;
+        long regionOffset = position;
+        long size = Files.size(regionFile);
+        if (size > Integer.MAX_VALUE) {
+            throw new ColumnarAlleleWriterException("Region " + regionFile + " exceeds maximum size of " + Integer.MAX_VALUE + " bytes");
+        }
+        try (FileChannel regionChannel = FileChannel.open(regionFile, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += channel.transferFrom(regionChannel, position + transferred, size - transferred);
+            }
+        }
+        position += size;
+        return regionOffset;
+    }
+
+    @Override
+    public void close() {
+        try {
+            finishChromosome();
+            long tocOffset = position;
+            ByteArrayOutputStream tocBytes = new ByteArrayOutputStream();
+            DataOutputStream toc = new DataOutputStream(tocBytes);
+            toc.writeInt(columnNames.size());
+            for (String columnName : columnNames) {
+                byte[] name = columnName.getBytes(StandardCharsets.US_ASCII);
+                toc.writeInt(name.length);
+                toc.write(name);
+            }
+            toc.writeInt(chromosomeEntries.size());
+            for (ChromosomeEntry entry : chromosomeEntries) {
+                entry.writeTo(toc);
+            }
+            toc.flush();
+            writeFully(ByteBuffer.wrap(tocBytes.toByteArray()), tocOffset);
+
+            ByteBuffer tocOffsetBuffer = ByteBuffer.allocate(Long.BYTES);
+            tocOffsetBuffer.putLong(tocOffset).flip();
+            writeFully(tocOffsetBuffer, TOC_OFFSET_POSITION);
+            channel.close();
+            Files.deleteIfExists(tempDir);
+        } catch (IOException e) {
+            throw new ColumnarAlleleWriterException("Unable to complete allele store", e);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        long writePosition = offset;
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+    }
+
+    /**
+     * Temporary column files for the alleles of the current chromosome.
+     */
+    private static class ChromosomeBuffer {
+
+        private final int chr;
+        private final Path positionsFile;
+        private final Path recordOffsetsFile;
+        private final Path allelesFile;
+        private final Path[] columnFiles;
+        private final boolean[] columnHasValues;
+
+        private final DataOutputStream positions;
+        private final DataOutputStream recordOffsets;
+        private final DataOutputStream alleles;
+        private final DataOutputStream[] columns;
+
+        private int alleleCount = 0;
+        private int lastPosition = Integer.MIN_VALUE;
+        private long allelesLength = 0;
+
+        private ChromosomeBuffer(int chr, Path tempDir, int numColumns) throws IOException {
+            this.chr = chr;
+            this.positionsFile = tempDir.resolve(chr + ".positions");
+            this.recordOffsetsFile = tempDir.resolve(chr + ".offsets");
+            this.allelesFile = tempDir.resolve(chr + ".alleles");
+            this.columnFiles = new Path[numColumns];
+            this.columnHasValues = new boolean[numColumns];
+            this.positions = openStream(positionsFile);
+            this.recordOffsets = openStream(recordOffsetsFile);
+            this.alleles = openStream(allelesFile);
+            this.columns = new DataOutputStream[numColumns];
+            for (int i = 0; i < numColumns; i++) {
+                columnFiles[i] = tempDir.resolve(chr + "." + i + ".column");
+                columns[i] = openStream(columnFiles[i]);
+            }
+        }
+
+        private static DataOutputStream openStream(Path path) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        private void add(AlleleKey alleleKey, AlleleProperties alleleProperties, float[] columnValues) throws IOException {
+            if (alleleKey.getPosition() < lastPosition) {
+                throw new IllegalArgumentException(String.format("Allele %d-%d is not in position order", alleleKey.getChr(), alleleKey.getPosition()));
+            }
+            if (allelesLength > Integer.MAX_VALUE) {
+                throw new ColumnarAlleleWriterException("Too many alleles for chromosome " + chr);
+            }
+            lastPosition = alleleKey.getPosition();
+            positions.writeInt(alleleKey.getPosition());
+            recordOffsets.writeInt((int) allelesLength);
+            allelesLength += writeBytes(alleleKey.getRef().getBytes(StandardCharsets.US_ASCII));
+            allelesLength += writeBytes(alleleKey.getAlt().getBytes(StandardCharsets.US_ASCII));
+            allelesLength += writeBytes(alleleProperties.getRsId().getBytes(StandardCharsets.US_ASCII));
+            ClinVar clinVar = alleleProperties.getClinVar();
+            byte[] clinVarBytes = clinVar.equals(ClinVar.getDefaultInstance()) ? new byte[0] : clinVar.toByteArray();
+            allelesLength += writeBytes(clinVarBytes);
+            for (int i = 0; i < columnValues.length; i++) {
+                float value = columnValues[i];
+                columns[i].writeFloat(value);
+                columnHasValues[i] |= !Float.isNaN(value);
+            }
+            alleleCount++;
+        }
+
+        private int writeBytes(byte[] bytes) throws IOException {
+            writeVarInt(alleles, bytes.length);
+            alleles.write(bytes);
+            return varIntLength(bytes.length) + bytes.length;
+        }
+
+        private void closeStreams() throws IOException {
+            positions.close();
+            recordOffsets.close();
+            alleles.close();
+            for (DataOutputStream column : columns) {
+                column.close();
+            }
+        }
+
+        private void deleteFiles() throws IOException {
+            Files.deleteIfExists(positionsFile);
+            Files.deleteIfExists(recordOffsetsFile);
+            Files.deleteIfExists(allelesFile);
+            for (Path columnFile : columnFiles) {
+                Files.deleteIfExists(columnFile);
+            }
+        }
+    }
+
+    private static class ChromosomeEntry {
+
+        private final int chr;
+        private final int alleleCount;
+        private final long positionsOffset;
+        private final long recordOffsetsOffset;
+        private final long allelesOffset;
+        private final long allelesLength;
+        private final long[] columnOffsets;
+
+        private ChromosomeEntry(int chr, int alleleCount, long positionsOffset, long recordOffsetsOffset, long allelesOffset, long allelesLength, long[] columnOffsets) {
+            this.chr = chr;
+            this.alleleCount = alleleCount;
+            this.positionsOffset = positionsOffset;
+            this.recordOffsetsOffset = recordOffsetsOffset;
+            this.allelesOffset = allelesOffset;
+            this.allelesLength = allelesLength;
+            this.columnOffsets = columnOffsets;
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeInt(chr);
+            out.writeInt(alleleCount);
+            out.writeLong(positionsOffset);
+            out.writeLong(recordOffsetsOffset);
+            out.writeLong(allelesOffset);
+            out.writeLong(allelesLength);
+            for (long columnOffset : columnOffsets) {
+                out.writeLong(columnOffset);
+            }
+        }
+    }
+
+    private static class ColumnarAlleleWriterException extends RuntimeException {
+
+        private ColumnarAlleleWriterException(String message) {
+            super(message);
+        }
+
+        private ColumnarAlleleWriterException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
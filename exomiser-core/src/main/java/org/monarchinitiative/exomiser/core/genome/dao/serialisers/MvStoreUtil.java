@@ -39,6 +39,7 @@ public class MvStoreUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(MvStoreUtil.class);
     private static final String ALLELE_MAP_NAME = "alleles";
+    private static final String BINARY_ALLELE_MAP_NAME = "alleles_binary";
 
     private MvStoreUtil() {
         //static utility class - not instantiable
@@ -69,4 +70,48 @@ public static MVMap.Builder<AlleleKey, AlleleProperties> alleleMapBuilder() {
                 .keyType(AlleleKeyDataType.INSTANCE)
                 .valueType(AllelePropertiesDataType.INSTANCE);
     }
+
+    /**
+     * Detects the format of the allele keys used in the {@link MVStore}. Stores containing the binary alleles map, as
+     * written by {@link #openBinaryAlleleMVMap(MVStore)}, are {@link AlleleKeyFormat#BINARY}, otherwise they are
+     * assumed to be the original {@link AlleleKeyFormat#PROTOBUF} format.
+     *
+     * @param mvStore The {@code MVStore} to check
+     * @return the {@link AlleleKeyFormat} of the store
+     * @since 12.1.0
+     */
+    public static AlleleKeyFormat detectAlleleKeyFormat(MVStore mvStore) {
+        Objects.requireNonNull(mvStore);
+        if (mvStore.hasMap(BINARY_ALLELE_MAP_NAME)) {
+            return AlleleKeyFormat.BINARY;
+        }
+        return AlleleKeyFormat.PROTOBUF;
+    }
+
+    /**
+     * Opens the binary keyed 'alleles' map from the {@link MVStore}. If the store does not already contain this map, a
+     * new one will be created and returned. The keys of this map are created using
+     * {@link BinaryAlleleKeyDataType#toBytes(AlleleKey)}.
+     *
+     * @param mvStore The {@code MVStore} to be used for the binary 'alleles' {@link MVMap}
+     * @return an instance of the {@link MVMap}. This map may be empty.
+     * @since 12.1.0
+     */
+    public static MVMap<byte[], AlleleProperties> openBinaryAlleleMVMap(MVStore mvStore) {
+        Objects.requireNonNull(mvStore);
+        if (!mvStore.hasMap(BINARY_ALLELE_MAP_NAME)) {
+            logger.warn("MVStore does not contain map '{}' - creating new map instance.", BINARY_ALLELE_MAP_NAME);
+        }
+        MVMap<byte[], AlleleProperties> map = mvStore.openMap(BINARY_ALLELE_MAP_NAME, MvStoreUtil.binaryAlleleMapBuilder());
+        if (!map.isEmpty()) {
+            logger.debug("MVMap '{}' opened with {} entries", BINARY_ALLELE_MAP_NAME, map.size());
+        }
+        return map;
+    }
+
+    public static MVMap.Builder<byte[], AlleleProperties> binaryAlleleMapBuilder() {
+        return new MVMap.Builder<byte[], AlleleProperties>()
+                .keyType(BinaryAlleleKeyDataType.INSTANCE)
+                .valueType(AllelePropertiesDataType.INSTANCE);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import java.nio.file.Path;
+
+/**
+ * Constants and shared encoding helpers for the read-only, memory-mappable per-position score arrays written by the
+ * {@link PositionScoreWriter} and read by {@link PositionScores}. These are intended for scores with a value for every
+ * base of the genome such as REMM, which has a single score per position, or the CADD SNVs, which have a score for each
+ * of the three possible alternate alleles of every position.
+ * <p>
+ * All numbers are big-endian. The file consists of a fixed header, the data regions for each chromosome and a table of
+ * contents (TOC) at the end of the file:
+ * <pre>
+ * header:  int magic, int version, long tocOffset, int slotsPerPosition, float minScore, float maxScore
+ * regions: per chromosome, each starting on an 8-byte boundary
+ *              short[positionCount * slotsPerPosition] - the quantised scores of each slot of each position
+ * toc:     int chromosomeCount, then for each chromosome:
+ *              int chr, int firstPosition, int positionCount, long regionOffset
+ * </pre>
+ * Scores are quantised to an unsigned 16-bit value linearly spanning the minimum to maximum score of the file, with
+ * {@link #MISSING} marking a slot without a score. The quantisation error is therefore at most half of
+ * (maxScore - minScore) / {@link #MAX_QUANTISED_VALUE}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public final class PositionScoreFormat {
+
+    public static final int MAGIC = 0x45585053; // 'EXPS'
+    public static final int VERSION = 1;
+
+    public static final int HEADER_LENGTH = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Float.BYTES + Float.BYTES;
+    public static final int TOC_OFFSET_POSITION = Integer.BYTES + Integer.BYTES;
+
+    public static final int MISSING = 0xFFFF;
+    public static final int MAX_QUANTISED_VALUE = MISSING - 1;
+
+    public static final String FILE_EXTENSION = ".scores";
+
+    private static final String TABIX_FILE_EXTENSION = ".tsv.gz";
+
+    private PositionScoreFormat() {
+        //un-instantiable utility class
+    }
+
+    /**
+     * Returns the path of the score array converted from a tabix file, e.g. remmData.tsv.gz -> remmData.scores
+     */
+    public static Path scoresPathFor(Path tabixPath) {
+        String fileName = tabixPath.getFileName().toString();
+        if (fileName.endsWith(TABIX_FILE_EXTENSION)) {
+            fileName = fileName.substring(0, fileName.length() - TABIX_FILE_EXTENSION.length());
+        }
+        return tabixPath.resolveSibling(fileName + FILE_EXTENSION);
+    }
+
+    static int quantise(float score, float minScore, float maxScore) {
+        float clamped = Math.max(minScore, Math.min(maxScore, score));
+        return Math.round((clamped - minScore) / (maxScore - minScore) * MAX_QUANTISED_VALUE);
+    }
+
+    static float dequantise(int value, float minScore, float maxScore) {
+        return minScore + value * ((maxScore - minScore) / MAX_QUANTISED_VALUE);
+    }
+
+    /**
+     * Returns the slot of an SNV in an array with three slots per position, these being the three possible alternate
+     * bases in A, C, G, T order excluding the reference base.
+     *
+     * @return the slot 0-2 or -1 if the ref and alt are not different single bases
+     */
+    public static int snvSlot(String ref, String alt) {
+        if (ref.length() != 1 || alt.length() != 1) {
+            return -1;
+        }
+        int refIndex = baseIndex(ref.charAt(0));
+        int altIndex = baseIndex(alt.charAt(0));
+        if (refIndex == -1 || altIndex == -1 || refIndex == altIndex) {
+            return -1;
+        }
+        return altIndex > refIndex ? altIndex - 1 : altIndex;
+    }
+
+    private static int baseIndex(char base) {
+        switch (base) {
+            case 'A':
+                return 0;
+            case 'C':
+                return 1;
+            case 'G':
+                return 2;
+            case 'T':
+                return 3;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat.*;
+
+/**
+ * Writes scores into a file in the {@link PositionScoreFormat}. Scores must be written grouped by chromosome and in
+ * ascending position order within each chromosome, as they are in a tabix file. Positions without a score are filled
+ * with {@link PositionScoreFormat#MISSING}. Where a slot has more than one score the maximum is kept.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PositionScoreWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionScoreWriter.class);
+
+    private final FileChannel channel;
+    private final int slotsPerPosition;
+    private final float minScore;
+    private final float maxScore;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    // file offset at which the contents of the buffer will be written
+    private long bufferOffset = HEADER_LENGTH;
+
+    private final List<RegionEntry> regionEntries = new ArrayList<>();
+    private final Set<Integer> writtenChromosomes = new HashSet<>();
+
+    private int chr = -1;
+    private int firstPosition;
+    private int currentPosition;
+    private long regionOffset;
+    private final int[] currentSlots;
+
+    /**
+     * @param outputPath       path of the file to create
+     * @param slotsPerPosition number of scores for each position, e.g. 1 for REMM or 3 for the CADD SNVs
+     * @param minScore         minimum score to be represented. Lower scores are stored as the minimum.
+     * @param maxScore         maximum score to be represented. Higher scores are stored as the maximum.
+     */
+    public PositionScoreWriter(Path outputPath, int slotsPerPosition, float minScore, float maxScore) {
+        if (slotsPerPosition < 1) {
+            throw new IllegalArgumentException("slotsPerPosition must be at least 1, but was " + slotsPerPosition);
+        }
+        if (!(maxScore > minScore)) {
+            throw new IllegalArgumentException(String.format("maxScore %f must be greater than minScore %f", maxScore, minScore));
+        }
+        this.slotsPerPosition = slotsPerPosition;
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.currentSlots = new int[slotsPerPosition];
+        try {
+            this.channel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            // the TOC offset is not known until close() is called
+            header.putInt(MAGIC).putInt(VERSION).putLong(0L).putInt(slotsPerPosition).putFloat(minScore).putFloat(maxScore).flip();
+            writeFully(header, 0);
+        } catch (IOException e) {
+            throw new PositionScoreWriterException("Unable to create " + outputPath, e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the position is out of order, or the slot is out of range
+     */
+    public void write(int chr, int position, int slot, float score) {
+        if (slot < 0 || slot >= slotsPerPosition) {
+            throw new IllegalArgumentException(String.format("Slot %d out of range for %d slots per position", slot, slotsPerPosition));
+        }
+        try {
+            if (chr != this.chr) {
+                startRegion(chr, position);
+            } else if (position < currentPosition) {
+                throw new IllegalArgumentException(String.format("Position %d-%d is out of order - previous position was %d-%d", chr, position, chr, currentPosition));
+            } else if (position > currentPosition) {
+                putCurrentSlots();
+                for (int i = currentPosition + 1; i < position; i++) {
+                    putMissingPosition();
+                }
+                currentPosition = position;
+            }
+        } catch (IOException e) {
+            throw new PositionScoreWriterException("Unable to write scores", e);
+        }
+        int value = quantise(score, minScore, maxScore);
+        if (currentSlots[slot] == MISSING || value > currentSlots[slot]) {
+            currentSlots[slot] = value;
+        }
+    }
+
+    private void startRegion(int chr, int position) throws IOException {
+        finishRegion();
+        if (!writtenChromosomes.add(chr)) {
+            throw new IllegalArgumentException(String.format("Chromosome %d is out of order - this has already been written", chr));
+        }
+        // align the start of each region to 8 bytes
+        while ((bufferOffset + buffer.position()) % Long.BYTES != 0) {
+            put((short) 0);
+        }
+        this.chr = chr;
+        this.firstPosition = position;
+        this.currentPosition = position;
+        this.regionOffset = bufferOffset + buffer.position();
+        Arrays.fill(currentSlots, MISSING);
+    }
+
+    private void finishRegion() throws IOException {
+        if (chr == -1) {
+            return;
+        }
+        putCurrentSlots();
+        int positionCount = currentPosition - firstPosition + 1;
+        logger.debug("Written {} positions for chromosome {}", positionCount, chr);
+        regionEntries.add(new RegionEntry(chr, firstPosition, positionCount, regionOffset));
+    }
+
+    private void putCurrentSlots() throws IOException {
+        for (int i = 0; i < slotsPerPosition; i++) {
+            put((short) currentSlots[i]);
+        }
+        Arrays.fill(currentSlots, MISSING);
+    }
+
+    private void putMissingPosition() throws IOException {
+        for (int i = 0; i < slotsPerPosition; i++) {
+            put((short) MISSING);
+        }
+    }
+
+    private void put(short value) throws IOException {
+        if (buffer.remaining() < Short.BYTES) {
+            flushBuffer();
+        }
+        buffer.putShort(value);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        writeFully(buffer, bufferOffset);
+        bufferOffset += length;
+        buffer.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            finishRegion();
+            flushBuffer();
+            long tocOffset = bufferOffset;
+            ByteBuffer toc = ByteBuffer.allocate(Integer.BYTES + regionEntries.size() * RegionEntry.LENGTH);
+            toc.putInt(regionEntries.size());
+            for (RegionEntry regionEntry : regionEntries) {
+                toc.putInt(regionEntry.chr).putInt(regionEntry.firstPosition).putInt(regionEntry.positionCount).putLong(regionEntry.offset);
+            }
+            toc.flip();
+            writeFully(toc, tocOffset);
+
+            ByteBuffer tocOffsetBuffer = ByteBuffer.allocate(Long.BYTES);
+            tocOffsetBuffer.putLong(tocOffset).flip();
+            writeFully(tocOffsetBuffer, TOC_OFFSET_POSITION);
+            channel.close();
+        } catch (IOException e) {
+            throw new PositionScoreWriterException("Unable to complete score file", e);
+        }
+    }
+
+    private void writeFully(ByteBuffer byteBuffer, long offset) throws IOException {
+        long writePosition = offset;
+        while (byteBuffer.hasRemaining()) {
+            writePosition += channel.write(byteBuffer, writePosition);
+        }
+    }
+
+    private static class RegionEntry {
+
+        private static final int LENGTH = Integer.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+        private final int chr;
+        private final int firstPosition;
+        private final int positionCount;
+        private final long offset;
+
+        private RegionEntry(int chr, int firstPosition, int positionCount, long offset) {
+            this.chr = chr;
+            this.firstPosition = firstPosition;
+            this.positionCount = positionCount;
+            this.offset = offset;
+        }
+    }
+
+    private static class PositionScoreWriterException extends RuntimeException {
+
+        private PositionScoreWriterException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
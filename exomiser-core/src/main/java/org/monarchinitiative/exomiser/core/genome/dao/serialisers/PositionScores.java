@@ -0,0 +1,164 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat.*;
+
+/**
+ * Read-only, memory-mapped per-position scores in the {@link PositionScoreFormat}. A lookup is a direct read of the
+ * array element for the position, rather than the decompression and parsing of a block of a tabix file.
+ * <p>
+ * This class is thread-safe as only absolute reads are made on the shared buffers.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PositionScores {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionScores.class);
+
+    // Each mapped buffer is limited to Integer.MAX_VALUE bytes, so the larger chromosomes are mapped in chunks.
+    private static final int CHUNK_SHIFT = 29;
+    private static final long CHUNK_LENGTH = 1L << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = (int) (CHUNK_LENGTH - 1);
+
+    private final String source;
+    private final int slotsPerPosition;
+    private final float minScore;
+    private final float maxScore;
+    private final Map<Integer, ChromosomeScores> chromosomes;
+
+    private PositionScores(String source, int slotsPerPosition, float minScore, float maxScore, Map<Integer, ChromosomeScores> chromosomes) {
+        this.source = source;
+        this.slotsPerPosition = slotsPerPosition;
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+        this.chromosomes = chromosomes;
+    }
+
+    /**
+     * Maps the file written by the {@link PositionScoreWriter} into memory. The file handle is closed once the regions
+     * are mapped.
+     */
+    public static PositionScores open(Path path) {
+        logger.debug("Mapping position scores {}", path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != MAGIC) {
+                throw new PositionScoresException(path + " is not a position score file");
+            }
+            if (version != VERSION) {
+                throw new PositionScoresException(String.format("Unsupported position score file version %d in %s - expected version %d", version, path, VERSION));
+            }
+            long tocOffset = header.getLong();
+            int slotsPerPosition = header.getInt();
+            float minScore = header.getFloat();
+            float maxScore = header.getFloat();
+
+            ByteBuffer toc = channel.map(FileChannel.MapMode.READ_ONLY, tocOffset, channel.size() - tocOffset);
+            int chromosomeCount = toc.getInt();
+            Map<Integer, ChromosomeScores> chromosomes = new HashMap<>();
+            for (int i = 0; i < chromosomeCount; i++) {
+                int chr = toc.getInt();
+                int firstPosition = toc.getInt();
+                int positionCount = toc.getInt();
+                long regionOffset = toc.getLong();
+                long regionLength = (long) positionCount * slotsPerPosition * Short.BYTES;
+                ShortBuffer[] chunks = new ShortBuffer[(int) ((regionLength + CHUNK_LENGTH - 1) >> CHUNK_SHIFT)];
+                for (int j = 0; j < chunks.length; j++) {
+                    long chunkOffset = j * CHUNK_LENGTH;
+                    long chunkLength = Math.min(CHUNK_LENGTH, regionLength - chunkOffset);
+                    chunks[j] = channel.map(FileChannel.MapMode.READ_ONLY, regionOffset + chunkOffset, chunkLength).asShortBuffer();
+                }
+                chromosomes.put(chr, new ChromosomeScores(firstPosition, positionCount, chunks));
+            }
+            logger.debug("Mapped {} chromosomes with {} slots per position", chromosomes.size(), slotsPerPosition);
+            return new PositionScores(path.toString(), slotsPerPosition, minScore, maxScore, chromosomes);
+        } catch (IOException e) {
+            throw new PositionScoresException("Unable to open position scores " + path, e);
+        }
+    }
+
+    /**
+     * @return the score for the slot of the 1-based position, or {@link Float#NaN} if there is none.
+     */
+    public float getScore(int chr, int position, int slot) {
+        ChromosomeScores chromosomeScores = chromosomes.get(chr);
+        if (chromosomeScores == null || slot < 0 || slot >= slotsPerPosition) {
+            return Float.NaN;
+        }
+        long positionIndex = (long) position - chromosomeScores.firstPosition;
+        if (positionIndex < 0 || positionIndex >= chromosomeScores.positionCount) {
+            return Float.NaN;
+        }
+        // byte offset, in order to find the chunk
+        long offset = (positionIndex * slotsPerPosition + slot) * Short.BYTES;
+        ShortBuffer chunk = chromosomeScores.chunks[(int) (offset >> CHUNK_SHIFT)];
+        int value = chunk.get(((int) offset & CHUNK_MASK) / Short.BYTES) & 0xFFFF;
+        return value == MISSING ? Float.NaN : dequantise(value, minScore, maxScore);
+    }
+
+    public int getSlotsPerPosition() {
+        return slotsPerPosition;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private static class ChromosomeScores {
+
+        private final int firstPosition;
+        private final int positionCount;
+        private final ShortBuffer[] chunks;
+
+        private ChromosomeScores(int firstPosition, int positionCount, ShortBuffer[] chunks) {
+            this.firstPosition = firstPosition;
+            this.positionCount = positionCount;
+            this.chunks = chunks;
+        }
+    }
+
+    private static class PositionScoresException extends RuntimeException {
+
+        private PositionScoresException(String message) {
+            super(message);
+        }
+
+        private PositionScoresException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.jannovar;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.monarchinitiative.exomiser.core.proto.JannovarProto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transcript data split into separately compressed chunks for each chromosome, with an index of the chunks at the start
+ * of the file. Unlike the {@link JannovarDataProtoSerialiser} format, which needs to be read and converted in full
+ * before use, opening this only reads the {@link ReferenceDictionary} and the index. The {@link TranscriptModel} for a
+ * chromosome are read from the chunk when they are first required, so a gene panel only needs to load the few
+ * chromosomes on which the variants lie.
+ * <p>
+ * The transcripts of a chromosome are split into blocks of at most {@link #TRANSCRIPTS_PER_BLOCK} transcripts, each of
+ * which is compressed independently. This allows the blocks to be decompressed and converted in parallel, rather than
+ * through the single {@link GZIPInputStream} of the {@link JannovarDataProtoSerialiser} format. The gene symbols and
+ * identifiers of all the transcripts are held in a further chunk, so that the known genes can be created without
+ * reading the chromosome chunks.
+ * <p>
+ * The file layout is the magic bytes and version, the protobuf {@link JannovarProto.ReferenceDictionary}, the index of
+ * (chromosome id, number of transcripts, offset, length) for each block in chromosome order followed by that of the
+ * gene chunk and finally the chunks themselves. Each chunk is a gzipped stream of length-delimited
+ * {@link JannovarProto.TranscriptModel}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class ChunkedJannovarData {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedJannovarData.class);
+
+    public static final String FILE_EXTENSION = ".chunks";
+
+    private static final byte[] MAGIC_BYTES = {'J', 'T', 'P', 'C'};
+    private static final int VERSION = 2;
+
+    // large enough to compress well, small enough to split the larger chromosomes between several threads
+    static final int TRANSCRIPTS_PER_BLOCK = 2_000;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final ReferenceDictionary referenceDictionary;
+    private final Map<Integer, List<Chunk>> chromosomeChunks;
+    private final Chunk geneChunk;
+
+    private ChunkedJannovarData(Path path, ByteBuffer buffer, ReferenceDictionary referenceDictionary, Map<Integer, List<Chunk>> chromosomeChunks, Chunk geneChunk) {
+        this.path = path;
+        this.buffer = buffer;
+        this.referenceDictionary = referenceDictionary;
+        this.chromosomeChunks = chromosomeChunks;
+        this.geneChunk = geneChunk;
+    }
+
+    /**
+     * Returns the path of the chunked transcript data for the transcript data file e.g.
+     * data/1902_hg19_transcripts_ensembl.chunks for data/1902_hg19_transcripts_ensembl.ser
+     */
+    public static Path chunkedPathFor(Path transcriptFilePath) {
+        String fileName = transcriptFilePath.getFileName().toString().replace(".ser", "");
+        return transcriptFilePath.resolveSibling(fileName + FILE_EXTENSION);
+    }
+
+    public static void write(Path outFilePath, JannovarData jannovarData) {
+        write(outFilePath, jannovarData, TRANSCRIPTS_PER_BLOCK);
+    }
+
+    static void write(Path outFilePath, JannovarData jannovarData, int transcriptsPerBlock) {
+        logger.info("Writing chunked Jannovar data to {}", outFilePath);
+        Map<Integer, List<TranscriptModel>> transcriptModelsByChromosome = new TreeMap<>();
+        for (TranscriptModel transcriptModel : new LinkedHashSet<>(jannovarData.getTmByAccession().values())) {
+            transcriptModelsByChromosome.computeIfAbsent(transcriptModel.getChr(), chr -> new ArrayList<>()).add(transcriptModel);
+        }
+
+        Function<TranscriptModel, JannovarProto.TranscriptModel> toProtoTranscriptModel = JannovarProtoConverter.toProtoTranscriptModel();
+        List<Chunk> blocks = new ArrayList<>();
+        List<byte[]> blockBytes = new ArrayList<>();
+        List<JannovarProto.TranscriptModel> geneTranscriptModels = new ArrayList<>();
+        transcriptModelsByChromosome.forEach((chr, transcriptModels) -> {
+            for (List<TranscriptModel> blockTranscriptModels : Lists.partition(transcriptModels, transcriptsPerBlock)) {
+                List<JannovarProto.TranscriptModel> protoTranscriptModels = new ArrayList<>(blockTranscriptModels.size());
+                for (TranscriptModel transcriptModel : blockTranscriptModels) {
+                    JannovarProto.TranscriptModel protoTranscriptModel = toProtoTranscriptModel.apply(transcriptModel);
+                    protoTranscriptModels.add(protoTranscriptModel);
+                    geneTranscriptModels.add(toGeneTranscriptModel(protoTranscriptModel));
+                }
+                byte[] bytes = compress(protoTranscriptModels);
+                // offsets are assigned once the size of the index is known
+                blocks.add(new Chunk(chr, protoTranscriptModels.size(), 0, bytes.length));
+                blockBytes.add(bytes);
+            }
+        });
+        byte[] geneChunkBytes = compress(geneTranscriptModels);
+        byte[] referenceDictionaryBytes = JannovarProtoConverter.toProtoReferenceDictionary(jannovarData.getRefDict())
+                .toByteArray();
+
+        int indexEntryLength = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+        long offset = MAGIC_BYTES.length + Integer.BYTES + Integer.BYTES + referenceDictionaryBytes.length
+                + Integer.BYTES + (long) (blocks.size() + 1) * indexEntryLength;
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outFilePath)))) {
+            outputStream.write(MAGIC_BYTES);
+            outputStream.writeInt(VERSION);
+            outputStream.writeInt(referenceDictionaryBytes.length);
+            outputStream.write(referenceDictionaryBytes);
+            outputStream.writeInt(blocks.size());
+            for (Chunk block : blocks) {
+                writeIndexEntry(outputStream, block.chr, block.numTranscripts, offset, block.length);
+                offset += block.length;
+            }
+            writeIndexEntry(outputStream, 0, geneTranscriptModels.size(), offset, geneChunkBytes.length);
+            for (byte[] bytes : blockBytes) {
+                outputStream.write(bytes);
+            }
+            outputStream.write(geneChunkBytes);
+        } catch (IOException e) {
+            throw new ChunkedJannovarDataException("Unable to write chunked Jannovar data to " + outFilePath, e);
+        }
+        logger.info("Written {} transcripts on {} chromosomes in {} blocks", geneTranscriptModels.size(), transcriptModelsByChromosome.size(), blocks.size());
+    }
+
+    // only the fields required to identify the gene are kept, the exons and sequence are the bulk of the data
+    private static JannovarProto.TranscriptModel toGeneTranscriptModel(JannovarProto.TranscriptModel protoTranscriptModel) {
+        return JannovarProto.TranscriptModel.newBuilder()
+                .setAccession(protoTranscriptModel.getAccession())
+                .setGeneSymbol(protoTranscriptModel.getGeneSymbol())
+                .setGeneID(protoTranscriptModel.getGeneID())
+                .putAllAltGeneIds(protoTranscriptModel.getAltGeneIdsMap())
+                .build();
+    }
+
+    private static byte[] compress(List<JannovarProto.TranscriptModel> protoTranscriptModels) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            for (JannovarProto.TranscriptModel protoTranscriptModel : protoTranscriptModels) {
+                protoTranscriptModel.writeDelimitedTo(gzipOutputStream);
+            }
+        } catch (IOException e) {
+            throw new ChunkedJannovarDataException("Unable to compress transcript models", e);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static void writeIndexEntry(DataOutputStream outputStream, int chr, int numTranscripts, long offset, int length) throws IOException {
+        outputStream.writeInt(chr);
+        outputStream.writeInt(numTranscripts);
+        outputStream.writeLong(offset);
+        outputStream.writeInt(length);
+    }
+
+    /**
+     * Opens the chunked transcript data, reading only the {@link ReferenceDictionary} and the index of the chunks. The
+     * file is memory-mapped so does not need to be closed.
+     */
+    public static ChunkedJannovarData open(Path chunkedFilePath) {
+        logger.info("Opening chunked Jannovar data from {}", chunkedFilePath);
+        try (FileChannel channel = FileChannel.open(chunkedFilePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magicBytes = new byte[MAGIC_BYTES.length];
+            if (buffer.remaining() < MAGIC_BYTES.length + Integer.BYTES || !Arrays.equals(readBytes(buffer, magicBytes), MAGIC_BYTES)) {
+                throw new InvalidFileFormatException(chunkedFilePath + " not an Exomiser format chunked Jannovar transcript database.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new InvalidFileFormatException("Unsupported chunked Jannovar transcript database version " + version + " in " + chunkedFilePath);
+            }
+            byte[] referenceDictionaryBytes = readBytes(buffer, new byte[buffer.getInt()]);
+            ReferenceDictionary referenceDictionary = JannovarProtoConverter.toReferenceDictionary(JannovarProto.ReferenceDictionary
+                    .parseFrom(referenceDictionaryBytes));
+            int numBlocks = buffer.getInt();
+            Map<Integer, List<Chunk>> chromosomeChunks = new LinkedHashMap<>();
+            for (int i = 0; i < numBlocks; i++) {
+                Chunk chunk = readIndexEntry(buffer);
+                chromosomeChunks.computeIfAbsent(chunk.chr, chr -> new ArrayList<>()).add(chunk);
+            }
+            Chunk geneChunk = readIndexEntry(buffer);
+            return new ChunkedJannovarData(chunkedFilePath, buffer, referenceDictionary, Collections.unmodifiableMap(chromosomeChunks), geneChunk);
+        } catch (IOException | BufferUnderflowException e) {
+            throw new ChunkedJannovarDataException("Unable to open chunked Jannovar data " + chunkedFilePath, e);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Chunk readIndexEntry(ByteBuffer buffer) {
+        int chr = buffer.getInt();
+        int numTranscripts = buffer.getInt();
+        long offset = buffer.getLong();
+        int length = buffer.getInt();
+        return new Chunk(chr, numTranscripts, offset, length);
+    }
+
+    public ReferenceDictionary getRefDict() {
+        return referenceDictionary;
+    }
+
+    /**
+     * @return the ids of the chromosomes which have transcripts, in ascending order.
+     */
+    public Set<Integer> getChromosomeIds() {
+        return chromosomeChunks.keySet();
+    }
+
+    public int getTranscriptCount() {
+        return geneChunk.numTranscripts;
+    }
+
+    int getBlockCount() {
+        return chromosomeChunks.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Reads the {@link TranscriptModel} on the chromosome. These are not cached, so callers should keep hold of the
+     * result rather than calling this repeatedly.
+     */
+    public List<TranscriptModel> loadTranscriptModels(int chr) {
+        return readTranscriptModels(chromosomeChunks.getOrDefault(chr, ImmutableList.of()));
+    }
+
+    /**
+     * Reads the transcripts on the chromosome and builds the Jannovar {@link Chromosome} with its interval tree, in the
+     * same way as the {@link JannovarData} does. As with the {@link JannovarData} a chromosome of the
+     * {@link ReferenceDictionary} without any transcripts has an empty interval tree. This will be empty only if the
+     * chromosome is not in the {@link ReferenceDictionary}.
+     */
+    public Optional<Chromosome> loadChromosome(int chr) {
+        if (!referenceDictionary.getContigIDToName().containsKey(chr)) {
+            return Optional.empty();
+        }
+        List<TranscriptModel> transcriptModels = loadTranscriptModels(chr);
+        logger.debug("Loaded {} transcripts for chromosome {}", transcriptModels.size(), referenceDictionary.getContigIDToName().get(chr));
+        IntervalArray<TranscriptModel> intervalTree = new IntervalArray<>(transcriptModels, new TranscriptIntervalEndExtractor());
+        return Optional.of(new Chromosome(referenceDictionary, chr, intervalTree));
+    }
+
+    /**
+     * Reads the gene symbol, gene id and alternative gene ids of all the transcripts without reading the chromosome
+     * chunks. The remaining fields of these transcripts are not populated.
+     */
+    public List<JannovarProto.TranscriptModel> loadGeneTranscriptModels() {
+        return readChunk(geneChunk);
+    }
+
+    /**
+     * Reads all of the chromosome chunks into a {@link JannovarData}, which is equivalent to that loaded from the
+     * transcript file from which this was written. The blocks are decompressed and converted in parallel.
+     */
+    public JannovarData toJannovarData() {
+        Instant start = Instant.now();
+        List<Chunk> blocks = chromosomeChunks.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        ImmutableList<TranscriptModel> transcriptModels = readTranscriptModels(blocks);
+        logger.debug("Converted {} transcripts from {} blocks in {} ms", transcriptModels.size(), blocks.size(), Duration.between(start, Instant.now()).toMillis());
+        return new JannovarData(referenceDictionary, transcriptModels);
+    }
+
+    // the blocks are independent so are read on the common fork-join pool, retaining the order in which they were written
+    private ImmutableList<TranscriptModel> readTranscriptModels(List<Chunk> blocks) {
+        Function<JannovarProto.TranscriptModel, TranscriptModel> toTranscriptModel = JannovarProtoConverter.toTranscriptModel(referenceDictionary);
+        return blocks.parallelStream()
+                .flatMap(block -> readChunk(block).stream().map(toTranscriptModel))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private List<JannovarProto.TranscriptModel> readChunk(Chunk chunk) {
+        ByteBuffer chunkBuffer = buffer.duplicate();
+        chunkBuffer.position((int) chunk.offset);
+        byte[] chunkBytes = readBytes(chunkBuffer, new byte[chunk.length]);
+        List<JannovarProto.TranscriptModel> protoTranscriptModels = new ArrayList<>(chunk.numTranscripts);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(chunkBytes))) {
+            JannovarProto.TranscriptModel protoTranscriptModel;
+            while ((protoTranscriptModel = JannovarProto.TranscriptModel.parseDelimitedFrom(inputStream)) != null) {
+                protoTranscriptModels.add(protoTranscriptModel);
+            }
+        } catch (IOException e) {
+            throw new ChunkedJannovarDataException("Unable to read chunk for chromosome " + chunk.chr + " from " + path, e);
+        }
+        return protoTranscriptModels;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedJannovarData{" +
+                "path=" + path +
+                ", chromosomes=" + ImmutableSet.copyOf(chromosomeChunks.keySet()) +
+                ", blocks=" + getBlockCount() +
+                ", transcripts=" + geneChunk.numTranscripts +
+                '}';
+    }
+
+    private static class Chunk {
+
+        private final int chr;
+        private final int numTranscripts;
+        private final long offset;
+        private final int length;
+
+        private Chunk(int chr, int numTranscripts, long offset, int length) {
+            this.chr = chr;
+            this.numTranscripts = numTranscripts;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class ChunkedJannovarDataException extends RuntimeException {
+
+        private ChunkedJannovarDataException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
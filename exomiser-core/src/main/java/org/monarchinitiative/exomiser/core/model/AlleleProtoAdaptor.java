@@ -97,6 +97,26 @@ public class AlleleProtoAdaptor {
             .put("PRIMATE_AI", PRIMATE_AI)
             .build();
 
+    private static final Map<PathogenicitySource, String> PATHOGENICITY_SOURCE_KEYS = PATHOGENICITY_SOURCE_MAP.entrySet()
+            .stream()
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getValue, Map.Entry::getKey));
+
+    // Equivalent look-ups for the typed AlleleProto.AlleleProperties, indexed by the AlleleProperty number which is
+    // the bit index of the properties_mask.
+    private static final FrequencySource[] FREQUENCY_SOURCES_BY_NUMBER = toNumberIndexedArray(FREQUENCY_SOURCE_MAP, new FrequencySource[TypedAlleleProperties.MAX_PROPERTIES]);
+    private static final PathogenicitySource[] PATHOGENICITY_SOURCES_BY_NUMBER = toNumberIndexedArray(PATHOGENICITY_SOURCE_MAP, new PathogenicitySource[TypedAlleleProperties.MAX_PROPERTIES]);
+
+    private static <T> T[] toNumberIndexedArray(Map<String, T> sourceMap, T[] numberIndexedSources) {
+        for (Map.Entry<String, T> entry : sourceMap.entrySet()) {
+            int propertyNumber = TypedAlleleProperties.propertyNumber(entry.getKey());
+            // not all the keys have an AlleleProperty, e.g. there is no GNOMAD_G_SAS
+            if (propertyNumber != -1) {
+                numberIndexedSources[propertyNumber] = entry.getValue();
+            }
+        }
+        return numberIndexedSources;
+    }
+
     private AlleleProtoAdaptor() {
         //un-instantiable utility class
     }
@@ -119,10 +139,33 @@ public static FrequencyData toFrequencyData(AlleleProperties alleleProperties) {
             return FrequencyData.empty();
         }
         RsId rsId = RsId.of(alleleProperties.getRsId());
+        if (TypedAlleleProperties.isTyped(alleleProperties)) {
+            return parseTypedFrequencyData(rsId, alleleProperties);
+        }
         List<Frequency> frequencies = parseFrequencyData(alleleProperties.getPropertiesMap());
         return FrequencyData.of(rsId, frequencies);
     }
 
+    private static FrequencyData parseTypedFrequencyData(RsId rsId, AlleleProperties alleleProperties) {
+        long mask = alleleProperties.getPropertiesMask();
+        int maxSize = Long.bitCount(mask);
+        FrequencySource[] sources = new FrequencySource[maxSize];
+        float[] values = new float[maxSize];
+        int size = 0;
+        int valueIndex = 0;
+        while (mask != 0L) {
+            FrequencySource source = FREQUENCY_SOURCES_BY_NUMBER[Long.numberOfTrailingZeros(mask)];
+            if (source != null) {
+                sources[size] = source;
+                values[size] = alleleProperties.getPropertyValues(valueIndex);
+                size++;
+            }
+            valueIndex++;
+            mask &= mask - 1;
+        }
+        return FrequencyData.of(rsId, sources, values, size);
+    }
+
     private static List<Frequency> parseFrequencyData(Map<String, Float> values) {
         List<Frequency> frequencies = new ArrayList<>(values.size());
         for (Map.Entry<String, Float> field : values.entrySet()) {
@@ -140,11 +183,35 @@ public static PathogenicityData toPathogenicityData(AlleleProperties allelePrope
         if (alleleProperties.equals(AlleleProperties.getDefaultInstance())) {
             return PathogenicityData.empty();
         }
-        List<PathogenicityScore> pathogenicityScores = parsePathogenicityData(alleleProperties.getPropertiesMap());
+        List<PathogenicityScore> pathogenicityScores = TypedAlleleProperties.isTyped(alleleProperties) ? parseTypedPathogenicityData(alleleProperties) : parsePathogenicityData(alleleProperties.getPropertiesMap());
         ClinVarData clinVarData = parseClinVarData(alleleProperties.getClinVar());
         return PathogenicityData.of(clinVarData, pathogenicityScores);
     }
 
+    /**
+     * Converts the predicted pathogenicity scores of the {@link PathogenicityData} into the untyped properties map of an
+     * {@link AlleleProperties}, such that {@link #toPathogenicityData(AlleleProperties)} will return an equal set of
+     * scores. The {@link ClinVarData} is not converted.
+     *
+     * @param pathogenicityData the scores to convert
+     * @return an {@code AlleleProperties} containing the raw scores, or the default instance if there were none
+     * @since 12.1.0
+     */
+    public static AlleleProperties toAlleleProperties(PathogenicityData pathogenicityData) {
+        List<PathogenicityScore> pathogenicityScores = pathogenicityData.getPredictedPathogenicityScores();
+        if (pathogenicityScores.isEmpty()) {
+            return AlleleProperties.getDefaultInstance();
+        }
+        AlleleProperties.Builder builder = AlleleProperties.newBuilder();
+        for (PathogenicityScore pathogenicityScore : pathogenicityScores) {
+            String key = PATHOGENICITY_SOURCE_KEYS.get(pathogenicityScore.getSource());
+            if (key != null) {
+                builder.putProperties(key, pathogenicityScore.getRawScore());
+            }
+        }
+        return builder.build();
+    }
+
     private static List<PathogenicityScore> parsePathogenicityData(Map<String, Float> values) {
         List<PathogenicityScore> pathogenicityScores = new ArrayList<>();
         for (Map.Entry<String, Float> field : values.entrySet()) {
@@ -158,6 +225,21 @@ private static List<PathogenicityScore> parsePathogenicityData(Map<String, Float
         return pathogenicityScores;
     }
 
+    private static List<PathogenicityScore> parseTypedPathogenicityData(AlleleProperties alleleProperties) {
+        List<PathogenicityScore> pathogenicityScores = new ArrayList<>();
+        long mask = alleleProperties.getPropertiesMask();
+        int valueIndex = 0;
+        while (mask != 0L) {
+            PathogenicitySource source = PATHOGENICITY_SOURCES_BY_NUMBER[Long.numberOfTrailingZeros(mask)];
+            if (source != null) {
+                pathogenicityScores.add(PathogenicityScore.of(source, alleleProperties.getPropertyValues(valueIndex)));
+            }
+            valueIndex++;
+            mask &= mask - 1;
+        }
+        return pathogenicityScores;
+    }
+
     private static ClinVarData parseClinVarData(ClinVar clinVar) {
         if (clinVar.equals(clinVar.getDefaultInstanceForType())) {
             return ClinVarData.empty();
@@ -20,13 +20,11 @@
 
 package org.monarchinitiative.exomiser.core.model;
 
-import com.google.common.collect.ImmutableMap;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
-import de.charite.compbio.jannovar.impl.intervals.IntervalEndExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toSet;
@@ -34,18 +32,24 @@
 /**
  * Interval tree-backed index for chromosomal regions. It enables extremely fast in-memory lookups to find the regions
  * in which a variant can be found.
+ * <p>
+ * The regions of each chromosome are held in arrays sorted by their start, with the primitive start and end positions
+ * of the regions laid out as an implicit binary tree where each node also holds the maximum end of its sub-tree. This
+ * makes the {@link #hasRegionContainingPosition(int, int)} check and the
+ * {@link #forEachRegionOverlappingPosition(int, int, Consumer)} query allocation-free.
  *
  * @author Jules Jacobsen <jules.jacobsen@sanger.ac.uk>
  */
 public class ChromosomalRegionIndex<T extends ChromosomalRegion> {
 
-    private static final ChromosomalRegionIndex EMPTY = new ChromosomalRegionIndex<>(ImmutableMap.of());
+    private static final ChromosomalRegionIndex<?> EMPTY = new ChromosomalRegionIndex<>(newIntervalArrayIndex(0));
 
     private static final Logger logger = LoggerFactory.getLogger(ChromosomalRegionIndex.class);
 
-    private final Map<Integer, IntervalArray<T>> index;
+    // indexed by chromosome number, with null for chromosomes with no regions
+    private final IntervalArray<T>[] index;
 
-    private ChromosomalRegionIndex(Map<Integer, IntervalArray<T>> index) {
+    private ChromosomalRegionIndex(IntervalArray<T>[] index) {
         this.index = index;
     }
 
@@ -61,13 +65,21 @@ private ChromosomalRegionIndex(Map<Integer, IntervalArray<T>> index) {
     public static <T extends ChromosomalRegion> ChromosomalRegionIndex<T> of(Collection<T> chromosomalRegions) {
         Map<Integer, Set<T>> regionIndex = chromosomalRegions.stream().collect(groupingBy(T::getChromosome, toSet()));
 
-        Map<Integer, IntervalArray<T>> intervalTreeIndex = new HashMap<>();
+        int maxChromosome = regionIndex.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        IntervalArray<T>[] intervalArrayIndex = newIntervalArrayIndex(maxChromosome + 1);
         for (Map.Entry<Integer, Set<T>> entry : regionIndex.entrySet()) {
-            intervalTreeIndex.put(entry.getKey(), new IntervalArray<>(entry.getValue(), new ChromosomalRegionEndExtractor<>()));
+            intervalArrayIndex[entry.getKey()] = new IntervalArray<>(entry.getValue());
         }
-        logger.debug("Created index for {} chromosomes totalling {} regions", intervalTreeIndex.keySet().size(), intervalTreeIndex.values().stream().mapToInt(IntervalArray::size).sum());
+        ChromosomalRegionIndex<T> chromosomalRegionIndex = new ChromosomalRegionIndex<>(intervalArrayIndex);
+        logger.debug("Created index for {} chromosomes totalling {} regions", regionIndex.size(), chromosomalRegionIndex.size());
 
-        return new ChromosomalRegionIndex<>(intervalTreeIndex);
+        return chromosomalRegionIndex;
+    }
+
+    // Generic arrays cannot be created directly. This is safe as the array is only ever filled with IntervalArray<T>.
+    @SuppressWarnings("unchecked")
+    private static <T extends ChromosomalRegion> IntervalArray<T>[] newIntervalArrayIndex(int size) {
+        return (IntervalArray<T>[]) new IntervalArray<?>[size];
     }
 
     /**
@@ -82,7 +94,7 @@ public static <T extends ChromosomalRegion> ChromosomalRegionIndex<T> empty() {
     }
 
     public boolean hasRegionContainingVariant(VariantCoordinates variant) {
-        return !getRegionsContainingVariant(variant).isEmpty();
+        return hasRegionContainingPosition(variant.getChromosome(), variant.getPosition());
     }
 
     /**
@@ -93,7 +105,8 @@ public boolean hasRegionContainingVariant(VariantCoordinates variant) {
      * @since 11.0.0
      */
     public boolean hasRegionContainingPosition(int chromosome, int position) {
-        return !getRegionsOverlappingPosition(chromosome, position).isEmpty();
+        IntervalArray<T> intervalArray = getIntervalArray(chromosome);
+        return intervalArray != null && intervalArray.containsPosition(position, null);
     }
 
     public List<T> getRegionsContainingVariant(VariantCoordinates variantCoordinates) {
@@ -107,15 +120,40 @@ public List<T> getRegionsContainingVariant(VariantCoordinates variantCoordinates
      *
      * @param chromosome
      * @param position
-     * @return
+     * @return the regions containing the position, in order of their start and end.
      */
     public List<T> getRegionsOverlappingPosition(int chromosome, int position) {
-        IntervalArray<T> intervalTree = index.get(chromosome);
-        if (intervalTree == null) {
+        IntervalArray<T> intervalArray = getIntervalArray(chromosome);
+        if (intervalArray == null) {
             return Collections.emptyList();
         }
-        IntervalArray<T>.QueryResult queryResult = intervalTree.findOverlappingWithPoint(position - 1);
-        return queryResult.getEntries();
+        List<T> regions = new ArrayList<>();
+        intervalArray.containsPosition(position, regions::add);
+        return regions;
+    }
+
+    /**
+     * Passes each region containing the one-based position to the consumer, in order of their start and end, without
+     * creating any intermediate collections.
+     *
+     * @param chromosome chromosome of the position of interest
+     * @param position   1-based position to be tested for inclusion within the intervals of the index
+     * @param consumer   receives the regions containing the position
+     * @since 12.1.0
+     */
+    public void forEachRegionOverlappingPosition(int chromosome, int position, Consumer<? super T> consumer) {
+        Objects.requireNonNull(consumer);
+        IntervalArray<T> intervalArray = getIntervalArray(chromosome);
+        if (intervalArray != null) {
+            intervalArray.containsPosition(position, consumer);
+        }
+    }
+
+    private IntervalArray<T> getIntervalArray(int chromosome) {
+        if (chromosome < 0 || chromosome >= index.length) {
+            return null;
+        }
+        return index[chromosome];
     }
 
     /**
@@ -124,7 +162,13 @@ public List<T> getRegionsOverlappingPosition(int chromosome, int position) {
      * @since 11.0.0
      */
     public int size() {
-        return index.values().stream().mapToInt(IntervalArray::size).sum();
+        int size = 0;
+        for (IntervalArray<T> intervalArray : index) {
+            if (intervalArray != null) {
+                size += intervalArray.size();
+            }
+        }
+        return size;
     }
 
     @Override
@@ -132,24 +176,150 @@ public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ChromosomalRegionIndex<?> that = (ChromosomalRegionIndex<?>) o;
-        return Objects.equals(index, that.index);
+        return Arrays.equals(index, that.index);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(index);
+        return Arrays.hashCode(index);
     }
 
-    private static class ChromosomalRegionEndExtractor<T extends ChromosomalRegion> implements IntervalEndExtractor<T> {
+    /**
+     * The regions of a single chromosome, sorted by start and end, and stored as an implicit interval tree. This uses
+     * the layout of Heng Li's cgranges where the nodes at level k of the tree are the indices with the lowest k bits
+     * set and bit k unset, so that the leaves are the even indices and an in-order traversal is the sorted order.
+     * Positions are held as 0-based half-open intervals.
+     */
+    private static class IntervalArray<T extends ChromosomalRegion> {
+
+        // sub-trees of this size or smaller are scanned linearly
+        private static final int MAX_SCAN_LEVEL = 3;
+
+        private final ChromosomalRegion[] regions;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnds;
+        private final int maxLevel;
+
+        private IntervalArray(Collection<T> chromosomalRegions) {
+            this.regions = chromosomalRegions.toArray(new ChromosomalRegion[0]);
+            Arrays.sort(regions, Comparator.comparingInt(ChromosomalRegion::getStart).thenComparingInt(ChromosomalRegion::getEnd));
+            int size = regions.length;
+            this.starts = new int[size];
+            this.ends = new int[size];
+            this.maxEnds = new int[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = regions[i].getStart() - 1;
+                ends[i] = regions[i].getEnd();
+            }
+            this.maxLevel = indexMaxEnds();
+        }
+
+        // computes the maximum end of each node and returns the level of the root
+        private int indexMaxEnds() {
+            int size = starts.length;
+            if (size == 0) {
+                return -1;
+            }
+            int lastIndex = 0;
+            int last = 0;
+            for (int i = 0; i < size; i += 2) {
+                lastIndex = i;
+                maxEnds[i] = last = ends[i];
+            }
+            int k = 1;
+            for (; (1 << k) <= size; k++) {
+                int x = 1 << (k - 1);
+                int firstNode = (x << 1) - 1;
+                int step = x << 2;
+                for (int i = firstNode; i < size; i += step) {
+                    int leftMax = maxEnds[i - x];
+                    // the right child may be beyond the end of the array, in which case use the last max end
+                    int rightMax = i + x < size ? maxEnds[i + x] : last;
+                    maxEnds[i] = Math.max(ends[i], Math.max(leftMax, rightMax));
+                }
+                lastIndex = ((lastIndex >> k) & 1) != 0 ? lastIndex - x : lastIndex + x;
+                if (lastIndex < size && maxEnds[lastIndex] > last) {
+                    last = maxEnds[lastIndex];
+                }
+            }
+            return k - 1;
+        }
+
+        private int size() {
+            return regions.length;
+        }
+
+        /**
+         * Finds the regions containing the 1-based position. If the consumer is null this returns true on finding the
+         * first region, otherwise each region is passed to the consumer.
+         */
+        private boolean containsPosition(int position, Consumer<? super T> consumer) {
+            if (maxLevel < 0) {
+                return false;
+            }
+            // the equivalent 0-based half-open interval is [position - 1, position)
+            return search((1 << maxLevel) - 1, maxLevel, position - 1, position, consumer);
+        }
+
+        private boolean search(int node, int level, int queryStart, int queryEnd, Consumer<? super T> consumer) {
+            int size = starts.length;
+            boolean found = false;
+            if (level <= MAX_SCAN_LEVEL) {
+                int first = node >> level << level;
+                int last = Math.min(first + (1 << (level + 1)) - 1, size);
+                for (int i = first; i < last && starts[i] < queryEnd; i++) {
+                    if (queryStart < ends[i]) {
+                        if (accept(i, consumer)) {
+                            return true;
+                        }
+                        found = true;
+                    }
+                }
+                return found;
+            }
+            int offset = 1 << (level - 1);
+            int left = node - offset;
+            // nodes beyond the end of the array have no max end, but their left sub-trees may still hold regions
+            if ((left >= size || maxEnds[left] > queryStart) && search(left, level - 1, queryStart, queryEnd, consumer)) {
+                if (consumer == null) {
+                    return true;
+                }
+                found = true;
+            }
+            if (node < size && starts[node] < queryEnd) {
+                if (queryStart < ends[node]) {
+                    if (accept(node, consumer)) {
+                        return true;
+                    }
+                    found = true;
+                }
+                found |= search(node + offset, level - 1, queryStart, queryEnd, consumer);
+            }
+            return found;
+        }
+
+        // returns true if the search can stop
+        @SuppressWarnings("unchecked")
+        private boolean accept(int i, Consumer<? super T> consumer) {
+            if (consumer == null) {
+                return true;
+            }
+            consumer.accept((T) regions[i]);
+            return false;
+        }
 
         @Override
-        public int getBegin(T region) {
-            return region.getStart() - 1;
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            IntervalArray<?> that = (IntervalArray<?>) o;
+            return Arrays.equals(regions, that.regions);
         }
 
         @Override
-        public int getEnd(T region) {
-            return region.getEnd();
+        public int hashCode() {
+            return Arrays.hashCode(regions);
         }
     }
 
@@ -0,0 +1,383 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, immutable store of the {@link SampleGenotype} of each sample for a single variant allele. The names of the
+ * samples are held in a sample index which is shared between all the variants with the same samples and the genotype
+ * of each sample is packed into a single byte. For diploid genotypes this holds the phasing and both
+ * {@link AlleleCall}, so the memory required for a multi-sample VCF is a fraction of that used by a
+ * {@code Map<String, SampleGenotype>}. Genotypes with a ploidy greater than two are held as {@link SampleGenotype}.
+ * <p>
+ * The order of the samples is maintained, which is expected to be the order in which they are declared in the VCF.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public final class PackedSampleGenotypes {
+
+    // There will only be one entry per distinct set of samples analysed, so this is not expected to grow very large.
+    private static final Map<List<String>, SampleIndex> SAMPLE_INDEX_CACHE = new ConcurrentHashMap<>();
+
+    private static final PackedSampleGenotypes EMPTY = new PackedSampleGenotypes(SampleIndex.of(ImmutableList.of()), new byte[0], null);
+
+    // byte layout: bits 0-1 = ploidy (0-2), bit 2 = phased, bits 3-4 = first AlleleCall, bits 5-6 = second AlleleCall
+    private static final int PLOIDY_MASK = 0b11;
+    private static final int PHASED_BIT = 0b100;
+    private static final int FIRST_CALL_SHIFT = 3;
+    private static final int SECOND_CALL_SHIFT = 5;
+    private static final int CALL_MASK = 0b11;
+    private static final byte OVERFLOW = -1;
+
+    private static final AlleleCall[] ALLELE_CALLS = AlleleCall.values();
+    // all the possible packed genotypes decoded to their (mostly cached) SampleGenotype instances
+    private static final SampleGenotype[] DECODED = new SampleGenotype[128];
+
+    static {
+        for (int packed = 0; packed < DECODED.length; packed++) {
+            DECODED[packed] = unpack(packed);
+        }
+    }
+
+    private final SampleIndex sampleIndex;
+    private final byte[] packedGenotypes;
+    // only used for genotypes which cannot be packed into a byte, otherwise null.
+    private final SampleGenotype[] overflowGenotypes;
+
+    private PackedSampleGenotypes(SampleIndex sampleIndex, byte[] packedGenotypes, SampleGenotype[] overflowGenotypes) {
+        this.sampleIndex = sampleIndex;
+        this.packedGenotypes = packedGenotypes;
+        this.overflowGenotypes = overflowGenotypes;
+    }
+
+    public static PackedSampleGenotypes empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a new instance from the ordered map of sample names and their {@link SampleGenotype}.
+     *
+     * @param sampleGenotypes an *ordered* map of sample names and genotypes.
+     * @return a packed representation of the input map.
+     */
+    public static PackedSampleGenotypes of(Map<String, SampleGenotype> sampleGenotypes) {
+        if (sampleGenotypes.isEmpty()) {
+            return EMPTY;
+        }
+        List<String> sampleNames = new ArrayList<>(sampleGenotypes.keySet());
+        return of(sampleNames, new ArrayList<>(sampleGenotypes.values()));
+    }
+
+    /**
+     * Creates a new instance from the ordered list of sample names and their corresponding {@link SampleGenotype}.
+     *
+     * @param sampleNames     the sample names, in VCF order.
+     * @param sampleGenotypes the genotypes of the samples, in the same order as the sample names.
+     * @return a packed representation of the input genotypes.
+     */
+    public static PackedSampleGenotypes of(List<String> sampleNames, List<SampleGenotype> sampleGenotypes) {
+        if (sampleNames.size() != sampleGenotypes.size()) {
+            throw new IllegalArgumentException("Expected " + sampleNames.size() + " genotypes but got " + sampleGenotypes.size());
+        }
+        Builder builder = builder(sampleNames);
+        for (SampleGenotype sampleGenotype : sampleGenotypes) {
+            builder.add(sampleGenotype);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a {@link Builder} for packing the genotypes of the samples directly from their {@link AlleleCall}, without
+     * creating an intermediate {@link SampleGenotype} for each sample.
+     *
+     * @param sampleNames the sample names, in VCF order.
+     * @return a new builder for the genotypes of the named samples.
+     */
+    public static Builder builder(List<String> sampleNames) {
+        return new Builder(sampleNames);
+    }
+
+    private static SampleIndex getSampleIndex(List<String> sampleNames) {
+        SampleIndex sampleIndex = SAMPLE_INDEX_CACHE.get(sampleNames);
+        if (sampleIndex == null) {
+            // use the immutable copy as the key in case the input list is subsequently modified
+            SampleIndex newSampleIndex = SampleIndex.of(sampleNames);
+            sampleIndex = SAMPLE_INDEX_CACHE.putIfAbsent(newSampleIndex.sampleNames, newSampleIndex);
+            return sampleIndex == null ? newSampleIndex : sampleIndex;
+        }
+        return sampleIndex;
+    }
+
+    private static byte pack(boolean phased, int ploidy, AlleleCall first, AlleleCall second) {
+        if (ploidy > 2) {
+            return OVERFLOW;
+        }
+        int packed = ploidy;
+        if (phased) {
+            packed |= PHASED_BIT;
+        }
+        if (ploidy > 0) {
+            packed |= first.ordinal() << FIRST_CALL_SHIFT;
+        }
+        if (ploidy > 1) {
+            packed |= second.ordinal() << SECOND_CALL_SHIFT;
+        }
+        return (byte) packed;
+    }
+
+    private static SampleGenotype unpack(int packed) {
+        int ploidy = packed & PLOIDY_MASK;
+        if (ploidy > 2) {
+            // not a valid packed genotype
+            return null;
+        }
+        AlleleCall[] alleleCalls = new AlleleCall[ploidy];
+        if (ploidy > 0) {
+            alleleCalls[0] = ALLELE_CALLS[(packed >>> FIRST_CALL_SHIFT) & CALL_MASK];
+        }
+        if (ploidy > 1) {
+            alleleCalls[1] = ALLELE_CALLS[(packed >>> SECOND_CALL_SHIFT) & CALL_MASK];
+        }
+        return (packed & PHASED_BIT) != 0 ? SampleGenotype.phased(alleleCalls) : SampleGenotype.of(alleleCalls);
+    }
+
+    /**
+     * @return the number of samples.
+     */
+    public int size() {
+        return packedGenotypes.length;
+    }
+
+    public boolean isEmpty() {
+        return packedGenotypes.length == 0;
+    }
+
+    /**
+     * @return the names of the samples in VCF order.
+     */
+    public List<String> getSampleNames() {
+        return sampleIndex.sampleNames;
+    }
+
+    /**
+     * @param sampleId the name of the sample
+     * @return the position of the sample or -1 if the sample is not present.
+     */
+    public int indexOf(String sampleId) {
+        return sampleIndex.sampleIndices.getOrDefault(sampleId, -1);
+    }
+
+    /**
+     * @param sampleIndex the position of the sample, as returned by {@link #indexOf(String)}.
+     * @return the {@link SampleGenotype} of the sample at the given position.
+     */
+    public SampleGenotype get(int sampleIndex) {
+        byte packed = packedGenotypes[sampleIndex];
+        if (packed == OVERFLOW) {
+            return overflowGenotypes[sampleIndex];
+        }
+        return DECODED[packed];
+    }
+
+    /**
+     * @param sampleId the name of the sample
+     * @return the {@link SampleGenotype} of the named sample or an empty {@link SampleGenotype} if the sample is not
+     * present.
+     */
+    public SampleGenotype get(String sampleId) {
+        int index = indexOf(sampleId);
+        return index == -1 ? SampleGenotype.empty() : get(index);
+    }
+
+    /**
+     * @param sampleIndex the position of the sample, as returned by {@link #indexOf(String)}.
+     * @return the number of {@link AlleleCall} in the genotype of the sample at the given position.
+     */
+    public int getPloidy(int sampleIndex) {
+        return get(sampleIndex).getPloidy();
+    }
+
+    /**
+     * Allocation-free alternative to {@code get(sampleIndex).getCalls().get(callIndex)}.
+     *
+     * @param sampleIndex the position of the sample, as returned by {@link #indexOf(String)}.
+     * @param callIndex   the position of the call in the genotype, which must be less than the ploidy of the sample.
+     * @return the {@link AlleleCall} at the given position of the sample genotype.
+     */
+    public AlleleCall getAlleleCall(int sampleIndex, int callIndex) {
+        return get(sampleIndex).getCall(callIndex);
+    }
+
+    /**
+     * Tests whether the sample has a call for the alternate allele in its genotype without needing to create a
+     * {@link SampleGenotype}.
+     *
+     * @param sampleId the name of the sample
+     * @return true if the named sample has at least one ALT allele call, otherwise false.
+     */
+    public boolean hasAltCall(String sampleId) {
+        int index = indexOf(sampleId);
+        if (index == -1) {
+            return false;
+        }
+        byte packed = packedGenotypes[index];
+        if (packed == OVERFLOW) {
+            return overflowGenotypes[index].getCalls().contains(AlleleCall.ALT);
+        }
+        int ploidy = packed & PLOIDY_MASK;
+        int altOrdinal = AlleleCall.ALT.ordinal();
+        return (ploidy > 0 && ((packed >>> FIRST_CALL_SHIFT) & CALL_MASK) == altOrdinal)
+                || (ploidy > 1 && ((packed >>> SECOND_CALL_SHIFT) & CALL_MASK) == altOrdinal);
+    }
+
+    /**
+     * @return an ordered map of the sample names and their genotypes.
+     */
+    public Map<String, SampleGenotype> toMap() {
+        ImmutableMap.Builder<String, SampleGenotype> builder = ImmutableMap.builder();
+        List<String> sampleNames = sampleIndex.sampleNames;
+        for (int i = 0; i < sampleNames.size(); i++) {
+            builder.put(sampleNames.get(i), get(i));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackedSampleGenotypes that = (PackedSampleGenotypes) o;
+        return toMap().equals(that.toMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return toMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * Packs the genotypes of a fixed list of samples, which must be added in the same order as the sample names.
+     */
+    public static final class Builder {
+
+        private final SampleIndex sampleIndex;
+        private final byte[] packedGenotypes;
+        // only used for genotypes which cannot be packed into a byte, otherwise null.
+        private SampleGenotype[] overflowGenotypes;
+        private int size;
+
+        private Builder(List<String> sampleNames) {
+            this.sampleIndex = sampleNames.isEmpty() ? EMPTY.sampleIndex : getSampleIndex(sampleNames);
+            this.packedGenotypes = new byte[sampleNames.size()];
+        }
+
+        /**
+         * Adds the genotype of the next sample.
+         *
+         * @param phased      whether the genotype is phased.
+         * @param alleleCalls the calls of the genotype. These are copied if they cannot be packed.
+         * @return this builder.
+         */
+        public Builder add(boolean phased, AlleleCall[] alleleCalls) {
+            checkCapacity();
+            int ploidy = alleleCalls.length;
+            byte packed = pack(phased, ploidy, ploidy > 0 ? alleleCalls[0] : null, ploidy > 1 ? alleleCalls[1] : null);
+            if (packed == OVERFLOW) {
+                addOverflow(phased ? SampleGenotype.phased(alleleCalls) : SampleGenotype.of(alleleCalls));
+            }
+            packedGenotypes[size++] = packed;
+            return this;
+        }
+
+        /**
+         * Adds the genotype of the next sample.
+         *
+         * @param sampleGenotype the genotype of the sample.
+         * @return this builder.
+         */
+        public Builder add(SampleGenotype sampleGenotype) {
+            checkCapacity();
+            int ploidy = sampleGenotype.getPloidy();
+            byte packed = pack(sampleGenotype.isPhased(), ploidy, ploidy > 0 ? sampleGenotype.getCall(0) : null, ploidy > 1 ? sampleGenotype.getCall(1) : null);
+            if (packed == OVERFLOW) {
+                addOverflow(sampleGenotype);
+            }
+            packedGenotypes[size++] = packed;
+            return this;
+        }
+
+        private void checkCapacity() {
+            if (size == packedGenotypes.length) {
+                throw new IllegalStateException("Expected only " + packedGenotypes.length + " genotypes");
+            }
+        }
+
+        private void addOverflow(SampleGenotype sampleGenotype) {
+            if (overflowGenotypes == null) {
+                overflowGenotypes = new SampleGenotype[packedGenotypes.length];
+            }
+            overflowGenotypes[size] = sampleGenotype;
+        }
+
+        public PackedSampleGenotypes build() {
+            if (size != packedGenotypes.length) {
+                throw new IllegalStateException("Expected " + packedGenotypes.length + " genotypes but got " + size);
+            }
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new PackedSampleGenotypes(sampleIndex, packedGenotypes, overflowGenotypes);
+        }
+    }
+
+    /**
+     * Shared index of sample names to their position.
+     */
+    private static final class SampleIndex {
+
+        private final List<String> sampleNames;
+        private final Map<String, Integer> sampleIndices;
+
+        private SampleIndex(List<String> sampleNames, Map<String, Integer> sampleIndices) {
+            this.sampleNames = sampleNames;
+            this.sampleIndices = sampleIndices;
+        }
+
+        private static SampleIndex of(List<String> sampleNames) {
+            ImmutableMap.Builder<String, Integer> indices = ImmutableMap.builder();
+            for (int i = 0; i < sampleNames.size(); i++) {
+                indices.put(sampleNames.get(i), i);
+            }
+            return new SampleIndex(ImmutableList.copyOf(sampleNames), indices.build());
+        }
+    }
+}
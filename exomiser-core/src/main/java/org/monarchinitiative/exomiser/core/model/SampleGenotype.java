@@ -145,6 +145,15 @@ public List<AlleleCall> getCalls() {
         return ImmutableList.copyOf(alleleCalls);
     }
 
+    // package-private allocation-free accessors for the PackedSampleGenotypes
+    int getPloidy() {
+        return alleleCalls.length;
+    }
+
+    AlleleCall getCall(int index) {
+        return alleleCalls[index];
+    }
+
     /**
      * Tests whether the current {@link SampleGenotype} is heterozygous.
      *
@@ -25,6 +25,11 @@
 import java.util.Objects;
 
 /**
+ * The annotation of a variant against a single transcript. The HGVS strings can either be provided directly or, using
+ * {@link Builder#hgvsFormatter(HgvsFormatter)}, formatted when first requested. Formatting is comparatively expensive
+ * and the majority of variants are removed by the filters, so the annotators defer this until the variants are written
+ * out.
+ *
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
  */
 public class TranscriptAnnotation {
@@ -36,9 +41,11 @@ public class TranscriptAnnotation {
     private final String geneSymbol;
     private final String accession;
 
-    private final String hgvsGenomic;
-    private final String hgvsCdna;
-    private final String hgvsProtein;
+    // null until first requested when using an HgvsFormatter. Instances can be shared between threads, but formatting
+    // is idempotent so it does not matter if more than one thread formats these. The formatter is released once the
+    // HGVS has been formatted, as it holds on to the Jannovar annotation.
+    private volatile Hgvs hgvs;
+    private volatile HgvsFormatter hgvsFormatter;
 
     private final int distanceFromNearestGene;
 
@@ -46,9 +53,8 @@ private TranscriptAnnotation(Builder builder) {
         this.variantEffect = builder.variantEffect;
         this.geneSymbol = builder.geneSymbol;
         this.accession = builder.accession;
-        this.hgvsGenomic = builder.hgvsGenomic;
-        this.hgvsCdna = builder.hgvsCdna;
-        this.hgvsProtein = builder.hgvsProtein;
+        this.hgvsFormatter = builder.hgvsFormatter;
+        this.hgvs = hgvsFormatter == null ? new Hgvs(builder.hgvsGenomic, builder.hgvsCdna, builder.hgvsProtein) : null;
         this.distanceFromNearestGene = builder.distanceFromNearestGene;
     }
 
@@ -69,15 +75,30 @@ public String getAccession() {
     }
 
     public String getHgvsGenomic() {
-        return hgvsGenomic;
+        return getHgvs().genomic;
     }
 
     public String getHgvsCdna() {
-        return hgvsCdna;
+        return getHgvs().cdna;
     }
 
     public String getHgvsProtein() {
-        return hgvsProtein;
+        return getHgvs().protein;
+    }
+
+    private Hgvs getHgvs() {
+        Hgvs formatted = hgvs;
+        if (formatted == null) {
+            HgvsFormatter formatter = hgvsFormatter;
+            if (formatter == null) {
+                // formatted by another thread since hgvs was read. It sets hgvs before releasing the formatter.
+                return hgvs;
+            }
+            formatted = new Hgvs(formatter.formatHgvsGenomic(), formatter.formatHgvsCdna(), formatter.formatHgvsProtein());
+            hgvs = formatted;
+            hgvsFormatter = null;
+        }
+        return formatted;
     }
 
     public int getDistanceFromNearestGene() {
@@ -93,14 +114,14 @@ public boolean equals(Object o) {
                 variantEffect == that.variantEffect &&
                 Objects.equals(geneSymbol, that.geneSymbol) &&
                 Objects.equals(accession, that.accession) &&
-                Objects.equals(hgvsGenomic, that.hgvsGenomic) &&
-                Objects.equals(hgvsCdna, that.hgvsCdna) &&
-                Objects.equals(hgvsProtein, that.hgvsProtein);
+                Objects.equals(getHgvsGenomic(), that.getHgvsGenomic()) &&
+                Objects.equals(getHgvsCdna(), that.getHgvsCdna()) &&
+                Objects.equals(getHgvsProtein(), that.getHgvsProtein());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(variantEffect, geneSymbol, accession, hgvsGenomic, hgvsCdna, hgvsProtein, distanceFromNearestGene);
+        return Objects.hash(variantEffect, geneSymbol, accession, getHgvsGenomic(), getHgvsCdna(), getHgvsProtein(), distanceFromNearestGene);
     }
 
     @Override
@@ -109,9 +130,9 @@ public String toString() {
                 "variantEffect=" + variantEffect +
                 ", geneSymbol='" + geneSymbol + '\'' +
                 ", accession='" + accession + '\'' +
-                ", hgvsGenomic='" + hgvsGenomic + '\'' +
-                ", hgvsCdna='" + hgvsCdna + '\'' +
-                ", hgvsProtein='" + hgvsProtein + '\'' +
+                ", hgvsGenomic='" + getHgvsGenomic() + '\'' +
+                ", hgvsCdna='" + getHgvsCdna() + '\'' +
+                ", hgvsProtein='" + getHgvsProtein() + '\'' +
                 ", distanceFromNearestGene=" + distanceFromNearestGene +
                 '}';
     }
@@ -120,6 +141,34 @@ public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Formats the HGVS strings of a {@link TranscriptAnnotation} from the source annotation. All three are formatted
+     * together when any of them is first requested.
+     *
+     * @since 12.1.0
+     */
+    public interface HgvsFormatter {
+
+        public String formatHgvsGenomic();
+
+        public String formatHgvsCdna();
+
+        public String formatHgvsProtein();
+    }
+
+    private static class Hgvs {
+
+        private final String genomic;
+        private final String cdna;
+        private final String protein;
+
+        private Hgvs(String genomic, String cdna, String protein) {
+            this.genomic = genomic;
+            this.cdna = cdna;
+            this.protein = protein;
+        }
+    }
+
     public static class Builder {
 
         private VariantEffect variantEffect = VariantEffect.SEQUENCE_VARIANT;
@@ -131,6 +180,8 @@ public static class Builder {
         private String hgvsCdna = "";
         private String hgvsProtein = "";
 
+        private HgvsFormatter hgvsFormatter = null;
+
         private int distanceFromNearestGene = Integer.MIN_VALUE;
 
         public Builder variantEffect(VariantEffect variantEffect) {
@@ -163,6 +214,17 @@ public Builder hgvsProtein(String hgvsProtein) {
             return this;
         }
 
+        /**
+         * Formats the HGVS strings when these are first requested, in place of any supplied to the hgvsGenomic,
+         * hgvsCdna and hgvsProtein methods.
+         *
+         * @since 12.1.0
+         */
+        public Builder hgvsFormatter(HgvsFormatter hgvsFormatter) {
+            this.hgvsFormatter = hgvsFormatter;
+            return this;
+        }
+
         public Builder distanceFromNearestGene(int distanceFromNearestGene) {
             this.distanceFromNearestGene = distanceFromNearestGene;
             return this;
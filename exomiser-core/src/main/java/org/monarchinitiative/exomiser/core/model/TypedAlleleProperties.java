@@ -0,0 +1,112 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.model;
+
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility methods for reading and writing the version 2 typed {@link AlleleProperties}, where the values are held in
+ * a bitmask of {@link AlleleProperty} numbers and a packed array of values rather than the version 1 map of property
+ * name to value.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public final class TypedAlleleProperties {
+
+    /**
+     * Size of the array returned by {@link #toValueArray(AlleleProperties)}, one for each bit of the properties mask.
+     */
+    public static final int MAX_PROPERTIES = Long.SIZE;
+
+    private static final Map<String, Integer> PROPERTY_NUMBERS = new HashMap<>();
+
+    static {
+        for (AlleleProperty alleleProperty : AlleleProperty.values()) {
+            if (alleleProperty != AlleleProperty.UNRECOGNIZED) {
+                PROPERTY_NUMBERS.put(alleleProperty.name(), alleleProperty.getNumber());
+            }
+        }
+    }
+
+    private TypedAlleleProperties() {
+        //un-instantiable utility class
+    }
+
+    public static boolean isTyped(AlleleProperties alleleProperties) {
+        return alleleProperties.getPropertiesMask() != 0L;
+    }
+
+    /**
+     * Returns the {@link AlleleProperty} number for the version 1 property name, or -1 if it is not recognised.
+     */
+    public static int propertyNumber(String propertyName) {
+        return PROPERTY_NUMBERS.getOrDefault(propertyName, -1);
+    }
+
+    /**
+     * Returns the property values from either schema version as an array indexed by {@link AlleleProperty} number,
+     * with {@link Float#NaN} for the missing values. Version 1 properties with unrecognised names are ignored.
+     */
+    public static float[] toValueArray(AlleleProperties alleleProperties) {
+        float[] values = new float[MAX_PROPERTIES];
+        Arrays.fill(values, Float.NaN);
+        long mask = alleleProperties.getPropertiesMask();
+        if (mask != 0L) {
+            int valueIndex = 0;
+            while (mask != 0L) {
+                int number = Long.numberOfTrailingZeros(mask);
+                values[number] = alleleProperties.getPropertyValues(valueIndex++);
+                mask &= mask - 1;
+            }
+        } else {
+            for (Map.Entry<String, Float> property : alleleProperties.getPropertiesMap().entrySet()) {
+                int number = propertyNumber(property.getKey());
+                if (number != -1) {
+                    values[number] = property.getValue();
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Replaces any properties of the builder with the non-NaN values of the array, which is indexed by
+     * {@link AlleleProperty} number.
+     */
+    public static AlleleProperties.Builder setValues(AlleleProperties.Builder builder, float[] valuesByNumber) {
+        builder.clearProperties();
+        builder.clearPropertyValues();
+        long mask = 0L;
+        for (int number = 0; number < valuesByNumber.length; number++) {
+            float value = valuesByNumber[number];
+            if (!Float.isNaN(value)) {
+                mask |= 1L << number;
+                builder.addPropertyValues(value);
+            }
+        }
+        return builder.setPropertiesMask(mask);
+    }
+}
@@ -34,11 +34,13 @@
 import org.monarchinitiative.exomiser.core.filters.FilterResult;
 import org.monarchinitiative.exomiser.core.filters.FilterType;
 import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.VcfCodecs;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.VariantEffectPathogenicityScore;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * This class is a wrapper for the {@code Variant} class from the jannovar
@@ -54,10 +56,13 @@ public class VariantEvaluation implements Comparable<VariantEvaluation>, Filtera
     //threshold over which a variant effect score is considered pathogenic
     private static final float DEFAULT_PATHOGENICITY_THRESHOLD = 0.5f;
 
-    // HTSJDK {@link VariantContext} instance of this allele
-    @JsonIgnore
-    private final VariantContext variantContext;
-//    private final String vcfString;
+    // HTSJDK {@link VariantContext} of this allele, encoded as the bytes of the VCF line. This uses a fraction of the
+    // memory of the original VariantContext, which is re-hydrated on demand. See Builder.build() for the numbers.
+    private final byte[] encodedVariantContext;
+    // ordered sample names required to decode the variant context - this instance is shared between variants.
+    private final List<String> vcfSampleNames;
+    // true if the FILTER field of the VCF record was anything other than 'PASS' or '.'
+    private final boolean vcfFiltered;
 
     // numeric index of the alternative allele in {@link #vc}.
     private final int altAlleleId;
@@ -76,8 +81,8 @@ public class VariantEvaluation implements Comparable<VariantEvaluation>, Filtera
     private final double phredScore;
 
     @JsonIgnore
-    // IMPORTANT! This map *MUST* be an ordered map
-    private Map<String, SampleGenotype> sampleGenotypes;
+    // IMPORTANT! The genotypes *MUST* be in the order of the samples in the VCF
+    private final PackedSampleGenotypes sampleGenotypes;
 
     //VariantAnnotation
     private VariantEffect variantEffect;
@@ -88,14 +93,31 @@ public class VariantEvaluation implements Comparable<VariantEvaluation>, Filtera
     private String geneId;
 
     // results from filters
-    // mutable
-    private final Set<FilterType> passedFilterTypes;
-    private final Set<FilterType> failedFilterTypes;
+    // mutable - the passed FilterTypes are stored as a bitmask of their ordinals in the lower 32 bits with the failed
+    // FilterTypes in the upper 32 bits. This allows both to be read and updated atomically without locking.
+    private static final AtomicLongFieldUpdater<VariantEvaluation> FILTER_STATE_UPDATER = AtomicLongFieldUpdater.newUpdater(VariantEvaluation.class, "filterState");
+    private static final int FAILED_SHIFT = 32;
+    private static final long PASSED_MASK = 0xFFFF_FFFFL;
+    private static final FilterType[] FILTER_TYPES = FilterType.values();
+
+    static {
+        // each FilterType needs one of the 32 passed and one of the 32 failed bits
+        if (FILTER_TYPES.length > FAILED_SHIFT) {
+            throw new IllegalStateException("Unable to store the state of " + FILTER_TYPES.length + " FilterTypes in " + FAILED_SHIFT + " bits");
+        }
+    }
+
+    private volatile long filterState;
 
     // score-related stuff - these are mutable
     private boolean whiteListed;
     private FrequencyData frequencyData;
     private PathogenicityData pathogenicityData;
+    // records which of the frequency and pathogenicity data have been looked-up, so that a variant which was not found
+    // in a source is not looked-up again
+    private boolean frequencyAndPathogenicityDataSet;
+    private boolean frequencyDataSet;
+    private boolean pathogenicityDataSet;
     @JsonProperty("contributingInheritanceModes")
     private Set<ModeOfInheritance> contributingModes = EnumSet.noneOf(ModeOfInheritance.class);
     private Set<ModeOfInheritance> compatibleInheritanceModes = EnumSet.noneOf(ModeOfInheritance.class);
@@ -115,14 +137,14 @@ private VariantEvaluation(Builder builder) {
         geneSymbol = builder.geneSymbol;
         geneId = builder.geneId;
 
-//        vcfString = builder.vcfString;
-        variantContext = builder.variantContext;
+        vcfSampleNames = builder.vcfSampleNames == null ? VcfCodecs.sampleNames(builder.variantContext) : builder.vcfSampleNames;
+        encodedVariantContext = VcfCodecs.encode(vcfSampleNames, builder.variantContext);
+        vcfFiltered = builder.variantContext.isFiltered();
         altAlleleId = builder.altAlleleId;
         // IMPORTANT! This map *MUST* be an ordered map
-        sampleGenotypes = ImmutableMap.copyOf(builder.sampleGenotypes);
+        sampleGenotypes = builder.sampleGenotypes;
 
-        passedFilterTypes = EnumSet.copyOf(builder.passedFilterTypes);
-        failedFilterTypes = EnumSet.copyOf(builder.failedFilterTypes);
+        filterState = toFilterBits(builder.passedFilterTypes) | (toFilterBits(builder.failedFilterTypes) << FAILED_SHIFT);
 
         whiteListed = builder.whiteListed;
         frequencyData = builder.frequencyData;
@@ -176,10 +198,26 @@ public String getAlt() {
         return alt;
     }
 
+    /**
+     * Returns the HTSJDK {@link VariantContext} from which this variant was created. The {@link VariantContext} is not
+     * retained by the variant, so each call will decode and return a new instance. Callers should therefore avoid
+     * calling this repeatedly for the same variant and use the methods of this class where possible.
+     *
+     * @return a new {@link VariantContext} instance representing the original VCF record of this variant.
+     */
+    @JsonIgnore
     public VariantContext getVariantContext() {
-//        VCFCodec vcfCodec = VcfCodecs.decoder(sampleGenotypes.keySet());
-//        return vcfCodec.decode(vcfString);
-        return variantContext;
+        return VcfCodecs.decode(vcfSampleNames, encodedVariantContext);
+    }
+
+    /**
+     * @return true if the FILTER field of the original VCF record contained anything other than 'PASS' or '.'. This
+     * does not require decoding the {@link VariantContext}.
+     * @since 12.1.0
+     */
+    @JsonIgnore
+    public boolean isVcfFiltered() {
+        return vcfFiltered;
     }
 
     public int getAltAlleleId() {
@@ -275,7 +313,8 @@ public String getHgvsGenome() {
     public String getGenotypeString() {
         List<String> genotypeStrings = new ArrayList<>(sampleGenotypes.size());
 
-        for (SampleGenotype sampleGenotype : sampleGenotypes.values()) {
+        for (int i = 0; i < sampleGenotypes.size(); i++) {
+            SampleGenotype sampleGenotype = sampleGenotypes.get(i);
             if (sampleGenotype.isEmpty()) {
                 genotypeStrings.add(SampleGenotype.noCall().toString());
             } else {
@@ -286,10 +325,22 @@ public String getGenotypeString() {
     }
 
     /**
+     * Returns an ordered map of the sample ids and their genotypes. Note that this map is created on each call, so
+     * for repeated access {@link #getSampleGenotype(String)} or {@link #getPackedSampleGenotypes()} are preferable.
+     *
      * @return A map of sample ids and their corresponding {@link SampleGenotype}
      * @since 11.0.0
      */
     public Map<String, SampleGenotype> getSampleGenotypes() {
+        return sampleGenotypes.toMap();
+    }
+
+    /**
+     * @return the compact representation of the sample genotypes for this variant.
+     * @since 12.1.0
+     */
+    @JsonIgnore
+    public PackedSampleGenotypes getPackedSampleGenotypes() {
         return sampleGenotypes;
     }
 
@@ -303,7 +354,7 @@ public Map<String, SampleGenotype> getSampleGenotypes() {
      * @since 11.0.0
      */
     public SampleGenotype getSampleGenotype(String sampleId) {
-        return sampleGenotypes.getOrDefault(sampleId, SampleGenotype.empty());
+        return sampleGenotypes.get(sampleId);
     }
 
     /**
@@ -321,22 +372,52 @@ public boolean addFilterResult(FilterResult filterResult) {
         return addFailedFilterResult(filterResult);
     }
 
-    private synchronized boolean addPassedFilterResult(FilterResult filterResult) {
-        passedFilterTypes.add(filterResult.getFilterType());
+    private boolean addPassedFilterResult(FilterResult filterResult) {
+        FILTER_STATE_UPDATER.getAndAccumulate(this, filterBit(filterResult.getFilterType()), (state, bit) -> state | bit);
         return true;
     }
 
-    private synchronized boolean addFailedFilterResult(FilterResult filterResult) {
-        failedFilterTypes.add(filterResult.getFilterType());
+    private boolean addFailedFilterResult(FilterResult filterResult) {
+        FILTER_STATE_UPDATER.getAndAccumulate(this, filterBit(filterResult.getFilterType()) << FAILED_SHIFT, (state, bit) -> state | bit);
         return false;
     }
 
+    private static long filterBit(FilterType filterType) {
+        return 1L << filterType.ordinal();
+    }
+
+    private static long toFilterBits(Set<FilterType> filterTypes) {
+        long bits = 0;
+        for (FilterType filterType : filterTypes) {
+            bits |= filterBit(filterType);
+        }
+        return bits;
+    }
+
+    private static EnumSet<FilterType> toFilterTypes(long bits) {
+        EnumSet<FilterType> filterTypes = EnumSet.noneOf(FilterType.class);
+        for (FilterType filterType : FILTER_TYPES) {
+            if ((bits & filterBit(filterType)) != 0) {
+                filterTypes.add(filterType);
+            }
+        }
+        return filterTypes;
+    }
+
+    private static long passedBits(long state) {
+        return state & PASSED_MASK;
+    }
+
+    private static long failedBits(long state) {
+        return state >>> FAILED_SHIFT;
+    }
+
     /**
      * @return the set of FilterResult objects that represent the result of
      * filtering
      */
     public Set<FilterType> getPassedFilterTypes() {
-        return EnumSet.copyOf(passedFilterTypes);
+        return toFilterTypes(passedBits(filterState));
     }
 
     /**
@@ -344,7 +425,7 @@ public Set<FilterType> getPassedFilterTypes() {
      * failed to pass.
      */
     public Set<FilterType> getFailedFilterTypes() {
-        return EnumSet.copyOf(failedFilterTypes);
+        return toFilterTypes(failedBits(filterState));
     }
 
     /**
@@ -356,8 +437,8 @@ public Set<FilterType> getFailedFilterTypes() {
      * @param modeOfInheritance the mode of inheritance under which the failed filters are required.
      * @return a set of failed {@code FilterType} for the variant under the {@code ModeOfInheritance} input model.
      */
-    public synchronized Set<FilterType> getFailedFilterTypesForMode(ModeOfInheritance modeOfInheritance){
-        EnumSet<FilterType> failedFiltersCopy = EnumSet.copyOf(failedFilterTypes);
+    public Set<FilterType> getFailedFilterTypesForMode(ModeOfInheritance modeOfInheritance){
+        EnumSet<FilterType> failedFiltersCopy = toFilterTypes(failedBits(filterState));
         if (!isCompatibleWith(modeOfInheritance)) {
             failedFiltersCopy.add(FilterType.INHERITANCE_FILTER);
             return failedFiltersCopy;
@@ -377,17 +458,19 @@ public synchronized Set<FilterType> getFailedFilterTypesForMode(ModeOfInheritanc
      * @return
      */
     @Override
-    public synchronized boolean passedFilters() {
-        return failedFilterTypes.isEmpty();
+    public boolean passedFilters() {
+        return failedBits(filterState) == 0;
     }
 
     @Override
-    public synchronized boolean passedFilter(FilterType filterType) {
-        return !failedFilterTypes.contains(filterType) && passedFilterTypes.contains(filterType);
+    public boolean passedFilter(FilterType filterType) {
+        long state = filterState;
+        long filterBit = filterBit(filterType);
+        return (failedBits(state) & filterBit) == 0 && (passedBits(state) & filterBit) != 0;
     }
 
-    private synchronized boolean isUnFiltered() {
-        return failedFilterTypes.isEmpty() && passedFilterTypes.isEmpty();
+    private boolean isUnFiltered() {
+        return filterState == 0;
     }
 
     public FilterStatus getFilterStatus() {
@@ -487,16 +570,65 @@ public FrequencyData getFrequencyData() {
         return frequencyData;
     }
 
+    /**
+     * Sets the frequency data of the variant from all the required sources.
+     */
     public void setFrequencyData(FrequencyData frequencyData) {
         this.frequencyData = frequencyData;
+        this.frequencyDataSet = true;
     }
 
     public PathogenicityData getPathogenicityData() {
         return pathogenicityData;
     }
 
+    /**
+     * Sets the pathogenicity data of the variant from all the required sources.
+     */
     public void setPathogenicityData(PathogenicityData pathogenicityData) {
         this.pathogenicityData = pathogenicityData;
+        this.pathogenicityDataSet = true;
+    }
+
+    /**
+     * Sets the default frequency and pathogenicity data, which are read together from the same data source. This does
+     * not include the data from any optional sources, such as LOCAL frequencies or CADD scores, which are added using
+     * the individual setters. This records that the default data has been looked-up, so that
+     * {@link #hasFrequencyAndPathogenicityData()} will return true even if the variant was not found.
+     *
+     * @since 12.1.0
+     */
+    public void setFrequencyAndPathogenicityData(FrequencyData frequencyData, PathogenicityData pathogenicityData) {
+        this.frequencyData = frequencyData;
+        this.pathogenicityData = pathogenicityData;
+        this.frequencyAndPathogenicityDataSet = true;
+    }
+
+    /**
+     * @return true if the default frequency and pathogenicity data have been set using
+     * {@link #setFrequencyAndPathogenicityData(FrequencyData, PathogenicityData)}.
+     * @since 12.1.0
+     */
+    public boolean hasFrequencyAndPathogenicityData() {
+        return frequencyAndPathogenicityDataSet;
+    }
+
+    /**
+     * @return true if the frequency data from all the required sources has been set using
+     * {@link #setFrequencyData(FrequencyData)}.
+     * @since 12.1.0
+     */
+    public boolean hasCompleteFrequencyData() {
+        return frequencyDataSet;
+    }
+
+    /**
+     * @return true if the pathogenicity data from all the required sources has been set using
+     * {@link #setPathogenicityData(PathogenicityData)}.
+     * @since 12.1.0
+     */
+    public boolean hasCompletePathogenicityData() {
+        return pathogenicityDataSet;
     }
 
     /**
@@ -625,10 +757,10 @@ public String toString() {
         // expose frequency and pathogenicity scores?
         if(contributesToGeneScore()) {
             //Add a star to the output string between the variantEffect and the score
-            return "VariantEvaluation{assembly=" + genomeAssembly + " chr=" + chr + " pos=" + pos + " ref=" + ref + " alt=" + alt + " qual=" + phredScore + " " + variantEffect + " * score=" + getVariantScore() + " " + getFilterStatus() + " failedFilters=" + failedFilterTypes + " passedFilters=" + passedFilterTypes
+            return "VariantEvaluation{assembly=" + genomeAssembly + " chr=" + chr + " pos=" + pos + " ref=" + ref + " alt=" + alt + " qual=" + phredScore + " " + variantEffect + " * score=" + getVariantScore() + " " + getFilterStatus() + " failedFilters=" + getFailedFilterTypes() + " passedFilters=" + getPassedFilterTypes()
                     + " compatibleWith=" + compatibleInheritanceModes + " sampleGenotypes=" + sampleGenotypes + "}";
         }
-        return "VariantEvaluation{assembly=" + genomeAssembly + " chr=" + chr + " pos=" + pos + " ref=" + ref + " alt=" + alt + " qual=" + phredScore + " " + variantEffect + " score=" + getVariantScore() + " " + getFilterStatus() + " failedFilters=" + failedFilterTypes + " passedFilters=" + passedFilterTypes
+        return "VariantEvaluation{assembly=" + genomeAssembly + " chr=" + chr + " pos=" + pos + " ref=" + ref + " alt=" + alt + " qual=" + phredScore + " " + variantEffect + " score=" + getVariantScore() + " " + getFilterStatus() + " failedFilters=" + getFailedFilterTypes() + " passedFilters=" + getPassedFilterTypes()
                 + " compatibleWith=" + compatibleInheritanceModes + " sampleGenotypes=" + sampleGenotypes + "}";
     }
 
@@ -657,9 +789,10 @@ public static class Builder {
 
         private String vcfString;
         private VariantContext variantContext;
+        private List<String> vcfSampleNames;
         private int altAlleleId;
         private String id = "";
-        private Map<String,SampleGenotype> sampleGenotypes = ImmutableMap.of();
+        private PackedSampleGenotypes sampleGenotypes = PackedSampleGenotypes.empty();
 
         private PathogenicityData pathogenicityData = PathogenicityData.empty();
         private FrequencyData frequencyData = FrequencyData.empty();
@@ -670,7 +803,7 @@ public static class Builder {
 
         private static final String DEFAULT_SAMPLE_NAME = SampleIdentifier.defaultSample().getId();
         // These shouldn't be used in production, but in cases where there is no genotype this will prevent NullPointer and ArrayIndexOutOfBounds Exceptions
-        static final ImmutableMap<String, SampleGenotype> SINGLE_SAMPLE_HET_GENOTYPE = ImmutableMap.of(DEFAULT_SAMPLE_NAME, SampleGenotype.het());
+        static final PackedSampleGenotypes SINGLE_SAMPLE_HET_GENOTYPE = PackedSampleGenotypes.of(ImmutableMap.of(DEFAULT_SAMPLE_NAME, SampleGenotype.het()));
 
         /**
          * Creates a minimal variant
@@ -727,6 +860,22 @@ private String buildChromosomeName(int chr) {
 
         public Builder variantContext(VariantContext variantContext) {
             this.variantContext = variantContext;
+            this.vcfSampleNames = null;
+            return this;
+        }
+
+        /**
+         * Sets the {@link VariantContext} along with its already known sample names, so that these are not computed
+         * again for each allele of the record.
+         *
+         * @param variantContext the original VCF record
+         * @param vcfSampleNames the sample names of the record, as returned by {@link VcfCodecs#sampleNames(VariantContext)}
+         * @return this builder
+         * @since 12.1.0
+         */
+        public Builder variantContext(VariantContext variantContext, List<String> vcfSampleNames) {
+            this.variantContext = Objects.requireNonNull(variantContext);
+            this.vcfSampleNames = Objects.requireNonNull(vcfSampleNames);
             return this;
         }
 
@@ -749,7 +898,15 @@ public Builder quality(double phredScore) {
         // relying on the inherently ORDERED ImmutableMap implementation
         public Builder sampleGenotypes(Map<String, SampleGenotype> sampleGenotypes) {
             Objects.requireNonNull(sampleGenotypes);
-            this.sampleGenotypes = sampleGenotypes;
+            this.sampleGenotypes = PackedSampleGenotypes.of(sampleGenotypes);
+            return this;
+        }
+
+        /**
+         * @since 12.1.0
+         */
+        public Builder packedSampleGenotypes(PackedSampleGenotypes sampleGenotypes) {
+            this.sampleGenotypes = Objects.requireNonNull(sampleGenotypes);
             return this;
         }
 
@@ -831,9 +988,9 @@ public VariantEvaluation build() {
                 sampleGenotypes = SINGLE_SAMPLE_HET_GENOTYPE;
             }
 
-            // n.b Storing the VariantContext in its raw string state as found in the file
-            // can save a significant amount of RAM, at the expense of having to decode and encode the variant context
-            // object twice.
+            // n.b The VariantContext is stored in its encoded VCF state (as bytes) as this
+            // saves a significant amount of RAM, at the expense of having to encode the variant context here and
+            // decode it again for the relatively few variants where it is required for writing the results.
             //
             // Standard POMP sample (4.3 million variants, single sample) Oracle JDK 11 (G1CG), Windows 10 release 1803
             // -Xmx4G, preload random walk, caching maximumSize=6000000
@@ -859,9 +1016,6 @@ public VariantEvaluation build() {
             // VariantContext | 5.9G  |  4m10s (7 partial GC (60% CPU), avg 50-60% CPU)
             // String         | 4.3G  |  4m30s (3 partial GC (60% CPU), avg 30-40% CPU)
 
-//            VCFEncoder vcfEncoder = VcfCodecs.encoder(sampleGenotypes.keySet());
-//            vcfString = vcfEncoder.encode(variantContext);
-
             return new VariantEvaluation(this);
         }
 
@@ -67,6 +67,36 @@ public static FrequencyData of(Frequency... frequency) {
         return validate(RsId.empty(), Arrays.asList(frequency));
     }
 
+    /**
+     * Creates a {@code FrequencyData} from the first {@code size} elements of the parallel source and value arrays
+     * without the need to create intermediate {@link Frequency} objects. The sources need not be in any particular
+     * order, but must not contain duplicates or nulls. The input arrays are not retained.
+     *
+     * @since 12.1.0
+     */
+    public static FrequencyData of(RsId rsId, FrequencySource[] sources, float[] values, int size) {
+        Objects.requireNonNull(rsId, "RsId cannot be null");
+        if (rsId.isEmpty() && size == 0) {
+            return FrequencyData.empty();
+        }
+        FrequencySource[] sortedSources = Arrays.copyOf(sources, size);
+        float[] sortedValues = Arrays.copyOf(values, size);
+        // insertion sort by FrequencySource - these are short and often already sorted
+        for (int i = 1; i < size; i++) {
+            FrequencySource source = sortedSources[i];
+            float value = sortedValues[i];
+            int j = i - 1;
+            while (j >= 0 && sortedSources[j].ordinal() > source.ordinal()) {
+                sortedSources[j + 1] = sortedSources[j];
+                sortedValues[j + 1] = sortedValues[j];
+                j--;
+            }
+            sortedSources[j + 1] = source;
+            sortedValues[j + 1] = value;
+        }
+        return new FrequencyData(rsId.getId(), sortedSources, sortedValues);
+    }
+
     public static FrequencyData empty() {
         return EMPTY_DATA;
     }
@@ -107,6 +137,13 @@ private FrequencyData(RsId rsId, Collection<Frequency> frequencies) {
         }
     }
 
+    private FrequencyData(int rsId, FrequencySource[] sortedSources, float[] sortedValues) {
+        this.rsId = rsId;
+        this.size = sortedSources.length;
+        this.sources = sortedSources;
+        this.values = sortedValues;
+    }
+
     private Frequency[] orderByFrequencySource(Collection<Frequency> frequencies) {
         Frequency[] sorted = new Frequency[NUM_FREQ_SOURCES];
         for (Frequency frequency : frequencies) {
@@ -20,10 +20,9 @@
 
 package org.monarchinitiative.exomiser.core.writers;
 
-import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import org.monarchinitiative.exomiser.core.model.AlleleCall;
-import org.monarchinitiative.exomiser.core.model.SampleGenotype;
+import org.monarchinitiative.exomiser.core.model.PackedSampleGenotypes;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
 
 import java.util.EnumMap;
@@ -65,15 +64,12 @@ private Map<VariantEffect, int[]> countVariantEffects(int numSamples, List<Varia
         }
 
         for (VariantEvaluation variant : variantEvaluations) {
-            Map<String, SampleGenotype> sampleGenotypes = variant.getSampleGenotypes();
-            // this is always an ordered map in the order of the sample names declared in the VCF header
-            List<SampleGenotype> genotypes = ImmutableList.copyOf(sampleGenotypes.values());
+            // this is always in the order of the sample names declared in the VCF header
+            PackedSampleGenotypes genotypes = variant.getPackedSampleGenotypes();
             VariantEffect effect = variant.getVariantEffect();
             int[] effectCounts = tempCounts.get(effect);
             for (int i = 0; i < genotypes.size(); i++) {
-                SampleGenotype sampleGenotype = genotypes.get(i);
-                List<AlleleCall> calls = sampleGenotype.getCalls();
-                if (calls.size() == 2 && calls.contains(AlleleCall.ALT)) {
+                if (genotypes.getPloidy(i) == 2 && (genotypes.getAlleleCall(i, 0) == AlleleCall.ALT || genotypes.getAlleleCall(i, 1) == AlleleCall.ALT)) {
                     effectCounts[i]++;
                 }
             }
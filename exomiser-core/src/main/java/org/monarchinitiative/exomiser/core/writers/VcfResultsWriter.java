@@ -22,7 +22,6 @@
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
 import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
 import de.charite.compbio.jannovar.mendel.ModeOfInheritance;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -198,23 +197,23 @@ private List<VariantContext> updateGeneVariantRecords(ModeOfInheritance modeOfIn
             return Collections.emptyList();
         }
 //        maybe check if the variant is multi-allelic first?
-        Multimap<String, VariantEvaluation> variantContextToEvaluations = mapVariantEvaluationsToVariantContextString(variants);
+        // the VariantContext is decoded from each VariantEvaluation on request, so only do this once per variant
+        Map<String, VariantContext> keyToVariantContext = new HashMap<>();
+        //using ArrayListMultimap is important as the order of the values (alleles) must be preserved so that they match the order listed in the ALT field
+        ArrayListMultimap<String, VariantEvaluation> variantContextToEvaluations = ArrayListMultimap.create();
+        for (VariantEvaluation variantEvaluation : variants) {
+            VariantContext variantContext = variantEvaluation.getVariantContext();
+            String key = variantContextKeyValue(variantContext);
+            keyToVariantContext.putIfAbsent(key, variantContext);
+            variantContextToEvaluations.put(key, variantEvaluation);
+        }
         return variantContextToEvaluations.asMap()
-                .values()
+                .entrySet()
                 .stream()
-                .map(variantEvaluations -> updateRecord(Lists.newArrayList(variantEvaluations), gene, modeOfInheritance))
+                .map(entry -> updateRecord(keyToVariantContext.get(entry.getKey()), Lists.newArrayList(entry.getValue()), gene, modeOfInheritance))
                 .collect(toList());
     }
 
-    private Multimap<String, VariantEvaluation> mapVariantEvaluationsToVariantContextString(List<VariantEvaluation> variantEvaluations) {
-        //using ArrayListMultimap is important as the order of the values (alleles) must be preserved so that they match the order listed in the ALT field
-        ArrayListMultimap<String, VariantEvaluation> geneVariants = ArrayListMultimap.create();
-        for (VariantEvaluation variantEvaluation : variantEvaluations) {
-            geneVariants.put(variantContextKeyValue(variantEvaluation.getVariantContext()), variantEvaluation);
-        }
-        return geneVariants;
-    }
-
     /**
      * A {@link VariantContext} cannot be used directly as a key in a Map or put into a Set as it does not override equals or hashCode.
      * Also simply using toString isn't an option as the compatible variants returned from the
@@ -233,13 +232,12 @@ private String variantContextKeyValue(VariantContext variantContext) {
         return stringJoiner.toString();
     }
 
-    private VariantContext updateRecord(List<VariantEvaluation> variantEvaluations, Gene gene, ModeOfInheritance modeOfInheritance) {
+    private VariantContext updateRecord(VariantContext variantContext, List<VariantEvaluation> variantEvaluations, Gene gene, ModeOfInheritance modeOfInheritance) {
         // create a new VariantContextBuilder, based on the original line
         // n.b. variantContexts with alternative alleles will be shared between
         // the alternative allele variant objects - Exomiser works on a 1 Variant = 1 Allele principle
         VariantEvaluation variantEvaluation = variantEvaluations.get(0);
 
-        VariantContext variantContext = variantEvaluation.getVariantContext();
         VariantContextBuilder builder = new VariantContextBuilder(variantContext);
         // update filter and info fields and write out to writer.
         updateFilterField(builder, variantEvaluation, modeOfInheritance);
@@ -0,0 +1,185 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.analysis;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.filters.*;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class AdaptiveVariantFilterOrderTest {
+
+    private final VariantFilterRunner variantFilterRunner = new SparseVariantFilterRunner();
+
+    // every filter takes one nanosecond to run, so the order is determined by the filter selectivity alone
+    private final Ticker ticker = new Ticker() {
+        private long nanos = 0;
+
+        @Override
+        public long read() {
+            return nanos++;
+        }
+    };
+
+    private final QualityFilter qualityFilter = new QualityFilter(20);
+    private final VariantEffectFilter variantEffectFilter = new VariantEffectFilter(ImmutableSet.of(VariantEffect.SYNONYMOUS_VARIANT));
+
+    // provides no data, only wraps the filter so that it is treated as a data provider
+    private static VariantFilterDataProvider dataProviderFor(VariantFilter variantFilter) {
+        return new VariantFilterDataProvider() {
+            @Override
+            public void provideVariantData(VariantEvaluation variantEvaluation) {
+                // nothing to add
+            }
+
+            @Override
+            public VariantFilter getDecoratedFilter() {
+                return variantFilter;
+            }
+
+            @Override
+            public FilterResult runFilter(VariantEvaluation variantEvaluation) {
+                return variantFilter.runFilter(variantEvaluation);
+            }
+
+            @Override
+            public FilterType getFilterType() {
+                return variantFilter.getFilterType();
+            }
+        };
+    }
+
+    private List<VariantEvaluation> makeVariants(int numVariants) {
+        List<VariantEvaluation> variants = new ArrayList<>();
+        for (int i = 0; i < numVariants; i++) {
+            VariantEffect variantEffect = i % 10 == 0 ? VariantEffect.MISSENSE_VARIANT : VariantEffect.SYNONYMOUS_VARIANT;
+            variants.add(VariantEvaluation.builder(1, 1000 + i, "A", "T")
+                    .quality(i % 3 == 0 ? 10 : 100)
+                    .variantEffect(variantEffect)
+                    .frequencyData(i % 10 == 0 ? FrequencyData.empty() : FrequencyData.of(Frequency.of(FrequencySource.EXAC_OTHER, 5f)))
+                    .build());
+        }
+        return variants;
+    }
+
+    @Test
+    void throwsExceptionWithNonPositiveReorderInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveVariantFilterOrder(ImmutableList.of(qualityFilter), 0, ticker));
+    }
+
+    @Test
+    void initialOrderIsInputOrder() {
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(qualityFilter, variantEffectFilter));
+        assertThat(instance.getFilterOrder(), equalTo(ImmutableList.of(qualityFilter, variantEffectFilter)));
+    }
+
+    @Test
+    void noFilters() {
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(), 1, ticker);
+        VariantEvaluation variant = VariantEvaluation.builder(1, 1000, "A", "T").build();
+        assertThat(instance.runFilters(variant, variantFilterRunner, new FilterStats()), equalTo(true));
+    }
+
+    @Test
+    void moreSelectiveFilterIsMovedFirst() {
+        // the quality filter fails a third of the variants, the variant effect filter fails 90% of them
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(qualityFilter, variantEffectFilter), 100, ticker);
+        FilterStats filterStats = new FilterStats();
+        makeVariants(1000).forEach(variant -> instance.runFilters(variant, variantFilterRunner, filterStats));
+
+        assertThat(instance.getFilterOrder(), equalTo(ImmutableList.of(variantEffectFilter, qualityFilter)));
+    }
+
+    @Test
+    void passedVariantsAreIndependentOfFilterOrder() {
+        List<VariantFilter> filters = ImmutableList.of(qualityFilter, variantEffectFilter);
+
+        List<VariantEvaluation> fixedOrderVariants = makeVariants(1000);
+        FilterStats fixedOrderStats = new FilterStats();
+        List<Boolean> fixedOrderResults = new ArrayList<>();
+        for (VariantEvaluation variant : fixedOrderVariants) {
+            for (VariantFilter filter : filters) {
+                if (variant.passedFilters()) {
+                    fixedOrderStats.addResult(variantFilterRunner.run(filter, variant));
+                }
+            }
+            fixedOrderResults.add(variant.passedFilters());
+        }
+
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(filters, 10, ticker);
+        FilterStats adaptiveStats = new FilterStats();
+        List<Boolean> adaptiveResults = new ArrayList<>();
+        for (VariantEvaluation variant : makeVariants(1000)) {
+            adaptiveResults.add(instance.runFilters(variant, variantFilterRunner, adaptiveStats));
+        }
+
+        assertThat(adaptiveResults, equalTo(fixedOrderResults));
+    }
+
+    @Test
+    void filterReadingProvidedDataIsNotMovedPastDataProvider() {
+        // the frequency filter fails 90% of the variants, but reads the frequency data so must stay after the provider
+        VariantFilterDataProvider qualityDataProvider = dataProviderFor(qualityFilter);
+        FrequencyFilter frequencyFilter = new FrequencyFilter(1f);
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(qualityDataProvider, frequencyFilter), 100, ticker);
+        FilterStats filterStats = new FilterStats();
+        makeVariants(1000).forEach(variant -> instance.runFilters(variant, variantFilterRunner, filterStats));
+
+        assertThat(instance.getFilterOrder(), equalTo(ImmutableList.of(qualityDataProvider, frequencyFilter)));
+    }
+
+    @Test
+    void filterProvidingOwnDataIsMovedPastDataProvider() {
+        VariantFilterDataProvider qualityDataProvider = dataProviderFor(qualityFilter);
+        VariantFilterDataProvider frequencyDataProvider = dataProviderFor(new FrequencyFilter(1f));
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(qualityDataProvider, frequencyDataProvider), 100, ticker);
+        FilterStats filterStats = new FilterStats();
+        makeVariants(1000).forEach(variant -> instance.runFilters(variant, variantFilterRunner, filterStats));
+
+        assertThat(instance.getFilterOrder(), equalTo(ImmutableList.of(frequencyDataProvider, qualityDataProvider)));
+    }
+
+    @Test
+    void filtersAreReportedInInputOrder() {
+        AdaptiveVariantFilterOrder instance = new AdaptiveVariantFilterOrder(ImmutableList.of(qualityFilter, variantEffectFilter), 100, ticker);
+        FilterStats filterStats = new FilterStats();
+        instance.addFiltersTo(filterStats);
+        makeVariants(1000).forEach(variant -> instance.runFilters(variant, variantFilterRunner, filterStats));
+
+        assertThat(instance.getFilterOrder(), equalTo(ImmutableList.of(variantEffectFilter, qualityFilter)));
+        assertThat(filterStats.getFilters(), equalTo(ImmutableList.of(FilterType.QUALITY_FILTER, FilterType.VARIANT_EFFECT_FILTER)));
+    }
+}
@@ -25,6 +25,9 @@
  */
 package org.monarchinitiative.exomiser.core.analysis;
 
+import org.monarchinitiative.exomiser.core.filters.FilterResult;
+import org.monarchinitiative.exomiser.core.filters.FilterType;
+import org.monarchinitiative.exomiser.core.filters.VariantFilter;
 import org.monarchinitiative.exomiser.core.genome.GenomeAnalysisService;
 import org.monarchinitiative.exomiser.core.genome.TestFactory;
 import org.monarchinitiative.exomiser.core.model.Gene;
@@ -40,6 +43,8 @@
 import java.util.function.Function;
 
 import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
  * Contains common methods required by the AnalysisRunnerTest classes.
@@ -65,6 +70,47 @@ Map<String, Gene> makeResults(List<Gene> genes) {
         return genes.stream().collect(toMap(Gene::getGeneSymbol, Function.identity()));
     }
 
+    /**
+     * Wraps the filter so that it takes longer to run for the variant at the given position, which forces the shard
+     * containing it to complete after the later shards when run on more than one thread.
+     */
+    VariantFilter slowFilterForPosition(VariantFilter variantFilter, int position) {
+        return new VariantFilter() {
+            @Override
+            public FilterType getFilterType() {
+                return variantFilter.getFilterType();
+            }
+
+            @Override
+            public FilterResult runFilter(VariantEvaluation variantEvaluation) {
+                if (variantEvaluation.getPosition() == position) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return variantFilter.runFilter(variantEvaluation);
+            }
+        };
+    }
+
+    void assertSameFilterStats(FilterStats actual, FilterStats expected) {
+        assertThat(actual.getFilters(), equalTo(expected.getFilters()));
+        for (FilterType filterType : expected.getFilters()) {
+            assertThat(actual.getPassCountForFilter(filterType), equalTo(expected.getPassCountForFilter(filterType)));
+            assertThat(actual.getFailCountForFilter(filterType), equalTo(expected.getFailCountForFilter(filterType)));
+        }
+    }
+
+    void assertSameVariantFilterResults(List<VariantEvaluation> actual, List<VariantEvaluation> expected) {
+        assertThat(actual, equalTo(expected));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getPassedFilterTypes(), equalTo(expected.get(i).getPassedFilterTypes()));
+            assertThat(actual.get(i).getFailedFilterTypes(), equalTo(expected.get(i).getFailedFilterTypes()));
+        }
+    }
+
     void printResults(AnalysisResults analysisResults) {
         for (Gene gene : analysisResults.getGenes()) {
             logger.info("{}", gene);
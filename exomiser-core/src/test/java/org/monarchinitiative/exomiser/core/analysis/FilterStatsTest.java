@@ -115,6 +115,31 @@ void logsFiltersInOrderOfRunning() {
         assertThat(instance.getFilters(), equalTo(filters));
     }
 
+    @Test
+    void canAddAllFromOtherInstanceMaintainingFilterOrder() {
+        FilterStats firstChunk = new FilterStats();
+        new FilterRunner(FilterType.QUALITY_FILTER, 2, 3, firstChunk).run();
+        new FilterRunner(FilterType.FREQUENCY_FILTER, 1, 1, firstChunk).run();
+
+        FilterStats secondChunk = new FilterStats();
+        new FilterRunner(FilterType.QUALITY_FILTER, 5, 7, secondChunk).run();
+        new FilterRunner(FilterType.FREQUENCY_FILTER, 4, 1, secondChunk).run();
+        new FilterRunner(FilterType.PATHOGENICITY_FILTER, 3, 1, secondChunk).run();
+
+        FilterStats instance = new FilterStats();
+        instance.addAll(firstChunk);
+        instance.addAll(secondChunk);
+
+        assertThat(instance.getPassCountForFilter(FilterType.QUALITY_FILTER), equalTo(7));
+        assertThat(instance.getFailCountForFilter(FilterType.QUALITY_FILTER), equalTo(10));
+        assertThat(instance.getPassCountForFilter(FilterType.FREQUENCY_FILTER), equalTo(5));
+        assertThat(instance.getFailCountForFilter(FilterType.FREQUENCY_FILTER), equalTo(2));
+        assertThat(instance.getPassCountForFilter(FilterType.PATHOGENICITY_FILTER), equalTo(3));
+        assertThat(instance.getFailCountForFilter(FilterType.PATHOGENICITY_FILTER), equalTo(1));
+
+        assertThat(instance.getFilters(), equalTo(ImmutableList.of(FilterType.QUALITY_FILTER, FilterType.FREQUENCY_FILTER, FilterType.PATHOGENICITY_FILTER)));
+    }
+
     @Test
     void canLogMultiplePassAndFailCountsForMultipleFiltersWithMultipleThreads() throws Exception {
         for (int i = 0; i < 1000; i++) {
@@ -205,4 +230,18 @@ public void run() {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void addFilterReportsFiltersInOrderAdded() {
+        FilterStats instance = new FilterStats();
+        instance.addFilter(FilterType.QUALITY_FILTER);
+        instance.addFilter(FilterType.FREQUENCY_FILTER);
+        instance.addResult(FilterResult.fail(FilterType.FREQUENCY_FILTER));
+        instance.addResult(FilterResult.pass(FilterType.QUALITY_FILTER));
+
+        assertThat(instance.getFilters(), equalTo(ImmutableList.of(FilterType.QUALITY_FILTER, FilterType.FREQUENCY_FILTER)));
+        assertThat(instance.getPassCountForFilter(FilterType.QUALITY_FILTER), equalTo(1));
+        assertThat(instance.getFailCountForFilter(FilterType.FREQUENCY_FILTER), equalTo(1));
+        assertThat(instance.getFailCountForFilter(FilterType.QUALITY_FILTER), equalTo(0));
+    }
+}
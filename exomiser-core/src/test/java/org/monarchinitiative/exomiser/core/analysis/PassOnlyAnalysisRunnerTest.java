@@ -20,19 +20,20 @@
 
 package org.monarchinitiative.exomiser.core.analysis;
 
+import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.ModeOfInheritance;
 import org.junit.jupiter.api.Test;
 import org.monarchinitiative.exomiser.core.analysis.util.InheritanceModeOptions;
 import org.monarchinitiative.exomiser.core.analysis.util.TestPedigrees;
 import org.monarchinitiative.exomiser.core.filters.*;
+import org.monarchinitiative.exomiser.core.genome.TestFactory;
 import org.monarchinitiative.exomiser.core.model.*;
 import org.monarchinitiative.exomiser.core.prioritisers.MockPrioritiser;
 import org.monarchinitiative.exomiser.core.prioritisers.Prioritiser;
 import org.monarchinitiative.exomiser.core.prioritisers.PriorityType;
 
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -164,6 +165,136 @@ public void testRunAnalysisTwoVariantFiltersOnePrioritiser() {
         assertThat(rbm8Variant1.passedFilter(FilterType.QUALITY_FILTER), is(true));
     }
 
+    @Test
+    public void testRunAnalysisMultiThreadedGivesSameResultsAsSingleThreaded() {
+        // the genes are shared by the GenomeAnalysisService so a new one is required for an independent run
+        PassOnlyAnalysisRunner multiThreadedInstance = new PassOnlyAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 4);
+
+        VariantFilter qualityFilter = new QualityFilter(5);
+        InheritanceFilter inheritanceFilter = new InheritanceFilter(ModeOfInheritance.AUTOSOMAL_DOMINANT);
+        Analysis analysis = Analysis.builder()
+                .vcfPath(TestPedigrees.trioVcfPath())
+                .pedigree(TestPedigrees.trioChildAffected())
+                .probandSampleName("Seth")
+                .inheritanceModeOptions(InheritanceModeOptions.defaults())
+                .addStep(qualityFilter)
+                .addStep(inheritanceFilter)
+                .build();
+
+        AnalysisResults singleThreadedResults = instance.run(analysis);
+        AnalysisResults multiThreadedResults = multiThreadedInstance.run(analysis);
+        printResults(multiThreadedResults);
+
+        assertThat(multiThreadedResults.getGenes(), equalTo(singleThreadedResults.getGenes()));
+        assertThat(multiThreadedResults.getVariantEvaluations(), equalTo(singleThreadedResults.getVariantEvaluations()));
+    }
+
+    @Test
+    public void testRunAnalysisInManyShardsCompletingOutOfOrderGivesSameResultsAsSingleThreaded() {
+        // one or two records per shard, with the first shard completing last
+        PassOnlyAnalysisRunner shardedInstance = new PassOnlyAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 4, VariantShardMode.RECORDS, 2);
+
+        VariantFilter qualityFilter = slowFilterForPosition(new QualityFilter(120), 123256214);
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508700, 145510001));
+        Analysis analysis = Analysis.builder()
+                .vcfPath(TestPedigrees.trioVcfPath())
+                .pedigree(TestPedigrees.trioChildAffected())
+                .probandSampleName("Seth")
+                .inheritanceModeOptions(InheritanceModeOptions.defaults())
+                .addStep(qualityFilter)
+                .addStep(intervalFilter)
+                .build();
+
+        FilterStats singleThreadedFilterStats = new FilterStats();
+        AnalysisResults singleThreadedResults = instance.run(analysis, singleThreadedFilterStats);
+        FilterStats shardedFilterStats = new FilterStats();
+        AnalysisResults shardedResults = shardedInstance.run(analysis, shardedFilterStats);
+
+        assertThat(shardedResults.getGenes(), equalTo(singleThreadedResults.getGenes()));
+        assertSameVariantFilterResults(shardedResults.getVariantEvaluations(), singleThreadedResults.getVariantEvaluations());
+        assertSameFilterStats(shardedFilterStats, singleThreadedFilterStats);
+        assertThat(shardedFilterStats.getFailCountForFilter(FilterType.INTERVAL_FILTER) > 0, is(true));
+    }
+
+    @Test
+    public void testRunAnalysisReportsVariantFiltersInAnalysisOrder() {
+        Analysis analysis = Analysis.builder()
+                .vcfPath(TestPedigrees.trioVcfPath())
+                .pedigree(TestPedigrees.trioChildAffected())
+                .probandSampleName("Seth")
+                .inheritanceModeOptions(InheritanceModeOptions.defaults())
+                .addStep(new QualityFilter(120))
+                .addStep(new IntervalFilter(new GeneticInterval(1, 145508700, 145510001)))
+                .build();
+
+        FilterStats filterStats = new FilterStats();
+        instance.run(analysis, filterStats);
+        assertThat(filterStats.getFilters(), equalTo(ImmutableList.of(FilterType.QUALITY_FILTER, FilterType.INTERVAL_FILTER)));
+        assertThat(filterStats.getFailCountForFilter(FilterType.QUALITY_FILTER) > 0, is(true));
+    }
+
+    @Test
+    public void testRunAnalysisInShardsProvidesVariantDataInBatchesForVariantsReachingDataProvider() {
+        PassOnlyAnalysisRunner shardedInstance = new PassOnlyAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 2, VariantShardMode.RECORDS, 4);
+
+        List<Integer> providedBatchSizes = Collections.synchronizedList(new ArrayList<>());
+        VariantFilter qualityFilter = new QualityFilter(120);
+        VariantFilterDataProvider batchingFilter = new VariantFilterDataProvider() {
+            @Override
+            public void provideVariantData(VariantEvaluation variantEvaluation) {
+                // nothing to add
+            }
+
+            @Override
+            public void provideVariantData(List<VariantEvaluation> variantEvaluations) {
+                providedBatchSizes.add(variantEvaluations.size());
+            }
+
+            @Override
+            public VariantFilter getDecoratedFilter() {
+                return qualityFilter;
+            }
+
+            @Override
+            public FilterType getFilterType() {
+                return qualityFilter.getFilterType();
+            }
+
+            @Override
+            public FilterResult runFilter(VariantEvaluation variantEvaluation) {
+                return qualityFilter.runFilter(variantEvaluation);
+            }
+        };
+        Analysis analysis = Analysis.builder()
+                .vcfPath(TestPedigrees.trioVcfPath())
+                .pedigree(TestPedigrees.trioChildAffected())
+                .probandSampleName("Seth")
+                .inheritanceModeOptions(InheritanceModeOptions.defaults())
+                .addStep(new IntervalFilter(new GeneticInterval(1, 145508700, 145510001)))
+                .addStep(batchingFilter)
+                .build();
+
+        FilterStats filterStats = new FilterStats();
+        shardedInstance.run(analysis, filterStats);
+
+        // only the variants passing the interval filter have their data provided
+        int numProvided = providedBatchSizes.stream().mapToInt(Integer::intValue).sum();
+        assertThat(filterStats.getFailCountForFilter(FilterType.INTERVAL_FILTER) > 0, is(true));
+        assertThat(numProvided, equalTo(filterStats.getPassCountForFilter(FilterType.INTERVAL_FILTER)));
+        assertThat(numProvided, equalTo(filterStats.getPassCountForFilter(FilterType.QUALITY_FILTER) + filterStats.getFailCountForFilter(FilterType.QUALITY_FILTER)));
+        assertThat(providedBatchSizes.stream().anyMatch(size -> size > 1), is(true));
+    }
+
+    @Test
+    public void testCannotCreateRunnerWithZeroShardSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PassOnlyAnalysisRunner(genomeAnalysisService, 2, VariantShardMode.RECORDS, 0));
+    }
+
+    @Test
+    public void testCannotCreateRunnerWithZeroThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new PassOnlyAnalysisRunner(genomeAnalysisService, 0));
+    }
+
     @Test
     public void testRunAnalysisWhenProbandSampleNameIsNotInSingleSampleVcf() {
         Analysis analysis = Analysis.builder()
@@ -24,6 +24,7 @@
 import org.junit.jupiter.api.Test;
 import org.monarchinitiative.exomiser.core.analysis.util.InheritanceModeOptions;
 import org.monarchinitiative.exomiser.core.filters.*;
+import org.monarchinitiative.exomiser.core.genome.TestFactory;
 import org.monarchinitiative.exomiser.core.model.FilterStatus;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneticInterval;
@@ -34,6 +35,7 @@
 
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -62,6 +64,63 @@ public void testRunAnalysisNoFiltersNoPrioritisers() {
         }
     }
 
+    @Test
+    public void testRunAnalysisMultiThreadedGivesSameResultsAsSingleThreaded() {
+        // the genes are shared by the GenomeAnalysisService so a new one is required for an independent run
+        SimpleAnalysisRunner multiThreadedInstance = new SimpleAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 4);
+
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        VariantFilter qualityFilter = new QualityFilter(120);
+        Analysis analysis = makeAnalysis(vcfPath, intervalFilter, qualityFilter);
+
+        AnalysisResults singleThreadedResults = instance.run(analysis);
+        AnalysisResults multiThreadedResults = multiThreadedInstance.run(analysis);
+        printResults(multiThreadedResults);
+
+        assertThat(multiThreadedResults.getGenes(), equalTo(singleThreadedResults.getGenes()));
+        List<VariantEvaluation> singleThreadedVariants = singleThreadedResults.getVariantEvaluations();
+        List<VariantEvaluation> multiThreadedVariants = multiThreadedResults.getVariantEvaluations();
+        assertThat(multiThreadedVariants, equalTo(singleThreadedVariants));
+        for (int i = 0; i < singleThreadedVariants.size(); i++) {
+            VariantEvaluation expected = singleThreadedVariants.get(i);
+            VariantEvaluation actual = multiThreadedVariants.get(i);
+            assertThat(actual.getPassedFilterTypes(), equalTo(expected.getPassedFilterTypes()));
+            assertThat(actual.getFailedFilterTypes(), equalTo(expected.getFailedFilterTypes()));
+        }
+    }
+
+    @Test
+    public void testRunAnalysisInSingleRecordShardsCompletingOutOfOrderGivesSameResultsAsSingleThreaded() {
+        SimpleAnalysisRunner shardedInstance = new SimpleAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 3, VariantShardMode.RECORDS, 1);
+
+        VariantFilter qualityFilter = slowFilterForPosition(new QualityFilter(120), 123256214);
+        VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
+        Analysis analysis = makeAnalysis(vcfPath, qualityFilter, intervalFilter);
+
+        FilterStats singleThreadedFilterStats = new FilterStats();
+        AnalysisResults singleThreadedResults = instance.run(analysis, singleThreadedFilterStats);
+        FilterStats shardedFilterStats = new FilterStats();
+        AnalysisResults shardedResults = shardedInstance.run(analysis, shardedFilterStats);
+
+        assertThat(shardedResults.getGenes(), equalTo(singleThreadedResults.getGenes()));
+        assertSameVariantFilterResults(shardedResults.getVariantEvaluations(), singleThreadedResults.getVariantEvaluations());
+        assertSameFilterStats(shardedFilterStats, singleThreadedFilterStats);
+    }
+
+    @Test
+    public void testRunAnalysisShardedByContigGivesSameResultsAsUnsharded() {
+        SimpleAnalysisRunner shardedInstance = new SimpleAnalysisRunner(TestFactory.buildDefaultHg19GenomeAnalysisService(), 2, VariantShardMode.CONTIG);
+
+        VariantFilter qualityFilter = new QualityFilter(120);
+        Analysis analysis = makeAnalysis(vcfPath, qualityFilter);
+
+        AnalysisResults unshardedResults = instance.run(analysis);
+        AnalysisResults shardedResults = shardedInstance.run(analysis);
+
+        assertThat(shardedResults.getGenes(), equalTo(unshardedResults.getGenes()));
+        assertThat(shardedResults.getVariantEvaluations(), equalTo(unshardedResults.getVariantEvaluations()));
+    }
+
     @Test
     public void testRunAnalysisVariantFilterOnlyOneVariantPasses() {
         VariantFilter intervalFilter = new IntervalFilter(new GeneticInterval(1, 145508800, 145508800));
@@ -0,0 +1,144 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.analysis;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class VariantShardIteratorTest {
+
+    private static final List<VariantContext> VARIANT_CONTEXTS = Arrays.asList(
+            variantContext("1", 100),
+            variantContext("1", 200),
+            variantContext("1", 1_500),
+            variantContext("2", 100),
+            variantContext("2", 2_100),
+            variantContext("X", 10)
+    );
+
+    private static VariantContext variantContext(String contig, int position) {
+        return new VariantContextBuilder()
+                .chr(contig)
+                .start(position)
+                .stop(position)
+                .alleles(Arrays.asList(Allele.create("A", true), Allele.create("T")))
+                .make();
+    }
+
+    private static List<List<String>> shardPositions(VariantShardIterator instance) {
+        List<List<String>> shards = new ArrayList<>();
+        instance.forEachRemaining(shard -> shards.add(shard.stream()
+                .map(variantContext -> variantContext.getContig() + ":" + variantContext.getStart())
+                .collect(toList())));
+        return shards;
+    }
+
+    @Test
+    void emptyInput() {
+        VariantShardIterator instance = new VariantShardIterator(Collections.emptyIterator(), VariantShardMode.CONTIG);
+        assertThat(instance.hasNext(), equalTo(false));
+    }
+
+    @Test
+    void throwsExceptionWithZeroShardSize() {
+        assertThrows(IllegalArgumentException.class, () -> new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.RECORDS, 0, 1));
+    }
+
+    @Test
+    void shardByRecords() {
+        VariantShardIterator instance = new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.RECORDS, 4, 1_000);
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("1:100", "1:200", "1:1500", "2:100"),
+                Arrays.asList("2:2100", "X:10")
+        );
+        assertThat(shardPositions(instance), equalTo(expected));
+    }
+
+    @Test
+    void shardByContig() {
+        VariantShardIterator instance = new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.CONTIG, 10, 1_000);
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("1:100", "1:200", "1:1500"),
+                Arrays.asList("2:100", "2:2100"),
+                Collections.singletonList("X:10")
+        );
+        assertThat(shardPositions(instance), equalTo(expected));
+    }
+
+    @Test
+    void shardByContigSplitsContigsLargerThanShardSize() {
+        VariantShardIterator instance = new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.CONTIG, 2, 1_000);
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("1:100", "1:200"),
+                Collections.singletonList("1:1500"),
+                Arrays.asList("2:100", "2:2100"),
+                Collections.singletonList("X:10")
+        );
+        assertThat(shardPositions(instance), equalTo(expected));
+    }
+
+    @Test
+    void shardByWindowSplitsWindowsLargerThanShardSize() {
+        VariantShardIterator instance = new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.WINDOW, 1, 1_000);
+
+        List<List<String>> expected = Arrays.asList(
+                Collections.singletonList("1:100"),
+                Collections.singletonList("1:200"),
+                Collections.singletonList("1:1500"),
+                Collections.singletonList("2:100"),
+                Collections.singletonList("2:2100"),
+                Collections.singletonList("X:10")
+        );
+        assertThat(shardPositions(instance), equalTo(expected));
+    }
+
+    @Test
+    void shardByWindow() {
+        VariantShardIterator instance = new VariantShardIterator(VARIANT_CONTEXTS.iterator(), VariantShardMode.WINDOW, 2, 1_000);
+
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("1:100", "1:200"),
+                Collections.singletonList("1:1500"),
+                Collections.singletonList("2:100"),
+                Collections.singletonList("2:2100"),
+                Collections.singletonList("X:10")
+        );
+        assertThat(shardPositions(instance), equalTo(expected));
+    }
+}
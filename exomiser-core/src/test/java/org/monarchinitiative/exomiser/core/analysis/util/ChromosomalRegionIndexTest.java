@@ -26,7 +26,8 @@
 import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
 import org.monarchinitiative.exomiser.core.model.*;
 
-import java.util.Collections;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
@@ -175,4 +176,47 @@ public void testGetTadsContainingVariantTwoOverlappingTadsVariantInOne() {
         assertThat(instance.getRegionsContainingVariant(variant), equalTo(ImmutableList.of(tad)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void forEachRegionOverlappingPosition() {
+        TopologicalDomain tad = new TopologicalDomain(1, 1, 100, ImmutableMap.of());
+        TopologicalDomain tad1 = new TopologicalDomain(1, 25, 75, ImmutableMap.of());
+        TopologicalDomain tad2 = new TopologicalDomain(1, 60, 200, ImmutableMap.of());
+        ChromosomalRegionIndex<TopologicalDomain> instance = ChromosomalRegionIndex.of(ImmutableList.of(tad2, tad1, tad));
+
+        List<TopologicalDomain> visited = new ArrayList<>();
+        instance.forEachRegionOverlappingPosition(1, 50, visited::add);
+        assertThat(visited, equalTo(ImmutableList.of(tad, tad1)));
+
+        visited.clear();
+        instance.forEachRegionOverlappingPosition(2, 50, visited::add);
+        assertThat(visited, equalTo(ImmutableList.of()));
+    }
+
+    @Test
+    public void manyRandomRegionsMatchLinearScan() {
+        Random random = new Random(42);
+        List<ChromosomalRegion> regions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int chr = 1 + random.nextInt(3);
+            int start = 1 + random.nextInt(100_000);
+            // mostly short regions with the odd very long one, as for regulatory features and TADs
+            int length = random.nextInt(10) == 0 ? random.nextInt(50_000) : random.nextInt(500);
+            regions.add(new TopologicalDomain(chr, start, start + length, ImmutableMap.of("GENE" + i, i)));
+        }
+        ChromosomalRegionIndex<ChromosomalRegion> instance = ChromosomalRegionIndex.of(regions);
+        assertThat(instance.size(), equalTo(regions.size()));
+
+        Comparator<ChromosomalRegion> byStartEnd = Comparator.comparingInt(ChromosomalRegion::getStart).thenComparingInt(ChromosomalRegion::getEnd);
+        for (int i = 0; i < 5_000; i++) {
+            int chr = 1 + random.nextInt(4);
+            int position = 1 + random.nextInt(160_000);
+            List<ChromosomalRegion> expected = regions.stream()
+                    .filter(region -> region.getChromosome() == chr && region.getStart() <= position && position <= region.getEnd())
+                    .sorted(byStartEnd)
+                    .collect(Collectors.toList());
+            List<ChromosomalRegion> actual = instance.getRegionsOverlappingPosition(chr, position);
+            assertThat(actual, equalTo(expected));
+            assertThat(instance.hasRegionContainingPosition(chr, position), equalTo(!expected.isEmpty()));
+        }
+    }
+}
@@ -29,7 +29,11 @@
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.frequency.RsId;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PolyPhenScore;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Set;
@@ -77,6 +81,26 @@ public void testReturnsFilterTypeOfDecoratedFilterKnownVariantFilter() {
         assertThat(instance.isVariantFilter(), is(true));
     }
 
+    @Test
+    public void testProvidesFrequencyAndPathogenicityDataForBatchOfVariants() {
+        VariantEvaluation otherVariant = VariantEvaluation.builder(1, 2, "A", "T").build();
+        FrequencyData expectedData = FrequencyData.of(RsId.of(123456), Frequency.of(ESP_ALL, 1.0f));
+        PathogenicityData expectedPathData = PathogenicityData.of(PolyPhenScore.of(1f));
+        VariantDataService variantDataService = TestVariantDataService.builder()
+                .put(variant, expectedData)
+                .put(variant, expectedPathData)
+                .build();
+
+        instance = new FrequencyDataProvider(variantDataService, EnumSet.allOf(FrequencySource.class), EnumSet.of(PathogenicitySource.POLYPHEN), new KnownVariantFilter());
+        instance.provideVariantData(Arrays.asList(variant, otherVariant));
+
+        assertThat(variant.hasFrequencyAndPathogenicityData(), is(true));
+        assertThat(variant.getFrequencyData(), equalTo(expectedData));
+        assertThat(variant.getPathogenicityData(), equalTo(expectedPathData));
+        assertThat(otherVariant.hasFrequencyAndPathogenicityData(), is(true));
+        assertThat(otherVariant.getFrequencyData(), equalTo(FrequencyData.empty()));
+    }
+
     @Test
     public void testProvidesFrequencyDataForVariantWhenRun() {
         FrequencyData expectedData = FrequencyData.of(RsId.of(123456), Frequency.of(ESP_ALL, 1.0f));
@@ -27,9 +27,16 @@
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.monarchinitiative.exomiser.core.genome.TestVariantDataService;
+import org.monarchinitiative.exomiser.core.genome.VariantDataServiceImpl;
+import org.monarchinitiative.exomiser.core.genome.dao.FrequencyDao;
+import org.monarchinitiative.exomiser.core.genome.dao.PathogenicityDao;
 import org.monarchinitiative.exomiser.core.model.FilterStatus;
 import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
+import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.*;
 
 import java.util.Collections;
@@ -73,6 +80,49 @@ public void testProvideVariantData() {
         assertThat(variant.getPathogenicityData(), equalTo(EXPECTED_PATH_DATA));
     }
     
+    @Test
+    public void testProvideVariantDataWithFrequencySourcesAlsoProvidesFrequencyData() {
+        FrequencyData expectedFrequencyData = FrequencyData.of(Frequency.of(FrequencySource.ESP_ALL, 0.1f));
+        variantDataService = TestVariantDataService.builder()
+                .put(variant, EXPECTED_PATH_DATA)
+                .put(variant, expectedFrequencyData)
+                .build();
+        instance = new PathogenicityDataProvider(variantDataService, EnumSet.of(FrequencySource.ESP_ALL), EnumSet.of(POLYPHEN, SIFT, MUTATION_TASTER), new StubPassAllVariantFilter(FilterType.PATHOGENICITY_FILTER));
+
+        instance.provideVariantData(variant);
+        assertThat(variant.hasFrequencyAndPathogenicityData(), equalTo(true));
+        assertThat(variant.getPathogenicityData(), equalTo(EXPECTED_PATH_DATA));
+        assertThat(variant.getFrequencyData(), equalTo(expectedFrequencyData));
+    }
+
+    @Test
+    public void testOptionalPathogenicitySourcesAreOnlyReadByPathogenicityStep() {
+        FrequencyDao defaultFrequencyDao = Mockito.mock(FrequencyDao.class);
+        Mockito.when(defaultFrequencyDao.getFrequencyData(variant)).thenReturn(FrequencyData.empty());
+        PathogenicityDao defaultPathogenicityDao = Mockito.mock(PathogenicityDao.class);
+        Mockito.when(defaultPathogenicityDao.getPathogenicityData(variant)).thenReturn(PathogenicityData.of(PolyPhenScore.of(1f)));
+        PathogenicityDao caddDao = Mockito.mock(PathogenicityDao.class);
+        Mockito.when(caddDao.getPathogenicityData(variant)).thenReturn(PathogenicityData.of(CaddScore.of(15f)));
+        VariantDataServiceImpl variantDataService = VariantDataServiceImpl.builder()
+                .defaultFrequencyDao(defaultFrequencyDao)
+                .defaultPathogenicityDao(defaultPathogenicityDao)
+                .caddDao(caddDao)
+                .build();
+
+        Set<FrequencySource> frequencySources = EnumSet.of(FrequencySource.ESP_ALL);
+        Set<PathogenicitySource> pathogenicitySources = EnumSet.of(POLYPHEN, CADD);
+        FrequencyDataProvider frequencyDataProvider = new FrequencyDataProvider(variantDataService, frequencySources, pathogenicitySources, new FrequencyFilter(1f));
+        instance = new PathogenicityDataProvider(variantDataService, frequencySources, pathogenicitySources, new StubPassAllVariantFilter(FilterType.PATHOGENICITY_FILTER));
+
+        frequencyDataProvider.provideVariantData(variant);
+        Mockito.verifyZeroInteractions(caddDao);
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PolyPhenScore.of(1f))));
+
+        instance.provideVariantData(variant);
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PolyPhenScore.of(1f), CaddScore.of(15f))));
+        Mockito.verify(defaultPathogenicityDao, Mockito.times(1)).getPathogenicityData(variant);
+    }
+
     @Test
     public void testRunFilter() {
         FilterType variantFilterType = FilterType.PATHOGENICITY_FILTER;
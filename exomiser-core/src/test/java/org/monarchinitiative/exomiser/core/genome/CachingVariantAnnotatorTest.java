@@ -0,0 +1,107 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.model.ChromosomalRegionIndex;
+import org.monarchinitiative.exomiser.core.model.VariantAnnotation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class CachingVariantAnnotatorTest {
+
+    private final JannovarVariantAnnotator jannovarVariantAnnotator = new JannovarVariantAnnotator(TestFactory.getDefaultGenomeAssembly(), TestFactory
+            .buildDefaultJannovarData(), ChromosomalRegionIndex.empty());
+
+    private final AtomicInteger annotatorCalls = new AtomicInteger();
+
+    private final VariantAnnotator countingAnnotator = (chr, pos, ref, alt) -> {
+        annotatorCalls.incrementAndGet();
+        return jannovarVariantAnnotator.annotate(chr, pos, ref, alt);
+    };
+
+    @Test
+    void returnsSameAnnotationAsWrappedAnnotator() {
+        CachingVariantAnnotator instance = new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "maximumSize=10");
+        VariantAnnotation expected = jannovarVariantAnnotator.annotate("10", 123256215, "T", "G");
+        VariantAnnotation result = instance.annotate("10", 123256215, "T", "G");
+        assertThat(result.toString(), equalTo(expected.toString()));
+    }
+
+    @Test
+    void repeatedAlleleIsOnlyAnnotatedOnce() {
+        CachingVariantAnnotator instance = new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "maximumSize=10");
+        VariantAnnotation first = instance.annotate("10", 123256215, "T", "G");
+        VariantAnnotation second = instance.annotate("10", 123256215, "T", "G");
+
+        assertThat(second, sameInstance(first));
+        assertThat(annotatorCalls.get(), equalTo(1));
+        assertThat(instance.size(), equalTo(1L));
+        assertThat(instance.getCacheStats().hitCount(), equalTo(1L));
+        assertThat(instance.getCacheStats().missCount(), equalTo(1L));
+        assertThat(instance.getCacheStats().hitRate(), equalTo(0.5));
+    }
+
+    @Test
+    void untrimmedAlleleSharesEntryWithTrimmedAllele() {
+        CachingVariantAnnotator instance = new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "maximumSize=10");
+        VariantAnnotation trimmed = instance.annotate("10", 123256215, "T", "G");
+        VariantAnnotation untrimmed = instance.annotate("10", 123256214, "AT", "AG");
+
+        assertThat(untrimmed, sameInstance(trimmed));
+        assertThat(annotatorCalls.get(), equalTo(1));
+    }
+
+    @Test
+    void differentContigNamesAreCachedSeparately() {
+        CachingVariantAnnotator instance = new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "maximumSize=10");
+        instance.annotate("10", 123256215, "T", "G");
+        VariantAnnotation chrPrefixed = instance.annotate("chr10", 123256215, "T", "G");
+
+        assertThat(annotatorCalls.get(), equalTo(2));
+        assertThat(chrPrefixed.getChromosome(), equalTo(10));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        CachingVariantAnnotator instance = new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "maximumSize=1");
+        instance.annotate("10", 123256215, "T", "G");
+        instance.annotate("10", 123256216, "A", "C");
+        instance.annotate("10", 123256215, "T", "G");
+
+        assertThat(annotatorCalls.get(), equalTo(3));
+        assertThat(instance.size(), equalTo(1L));
+        assertThat(instance.getCacheStats().evictionCount(), equalTo(2L));
+    }
+
+    @Test
+    void throwsExceptionWithInvalidCacheSpec() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingVariantAnnotator(GenomeAssembly.HG19, countingAnnotator, "wibble"));
+    }
+}
@@ -28,9 +28,12 @@
 import com.google.common.collect.Sets;
 import de.charite.compbio.jannovar.data.JannovarData;
 import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.model.Gene;
 import org.monarchinitiative.exomiser.core.model.GeneIdentifier;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -60,4 +63,14 @@ public void testCreateKnownGenes() {
         assertThat(knownGenes, equalTo(expected));
     }
 
+    @Test
+    public void testCreateKnownGeneIdsFromChunkedJannovarData() throws Exception {
+        Path chunkedPath = Files.createTempFile("exomiser_test", ".chunks");
+        chunkedPath.toFile().deleteOnExit();
+        ChunkedJannovarData.write(chunkedPath, DEFAULT_JANNOVAR_DATA);
+
+        GeneFactory chunkedGeneFactory = new GeneFactory(ChunkedJannovarData.open(chunkedPath));
+        assertThat(chunkedGeneFactory.getGeneIdentifiers(), equalTo(instance.getGeneIdentifiers()));
+    }
+
 }
@@ -28,6 +28,7 @@
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.monarchinitiative.exomiser.core.genome.dao.GenomeFeatureSnapshot;
 import org.monarchinitiative.exomiser.core.genome.dao.RegulatoryFeatureDao;
 import org.monarchinitiative.exomiser.core.genome.dao.TadDao;
 import org.monarchinitiative.exomiser.core.model.Gene;
@@ -91,4 +92,16 @@ public void serviceReturnsTopologicalDomains() {
         List<TopologicalDomain> topologicalDomains = instance.getTopologicallyAssociatedDomains();
         assertThat(topologicalDomains, equalTo(tads));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void serviceReturnsRegulatoryFeaturesAndTopologicalDomainsFromSnapshot() {
+        List<RegulatoryFeature> regulatoryFeatures = ImmutableList.of(new RegulatoryFeature(1, 10, 100, RegulatoryFeature.FeatureType.ENHANCER));
+        List<TopologicalDomain> tads = ImmutableList.of(new TopologicalDomain(1, 1, 2, Collections.emptyMap()));
+        GenomeFeatureSnapshot snapshot = GenomeFeatureSnapshot.of(regulatoryFeatures, tads);
+
+        GenomeDataServiceImpl snapshotInstance = new GenomeDataServiceImpl(geneFactory, mockRegulatoryFeatureDao, mockTadDao, snapshot);
+        assertThat(snapshotInstance.getRegulatoryFeatures(), equalTo(regulatoryFeatures));
+        assertThat(snapshotInstance.getTopologicallyAssociatedDomains(), equalTo(tads));
+        Mockito.verifyZeroInteractions(mockRegulatoryFeatureDao, mockTadDao);
+    }
+}
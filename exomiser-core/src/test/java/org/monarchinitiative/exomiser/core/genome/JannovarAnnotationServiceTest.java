@@ -23,9 +23,15 @@
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -135,4 +141,35 @@ public void testGetAnnotationsForUnTrimmedDeletionJannovarShiftsRight() {
         assertThat(variantAnnotations.getAlt(), equalTo(""));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testAnnotationsFromChunkedJannovarDataMatchJannovarData() throws Exception {
+        Path chunkedPath = Files.createTempFile("exomiser_test", ".chunks");
+        chunkedPath.toFile().deleteOnExit();
+        ChunkedJannovarData.write(chunkedPath, TestFactory.buildDefaultJannovarData());
+        JannovarAnnotationService chunkedInstance = new JannovarAnnotationService(ChunkedJannovarData.open(chunkedPath));
+
+        assertAnnotationsMatch(chunkedInstance, "10", 123256215, "T", "G");
+        assertAnnotationsMatch(chunkedInstance, "X", 118608470, "AGT", "AGTT");
+        assertAnnotationsMatch(chunkedInstance, "2", 12345, "A", "T");
+        assertAnnotationsMatch(chunkedInstance, "UNKNOWN", 1, "A", "T");
+    }
+
+    @Test
+    public void testChromosomeWhichCannotBeLoadedThrowsException() {
+        ChunkedJannovarData chunkedJannovarData = Mockito.mock(ChunkedJannovarData.class);
+        Mockito.when(chunkedJannovarData.getRefDict()).thenReturn(TestFactory.buildDefaultJannovarData().getRefDict());
+        Mockito.when(chunkedJannovarData.loadChromosome(10)).thenThrow(new IllegalStateException("Unable to read chromosome"));
+        JannovarAnnotationService chunkedInstance = new JannovarAnnotationService(chunkedJannovarData);
+
+        assertThrows(IllegalStateException.class, () -> chunkedInstance.annotateVariant("10", 123256215, "T", "G"));
+    }
+
+    private void assertAnnotationsMatch(JannovarAnnotationService chunkedInstance, String contig, int pos, String ref, String alt) {
+        VariantAnnotations expected = instance.annotateVariant(contig, pos, ref, alt);
+        VariantAnnotations variantAnnotations = chunkedInstance.annotateVariant(contig, pos, ref, alt);
+        assertThat(variantAnnotations.getChr(), equalTo(expected.getChr()));
+        assertThat(variantAnnotations.getPos(), equalTo(expected.getPos()));
+        assertThat(variantAnnotations.getHighestImpactEffect(), equalTo(expected.getHighestImpactEffect()));
+        assertThat(variantAnnotations.getAnnotations().toString(), equalTo(expected.getAnnotations().toString()));
+    }
+}
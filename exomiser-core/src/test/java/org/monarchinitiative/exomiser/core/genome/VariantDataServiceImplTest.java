@@ -37,6 +37,7 @@
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
 import org.monarchinitiative.exomiser.core.model.frequency.RsId;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.*;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
 
 import java.util.Collections;
 import java.util.EnumSet;
@@ -269,4 +270,71 @@ void whiteListedVariant() {
         assertThat(instance.variantIsWhiteListed(whiteListVariant), is(true));
         assertThat(instance.variantIsWhiteListed(nonWhiteListVariant), is(false));
     }
+
+    @Test
+    void setFrequencyAndPathogenicityDataReadsAllelePropertiesOnce() {
+        AllelePropertiesDao allelePropertiesDao = Mockito.mock(AllelePropertiesDao.class);
+        AlleleProperties alleleProperties = AlleleProperties.newBuilder()
+                .setRsId("rs1234567")
+                .putProperties("ESP_AA", 1f)
+                .putProperties("POLYPHEN", 0.7f)
+                .putProperties("SIFT", 0.2f)
+                .build();
+        Mockito.when(allelePropertiesDao.getAlleleProperties(variant)).thenReturn(alleleProperties);
+
+        VariantDataServiceImpl instance = VariantDataServiceImpl.builder()
+                .allelePropertiesDao(allelePropertiesDao)
+                .build();
+
+        instance.setVariantFrequencyAndPathogenicityData(variant, EnumSet.of(FrequencySource.ESP_AFRICAN_AMERICAN), EnumSet.of(PathogenicitySource.POLYPHEN));
+
+        Mockito.verify(allelePropertiesDao, Mockito.times(1)).getAlleleProperties(variant);
+        assertThat(variant.hasFrequencyAndPathogenicityData(), is(true));
+        assertThat(variant.getFrequencyData(), equalTo(FrequencyData.of(RsId.of(1234567), Frequency.of(FrequencySource.ESP_AFRICAN_AMERICAN, 1f))));
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PolyPhenScore.of(0.7f))));
+    }
+
+    @Test
+    void setFrequencyAndPathogenicityDataWithoutAllelePropertiesDao() {
+        instance.setVariantFrequencyAndPathogenicityData(variant, EnumSet.of(FrequencySource.ESP_AFRICAN_AMERICAN), EnumSet.of(PathogenicitySource.POLYPHEN));
+
+        assertThat(variant.hasFrequencyAndPathogenicityData(), is(true));
+        assertThat(variant.getFrequencyData(), equalTo(FREQ_DATA));
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PATH_CLINVAR_DATA, PolyPhenScore.of(1f))));
+    }
+
+    @Test
+    void setFrequencyAndPathogenicityDataDoesNotReadOptionalSources() {
+        instance.setVariantFrequencyAndPathogenicityData(variant, EnumSet.of(FrequencySource.ESP_AFRICAN_AMERICAN, FrequencySource.LOCAL), EnumSet.of(PathogenicitySource.POLYPHEN, PathogenicitySource.CADD));
+
+        Mockito.verifyZeroInteractions(localFrequencyDao, mockCaddDao);
+        assertThat(variant.hasFrequencyAndPathogenicityData(), is(true));
+        assertThat(variant.hasCompleteFrequencyData(), is(false));
+        assertThat(variant.hasCompletePathogenicityData(), is(false));
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PATH_CLINVAR_DATA, PolyPhenScore.of(1f))));
+    }
+
+    @Test
+    void addOptionalFrequencyDataReadsLocalFrequencies() {
+        Frequency localFrequency = Frequency.of(FrequencySource.LOCAL, 0.5f);
+        Mockito.when(localFrequencyDao.getFrequencyData(variant)).thenReturn(FrequencyData.of(localFrequency));
+        instance.setVariantFrequencyAndPathogenicityData(variant, EnumSet.of(FrequencySource.ESP_AFRICAN_AMERICAN, FrequencySource.LOCAL), EnumSet.of(PathogenicitySource.CADD));
+
+        instance.addOptionalFrequencyData(variant, EnumSet.of(FrequencySource.ESP_AFRICAN_AMERICAN, FrequencySource.LOCAL));
+
+        Mockito.verifyZeroInteractions(mockCaddDao);
+        assertThat(variant.hasCompleteFrequencyData(), is(true));
+        assertThat(variant.getFrequencyData(), equalTo(FrequencyData.of(RsId.of(1234567), Frequency.of(FrequencySource.ESP_AFRICAN_AMERICAN, 100.0f), localFrequency)));
+    }
+
+    @Test
+    void addOptionalPathogenicityDataReadsTabixSources() {
+        instance.setVariantFrequencyAndPathogenicityData(variant, EnumSet.of(FrequencySource.LOCAL), EnumSet.of(PathogenicitySource.POLYPHEN, PathogenicitySource.CADD));
+
+        instance.addOptionalPathogenicityData(variant, EnumSet.of(PathogenicitySource.POLYPHEN, PathogenicitySource.CADD));
+
+        Mockito.verifyZeroInteractions(localFrequencyDao);
+        assertThat(variant.hasCompletePathogenicityData(), is(true));
+        assertThat(variant.getPathogenicityData(), equalTo(PathogenicityData.of(PATH_CLINVAR_DATA, PolyPhenScore.of(1f), CaddScore.of(15f))));
+    }
 }
@@ -20,13 +20,18 @@
 
 package org.monarchinitiative.exomiser.core.genome;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFEncoder;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -52,4 +57,66 @@ void getEncoder() {
 
         assertThat(variantContext.toStringDecodeGenotypes(), equalTo(decoded.toStringDecodeGenotypes()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void encodeDecodeBytes() {
+        VariantContext variantContext = TestVcfParser
+                .forSamples("Arthur", "Ford")
+                .toVariantContext("1 12345 . A T,C 100 PASS WIBBLE;FROOD GT:DP 0/1:12 1|2:20");
+
+        List<String> sampleNames = VcfCodecs.sampleNames(variantContext);
+        assertThat(sampleNames, equalTo(ImmutableList.of("Arthur", "Ford")));
+
+        byte[] encoded = VcfCodecs.encode(sampleNames, variantContext);
+        VariantContext decoded = VcfCodecs.decode(sampleNames, encoded);
+
+        assertThat(decoded.toStringDecodeGenotypes(), equalTo(variantContext.toStringDecodeGenotypes()));
+    }
+
+    @Test
+    void sampleNamesAreSharedBetweenVariantContexts() {
+        TestVcfParser testVcfParser = TestVcfParser.forSamples("Arthur", "Ford");
+        VariantContext first = testVcfParser.toVariantContext("1 12345 . A T 100 PASS . GT 0/1 1/1");
+        VariantContext second = testVcfParser.toVariantContext("1 23456 . A T 100 PASS . GT 0/1 0/0");
+
+        assertThat(VcfCodecs.sampleNames(first), sameInstance(VcfCodecs.sampleNames(second)));
+    }
+
+    @Test
+    void sampleNamesChangeWithVcfSamples() {
+        VariantContext arthurAndFord = TestVcfParser.forSamples("Arthur", "Ford").toVariantContext("1 12345 . A T 100 PASS . GT 0/1 1/1");
+        VariantContext zaphod = TestVcfParser.forSamples("Zaphod").toVariantContext("1 12345 . A T 100 PASS . GT 0/1");
+
+        assertThat(VcfCodecs.sampleNames(arthurAndFord), equalTo(ImmutableList.of("Arthur", "Ford")));
+        assertThat(VcfCodecs.sampleNames(zaphod), equalTo(ImmutableList.of("Zaphod")));
+        assertThat(VcfCodecs.sampleNames(arthurAndFord), equalTo(ImmutableList.of("Arthur", "Ford")));
+    }
+
+    @Test
+    void decodeBytesConcurrently() {
+        TestVcfParser testVcfParser = TestVcfParser.forSamples("Arthur", "Ford");
+        VariantContext variantContext = testVcfParser.toVariantContext("1 12345 . A T,C 100 PASS WIBBLE;FROOD GT:DP 0/1:12 1|2:20");
+        List<String> sampleNames = VcfCodecs.sampleNames(variantContext);
+        byte[] encoded = VcfCodecs.encode(sampleNames, variantContext);
+
+        String expected = variantContext.toStringDecodeGenotypes();
+        IntStream.range(0, 1000)
+                .parallel()
+                .forEach(i -> assertThat(VcfCodecs.decode(sampleNames, encoded).toStringDecodeGenotypes(), equalTo(expected)));
+    }
+
+    @Test
+    void decodeBytesForAlternatingSamples() {
+        VariantContext arthurAndFord = TestVcfParser.forSamples("Arthur", "Ford").toVariantContext("1 12345 . A T 100 PASS . GT 0/1 1/1");
+        VariantContext zaphod = TestVcfParser.forSamples("Zaphod").toVariantContext("1 12345 . A T 100 PASS . GT 0/1");
+        List<String> arthurAndFordSamples = VcfCodecs.sampleNames(arthurAndFord);
+        List<String> zaphodSamples = VcfCodecs.sampleNames(zaphod);
+        byte[] arthurAndFordEncoded = VcfCodecs.encode(arthurAndFordSamples, arthurAndFord);
+        byte[] zaphodEncoded = VcfCodecs.encode(zaphodSamples, zaphod);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(VcfCodecs.decode(arthurAndFordSamples, arthurAndFordEncoded).toStringDecodeGenotypes(), equalTo(arthurAndFord.toStringDecodeGenotypes()));
+            assertThat(VcfCodecs.decode(zaphodSamples, zaphodEncoded).toStringDecodeGenotypes(), equalTo(zaphod.toStringDecodeGenotypes()));
+        }
+    }
+}
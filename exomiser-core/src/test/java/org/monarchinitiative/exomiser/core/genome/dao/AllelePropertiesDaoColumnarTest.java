@@ -0,0 +1,166 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleWriter;
+import org.monarchinitiative.exomiser.core.model.TypedAlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.ClinVar;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class AllelePropertiesDaoColumnarTest {
+
+    private static final List<String> COLUMNS = ImmutableList.of("KG", "EXAC_NFE", "CADD", "REVEL");
+
+    private static AlleleKey alleleKey(int chr, int position, String ref, String alt) {
+        return AlleleKey.newBuilder().setChr(chr).setPosition(position).setRef(ref).setAlt(alt).build();
+    }
+
+    private static final AlleleKey SNV = alleleKey(1, 12345, "A", "T");
+    private static final AlleleProperties SNV_PROPERTIES = AlleleProperties.newBuilder()
+            .setRsId("rs12345")
+            .putProperties("KG", 0.04f)
+            .putProperties("CADD", 23.5f)
+            .build();
+
+    private static final AlleleKey MULTI_ALLELIC_SNV = alleleKey(1, 12345, "A", "G");
+    private static final AlleleProperties MULTI_ALLELIC_SNV_PROPERTIES = AlleleProperties.newBuilder()
+            .putProperties("EXAC_NFE", 0.0001f)
+            .setClinVar(ClinVar.newBuilder()
+                    .setAlleleId("12345")
+                    .setPrimaryInterpretation(ClinVar.ClinSig.PATHOGENIC)
+                    .setReviewStatus("criteria_provided,_multiple_submitters,_no_conflicts")
+                    .putIncludedAlleles("54321", ClinVar.ClinSig.LIKELY_PATHOGENIC)
+                    .build())
+            .build();
+
+    private static final AlleleKey DELETION = alleleKey(1, 12345, "AC", "A");
+    private static final AlleleProperties DELETION_PROPERTIES = AlleleProperties.newBuilder()
+            .setRsId("rs54321")
+            .putProperties("KG", 0.1f)
+            .build();
+
+    private static final AlleleKey CHR_X_SNV = alleleKey(23, 100, "C", "T");
+    private static final AlleleProperties CHR_X_SNV_PROPERTIES = AlleleProperties.newBuilder()
+            .putProperties("REVEL", 0.9f)
+            .build();
+
+    // properties are written as the version 1 map, but read as the typed version 2
+    private static AlleleProperties typed(AlleleProperties alleleProperties) {
+        return TypedAlleleProperties.setValues(alleleProperties.toBuilder(), TypedAlleleProperties.toValueArray(alleleProperties)).build();
+    }
+
+    private AllelePropertiesDaoColumnar writeAndOpen(Path tempDir) {
+        Path storePath = tempDir.resolve("test.alleles");
+        try (ColumnarAlleleWriter writer = new ColumnarAlleleWriter(storePath, COLUMNS)) {
+            writer.write(alleleKey(1, 1, "G", "C"), AlleleProperties.newBuilder().setRsId("rs1").build());
+            writer.write(SNV, SNV_PROPERTIES);
+            writer.write(MULTI_ALLELIC_SNV, MULTI_ALLELIC_SNV_PROPERTIES);
+            writer.write(DELETION, DELETION_PROPERTIES);
+            writer.write(alleleKey(1, 20000, "T", "TA"), AlleleProperties.newBuilder().putProperties("UNKNOWN", 1f).build());
+            writer.write(CHR_X_SNV, CHR_X_SNV_PROPERTIES);
+        }
+        return AllelePropertiesDaoColumnar.open(storePath);
+    }
+
+    @Test
+    void getAlleleProperties(@TempDir Path tempDir) {
+        AllelePropertiesDaoColumnar instance = writeAndOpen(tempDir);
+
+        assertThat(instance.getAlleleProperties(SNV, GenomeAssembly.HG19), equalTo(typed(SNV_PROPERTIES)));
+        assertThat(instance.getAlleleProperties(MULTI_ALLELIC_SNV, GenomeAssembly.HG19), equalTo(typed(MULTI_ALLELIC_SNV_PROPERTIES)));
+        assertThat(instance.getAlleleProperties(DELETION, GenomeAssembly.HG19), equalTo(typed(DELETION_PROPERTIES)));
+        assertThat(instance.getAlleleProperties(CHR_X_SNV, GenomeAssembly.HG19), equalTo(typed(CHR_X_SNV_PROPERTIES)));
+    }
+
+    @Test
+    void getAllelePropertiesFirstAndLastAlleles(@TempDir Path tempDir) {
+        AllelePropertiesDaoColumnar instance = writeAndOpen(tempDir);
+
+        assertThat(instance.getAlleleProperties(alleleKey(1, 1, "G", "C"), GenomeAssembly.HG19), equalTo(AlleleProperties.newBuilder().setRsId("rs1").build()));
+        // properties without a column are not written
+        assertThat(instance.getAlleleProperties(alleleKey(1, 20000, "T", "TA"), GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+    }
+
+    @Test
+    void getAllelePropertiesMissingAllele(@TempDir Path tempDir) {
+        AllelePropertiesDaoColumnar instance = writeAndOpen(tempDir);
+
+        AlleleProperties empty = AlleleProperties.getDefaultInstance();
+        assertThat(instance.getAlleleProperties(alleleKey(1, 12345, "A", "C"), GenomeAssembly.HG19), equalTo(empty));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 12345, "A", "TT"), GenomeAssembly.HG19), equalTo(empty));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 12346, "A", "T"), GenomeAssembly.HG19), equalTo(empty));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 0, "A", "T"), GenomeAssembly.HG19), equalTo(empty));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 30000, "A", "T"), GenomeAssembly.HG19), equalTo(empty));
+        assertThat(instance.getAlleleProperties(alleleKey(2, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(empty));
+    }
+
+    @Test
+    void getAllelePropertiesBatch(@TempDir Path tempDir) {
+        AllelePropertiesDaoColumnar instance = writeAndOpen(tempDir);
+
+        List<AlleleKey> keys = ImmutableList.of(CHR_X_SNV, alleleKey(2, 1, "A", "T"), SNV);
+        List<AlleleProperties> expected = ImmutableList.of(typed(CHR_X_SNV_PROPERTIES), AlleleProperties.getDefaultInstance(), typed(SNV_PROPERTIES));
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+    }
+
+    @Test
+    void emptyStore(@TempDir Path tempDir) {
+        Path storePath = tempDir.resolve("empty.alleles");
+        new ColumnarAlleleWriter(storePath, COLUMNS).close();
+        AllelePropertiesDaoColumnar instance = AllelePropertiesDaoColumnar.open(storePath);
+
+        assertThat(instance.getAlleleProperties(SNV, GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+    }
+
+    @Test
+    void throwsExceptionWhenAllelesAreOutOfOrder(@TempDir Path tempDir) {
+        try (ColumnarAlleleWriter writer = new ColumnarAlleleWriter(tempDir.resolve("unordered.alleles"), COLUMNS)) {
+            writer.write(SNV, SNV_PROPERTIES);
+            assertThrows(IllegalArgumentException.class, () -> writer.write(alleleKey(1, 1, "A", "T"), SNV_PROPERTIES));
+        }
+    }
+
+    @Test
+    void throwsExceptionForFileInWrongFormat(@TempDir Path tempDir) throws IOException {
+        Path notAStore = tempDir.resolve("not_a_store.alleles");
+        Files.write(notAStore, "this is not an allele store".getBytes());
+        assertThrows(RuntimeException.class, () -> AllelePropertiesDaoColumnar.open(notAStore));
+    }
+}
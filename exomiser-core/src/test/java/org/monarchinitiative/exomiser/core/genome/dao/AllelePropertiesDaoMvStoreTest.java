@@ -0,0 +1,190 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.BloomFilter;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class AllelePropertiesDaoMvStoreTest {
+
+    private static AlleleKey alleleKey(int chr, int position) {
+        return AlleleKey.newBuilder().setChr(chr).setPosition(position).setRef("A").setAlt("T").build();
+    }
+
+    private static AlleleProperties alleleProperties(int chr, int position) {
+        return AlleleProperties.newBuilder().setRsId("rs" + chr + position).build();
+    }
+
+    /**
+     * Creates a store with alleles at every even position from 0 to 2 * numPositions on chromosomes 1 and 2
+     */
+    private AllelePropertiesDaoMvStore newInstanceWithEvenPositions(int numPositions) {
+        Map<AlleleKey, AlleleProperties> alleles = new HashMap<>();
+        for (int chr = 1; chr <= 2; chr++) {
+            for (int position = 0; position < 2 * numPositions; position += 2) {
+                alleles.put(alleleKey(chr, position), alleleProperties(chr, position));
+            }
+        }
+        MVStore mvStore = MvAlleleStoreTestUtil.newMvStoreWithData(alleles);
+        return new AllelePropertiesDaoMvStore(mvStore);
+    }
+
+    @Test
+    void getAllelePropertiesFromBinaryKeyStore() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+        for (int position = 0; position < 200; position += 2) {
+            map.put(BinaryAlleleKeyDataType.toBytes(alleleKey(1, position)), alleleProperties(1, position));
+        }
+        AllelePropertiesDaoMvStore instance = new AllelePropertiesDaoMvStore(mvStore);
+
+        assertThat(instance.getAlleleProperties(alleleKey(1, 100), GenomeAssembly.HG19), equalTo(alleleProperties(1, 100)));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 101), GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+
+        List<AlleleKey> keys = ImmutableList.of(alleleKey(1, 150), alleleKey(1, 3), alleleKey(1, 2));
+        List<AlleleProperties> expected = ImmutableList.of(alleleProperties(1, 150), AlleleProperties.getDefaultInstance(), alleleProperties(1, 2));
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+    }
+
+    @Test
+    void getAllelePropertiesEmptyBatch() {
+        AllelePropertiesDaoMvStore instance = newInstanceWithEvenPositions(10);
+        assertThat(instance.getAlleleProperties(Collections.emptyList(), GenomeAssembly.HG19), equalTo(Collections.emptyList()));
+    }
+
+    @Test
+    void getAllelePropertiesBatchFromEmptyStore() {
+        AllelePropertiesDaoMvStore instance = new AllelePropertiesDaoMvStore(new MVStore.Builder().open());
+        List<AlleleProperties> result = instance.getAlleleProperties(ImmutableList.of(alleleKey(1, 2)), GenomeAssembly.HG19);
+        assertThat(result, equalTo(ImmutableList.of(AlleleProperties.getDefaultInstance())));
+    }
+
+    @Test
+    void getAllelePropertiesBatchReturnsResultsInInputOrder() {
+        AllelePropertiesDaoMvStore instance = newInstanceWithEvenPositions(10);
+
+        List<AlleleKey> keys = ImmutableList.of(alleleKey(2, 4), alleleKey(1, 3), alleleKey(1, 2), alleleKey(2, 4), alleleKey(3, 2));
+        List<AlleleProperties> expected = ImmutableList.of(
+                alleleProperties(2, 4),
+                AlleleProperties.getDefaultInstance(),
+                alleleProperties(1, 2),
+                alleleProperties(2, 4),
+                AlleleProperties.getDefaultInstance()
+        );
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+    }
+
+    @Test
+    void getAllelePropertiesBatchMatchesSingleLookups() {
+        AllelePropertiesDaoMvStore instance = newInstanceWithEvenPositions(5_000);
+
+        // a mixture of present and absent keys with both short and long gaps between them, in order to exercise
+        // walking the cursor forwards as well as re-positioning it
+        Random random = new Random(42);
+        List<AlleleKey> keys = new ArrayList<>();
+        for (int chr = 0; chr <= 3; chr++) {
+            int position = 0;
+            while (position < 10_500) {
+                keys.add(alleleKey(chr, position));
+                position += random.nextInt(10) == 0 ? random.nextInt(1000) : random.nextInt(5);
+            }
+        }
+
+        List<AlleleProperties> expected = new ArrayList<>();
+        for (AlleleKey key : keys) {
+            expected.add(instance.getAlleleProperties(key, GenomeAssembly.HG19));
+        }
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+    }
+
+    @Test
+    void getAllelePropertiesWithAlleleKeyFilter() {
+        Map<AlleleKey, AlleleProperties> alleles = new HashMap<>();
+        for (int position = 0; position < 200; position += 2) {
+            alleles.put(alleleKey(1, position), alleleProperties(1, position));
+        }
+        MVStore mvStore = MvAlleleStoreTestUtil.newMvStoreWithData(alleles);
+        BloomFilter<AlleleKey> alleleKeyFilter = AlleleKeyBloomFilter.buildFrom(mvStore);
+        AllelePropertiesDaoMvStore instance = new AllelePropertiesDaoMvStore(mvStore, alleleKeyFilter);
+
+        assertThat(instance.getAlleleProperties(alleleKey(1, 100), GenomeAssembly.HG19), equalTo(alleleProperties(1, 100)));
+        assertThat(instance.getAlleleProperties(alleleKey(1, 101), GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+
+        List<AlleleKey> keys = ImmutableList.of(alleleKey(1, 150), alleleKey(2, 4), alleleKey(1, 3), alleleKey(1, 2));
+        List<AlleleProperties> expected = ImmutableList.of(
+                alleleProperties(1, 150),
+                AlleleProperties.getDefaultInstance(),
+                AlleleProperties.getDefaultInstance(),
+                alleleProperties(1, 2)
+        );
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+    }
+
+    @Test
+    void getAllelePropertiesWithEmptyAlleleKeyFilterSkipsStore() {
+        MVStore mvStore = MvAlleleStoreTestUtil.newMvStoreWithData(ImmutableMap.of(alleleKey(1, 2), alleleProperties(1, 2)));
+        // a filter which doesn't contain any of the keys in the store, so none of them should be found
+        AllelePropertiesDaoMvStore instance = new AllelePropertiesDaoMvStore(mvStore, AlleleKeyBloomFilter.create(10));
+
+        assertThat(instance.getAlleleProperties(alleleKey(1, 2), GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+        assertThat(instance.getAlleleProperties(ImmutableList.of(alleleKey(1, 2)), GenomeAssembly.HG19), equalTo(ImmutableList.of(AlleleProperties.getDefaultInstance())));
+    }
+
+    @Test
+    void getAllelePropertiesBatchReadsAndFillsAlleleCache() {
+        AllelePropertiesDaoMvStore instance = newInstanceWithEvenPositions(10);
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("hg19.allele", "hg38.allele");
+        instance.setCacheManager(cacheManager);
+        Cache alleleCache = cacheManager.getCache("hg19.allele");
+        // not the value in the store, so this can only have come from the cache
+        AlleleProperties cachedProperties = AlleleProperties.newBuilder().setRsId("rs-cached").build();
+        alleleCache.put(alleleKey(1, 4), cachedProperties);
+
+        List<AlleleKey> keys = ImmutableList.of(alleleKey(1, 2), alleleKey(1, 3), alleleKey(1, 4));
+        List<AlleleProperties> expected = ImmutableList.of(alleleProperties(1, 2), AlleleProperties.getDefaultInstance(), cachedProperties);
+        assertThat(instance.getAlleleProperties(keys, GenomeAssembly.HG19), equalTo(expected));
+
+        assertThat(alleleCache.get(alleleKey(1, 2), AlleleProperties.class), equalTo(alleleProperties(1, 2)));
+        assertThat(alleleCache.get(alleleKey(1, 3), AlleleProperties.class), equalTo(AlleleProperties.getDefaultInstance()));
+        assertThat(cacheManager.getCache("hg38.allele").get(alleleKey(1, 2)), is(nullValue()));
+    }
+}
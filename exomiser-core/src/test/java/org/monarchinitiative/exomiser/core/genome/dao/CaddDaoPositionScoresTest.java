@@ -0,0 +1,84 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreWriter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.CaddScore;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class CaddDaoPositionScoresTest {
+
+    private static final PathogenicityData INDEL_DATA = PathogenicityData.of(CaddScore.of(12f));
+
+    private static CaddDaoPositionScores newInstance(Path tempDir) {
+        Path scoresPath = tempDir.resolve("cadd.scores");
+        try (PositionScoreWriter writer = new PositionScoreWriter(scoresPath, 3, 0f, 100f)) {
+            writer.write(1, 2, PositionScoreFormat.snvSlot("A", "C"), 1.458f);
+            writer.write(1, 2, PositionScoreFormat.snvSlot("A", "G"), 23.5f);
+            writer.write(1, 2, PositionScoreFormat.snvSlot("A", "T"), 4.618f);
+        }
+        return new CaddDaoPositionScores(PositionScores.open(scoresPath), variant -> INDEL_DATA);
+    }
+
+    private static double caddScore(PathogenicityData pathogenicityData) {
+        return pathogenicityData.getPredictedScore(PathogenicitySource.CADD).getRawScore();
+    }
+
+    @Test
+    void getPathogenicityDataSnv(@TempDir Path tempDir) {
+        CaddDaoPositionScores instance = newInstance(tempDir);
+        assertThat(caddScore(instance.getPathogenicityData(VariantEvaluation.builder(1, 2, "A", "C").build())), closeTo(1.458, 0.001));
+        assertThat(caddScore(instance.getPathogenicityData(VariantEvaluation.builder(1, 2, "A", "G").build())), closeTo(23.5, 0.001));
+        assertThat(caddScore(instance.getPathogenicityData(VariantEvaluation.builder(1, 2, "A", "T").build())), closeTo(4.618, 0.001));
+    }
+
+    @Test
+    void getPathogenicityDataSnvNoData(@TempDir Path tempDir) {
+        CaddDaoPositionScores instance = newInstance(tempDir);
+        assertThat(instance.getPathogenicityData(VariantEvaluation.builder(1, 3, "A", "C").build()), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getPathogenicityData(VariantEvaluation.builder(2, 2, "A", "C").build()), equalTo(PathogenicityData.empty()));
+    }
+
+    @Test
+    void getPathogenicityDataInDelUsesInDelDao(@TempDir Path tempDir) {
+        CaddDaoPositionScores instance = newInstance(tempDir);
+        assertThat(instance.getPathogenicityData(VariantEvaluation.builder(1, 2, "A", "AT").build()), equalTo(INDEL_DATA));
+        assertThat(instance.getPathogenicityData(VariantEvaluation.builder(1, 2, "AT", "A").build()), equalTo(INDEL_DATA));
+    }
+}
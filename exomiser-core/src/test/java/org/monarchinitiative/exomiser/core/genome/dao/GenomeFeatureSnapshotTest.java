@@ -0,0 +1,116 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.model.RegulatoryFeature;
+import org.monarchinitiative.exomiser.core.model.RegulatoryFeature.FeatureType;
+import org.monarchinitiative.exomiser.core.model.TopologicalDomain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class GenomeFeatureSnapshotTest {
+
+    private static final RegulatoryFeature ENHANCER = new RegulatoryFeature(1, 100, 200, FeatureType.ENHANCER);
+    private static final RegulatoryFeature PROMOTER = new RegulatoryFeature(1, 50, 80, FeatureType.PROMOTER);
+    private static final RegulatoryFeature CTCF_BINDING_SITE = new RegulatoryFeature(23, 1000, 1200, FeatureType.CTCF_BINDING_SITE);
+
+    private static final TopologicalDomain TAD_1 = new TopologicalDomain(1, 1, 10000, genes("GENE1", 1, "GENE2", 2));
+    private static final TopologicalDomain TAD_2 = new TopologicalDomain(2, 1, 20000, genes("GENE3", 3, "GENE1", 1));
+    private static final TopologicalDomain TAD_3 = new TopologicalDomain(2, 20001, 30000, Collections.emptyMap());
+
+    private static Map<String, Integer> genes(String symbol1, int geneId1, String symbol2, int geneId2) {
+        Map<String, Integer> genes = new LinkedHashMap<>();
+        genes.put(symbol1, geneId1);
+        genes.put(symbol2, geneId2);
+        return genes;
+    }
+
+    private static GenomeFeatureSnapshot newInstance() {
+        return GenomeFeatureSnapshot.of(ImmutableList.of(CTCF_BINDING_SITE, ENHANCER, PROMOTER), ImmutableList.of(TAD_2, TAD_3, TAD_1));
+    }
+
+    @Test
+    void empty() {
+        GenomeFeatureSnapshot instance = GenomeFeatureSnapshot.of(Collections.emptyList(), Collections.emptyList());
+        assertThat(instance.getRegulatoryFeatures().isEmpty(), equalTo(true));
+        assertThat(instance.getTopologicallyAssociatedDomains().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    void regulatoryFeaturesAreSorted() {
+        GenomeFeatureSnapshot instance = newInstance();
+        assertThat(instance.getRegulatoryFeatureCount(), equalTo(3));
+        assertThat(instance.getRegulatoryFeatures(), equalTo(ImmutableList.of(PROMOTER, ENHANCER, CTCF_BINDING_SITE)));
+    }
+
+    @Test
+    void topologicalDomainsAreSortedAndKeepGeneOrder() {
+        GenomeFeatureSnapshot instance = newInstance();
+        assertThat(instance.getTopologicalDomainCount(), equalTo(3));
+        List<TopologicalDomain> tads = instance.getTopologicallyAssociatedDomains();
+        assertThat(tads, equalTo(ImmutableList.of(TAD_1, TAD_2, TAD_3)));
+        assertThat(ImmutableList.copyOf(tads.get(1).getGenes().keySet()), equalTo(ImmutableList.of("GENE3", "GENE1")));
+    }
+
+    @Test
+    void snapshotPathFor() {
+        assertThat(GenomeFeatureSnapshot.snapshotPathFor(Paths.get("data/1902_hg19_genome.mv.db")), equalTo(Paths.get("data/1902_hg19_genome.features")));
+        assertThat(GenomeFeatureSnapshot.snapshotPathFor(Paths.get("data/1902_hg19_genome")), equalTo(Paths.get("data/1902_hg19_genome.features")));
+    }
+
+    @Test
+    void writeToReadFrom(@TempDir Path tempDir) {
+        Path snapshotPath = tempDir.resolve("genome.features");
+        newInstance().writeTo(snapshotPath);
+
+        GenomeFeatureSnapshot instance = GenomeFeatureSnapshot.readFrom(snapshotPath);
+        assertThat(instance.getRegulatoryFeatures(), equalTo(ImmutableList.of(PROMOTER, ENHANCER, CTCF_BINDING_SITE)));
+        assertThat(instance.getTopologicallyAssociatedDomains(), equalTo(ImmutableList.of(TAD_1, TAD_2, TAD_3)));
+        assertThat(instance.getTopologicallyAssociatedDomains().get(0).getGenes(), equalTo(genes("GENE1", 1, "GENE2", 2)));
+    }
+
+    @Test
+    void readFromThrowsExceptionWithWrongFileType(@TempDir Path tempDir) throws IOException {
+        Path notASnapshot = Files.write(tempDir.resolve("genome.features"), "wibble".getBytes(StandardCharsets.UTF_8));
+        assertThrows(RuntimeException.class, () -> GenomeFeatureSnapshot.readFrom(notASnapshot));
+    }
+}
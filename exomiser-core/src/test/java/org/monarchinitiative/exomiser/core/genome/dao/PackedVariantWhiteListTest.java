@@ -0,0 +1,173 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class PackedVariantWhiteListTest {
+
+    private static PackedVariantWhiteList newInstance() {
+        return PackedVariantWhiteList.builder()
+                .add(1, 12345, "A", "T")
+                .add(1, 12345, "A", "TT")
+                .add(23, 54321, "GCT", "G")
+                .build();
+    }
+
+    @Test
+    void empty() {
+        PackedVariantWhiteList instance = PackedVariantWhiteList.builder().build();
+        assertThat(instance.size(), equalTo(0));
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12345, "A", "T").build()), equalTo(false));
+    }
+
+    @Test
+    void containsVariant() {
+        PackedVariantWhiteList instance = newInstance();
+        assertThat(instance.size(), equalTo(3));
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12345, "A", "T").build()), equalTo(true));
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12345, "A", "TT").build()), equalTo(true));
+        assertThat(instance.contains(VariantEvaluation.builder(23, 54321, "GCT", "G").build()), equalTo(true));
+    }
+
+    @Test
+    void doesNotContainVariant() {
+        PackedVariantWhiteList instance = newInstance();
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12345, "A", "G").build()), equalTo(false));
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12345, "AT", "T").build()), equalTo(false));
+        assertThat(instance.contains(VariantEvaluation.builder(2, 12345, "A", "T").build()), equalTo(false));
+        assertThat(instance.contains(VariantEvaluation.builder(1, 12346, "A", "T").build()), equalTo(false));
+        assertThat(instance.contains(VariantEvaluation.builder(23, 54321, "GC", "TG").build()), equalTo(false));
+    }
+
+    @Test
+    void ignoresDuplicates() {
+        PackedVariantWhiteList instance = PackedVariantWhiteList.builder()
+                .add(1, 12345, "A", "T")
+                .add(1, 12345, "A", "T")
+                .build();
+        assertThat(instance.size(), equalTo(1));
+        assertThat(instance.contains(1, 12345, "A", "T"), equalTo(true));
+    }
+
+    @Test
+    void containsAllOfManyAlleles() {
+        PackedVariantWhiteList.Builder builder = PackedVariantWhiteList.builder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.add(1 + i % 25, i * 7, "A", i % 2 == 0 ? "T" : "AC");
+        }
+        PackedVariantWhiteList instance = builder.build();
+        assertThat(instance.size(), equalTo(10_000));
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(instance.contains(1 + i % 25, i * 7, "A", i % 2 == 0 ? "T" : "AC"), equalTo(true));
+            assertThat(instance.contains(1 + i % 25, i * 7, "A", "G"), equalTo(false));
+        }
+    }
+
+    @Test
+    void binaryPathFor() {
+        assertThat(PackedVariantWhiteList.binaryPathFor(Paths.get("data/1902_hg19_clinvar_whitelist.tsv.gz")), equalTo(Paths.get("data/1902_hg19_clinvar_whitelist.wl")));
+    }
+
+    private static Path writeTsvGz(Path whiteListPath) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(whiteListPath)), StandardCharsets.UTF_8))) {
+            writer.write("#CHR\tPOS\tREF\tALT\tINFO\n");
+            writer.write("1\t12345\tA\tT\tALLELEID=12345;CLNSIG=PATHOGENIC\n");
+            writer.write("X\t54321\tGCT\tG\tALLELEID=54321;CLNSIG=LIKELY_PATHOGENIC\n");
+            writer.write("wibble\n");
+        }
+        return whiteListPath;
+    }
+
+    @Test
+    void writeToReadFrom(@TempDir Path tempDir) throws IOException {
+        Path sourcePath = writeTsvGz(tempDir.resolve("whitelist.tsv.gz"));
+        Path binaryPath = tempDir.resolve("whitelist.wl");
+        newInstance().writeTo(binaryPath, sourcePath);
+
+        PackedVariantWhiteList instance = PackedVariantWhiteList.readFrom(binaryPath, sourcePath);
+        assertThat(instance.size(), equalTo(3));
+        assertThat(instance.contains(1, 12345, "A", "T"), equalTo(true));
+        assertThat(instance.contains(1, 12345, "A", "TT"), equalTo(true));
+        assertThat(instance.contains(23, 54321, "GCT", "G"), equalTo(true));
+        assertThat(instance.contains(23, 54321, "GCT", "GC"), equalTo(false));
+    }
+
+    @Test
+    void readFromThrowsExceptionWhenSourceIsModified(@TempDir Path tempDir) throws IOException {
+        Path sourcePath = writeTsvGz(tempDir.resolve("whitelist.tsv.gz"));
+        Path binaryPath = tempDir.resolve("whitelist.wl");
+        newInstance().writeTo(binaryPath, sourcePath);
+
+        Files.setLastModifiedTime(sourcePath, FileTime.fromMillis(Files.getLastModifiedTime(sourcePath).toMillis() + 60_000));
+        assertThrows(RuntimeException.class, () -> PackedVariantWhiteList.readFrom(binaryPath, sourcePath));
+    }
+
+    @Test
+    void readFromThrowsExceptionWhenSourceIsReplaced(@TempDir Path tempDir) throws IOException {
+        Path sourcePath = writeTsvGz(tempDir.resolve("whitelist.tsv.gz"));
+        Path binaryPath = tempDir.resolve("whitelist.wl");
+        FileTime lastModifiedTime = Files.getLastModifiedTime(sourcePath);
+        newInstance().writeTo(binaryPath, sourcePath);
+
+        Files.write(sourcePath, "1\t12345\tA\tT\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(sourcePath, lastModifiedTime);
+        assertThrows(RuntimeException.class, () -> PackedVariantWhiteList.readFrom(binaryPath, sourcePath));
+    }
+
+    @Test
+    void readFromThrowsExceptionWithWrongFileType(@TempDir Path tempDir) throws IOException {
+        Path sourcePath = writeTsvGz(tempDir.resolve("whitelist.tsv.gz"));
+        Path notAWhiteList = Files.write(tempDir.resolve("whitelist.wl"), "wibble".getBytes(StandardCharsets.UTF_8));
+        assertThrows(RuntimeException.class, () -> PackedVariantWhiteList.readFrom(notAWhiteList, sourcePath));
+    }
+
+    @Test
+    void readFromTsvGz(@TempDir Path tempDir) throws IOException {
+        Path whiteListPath = writeTsvGz(tempDir.resolve("whitelist.tsv.gz"));
+        PackedVariantWhiteList instance = PackedVariantWhiteList.readFromTsvGz(whiteListPath);
+        assertThat(instance.size(), equalTo(2));
+        assertThat(instance.contains(1, 12345, "A", "T"), equalTo(true));
+        assertThat(instance.contains(23, 54321, "GCT", "G"), equalTo(true));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.RemmScore;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class PersistentCachingPathogenicityDaoTest {
+
+    private final PersistentPathogenicityCache cache = new PersistentPathogenicityCache(new MVStore.Builder().open(), 100);
+
+    @Test
+    void delegatesOnlyOnFirstLookup() {
+        VariantEvaluation variant = VariantEvaluation.builder(1, 12345, "A", "T").build();
+        PathogenicityData remmData = PathogenicityData.of(RemmScore.of(0.7f));
+
+        PathogenicityDao remmDao = mock(PathogenicityDao.class);
+        when(remmDao.getPathogenicityData(variant)).thenReturn(remmData);
+
+        PersistentCachingPathogenicityDao instance = new PersistentCachingPathogenicityDao("hg19.remm", "1811", remmDao, cache);
+        assertThat(instance.getPathogenicityData(variant), equalTo(remmData));
+        assertThat(instance.getPathogenicityData(variant), equalTo(remmData));
+
+        verify(remmDao, times(1)).getPathogenicityData(variant);
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+    }
+
+    @Test
+    void cachesEmptyResults() {
+        VariantEvaluation variant = VariantEvaluation.builder(1, 12345, "A", "T").build();
+
+        PathogenicityDao remmDao = mock(PathogenicityDao.class);
+        when(remmDao.getPathogenicityData(variant)).thenReturn(PathogenicityData.empty());
+
+        PersistentCachingPathogenicityDao instance = new PersistentCachingPathogenicityDao("hg19.remm", "1811", remmDao, cache);
+        assertThat(instance.getPathogenicityData(variant), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getPathogenicityData(variant), equalTo(PathogenicityData.empty()));
+
+        verify(remmDao, times(1)).getPathogenicityData(variant);
+    }
+
+    @Test
+    void doesNotCacheVariantsWhichAreNotCacheable() {
+        VariantEvaluation missenseVariant = VariantEvaluation.builder(1, 12345, "A", "T").variantEffect(VariantEffect.MISSENSE_VARIANT).build();
+        VariantEvaluation intronVariant = VariantEvaluation.builder(1, 12345, "A", "T").variantEffect(VariantEffect.INTRON_VARIANT).build();
+        PathogenicityData remmData = PathogenicityData.of(RemmScore.of(0.7f));
+
+        // the variants are equal, so respond to the annotation as the RemmDao does
+        PathogenicityDao remmDao = mock(PathogenicityDao.class);
+        when(remmDao.getPathogenicityData(any())).thenAnswer(invocation -> {
+            VariantEvaluation variant = invocation.getArgument(0);
+            return variant.getVariantEffect() == VariantEffect.MISSENSE_VARIANT ? PathogenicityData.empty() : remmData;
+        });
+
+        PersistentCachingPathogenicityDao instance = new PersistentCachingPathogenicityDao("hg19.remm", "1811", remmDao, cache, variant -> variant.getVariantEffect() != VariantEffect.MISSENSE_VARIANT);
+        assertThat(instance.getPathogenicityData(missenseVariant), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getPathogenicityData(intronVariant), equalTo(remmData));
+        // the same allele, but the cached score must not be returned for the missense annotation
+        assertThat(instance.getPathogenicityData(missenseVariant), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getPathogenicityData(intronVariant), equalTo(remmData));
+
+        verify(remmDao, times(3)).getPathogenicityData(any());
+        assertThat(cache.size("hg19.remm"), equalTo(1L));
+    }
+
+    @Test
+    void dropsCachedEntriesFromDifferentSource() {
+        VariantEvaluation variant = VariantEvaluation.builder(1, 12345, "A", "T").build();
+        PathogenicityDao oldRemmDao = mock(PathogenicityDao.class);
+        when(oldRemmDao.getPathogenicityData(variant)).thenReturn(PathogenicityData.of(RemmScore.of(0.1f)));
+        new PersistentCachingPathogenicityDao("hg19.remm", "1811", oldRemmDao, cache).getPathogenicityData(variant);
+
+        PathogenicityData newRemmData = PathogenicityData.of(RemmScore.of(0.7f));
+        PathogenicityDao newRemmDao = mock(PathogenicityDao.class);
+        when(newRemmDao.getPathogenicityData(variant)).thenReturn(newRemmData);
+        PersistentCachingPathogenicityDao instance = new PersistentCachingPathogenicityDao("hg19.remm", "1902", newRemmDao, cache);
+
+        assertThat(instance.getPathogenicityData(variant), equalTo(newRemmData));
+        verify(newRemmDao, times(1)).getPathogenicityData(variant);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.CaddScore;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class PersistentPathogenicityCacheTest {
+
+    private static final PathogenicityData CADD_DATA = PathogenicityData.of(CaddScore.of(23.7f));
+
+    private static PersistentPathogenicityCache newInMemoryInstance(long maxEntries) {
+        return new PersistentPathogenicityCache(new MVStore.Builder().open(), maxEntries);
+    }
+
+    private static AlleleKey alleleKey(int position) {
+        return AlleleKey.newBuilder().setChr(1).setPosition(position).setRef("A").setAlt("T").build();
+    }
+
+    @Test
+    void throwsExceptionWithTooFewEntries() {
+        assertThrows(IllegalArgumentException.class, () -> newInMemoryInstance(1));
+    }
+
+    @Test
+    void getMissing() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        assertThat(instance.get("hg19.cadd", alleleKey(1)), nullValue());
+        assertThat(instance.getMissCount(), equalTo(1L));
+        assertThat(instance.getHitCount(), equalTo(0L));
+    }
+
+    @Test
+    void putThenGet() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+        instance.put("hg19.cadd", alleleKey(2), PathogenicityData.empty());
+
+        assertThat(instance.get("hg19.cadd", alleleKey(1)), equalTo(CADD_DATA));
+        assertThat(instance.get("hg19.cadd", alleleKey(2)), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getHitCount(), equalTo(2L));
+        assertThat(instance.getMissCount(), equalTo(0L));
+    }
+
+    @Test
+    void cacheNamesAreSeparate() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+
+        assertThat(instance.get("hg38.cadd", alleleKey(1)), nullValue());
+        assertThat(instance.size("hg19.cadd"), equalTo(1L));
+        assertThat(instance.size("hg38.cadd"), equalTo(0L));
+    }
+
+    @Test
+    void sizeIsBoundedByMaxEntries() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        for (int i = 0; i < 100; i++) {
+            instance.put("hg19.cadd", alleleKey(i), CADD_DATA);
+            assertThat(instance.size("hg19.cadd") <= 10, equalTo(true));
+        }
+        assertThat(instance.getEvictionCount(), equalTo(95L));
+    }
+
+    @Test
+    void recentlyUsedEntriesAreNotEvicted() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        instance.put("hg19.cadd", alleleKey(0), CADD_DATA);
+        for (int i = 1; i < 100; i++) {
+            instance.put("hg19.cadd", alleleKey(i), CADD_DATA);
+            assertThat(instance.get("hg19.cadd", alleleKey(0)), equalTo(CADD_DATA));
+        }
+        // the least recently used have been evicted
+        assertThat(instance.get("hg19.cadd", alleleKey(1)), nullValue());
+    }
+
+    @Test
+    void entriesPersistBetweenRuns(@TempDir Path tempDir) {
+        Path cachePath = tempDir.resolve("pathogenicity-cache.mv.db");
+        try (PersistentPathogenicityCache instance = PersistentPathogenicityCache.open(cachePath, 10)) {
+            instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+        }
+        try (PersistentPathogenicityCache instance = PersistentPathogenicityCache.open(cachePath, 10)) {
+            assertThat(instance.get("hg19.cadd", alleleKey(1)), equalTo(CADD_DATA));
+            assertThat(instance.getHitCount(), equalTo(1L));
+        }
+    }
+
+    @Test
+    void useSourceKeepsEntriesFromSameSourceBetweenRuns(@TempDir Path tempDir) {
+        Path cachePath = tempDir.resolve("pathogenicity-cache.mv.db");
+        try (PersistentPathogenicityCache instance = PersistentPathogenicityCache.open(cachePath, 10)) {
+            instance.useSource("hg19.cadd", "1811 whole_genome_SNVs.tsv.gz");
+            instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+        }
+        try (PersistentPathogenicityCache instance = PersistentPathogenicityCache.open(cachePath, 10)) {
+            instance.useSource("hg19.cadd", "1811 whole_genome_SNVs.tsv.gz");
+            assertThat(instance.get("hg19.cadd", alleleKey(1)), equalTo(CADD_DATA));
+        }
+    }
+
+    @Test
+    void useSourceDropsEntriesFromDifferentSource() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        instance.useSource("hg19.cadd", "1811 whole_genome_SNVs.tsv.gz");
+        instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+        instance.useSource("hg19.dann", "1811 DANN_whole_genome_SNVs.tsv.gz");
+        instance.put("hg19.dann", alleleKey(1), CADD_DATA);
+
+        instance.useSource("hg19.cadd", "1902 whole_genome_SNVs.tsv.gz");
+        assertThat(instance.size("hg19.cadd"), equalTo(0L));
+        assertThat(instance.get("hg19.cadd", alleleKey(1)), nullValue());
+        assertThat(instance.size("hg19.dann"), equalTo(1L));
+    }
+
+    @Test
+    void useSourceDropsEntriesFromUnknownSource() {
+        PersistentPathogenicityCache instance = newInMemoryInstance(10);
+        instance.put("hg19.cadd", alleleKey(1), CADD_DATA);
+
+        instance.useSource("hg19.cadd", "1811 whole_genome_SNVs.tsv.gz");
+        assertThat(instance.size("hg19.cadd"), equalTo(0L));
+    }
+
+    @Test
+    void cannotOpenFileInUse(@TempDir Path tempDir) {
+        Path cachePath = tempDir.resolve("pathogenicity-cache.mv.db");
+        try (PersistentPathogenicityCache instance = PersistentPathogenicityCache.open(cachePath, 10)) {
+            assertThrows(RuntimeException.class, () -> PersistentPathogenicityCache.open(cachePath, 10));
+        }
+    }
+}
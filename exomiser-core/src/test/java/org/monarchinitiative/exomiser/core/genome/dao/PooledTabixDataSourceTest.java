@@ -0,0 +1,232 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import htsjdk.tribble.readers.TabixReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class PooledTabixDataSourceTest {
+
+    /**
+     * Returns the query as the only result line, optionally waiting for a latch to be released first.
+     */
+    private static class StubTabixDataSource implements TabixDataSource {
+
+        private final CountDownLatch entered;
+        private final CountDownLatch release;
+        private final Set<String> queryingThreads = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed = false;
+
+        private StubTabixDataSource(CountDownLatch entered, CountDownLatch release) {
+            this.entered = entered;
+            this.release = release;
+        }
+
+        @Override
+        public TabixReader.Iterator query(String query) {
+            queryingThreads.add(Thread.currentThread().getName());
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return MockTabixIterator.of(query);
+        }
+
+        @Override
+        public TabixReader.Iterator query(String chromosome, int start, int end) {
+            return query(chromosome + ":" + start + "-" + end);
+        }
+
+        @Override
+        public String getSource() {
+            return "stub.tsv.gz";
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static StubTabixDataSource nonBlockingStub() {
+        return new StubTabixDataSource(new CountDownLatch(0), new CountDownLatch(0));
+    }
+
+    @Test
+    void throwsExceptionWithZeroPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PooledTabixDataSource(0, PooledTabixDataSourceTest::nonBlockingStub));
+    }
+
+    @Test
+    void createsFirstDataSourceOnConstruction() {
+        PooledTabixDataSource instance = new PooledTabixDataSource(4, PooledTabixDataSourceTest::nonBlockingStub);
+        assertThat(instance.getPoolSize(), equalTo(1));
+        assertThat(instance.getMaxPoolSize(), equalTo(4));
+        assertThat(instance.getSource(), equalTo("stub.tsv.gz"));
+    }
+
+    @Test
+    void sequentialQueriesUseSingleDataSource() throws IOException {
+        PooledTabixDataSource instance = new PooledTabixDataSource(4, PooledTabixDataSourceTest::nonBlockingStub);
+        for (int i = 0; i < 10; i++) {
+            assertThat(instance.query("1:" + i + "-" + i).next(), equalTo("1:" + i + "-" + i));
+        }
+        assertThat(instance.query("1", 2, 3).next(), equalTo("1:2-3"));
+        assertThat(instance.getPoolSize(), equalTo(1));
+        assertThat(instance.getNumLeases(), equalTo(11L));
+        assertThat(instance.getNumWaits(), equalTo(0L));
+    }
+
+    @Test
+    void concurrentQueriesAreLimitedToMaxPoolSize() throws Exception {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        PooledTabixDataSource instance = new PooledTabixDataSource(2, () -> new StubTabixDataSource(entered, release));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String query = "1:" + i + "-" + i;
+            results.add(executorService.submit(() -> instance.query(query).next()));
+        }
+        // two queries are now in progress, so the third must wait for one of these to finish
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+        long timeout = System.currentTimeMillis() + 10_000;
+        while (instance.getNumWaits() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertThat(instance.getPoolSize(), equalTo(2));
+        assertThat(instance.getNumWaits(), equalTo(1L));
+
+        release.countDown();
+        for (int i = 0; i < 3; i++) {
+            assertThat(results.get(i).get(10, TimeUnit.SECONDS), equalTo("1:" + i + "-" + i));
+        }
+        executorService.shutdown();
+        assertThat(instance.getPoolSize(), equalTo(2));
+    }
+
+    @Test
+    void closeClosesAllDataSources() {
+        List<StubTabixDataSource> created = new ArrayList<>();
+        PooledTabixDataSource instance = new PooledTabixDataSource(2, () -> {
+            StubTabixDataSource stub = nonBlockingStub();
+            created.add(stub);
+            return stub;
+        });
+        instance.close();
+        assertThat(created.size(), equalTo(1));
+        assertThat(created.get(0).closed, is(true));
+        assertThrows(RuntimeException.class, () -> instance.query("1:1-1"));
+    }
+
+    @Test
+    void closeClosesDataSourceInUseWhenReturned() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StubTabixDataSource stub = new StubTabixDataSource(entered, release);
+        PooledTabixDataSource instance = new PooledTabixDataSource(1, () -> stub);
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<String> result = executorService.submit(() -> instance.query("1:1-1").next());
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+
+        instance.close();
+        assertThat(stub.closed, is(false));
+
+        release.countDown();
+        assertThat(result.get(10, TimeUnit.SECONDS), equalTo("1:1-1"));
+        executorService.shutdown();
+        assertThat(stub.closed, is(true));
+        assertThat(instance.getPoolSize(), equalTo(0));
+    }
+
+    @Test
+    void concurrentThreadsArePinnedToTheirOwnDataSource() throws Exception {
+        List<StubTabixDataSource> created = new CopyOnWriteArrayList<>();
+        PooledTabixDataSource instance = new PooledTabixDataSource(2, () -> {
+            StubTabixDataSource stub = nonBlockingStub();
+            created.add(stub);
+            return stub;
+        });
+
+        // the barrier interleaves the queries of the two threads
+        int numThreads = 2;
+        CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < numThreads; thread++) {
+            results.add(executorService.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    instance.query("1:" + i + "-" + i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        assertThat(created.size(), equalTo(2));
+        for (StubTabixDataSource stub : created) {
+            assertThat(stub.queryingThreads.size(), equalTo(1));
+        }
+    }
+
+    @Test
+    void dataSourcePinnedToFinishedThreadIsGivenToNextThread() throws Exception {
+        List<StubTabixDataSource> created = new CopyOnWriteArrayList<>();
+        PooledTabixDataSource instance = new PooledTabixDataSource(2, () -> {
+            StubTabixDataSource stub = nonBlockingStub();
+            created.add(stub);
+            return stub;
+        });
+
+        for (int i = 0; i < 3; i++) {
+            String query = "1:" + i + "-" + i;
+            Thread thread = new Thread(() -> instance.query(query));
+            thread.start();
+            thread.join(10_000);
+            assertThat(thread.isAlive(), is(false));
+        }
+
+        assertThat(instance.getPoolSize(), equalTo(1));
+        assertThat(created.get(0).queryingThreads.size(), equalTo(3));
+    }
+}
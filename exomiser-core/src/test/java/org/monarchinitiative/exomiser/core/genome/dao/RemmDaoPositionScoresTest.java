@@ -0,0 +1,104 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreWriter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+import org.monarchinitiative.exomiser.core.model.VariantEvaluation;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
+import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicitySource;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class RemmDaoPositionScoresTest {
+
+    private static final double TOLERANCE = 0.00001;
+
+    private static RemmDaoPositionScores newInstance(Path tempDir) {
+        Path scoresPath = tempDir.resolve("remm.scores");
+        try (PositionScoreWriter writer = new PositionScoreWriter(scoresPath, 1, 0f, 1f)) {
+            writer.write(1, 1, 0, 0.0f);
+            writer.write(1, 2, 0, 0.5f);
+            writer.write(1, 3, 0, 1.0f);
+            writer.write(1, 4, 0, 0.0f);
+        }
+        return new RemmDaoPositionScores(PositionScores.open(scoresPath));
+    }
+
+    private static VariantEvaluation variant(int chr, int pos, String ref, String alt) {
+        return VariantEvaluation.builder(chr, pos, ref, alt)
+                .variantEffect(VariantEffect.REGULATORY_REGION_VARIANT)
+                .build();
+    }
+
+    private static double remmScore(PathogenicityData pathogenicityData) {
+        return pathogenicityData.getPredictedScore(PathogenicitySource.REMM).getRawScore();
+    }
+
+    @Test
+    void getPathogenicityDataMissenseVariant(@TempDir Path tempDir) {
+        RemmDaoPositionScores instance = newInstance(tempDir);
+        VariantEvaluation missenseVariant = VariantEvaluation.builder(1, 3, "A", "T")
+                .variantEffect(VariantEffect.MISSENSE_VARIANT)
+                .build();
+        assertThat(instance.getPathogenicityData(missenseVariant), equalTo(PathogenicityData.empty()));
+    }
+
+    @Test
+    void getPathogenicityDataNoData(@TempDir Path tempDir) {
+        RemmDaoPositionScores instance = newInstance(tempDir);
+        assertThat(instance.getPathogenicityData(variant(1, 5, "A", "T")), equalTo(PathogenicityData.empty()));
+        assertThat(instance.getPathogenicityData(variant(2, 1, "A", "T")), equalTo(PathogenicityData.empty()));
+    }
+
+    @Test
+    void getPathogenicityDataSingleNucleotideVariation(@TempDir Path tempDir) {
+        RemmDaoPositionScores instance = newInstance(tempDir);
+        assertThat(remmScore(instance.getPathogenicityData(variant(1, 2, "A", "T"))), closeTo(0.5, TOLERANCE));
+    }
+
+    @Test
+    void getPathogenicityDataInsertion(@TempDir Path tempDir) {
+        RemmDaoPositionScores instance = newInstance(tempDir);
+        assertThat(remmScore(instance.getPathogenicityData(variant(1, 2, "A", "ATTT"))), closeTo(1.0, TOLERANCE));
+    }
+
+    @Test
+    void getPathogenicityDataDeletion(@TempDir Path tempDir) {
+        RemmDaoPositionScores instance = newInstance(tempDir);
+        assertThat(remmScore(instance.getPathogenicityData(variant(1, 1, "ATTT", "A"))), closeTo(1.0, TOLERANCE));
+        // positions past the end of the chromosome are ignored
+        assertThat(remmScore(instance.getPathogenicityData(variant(1, 4, "ATTT", "A"))), closeTo(0.0, TOLERANCE));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.tribble.readers.TabixReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class SweepingTabixReaderAdaptorTest {
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+
+    /**
+     * Writes a CADD-like file with three lines per position for a random selection of positions on chromosomes 1
+     * and 2, along with its tabix index.
+     */
+    private static Path writeTabixFile(Path directory) throws IOException {
+        Path tabixPath = directory.resolve("test.tsv.gz");
+        TabixIndexCreator indexCreator = new TabixIndexCreator(new TabixFormat(TabixFormat.GENERIC_FLAGS, 1, 2, 2, '#', 0));
+        Random random = new Random(42);
+        try (BlockCompressedOutputStream outputStream = new BlockCompressedOutputStream(tabixPath.toFile())) {
+            outputStream.write("#Chrom\tPos\tRef\tAlt\tRawScore\tPHRED\n".getBytes(StandardCharsets.US_ASCII));
+            for (int chr = 1; chr <= 2; chr++) {
+                for (int position = 1; position < 50_000; position += 1 + random.nextInt(3)) {
+                    for (String alt : BASES) {
+                        String line = chr + "\t" + position + "\tN\t" + alt + "\t0.1\t" + random.nextInt(40) + "\n";
+                        indexCreator.addFeature(new SimpleFeature(String.valueOf(chr), position, position), outputStream.getFilePointer());
+                        outputStream.write(line.getBytes(StandardCharsets.US_ASCII));
+                    }
+                }
+            }
+            Index index = indexCreator.finalizeIndex(outputStream.getFilePointer());
+            index.writeBasedOnFeaturePath(tabixPath);
+        }
+        return tabixPath;
+    }
+
+    private static TabixReader tabixReader(Path tabixPath) throws IOException {
+        return new TabixReader(tabixPath.toAbsolutePath().toString());
+    }
+
+    private static List<String> readLines(TabixReader.Iterator iterator) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = iterator.next()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static List<String> randomQueries(Random random, int numQueries) {
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < numQueries; i++) {
+            int chr = 1 + random.nextInt(3);
+            int start = 1 + random.nextInt(51_000);
+            // mostly single positions, with the occasional REMM-style range
+            int end = random.nextInt(5) == 0 ? start + random.nextInt(10) : start;
+            queries.add(chr + ":" + start + "-" + end);
+        }
+        return queries;
+    }
+
+    private void assertSameResultsAsTabixReaderAdaptor(Path tabixPath, List<String> queries) throws IOException {
+        TabixDataSource expectedDataSource = new TabixReaderAdaptor(tabixReader(tabixPath));
+        TabixDataSource instance = new SweepingTabixReaderAdaptor(tabixReader(tabixPath));
+        for (String query : queries) {
+            assertThat(query, readLines(instance.query(query)), equalTo(readLines(expectedDataSource.query(query))));
+        }
+        instance.close();
+        expectedDataSource.close();
+    }
+
+    @Test
+    void sortedQueriesReturnSameLinesAsTabixReaderAdaptor(@TempDir Path tempDir) throws IOException {
+        Path tabixPath = writeTabixFile(tempDir);
+        List<String> queries = randomQueries(new Random(1), 1_000);
+        queries.sort((a, b) -> {
+            int chrComparison = a.substring(0, a.indexOf(':')).compareTo(b.substring(0, b.indexOf(':')));
+            if (chrComparison != 0) {
+                return chrComparison;
+            }
+            return Integer.compare(Integer.parseInt(a.substring(a.indexOf(':') + 1, a.indexOf('-'))), Integer.parseInt(b.substring(b.indexOf(':') + 1, b.indexOf('-'))));
+        });
+        assertSameResultsAsTabixReaderAdaptor(tabixPath, queries);
+    }
+
+    @Test
+    void unsortedQueriesReturnSameLinesAsTabixReaderAdaptor(@TempDir Path tempDir) throws IOException {
+        Path tabixPath = writeTabixFile(tempDir);
+        List<String> queries = randomQueries(new Random(2), 500);
+        // repeated and overlapping queries
+        queries.add("1:200-200");
+        queries.add("1:200-200");
+        queries.add("1:199-203");
+        queries.add("1:201-201");
+        Collections.shuffle(queries, new Random(3));
+        assertSameResultsAsTabixReaderAdaptor(tabixPath, queries);
+    }
+
+    @Test
+    void nearbySortedQueriesReadFromSingleIterator() throws IOException {
+        TabixReader tabixReader = Mockito.mock(TabixReader.class);
+        Mockito.when(tabixReader.query(anyString(), anyInt(), anyInt())).thenReturn(MockTabixIterator.of(
+                "1\t10\tA\tT\t0.1\t1.0",
+                "1\t12\tA\tC\t0.1\t2.0",
+                "1\t12\tA\tG\t0.1\t3.0",
+                "1\t15\tA\tT\t0.1\t4.0"
+        ));
+        TabixDataSource instance = new SweepingTabixReaderAdaptor(tabixReader);
+
+        assertThat(readLines(instance.query("1:10-10")), equalTo(Collections.singletonList("1\t10\tA\tT\t0.1\t1.0")));
+        assertThat(readLines(instance.query("1:11-11")), equalTo(Collections.emptyList()));
+        assertThat(readLines(instance.query("1:12-15")), equalTo(Arrays.asList("1\t12\tA\tC\t0.1\t2.0", "1\t12\tA\tG\t0.1\t3.0", "1\t15\tA\tT\t0.1\t4.0")));
+        assertThat(readLines(instance.query("1:16-16")), equalTo(Collections.emptyList()));
+
+        verify(tabixReader, times(1)).query(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void queriesNotInRegionFormAreDelegatedToReader() throws IOException {
+        TabixReader tabixReader = Mockito.mock(TabixReader.class);
+        Mockito.when(tabixReader.query("1")).thenReturn(MockTabixIterator.of("1\t10\tA\tT\t0.1\t1.0"));
+        TabixDataSource instance = new SweepingTabixReaderAdaptor(tabixReader);
+
+        assertThat(readLines(instance.query("1")), equalTo(Collections.singletonList("1\t10\tA\tT\t0.1\t1.0")));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import com.google.common.hash.BloomFilter;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class AlleleKeyBloomFilterTest {
+
+    private static AlleleKey alleleKey(int chr, int position, String ref, String alt) {
+        return AlleleKey.newBuilder().setChr(chr).setPosition(position).setRef(ref).setAlt(alt).build();
+    }
+
+    @Test
+    void buildFromProtobufKeyStore() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(mvStore);
+        map.put(alleleKey(1, 12345, "A", "T"), AlleleProperties.getDefaultInstance());
+        map.put(alleleKey(23, 12345, "AT", "G"), AlleleProperties.getDefaultInstance());
+
+        BloomFilter<AlleleKey> instance = AlleleKeyBloomFilter.buildFrom(mvStore);
+        assertThat(instance.mightContain(alleleKey(1, 12345, "A", "T")), is(true));
+        assertThat(instance.mightContain(alleleKey(23, 12345, "AT", "G")), is(true));
+        assertThat(instance.mightContain(alleleKey(1, 12345, "A", "G")), is(false));
+        // the ref/alt boundary is part of the key
+        assertThat(instance.mightContain(alleleKey(23, 12345, "A", "TG")), is(false));
+    }
+
+    @Test
+    void buildFromBinaryKeyStore() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+        map.put(BinaryAlleleKeyDataType.toBytes(alleleKey(1, 12345, "A", "T")), AlleleProperties.getDefaultInstance());
+
+        BloomFilter<AlleleKey> instance = AlleleKeyBloomFilter.buildFrom(mvStore);
+        assertThat(instance.mightContain(alleleKey(1, 12345, "A", "T")), is(true));
+        assertThat(instance.mightContain(alleleKey(1, 12346, "A", "T")), is(false));
+    }
+
+    private static MVStore newStoreWithKeys(int numKeys) {
+        MVStore mvStore = new MVStore.Builder().open();
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(mvStore);
+        for (int position = 0; position < numKeys; position++) {
+            map.put(alleleKey(1, position, "A", "T"), AlleleProperties.getDefaultInstance());
+        }
+        return mvStore;
+    }
+
+    @Test
+    void writeToAndReadFrom(@TempDir Path tempDir) {
+        MVStore mvStore = newStoreWithKeys(1000);
+        BloomFilter<AlleleKey> bloomFilter = AlleleKeyBloomFilter.buildFrom(mvStore);
+        Path filterPath = tempDir.resolve("test" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        AlleleKeyBloomFilter.writeTo(bloomFilter, mvStore, filterPath);
+
+        BloomFilter<AlleleKey> instance = AlleleKeyBloomFilter.readFrom(filterPath, mvStore);
+        assertThat(instance, is(bloomFilter));
+        for (int position = 0; position < 1000; position++) {
+            assertThat(instance.mightContain(alleleKey(1, position, "A", "T")), is(true));
+        }
+    }
+
+    @Test
+    void readFromStillMatchesStoreConvertedToBinaryKeys(@TempDir Path tempDir) {
+        MVStore mvStore = newStoreWithKeys(10);
+        Path filterPath = tempDir.resolve("test" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        AlleleKeyBloomFilter.writeTo(AlleleKeyBloomFilter.buildFrom(mvStore), mvStore, filterPath);
+
+        MVStore binaryStore = new MVStore.Builder().open();
+        MVMap<byte[], AlleleProperties> binaryMap = MvStoreUtil.openBinaryAlleleMVMap(binaryStore);
+        MvStoreUtil.openAlleleMVMap(mvStore).keySet().forEach(key -> binaryMap.put(BinaryAlleleKeyDataType.toBytes(key), AlleleProperties.getDefaultInstance()));
+
+        BloomFilter<AlleleKey> instance = AlleleKeyBloomFilter.readFrom(filterPath, binaryStore);
+        assertThat(instance.mightContain(alleleKey(1, 9, "A", "T")), is(true));
+    }
+
+    @Test
+    void readFromThrowsExceptionWhenStoreHasDifferentNumberOfKeys(@TempDir Path tempDir) {
+        MVStore mvStore = newStoreWithKeys(10);
+        Path filterPath = tempDir.resolve("test" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        AlleleKeyBloomFilter.writeTo(AlleleKeyBloomFilter.buildFrom(mvStore), mvStore, filterPath);
+
+        MVStore otherStore = newStoreWithKeys(11);
+        assertThrows(AlleleKeyBloomFilter.AlleleKeyFilterException.class, () -> AlleleKeyBloomFilter.readFrom(filterPath, otherStore));
+    }
+
+    @Test
+    void readFromThrowsExceptionWhenStoreHasDifferentKeys(@TempDir Path tempDir) {
+        MVStore mvStore = newStoreWithKeys(10);
+        Path filterPath = tempDir.resolve("test" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        AlleleKeyBloomFilter.writeTo(AlleleKeyBloomFilter.buildFrom(mvStore), mvStore, filterPath);
+
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(mvStore);
+        map.remove(alleleKey(1, 9, "A", "T"));
+        map.put(alleleKey(2, 1, "A", "T"), AlleleProperties.getDefaultInstance());
+        assertThrows(AlleleKeyBloomFilter.AlleleKeyFilterException.class, () -> AlleleKeyBloomFilter.readFrom(filterPath, mvStore));
+    }
+
+    @Test
+    void readFromThrowsExceptionForFilterWithoutHeader(@TempDir Path tempDir) throws Exception {
+        MVStore mvStore = newStoreWithKeys(10);
+        Path filterPath = tempDir.resolve("test" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        try (OutputStream outputStream = Files.newOutputStream(filterPath)) {
+            AlleleKeyBloomFilter.buildFrom(mvStore).writeTo(outputStream);
+        }
+        assertThrows(AlleleKeyBloomFilter.AlleleKeyFilterException.class, () -> AlleleKeyBloomFilter.readFrom(filterPath, mvStore));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.h2.mvstore.WriteBuffer;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class BinaryAlleleKeyDataTypeTest {
+
+    private final BinaryAlleleKeyDataType instance = BinaryAlleleKeyDataType.INSTANCE;
+
+    private static AlleleKey alleleKey(int chr, int pos, String ref, String alt) {
+        return AlleleKey.newBuilder()
+                .setChr(chr)
+                .setPosition(pos)
+                .setRef(ref)
+                .setAlt(alt)
+                .build();
+    }
+
+    @Test
+    void roundTripAlleleKey() {
+        AlleleKey alleleKey = alleleKey(25, 249_250_621, "ACGT", "A");
+        assertThat(BinaryAlleleKeyDataType.toAlleleKey(BinaryAlleleKeyDataType.toBytes(alleleKey)), equalTo(alleleKey));
+    }
+
+    @Test
+    void roundTripAlleleKeyEmptyAlleles() {
+        AlleleKey alleleKey = alleleKey(1, 0, "", "");
+        assertThat(BinaryAlleleKeyDataType.toAlleleKey(BinaryAlleleKeyDataType.toBytes(alleleKey)), equalTo(alleleKey));
+    }
+
+    @Test
+    void writeRead() {
+        byte[] key = BinaryAlleleKeyDataType.toBytes(alleleKey(1, 12345, "A", "T"));
+        WriteBuffer writeBuffer = new WriteBuffer();
+        instance.write(writeBuffer, key);
+        ByteBuffer readBuffer = writeBuffer.getBuffer();
+        readBuffer.flip();
+        assertThat(instance.read(readBuffer), equalTo(key));
+    }
+
+    @Test
+    void compareSortsInSameOrderAsAlleleKeyDataType() {
+        String[] alleles = {"A", "AA", "AC", "ACG", "C", "G", "GT", "T", "TA"};
+        Random random = new Random(42);
+        List<AlleleKey> alleleKeys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            alleleKeys.add(alleleKey(1 + random.nextInt(3), random.nextInt(5), alleles[random.nextInt(alleles.length)], alleles[random.nextInt(alleles.length)]));
+        }
+        alleleKeys.add(alleleKey(1, Integer.MAX_VALUE, "A", "T"));
+
+        for (int i = 1; i < alleleKeys.size(); i++) {
+            AlleleKey a = alleleKeys.get(i - 1);
+            AlleleKey b = alleleKeys.get(i);
+            int expected = Integer.signum(AlleleKeyDataType.INSTANCE.compare(a, b));
+            int actual = Integer.signum(instance.compare(BinaryAlleleKeyDataType.toBytes(a), BinaryAlleleKeyDataType.toBytes(b)));
+            assertThat(a + " vs " + b, actual, equalTo(expected));
+        }
+    }
+}
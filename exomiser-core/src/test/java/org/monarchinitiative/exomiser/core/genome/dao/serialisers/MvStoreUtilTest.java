@@ -49,4 +49,39 @@ public void alleleMapBuilder() throws Exception {
         assertThat(alleleMapBuilder.getKeyType(), equalTo(AlleleKeyDataType.INSTANCE));
         assertThat(alleleMapBuilder.getValueType(), equalTo(AllelePropertiesDataType.INSTANCE));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void openBinaryAlleleMVMap() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+        assertThat(map.isEmpty(), is(true));
+        assertThat(mvStore.hasMap("alleles_binary"), is(true));
+    }
+
+    @Test
+    public void binaryAlleleMapBuilder() {
+        MVMap.Builder<byte[], AlleleProperties> alleleMapBuilder = MvStoreUtil.binaryAlleleMapBuilder();
+        assertThat(alleleMapBuilder.getKeyType(), equalTo(BinaryAlleleKeyDataType.INSTANCE));
+        assertThat(alleleMapBuilder.getValueType(), equalTo(AllelePropertiesDataType.INSTANCE));
+    }
+
+    @Test
+    public void detectAlleleKeyFormatEmptyStore() {
+        MVStore mvStore = new MVStore.Builder().open();
+        assertThat(MvStoreUtil.detectAlleleKeyFormat(mvStore), equalTo(AlleleKeyFormat.PROTOBUF));
+    }
+
+    @Test
+    public void detectAlleleKeyFormatProtobuf() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MvStoreUtil.openAlleleMVMap(mvStore);
+        assertThat(MvStoreUtil.detectAlleleKeyFormat(mvStore), equalTo(AlleleKeyFormat.PROTOBUF));
+    }
+
+    @Test
+    public void detectAlleleKeyFormatBinary() {
+        MVStore mvStore = new MVStore.Builder().open();
+        MvStoreUtil.openBinaryAlleleMVMap(mvStore);
+        assertThat(MvStoreUtil.detectAlleleKeyFormat(mvStore), equalTo(AlleleKeyFormat.BINARY));
+    }
+}
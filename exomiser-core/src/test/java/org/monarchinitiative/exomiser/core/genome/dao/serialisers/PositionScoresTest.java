@@ -0,0 +1,140 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.dao.serialisers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class PositionScoresTest {
+
+    private static final double REMM_TOLERANCE = 0.5 / PositionScoreFormat.MAX_QUANTISED_VALUE;
+
+    @Test
+    void writeAndReadSingleSlotScores(@TempDir Path tempDir) {
+        Path scoresPath = tempDir.resolve("remm.scores");
+        try (PositionScoreWriter writer = new PositionScoreWriter(scoresPath, 1, 0f, 1f)) {
+            writer.write(1, 100, 0, 0.123f);
+            writer.write(1, 101, 0, 1f);
+            writer.write(1, 105, 0, 0f);
+            writer.write(2, 50, 0, 0.5f);
+            writer.write(23, 1_000_000, 0, 0.999f);
+        }
+        PositionScores instance = PositionScores.open(scoresPath);
+        assertThat(instance.getSlotsPerPosition(), equalTo(1));
+        assertThat((double) instance.getScore(1, 100, 0), closeTo(0.123, REMM_TOLERANCE));
+        assertThat((double) instance.getScore(1, 101, 0), closeTo(1.0, REMM_TOLERANCE));
+        assertThat((double) instance.getScore(1, 105, 0), closeTo(0.0, REMM_TOLERANCE));
+        assertThat((double) instance.getScore(2, 50, 0), closeTo(0.5, REMM_TOLERANCE));
+        assertThat((double) instance.getScore(23, 1_000_000, 0), closeTo(0.999, REMM_TOLERANCE));
+        // gaps and positions outside the chromosomes have no score
+        assertThat(Float.isNaN(instance.getScore(1, 102, 0)), is(true));
+        assertThat(Float.isNaN(instance.getScore(1, 99, 0)), is(true));
+        assertThat(Float.isNaN(instance.getScore(1, 106, 0)), is(true));
+        assertThat(Float.isNaN(instance.getScore(3, 100, 0)), is(true));
+        assertThat(Float.isNaN(instance.getScore(1, 100, 1)), is(true));
+    }
+
+    @Test
+    void writeAndReadMultipleSlotScores(@TempDir Path tempDir) {
+        Path scoresPath = tempDir.resolve("cadd.scores");
+        try (PositionScoreWriter writer = new PositionScoreWriter(scoresPath, 3, 0f, 100f)) {
+            writer.write(1, 10, 0, 1.234f);
+            writer.write(1, 10, 2, 99.9f);
+            writer.write(1, 12, 1, 23.456f);
+            // the maximum is kept for duplicate scores
+            writer.write(1, 12, 1, 12.0f);
+        }
+        PositionScores instance = PositionScores.open(scoresPath);
+        double tolerance = 50.0 / PositionScoreFormat.MAX_QUANTISED_VALUE;
+        assertThat((double) instance.getScore(1, 10, 0), closeTo(1.234, tolerance));
+        assertThat(Float.isNaN(instance.getScore(1, 10, 1)), is(true));
+        assertThat((double) instance.getScore(1, 10, 2), closeTo(99.9, tolerance));
+        assertThat(Float.isNaN(instance.getScore(1, 11, 0)), is(true));
+        assertThat((double) instance.getScore(1, 12, 1), closeTo(23.456, tolerance));
+    }
+
+    @Test
+    void scoresOutsideRangeAreClamped(@TempDir Path tempDir) {
+        Path scoresPath = tempDir.resolve("remm.scores");
+        try (PositionScoreWriter writer = new PositionScoreWriter(scoresPath, 1, 0f, 1f)) {
+            writer.write(1, 1, 0, -1f);
+            writer.write(1, 2, 0, 2f);
+        }
+        PositionScores instance = PositionScores.open(scoresPath);
+        assertThat((double) instance.getScore(1, 1, 0), closeTo(0.0, REMM_TOLERANCE));
+        assertThat((double) instance.getScore(1, 2, 0), closeTo(1.0, REMM_TOLERANCE));
+    }
+
+    @Test
+    void throwsExceptionWhenPositionsAreOutOfOrder(@TempDir Path tempDir) {
+        PositionScoreWriter writer = new PositionScoreWriter(tempDir.resolve("remm.scores"), 1, 0f, 1f);
+        writer.write(1, 100, 0, 0.5f);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(1, 99, 0, 0.5f));
+        writer.write(2, 1, 0, 0.5f);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(1, 200, 0, 0.5f));
+        assertThrows(IllegalArgumentException.class, () -> writer.write(2, 2, 1, 0.5f));
+        writer.close();
+    }
+
+    @Test
+    void throwsExceptionForFileInWrongFormat(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("wrong.scores");
+        Files.write(path, new byte[64]);
+        assertThrows(RuntimeException.class, () -> PositionScores.open(path));
+    }
+
+    @Test
+    void scoresPathFor() {
+        assertThat(PositionScoreFormat.scoresPathFor(Paths.get("data/ReMM.v0.3.1.tsv.gz")), equalTo(Paths.get("data/ReMM.v0.3.1.scores")));
+        assertThat(PositionScoreFormat.scoresPathFor(Paths.get("data/remm.gz")), equalTo(Paths.get("data/remm.gz.scores")));
+    }
+
+    @Test
+    void snvSlot() {
+        assertThat(PositionScoreFormat.snvSlot("A", "C"), equalTo(0));
+        assertThat(PositionScoreFormat.snvSlot("A", "G"), equalTo(1));
+        assertThat(PositionScoreFormat.snvSlot("A", "T"), equalTo(2));
+        assertThat(PositionScoreFormat.snvSlot("G", "A"), equalTo(0));
+        assertThat(PositionScoreFormat.snvSlot("G", "C"), equalTo(1));
+        assertThat(PositionScoreFormat.snvSlot("G", "T"), equalTo(2));
+        assertThat(PositionScoreFormat.snvSlot("T", "G"), equalTo(2));
+        assertThat(PositionScoreFormat.snvSlot("A", "A"), equalTo(-1));
+        assertThat(PositionScoreFormat.snvSlot("A", "N"), equalTo(-1));
+        assertThat(PositionScoreFormat.snvSlot("A", "AT"), equalTo(-1));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.genome.jannovar;
+
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.TestFactory;
+import org.monarchinitiative.exomiser.core.proto.JannovarProto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class ChunkedJannovarDataTest {
+
+    private static final JannovarData TEST_DATA = TestFactory.buildDefaultJannovarData();
+
+    private static ChunkedJannovarData writeAndOpen(Path tempDir) {
+        Path chunkedPath = tempDir.resolve("transcripts.chunks");
+        ChunkedJannovarData.write(chunkedPath, TEST_DATA);
+        return ChunkedJannovarData.open(chunkedPath);
+    }
+
+    @Test
+    void chunkedPathFor() {
+        assertThat(ChunkedJannovarData.chunkedPathFor(Paths.get("data/1902_hg19_transcripts_ensembl.ser")), equalTo(Paths.get("data/1902_hg19_transcripts_ensembl.chunks")));
+    }
+
+    @Test
+    void referenceDictionary(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        assertThat(instance.getRefDict().getContigNameToID(), equalTo(TEST_DATA.getRefDict().getContigNameToID()));
+        assertThat(instance.getRefDict().getContigIDToName(), equalTo(TEST_DATA.getRefDict().getContigIDToName()));
+        assertThat(instance.getRefDict().getContigIDToLength(), equalTo(TEST_DATA.getRefDict().getContigIDToLength()));
+    }
+
+    @Test
+    void chromosomeIds(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        Set<Integer> chromosomesWithTranscripts = TEST_DATA.getChromosomes().values().stream()
+                .filter(chromosome -> chromosome.getNumberOfGenes() > 0)
+                .map(Chromosome::getChrID)
+                .collect(toSet());
+        assertThat(instance.getChromosomeIds(), equalTo(chromosomesWithTranscripts));
+        assertThat(instance.getTranscriptCount(), equalTo(TEST_DATA.getTmByAccession().size()));
+    }
+
+    @Test
+    void loadTranscriptModels(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        for (int chr : instance.getChromosomeIds()) {
+            List<TranscriptModel> transcriptModels = instance.loadTranscriptModels(chr);
+            assertThat(ImmutableSet.copyOf(transcriptModels), equalTo(TEST_DATA.getTmByAccession().values().stream()
+                    .filter(transcriptModel -> transcriptModel.getChr() == chr)
+                    .collect(toSet())));
+        }
+    }
+
+    @Test
+    void loadChromosome(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        int chr10 = TEST_DATA.getRefDict().getContigNameToID().get("10");
+        Chromosome chromosome = instance.loadChromosome(chr10).get();
+        assertThat(chromosome.getChrID(), equalTo(chr10));
+        assertThat(chromosome.getNumberOfGenes(), equalTo(TEST_DATA.getChromosomes().get(chr10).getNumberOfGenes()));
+    }
+
+    @Test
+    void loadChromosomeWithoutTranscripts(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        int chr2 = TEST_DATA.getRefDict().getContigNameToID().get("2");
+        assertThat(instance.loadTranscriptModels(chr2).isEmpty(), equalTo(true));
+        assertThat(instance.loadChromosome(chr2).get().getNumberOfGenes(), equalTo(0));
+    }
+
+    @Test
+    void loadChromosomeNotInReferenceDictionary(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        assertThat(instance.loadChromosome(1000), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void loadGeneTranscriptModels(@TempDir Path tempDir) {
+        ChunkedJannovarData instance = writeAndOpen(tempDir);
+        List<JannovarProto.TranscriptModel> geneTranscriptModels = instance.loadGeneTranscriptModels();
+        assertThat(geneTranscriptModels.stream().map(JannovarProto.TranscriptModel::getAccession).collect(toSet()), equalTo(TEST_DATA.getTmByAccession().keySet()));
+        assertThat(geneTranscriptModels.stream().map(JannovarProto.TranscriptModel::getGeneSymbol).collect(toSet()), equalTo(TEST_DATA.getTmByGeneSymbol().keySet()));
+        assertThat(geneTranscriptModels.stream().allMatch(transcriptModel -> transcriptModel.getSequence().isEmpty()), equalTo(true));
+    }
+
+    @Test
+    void toJannovarData(@TempDir Path tempDir) {
+        JannovarData jannovarData = writeAndOpen(tempDir).toJannovarData();
+        assertThat(jannovarData.getTmByAccession(), equalTo(TEST_DATA.getTmByAccession()));
+        assertThat(jannovarData.getTmByGeneSymbol().keySet(), equalTo(TEST_DATA.getTmByGeneSymbol().keySet()));
+        assertThat(jannovarData.getChromosomes().keySet(), equalTo(TEST_DATA.getChromosomes().keySet()));
+    }
+
+    @Test
+    void toJannovarDataFromMultipleBlocksPerChromosome(@TempDir Path tempDir) {
+        Path chunkedPath = tempDir.resolve("transcripts.chunks");
+        ChunkedJannovarData.write(chunkedPath, TEST_DATA, 1);
+        ChunkedJannovarData instance = ChunkedJannovarData.open(chunkedPath);
+        assertThat(instance.getBlockCount(), equalTo(TEST_DATA.getTmByAccession().size()));
+
+        int chr10 = TEST_DATA.getRefDict().getContigNameToID().get("10");
+        assertThat(instance.loadChromosome(chr10).get().getNumberOfGenes(), equalTo(TEST_DATA.getChromosomes().get(chr10).getNumberOfGenes()));
+
+        JannovarData jannovarData = instance.toJannovarData();
+        assertThat(jannovarData.getTmByAccession(), equalTo(TEST_DATA.getTmByAccession()));
+        assertThat(jannovarData.getTmByGeneSymbol().keySet(), equalTo(TEST_DATA.getTmByGeneSymbol().keySet()));
+    }
+
+    @Test
+    void openThrowsExceptionWithWrongFileType(@TempDir Path tempDir) throws IOException {
+        Path notChunked = Files.write(tempDir.resolve("transcripts.chunks"), "wibble".getBytes(StandardCharsets.UTF_8));
+        assertThrows(InvalidFileFormatException.class, () -> ChunkedJannovarData.open(notChunked));
+    }
+}
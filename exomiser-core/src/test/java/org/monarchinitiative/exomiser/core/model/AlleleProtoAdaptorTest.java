@@ -26,6 +26,7 @@
 import org.monarchinitiative.exomiser.core.model.frequency.Frequency;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencyData;
 import org.monarchinitiative.exomiser.core.model.frequency.FrequencySource;
+import org.monarchinitiative.exomiser.core.model.frequency.RsId;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.ClinVarData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityData;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.PathogenicityScore;
@@ -79,6 +80,48 @@ public void testToFreqData() {
         );
     }
 
+    @Test
+    public void testToFreqDataFromTypedProperties() {
+        AlleleProperties alleleProperties = AlleleProperties.newBuilder()
+                .setRsId("rs12345")
+                .setPropertiesMask(1L << AlleleProto.AlleleProperty.KG_VALUE | 1L << AlleleProto.AlleleProperty.GNOMAD_G_NFE_VALUE | 1L << AlleleProto.AlleleProperty.CADD_VALUE)
+                .addPropertyValues(0.7f)
+                .addPropertyValues(0.02f)
+                .addPropertyValues(25f)
+                .build();
+        assertThat(AlleleProtoAdaptor.toFrequencyData(alleleProperties),
+                equalTo(FrequencyData.of(RsId.of("rs12345"),
+                        Frequency.of(FrequencySource.THOUSAND_GENOMES, 0.7f),
+                        Frequency.of(FrequencySource.GNOMAD_G_NFE, 0.02f))
+                )
+        );
+    }
+
+    @Test
+    public void testToFreqDataFromTypedPropertiesMatchesMapProperties() {
+        AlleleProperties mapProperties = AlleleProperties.newBuilder()
+                .putProperties("UK10K", 0.1f)
+                .putProperties("EXAC_SAS", 0.2f)
+                .putProperties("ESP_ALL", 0.3f)
+                .putProperties("KG", 0.4f)
+                .putProperties("MVP", 0.5f)
+                .build();
+        AlleleProperties typedProperties = TypedAlleleProperties.setValues(AlleleProperties.newBuilder(), TypedAlleleProperties.toValueArray(mapProperties)).build();
+        assertThat(AlleleProtoAdaptor.toFrequencyData(typedProperties), equalTo(AlleleProtoAdaptor.toFrequencyData(mapProperties)));
+        assertThat(AlleleProtoAdaptor.toPathogenicityData(typedProperties), equalTo(AlleleProtoAdaptor.toPathogenicityData(mapProperties)));
+    }
+
+    @Test
+    public void testToPathDataFromTypedProperties() {
+        AlleleProperties alleleProperties = AlleleProperties.newBuilder()
+                .setPropertiesMask(1L << AlleleProto.AlleleProperty.KG_VALUE | 1L << AlleleProto.AlleleProperty.SIFT_VALUE | 1L << AlleleProto.AlleleProperty.REVEL_VALUE)
+                .addPropertyValues(0.7f)
+                .addPropertyValues(0.01f)
+                .addPropertyValues(0.9f)
+                .build();
+        assertThat(AlleleProtoAdaptor.toPathogenicityData(alleleProperties), equalTo(PathogenicityData.of(PathogenicityScore.of(SIFT, 0.01f), PathogenicityScore.of(REVEL, 0.9f))));
+    }
+
     @Test
     public void testToPathDataSift() {
         AlleleProperties alleleProperties = AlleleProperties.newBuilder().putProperties("SIFT", 0.2f).build();
@@ -174,4 +217,16 @@ public void parseClinVarData() {
                 .build();
         assertThat(AlleleProtoAdaptor.toPathogenicityData(alleleProperties), equalTo(PathogenicityData.of(expected)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testToAllelePropertiesFromEmptyPathogenicityData() {
+        assertThat(AlleleProtoAdaptor.toAlleleProperties(PathogenicityData.empty()), equalTo(AlleleProperties.getDefaultInstance()));
+    }
+
+    @Test
+    public void testToAllelePropertiesRoundTripsPathogenicityScores() {
+        PathogenicityData pathogenicityData = PathogenicityData.of(PathogenicityScore.of(CADD, 23.7f), PathogenicityScore.of(REMM, 0.7f), PathogenicityScore.of(DANN, 0.3f));
+        AlleleProperties alleleProperties = AlleleProtoAdaptor.toAlleleProperties(pathogenicityData);
+        assertThat(AlleleProtoAdaptor.toPathogenicityData(alleleProperties), equalTo(pathogenicityData));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2018 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.core.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class PackedSampleGenotypesTest {
+
+    private final Map<String, SampleGenotype> sampleGenotypes = ImmutableMap.<String, SampleGenotype>builder()
+            .put("Zaphod", SampleGenotype.het())
+            .put("Arthur", SampleGenotype.homRef())
+            .put("Ford", SampleGenotype.phased(AlleleCall.ALT, AlleleCall.REF))
+            .put("Trillian", SampleGenotype.of(AlleleCall.OTHER_ALT, AlleleCall.ALT))
+            .put("Marvin", SampleGenotype.noCall())
+            .put("Eddie", SampleGenotype.of(AlleleCall.ALT))
+            .put("Slartibartfast", SampleGenotype.empty())
+            .put("Agrajag", SampleGenotype.of(AlleleCall.REF, AlleleCall.ALT, AlleleCall.ALT))
+            .build();
+
+    @Test
+    void empty() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.empty();
+        assertThat(instance.isEmpty(), is(true));
+        assertThat(instance.size(), equalTo(0));
+        assertThat(instance.get("Zaphod"), equalTo(SampleGenotype.empty()));
+        assertThat(instance.toMap(), equalTo(ImmutableMap.of()));
+    }
+
+    @Test
+    void roundTripMaintainsOrderAndGenotypes() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.of(sampleGenotypes);
+
+        assertThat(instance.size(), equalTo(sampleGenotypes.size()));
+        assertThat(instance.getSampleNames(), equalTo(ImmutableList.copyOf(sampleGenotypes.keySet())));
+        assertThat(instance.toMap(), equalTo(sampleGenotypes));
+        assertThat(ImmutableList.copyOf(instance.toMap().keySet()), equalTo(ImmutableList.copyOf(sampleGenotypes.keySet())));
+        sampleGenotypes.forEach((sampleId, sampleGenotype) -> assertThat(instance.get(sampleId), equalTo(sampleGenotype)));
+    }
+
+    @Test
+    void getUnknownSampleReturnsEmpty() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.of(sampleGenotypes);
+        assertThat(instance.indexOf("Wibble"), equalTo(-1));
+        assertThat(instance.get("Wibble"), equalTo(SampleGenotype.empty()));
+        assertThat(instance.hasAltCall("Wibble"), is(false));
+    }
+
+    @Test
+    void hasAltCall() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.of(sampleGenotypes);
+        sampleGenotypes.forEach((sampleId, sampleGenotype) ->
+                assertThat(sampleId, instance.hasAltCall(sampleId), equalTo(sampleGenotype.getCalls().contains(AlleleCall.ALT))));
+    }
+
+    @Test
+    void getPloidyAndAlleleCall() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.of(sampleGenotypes);
+        int ford = instance.indexOf("Ford");
+        assertThat(instance.getPloidy(ford), equalTo(2));
+        assertThat(instance.getAlleleCall(ford, 0), equalTo(AlleleCall.ALT));
+        assertThat(instance.getAlleleCall(ford, 1), equalTo(AlleleCall.REF));
+
+        int agrajag = instance.indexOf("Agrajag");
+        assertThat(instance.getPloidy(agrajag), equalTo(3));
+        assertThat(instance.getAlleleCall(agrajag, 2), equalTo(AlleleCall.ALT));
+    }
+
+    @Test
+    void sampleNamesAreShared() {
+        PackedSampleGenotypes first = PackedSampleGenotypes.of(sampleGenotypes);
+        PackedSampleGenotypes second = PackedSampleGenotypes.of(sampleGenotypes);
+        assertThat(first.getSampleNames(), sameInstance(second.getSampleNames()));
+        assertThat(first, equalTo(second));
+    }
+
+    @Test
+    void throwsExceptionWithMismatchedSampleNamesAndGenotypes() {
+        assertThrows(IllegalArgumentException.class, () -> PackedSampleGenotypes.of(ImmutableList.of("Zaphod"), ImmutableList.of()));
+    }
+
+    @Test
+    void builderPacksAlleleCallsWithoutSampleGenotypes() {
+        PackedSampleGenotypes instance = PackedSampleGenotypes.builder(ImmutableList.of("Zaphod", "Ford", "Agrajag"))
+                .add(false, new AlleleCall[]{AlleleCall.REF, AlleleCall.ALT})
+                .add(true, new AlleleCall[]{AlleleCall.ALT, AlleleCall.REF})
+                .add(false, new AlleleCall[]{AlleleCall.REF, AlleleCall.ALT, AlleleCall.ALT})
+                .build();
+
+        Map<String, SampleGenotype> expected = ImmutableMap.of(
+                "Zaphod", SampleGenotype.het(),
+                "Ford", SampleGenotype.phased(AlleleCall.ALT, AlleleCall.REF),
+                "Agrajag", SampleGenotype.of(AlleleCall.REF, AlleleCall.ALT, AlleleCall.ALT)
+        );
+        assertThat(instance.toMap(), equalTo(expected));
+        assertThat(instance, equalTo(PackedSampleGenotypes.of(expected)));
+    }
+
+    @Test
+    void builderThrowsExceptionWithTooFewGenotypes() {
+        PackedSampleGenotypes.Builder builder = PackedSampleGenotypes.builder(ImmutableList.of("Zaphod", "Ford"))
+                .add(SampleGenotype.het());
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    void builderThrowsExceptionWithTooManyGenotypes() {
+        PackedSampleGenotypes.Builder builder = PackedSampleGenotypes.builder(ImmutableList.of("Zaphod"))
+                .add(SampleGenotype.het());
+        assertThrows(IllegalStateException.class, () -> builder.add(SampleGenotype.het()));
+    }
+}
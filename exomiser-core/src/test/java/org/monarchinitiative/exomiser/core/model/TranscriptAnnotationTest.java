@@ -23,6 +23,8 @@
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -90,6 +92,44 @@ public void testHgvsProteinString() {
         assertThat(annotation.getHgvsProtein(), equalTo(value));
     }
 
+    @Test
+    public void testHgvsFormatterIsOnlyCalledWhenHgvsIsRequested() {
+        AtomicInteger formatterCalls = new AtomicInteger();
+        TranscriptAnnotation annotation = TranscriptAnnotation.builder()
+                .hgvsFormatter(new TranscriptAnnotation.HgvsFormatter() {
+                    @Override
+                    public String formatHgvsGenomic() {
+                        formatterCalls.incrementAndGet();
+                        return "chr10:g.123256215T>G";
+                    }
+
+                    @Override
+                    public String formatHgvsCdna() {
+                        return "c.1694A>C";
+                    }
+
+                    @Override
+                    public String formatHgvsProtein() {
+                        return "p.(Glu565Ala)";
+                    }
+                })
+                .build();
+        assertThat(formatterCalls.get(), equalTo(0));
+
+        assertThat(annotation.getHgvsCdna(), equalTo("c.1694A>C"));
+        assertThat(annotation.getHgvsGenomic(), equalTo("chr10:g.123256215T>G"));
+        assertThat(annotation.getHgvsProtein(), equalTo("p.(Glu565Ala)"));
+        assertThat(formatterCalls.get(), equalTo(1));
+
+        TranscriptAnnotation eager = TranscriptAnnotation.builder()
+                .hgvsGenomic("chr10:g.123256215T>G")
+                .hgvsCdna("c.1694A>C")
+                .hgvsProtein("p.(Glu565Ala)")
+                .build();
+        assertThat(annotation, equalTo(eager));
+        assertThat(annotation.hashCode(), equalTo(eager.hashCode()));
+    }
+
     @Test
     public void testDistanceFromNearestGene() {
         int value = 0;
@@ -0,0 +1,100 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.core.model;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperty;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class TypedAllelePropertiesTest {
+
+    private static float[] emptyValues() {
+        float[] values = new float[TypedAlleleProperties.MAX_PROPERTIES];
+        Arrays.fill(values, Float.NaN);
+        return values;
+    }
+
+    @Test
+    void propertyNumber() {
+        assertThat(TypedAlleleProperties.propertyNumber("KG"), equalTo(AlleleProperty.KG_VALUE));
+        assertThat(TypedAlleleProperties.propertyNumber("PRIMATE_AI"), equalTo(AlleleProperty.PRIMATE_AI_VALUE));
+        assertThat(TypedAlleleProperties.propertyNumber("WIBBLE"), equalTo(-1));
+    }
+
+    @Test
+    void setValues() {
+        float[] values = emptyValues();
+        values[AlleleProperty.CADD_VALUE] = 25f;
+        values[AlleleProperty.TOPMED_VALUE] = 0.1f;
+
+        AlleleProperties expected = AlleleProperties.newBuilder()
+                .setPropertiesMask(1L << AlleleProperty.TOPMED_VALUE | 1L << AlleleProperty.CADD_VALUE)
+                .addPropertyValues(0.1f)
+                .addPropertyValues(25f)
+                .build();
+
+        AlleleProperties.Builder builder = AlleleProperties.newBuilder().putProperties("KG", 0.2f);
+        assertThat(TypedAlleleProperties.setValues(builder, values).build(), equalTo(expected));
+    }
+
+    @Test
+    void setValuesEmpty() {
+        AlleleProperties.Builder builder = AlleleProperties.newBuilder().putProperties("KG", 0.2f);
+        AlleleProperties alleleProperties = TypedAlleleProperties.setValues(builder, emptyValues()).build();
+        assertThat(alleleProperties, equalTo(AlleleProperties.getDefaultInstance()));
+        assertThat(TypedAlleleProperties.isTyped(alleleProperties), is(false));
+    }
+
+    @Test
+    void toValueArrayFromMapProperties() {
+        AlleleProperties alleleProperties = AlleleProperties.newBuilder()
+                .putProperties("KG", 0.2f)
+                .putProperties("REVEL", 0.8f)
+                .putProperties("WIBBLE", 1f)
+                .build();
+
+        float[] expected = emptyValues();
+        expected[AlleleProperty.KG_VALUE] = 0.2f;
+        expected[AlleleProperty.REVEL_VALUE] = 0.8f;
+        assertThat(TypedAlleleProperties.isTyped(alleleProperties), is(false));
+        assertThat(TypedAlleleProperties.toValueArray(alleleProperties), equalTo(expected));
+    }
+
+    @Test
+    void toValueArrayRoundTrip() {
+        float[] values = emptyValues();
+        values[AlleleProperty.KG_VALUE] = 0.2f;
+        values[AlleleProperty.GNOMAD_E_SAS_VALUE] = 0.002f;
+        values[AlleleProperty.PRIMATE_AI_VALUE] = 0.9f;
+
+        AlleleProperties alleleProperties = TypedAlleleProperties.setValues(AlleleProperties.newBuilder(), values).build();
+        assertThat(TypedAlleleProperties.isTyped(alleleProperties), is(true));
+        assertThat(TypedAlleleProperties.toValueArray(alleleProperties), equalTo(values));
+    }
+}
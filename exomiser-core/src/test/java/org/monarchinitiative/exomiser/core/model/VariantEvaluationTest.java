@@ -248,7 +248,7 @@ void testSampleGenotypeEmptyIsReplacedWithDefault() {
                 .sampleGenotypes(Collections.emptyMap())
                 .build();
 
-        assertThat(variantEvaluation.getSampleGenotypes(), equalTo(VariantEvaluation.Builder.SINGLE_SAMPLE_HET_GENOTYPE));
+        assertThat(variantEvaluation.getPackedSampleGenotypes(), equalTo(VariantEvaluation.Builder.SINGLE_SAMPLE_HET_GENOTYPE));
     }
 
     @Test
@@ -650,6 +650,35 @@ public void testPassesFilterIsFalseWhenFailedFilterResultAdded() {
         assertThat(instance.passedFilter(filterType), is(false));
     }
 
+    @Test
+    public void testAllFilterTypesCanBePassedAndFailed() {
+        for (FilterType filterType : FilterType.values()) {
+            instance.addFilterResult(FilterResult.pass(filterType));
+        }
+        assertThat(instance.getPassedFilterTypes(), equalTo(EnumSet.allOf(FilterType.class)));
+        assertThat(instance.getFailedFilterTypes().isEmpty(), is(true));
+
+        for (FilterType filterType : FilterType.values()) {
+            instance.addFilterResult(FilterResult.fail(filterType));
+        }
+        assertThat(instance.getFailedFilterTypes(), equalTo(EnumSet.allOf(FilterType.class)));
+        assertThat(instance.passedFilter(FilterType.QUALITY_FILTER), is(false));
+    }
+
+    @Test
+    public void testConcurrentlyAddedFilterResultsAreNotLost() {
+        List<FilterResult> filterResults = new ArrayList<>();
+        for (FilterType filterType : FilterType.values()) {
+            filterResults.add(filterType.ordinal() % 2 == 0 ? FilterResult.pass(filterType) : FilterResult.fail(filterType));
+        }
+        filterResults.parallelStream().forEach(instance::addFilterResult);
+
+        for (FilterResult filterResult : filterResults) {
+            assertThat(instance.passedFilter(filterResult.getFilterType()), is(filterResult.passed()));
+        }
+        assertThat(instance.getPassedFilterTypes().size() + instance.getFailedFilterTypes().size(), equalTo(FilterType.values().length));
+    }
+
     @Test
     public void testHasAnnotationsIsFalseByDefault() {
         assertThat(instance.hasTranscriptAnnotations(), is(false));
@@ -694,7 +723,26 @@ public void testBuilderVariantContext() {
         VariantEvaluation variantEvaluation = VariantEvaluation.builder(25, 1, "A", "T")
                 .variantContext(variantContext)
                 .build();
-        assertThat(variantEvaluation.getVariantContext(), equalTo(variantContext));
+        // the VariantContext is not retained, so a new, but equivalent, instance is returned
+        assertThat(variantEvaluation.getVariantContext().toStringDecodeGenotypes(), equalTo(variantContext.toStringDecodeGenotypes()));
+    }
+
+    @Test
+    public void testIsVcfFiltered() {
+        VariantContext variantContext = new VariantContextBuilder()
+                .source("Unknown")
+                .chr("1").start(1).stop(1).alleles("A", "T")
+                .filter("LowQual")
+                .make();
+        VariantEvaluation variantEvaluation = VariantEvaluation.builder(1, 1, "A", "T")
+                .variantContext(variantContext)
+                .build();
+        assertThat(variantEvaluation.isVcfFiltered(), is(true));
+    }
+
+    @Test
+    public void testIsNotVcfFilteredByDefault() {
+        assertThat(instance.isVcfFiltered(), is(false));
     }
 
     @Test
@@ -95,6 +95,21 @@ public void testSingleFrequencyValue() {
         assertThat(localFrequency.hasKnownFrequency(), is(true));
     }
 
+    @Test
+    public void testFromSourceAndValueArrays() {
+        FrequencySource[] sources = {ESP_ALL, THOUSAND_GENOMES, ESP_EUROPEAN_AMERICAN, ESP_AFRICAN_AMERICAN, null};
+        float[] values = {PASS_FREQ, PASS_FREQ, PASS_FREQ, PASS_FREQ, 0f};
+        FrequencyData instance = FrequencyData.of(RSID, sources, values, 4);
+        assertThat(instance, equalTo(FREQUENCY_DATA));
+    }
+
+    @Test
+    public void testFromEmptySourceAndValueArrays() {
+        FrequencyData instance = FrequencyData.of(RsId.empty(), new FrequencySource[0], new float[0], 0);
+        assertThat(instance, equalTo(FrequencyData.empty()));
+        assertThat(FrequencyData.of(RSID, new FrequencySource[0], new float[0], 0), equalTo(RS_ID_ONLY_DATA));
+    }
+
     @Test
     public void testInputWithNullValues() {
         List<Frequency> listWithNull = new ArrayList<>();
@@ -0,0 +1,135 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Converts an existing variants.mv.db with {@link AlleleKeyFormat#PROTOBUF} keys into a new store with
+ * {@link AlleleKeyFormat#BINARY} keys. The {@link AlleleProperties} are copied as-is. Use {@link #convertInPlace(Path)}
+ * to replace the original store with the converted one, so that it is picked up by an existing exomiser installation
+ * without any changes to the configuration.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class BinaryAlleleKeyConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryAlleleKeyConverter.class);
+
+    private final Path sourcePath;
+    private final Path outputPath;
+
+    public BinaryAlleleKeyConverter(Path sourcePath, Path outputPath) {
+        this.sourcePath = sourcePath;
+        this.outputPath = outputPath;
+    }
+
+    public void run() {
+        MVStore sourceStore = new MVStore.Builder()
+                .fileName(sourcePath.toString())
+                .readOnly()
+                .open();
+        try {
+            AlleleKeyFormat sourceFormat = MvStoreUtil.detectAlleleKeyFormat(sourceStore);
+            if (sourceFormat != AlleleKeyFormat.PROTOBUF) {
+                throw new IllegalArgumentException(String.format("Unable to convert %s - expected %s allele keys but found %s", sourcePath, AlleleKeyFormat.PROTOBUF, sourceFormat));
+            }
+
+            MVStore outputStore = new MVStore.Builder()
+                    .fileName(outputPath.toString())
+                    .compress()
+                    .open();
+            try {
+                copyToBinaryMap(sourceStore, outputStore);
+            } finally {
+                outputStore.close();
+            }
+        } finally {
+            sourceStore.close();
+        }
+    }
+
+    /**
+     * Converts the store at the given path, replacing it with the converted store. The new store is written to a
+     * temporary file in the same directory which is then moved over the original, so that the original remains intact
+     * should the conversion fail part-way through.
+     *
+     * @param variantsPath path of the variants.mv.db to convert
+     */
+    public static void convertInPlace(Path variantsPath) {
+        String fileName = variantsPath.getFileName().toString().replace(".mv.db", "");
+        Path tempPath = variantsPath.resolveSibling(fileName + "_binary.tmp");
+        try {
+            new BinaryAlleleKeyConverter(variantsPath, tempPath).run();
+            Files.move(tempPath, variantsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to replace " + variantsPath + " with converted store " + tempPath, e);
+        } finally {
+            deleteIfExists(tempPath);
+        }
+    }
+
+    private static void deleteIfExists(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Unable to delete {}", path, e);
+        }
+    }
+
+    /**
+     * Copies the alleles from the protobuf keyed map of the source store to the binary keyed map of the target store.
+     * As both key formats sort in the same order the entries are appended to the new map in key order.
+     *
+     * @return the number of alleles copied
+     */
+    static long copyToBinaryMap(MVStore sourceStore, MVStore targetStore) {
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(sourceStore);
+        MVMap<byte[], AlleleProperties> binaryMap = MvStoreUtil.openBinaryAlleleMVMap(targetStore);
+
+        logger.info("Converting {} entries from {} to binary keys", map.size(), sourceStore.getFileStore() == null ? "in-memory store" : sourceStore.getFileStore().getFileName());
+        long count = 0;
+        for (Map.Entry<AlleleKey, AlleleProperties> entry : map.entrySet()) {
+            binaryMap.put(BinaryAlleleKeyDataType.toBytes(entry.getKey()), entry.getValue());
+            count++;
+            if (count % 10000000 == 0) {
+                logger.info("Written {} alleles", count);
+            }
+        }
+        logger.info("Finished converting {} entries to new map", binaryMap.size());
+        return count;
+    }
+}
@@ -20,7 +20,12 @@
 
 package org.monarchinitiative.exomiser.data.genome;
 
+import org.h2.mvstore.MVStore;
 import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
 import org.monarchinitiative.exomiser.core.genome.jannovar.JannovarDataFactory;
 import org.monarchinitiative.exomiser.data.genome.model.AlleleResource;
 import org.monarchinitiative.exomiser.data.genome.model.BuildInfo;
@@ -32,6 +37,7 @@
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -76,6 +82,37 @@ public void run(ApplicationArguments args) throws Exception {
         // --version=1711
         // --resources=exac,gnomad-exome
         // --build-dir=
+        // --binary-allele-keys
+        // --convert-allele-keys=/path/to/1811_hg19_variants.mv.db (replaces the original file)
+        // --write-columnar-alleles=/path/to/1811_hg19_variants.mv.db
+        // --write-allele-key-filter=/path/to/1811_hg19_variants.mv.db
+        // --write-remm-scores=/path/to/ReMM.v0.3.1.tsv.gz
+        // --write-cadd-snv-scores=/path/to/whole_genome_SNVs.tsv.gz
+
+        if (args.containsOption("convert-allele-keys")) {
+            convertAlleleKeys(Paths.get(args.getOptionValues("convert-allele-keys").get(0)));
+            return;
+        }
+
+        if (args.containsOption("write-columnar-alleles")) {
+            writeColumnarAlleles(Paths.get(args.getOptionValues("write-columnar-alleles").get(0)));
+            return;
+        }
+
+        if (args.containsOption("write-allele-key-filter")) {
+            writeAlleleKeyFilter(Paths.get(args.getOptionValues("write-allele-key-filter").get(0)));
+            return;
+        }
+
+        if (args.containsOption("write-remm-scores")) {
+            writePositionScores(PositionScoreConverter.ScoreType.REMM, Paths.get(args.getOptionValues("write-remm-scores").get(0)));
+            return;
+        }
+
+        if (args.containsOption("write-cadd-snv-scores")) {
+            writePositionScores(PositionScoreConverter.ScoreType.CADD_SNV, Paths.get(args.getOptionValues("write-cadd-snv-scores").get(0)));
+            return;
+        }
 
         if (!args.containsOption("assembly")){
             throw new IllegalArgumentException("Missing assembly argument");
@@ -118,7 +155,9 @@ public void run(ApplicationArguments args) throws Exception {
         clinVarWhiteListBuildRunner.run();
 
         logger.info("Building variant database...");
-        VariantDatabaseBuildRunner variantDatabaseBuildRunner = new VariantDatabaseBuildRunner(buildInfo, outPath, userDefinedAlleleResources);
+        AlleleKeyFormat alleleKeyFormat = args.containsOption("binary-allele-keys") ? AlleleKeyFormat.BINARY : AlleleKeyFormat.PROTOBUF;
+        logger.info("Using {} allele keys", alleleKeyFormat);
+        VariantDatabaseBuildRunner variantDatabaseBuildRunner = new VariantDatabaseBuildRunner(buildInfo, outPath, userDefinedAlleleResources, alleleKeyFormat);
         variantDatabaseBuildRunner.run();
 
         logger.info("Building genome database...");
@@ -128,6 +167,43 @@ public void run(ApplicationArguments args) throws Exception {
         logger.info("Finished build {}", buildInfo.getBuildString());
     }
 
+    // The store is converted in place as the exomiser expects to find it at the same path, with the format of the
+    // keys being detected when it is opened.
+    private void convertAlleleKeys(Path variantsPath) {
+        logger.info("Converting {} to binary allele keys", variantsPath);
+        BinaryAlleleKeyConverter.convertInPlace(variantsPath);
+        logger.info("Finished converting {}", variantsPath);
+    }
+
+    private void writeColumnarAlleles(Path variantsPath) {
+        String fileName = variantsPath.getFileName().toString().replace(".mv.db", "");
+        Path outputPath = variantsPath.resolveSibling(fileName + ColumnarAlleleFormat.FILE_EXTENSION);
+        logger.info("Writing columnar allele store {} from {}", outputPath, variantsPath);
+        ColumnarAlleleStoreConverter columnarAlleleStoreConverter = new ColumnarAlleleStoreConverter(variantsPath, outputPath);
+        columnarAlleleStoreConverter.run();
+        logger.info("Finished writing {}", outputPath);
+    }
+
+    private void writeAlleleKeyFilter(Path variantsPath) {
+        String fileName = variantsPath.getFileName().toString().replace(".mv.db", "");
+        Path outputPath = variantsPath.resolveSibling(fileName + AlleleKeyBloomFilter.FILE_EXTENSION);
+        logger.info("Writing allele key filter {} from {}", outputPath, variantsPath);
+        MVStore mvStore = new MVStore.Builder()
+                .fileName(variantsPath.toAbsolutePath().toString())
+                .readOnly()
+                .open();
+        AlleleKeyBloomFilter.writeTo(AlleleKeyBloomFilter.buildFrom(mvStore), mvStore, outputPath);
+        mvStore.close();
+        logger.info("Finished writing {}", outputPath);
+    }
+
+    private void writePositionScores(PositionScoreConverter.ScoreType scoreType, Path tabixPath) {
+        Path outputPath = PositionScoreFormat.scoresPathFor(tabixPath);
+        PositionScoreConverter positionScoreConverter = new PositionScoreConverter(scoreType, tabixPath, outputPath);
+        positionScoreConverter.run();
+        logger.info("Finished writing {}", outputPath);
+    }
+
     private Path getGenomePathForAssembly(GenomeAssembly genomeAssembly) {
         return genomeAssembly == GenomeAssembly.HG19 ? this.hg19GenomePath : this.hg38GenomePath;
     }
@@ -27,6 +27,7 @@
 import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.tribble.index.tabix.TabixIndex;
 import htsjdk.tribble.readers.LineIterator;
+import org.monarchinitiative.exomiser.core.genome.dao.PackedVariantWhiteList;
 import org.monarchinitiative.exomiser.data.genome.indexers.AlleleIndexer;
 import org.monarchinitiative.exomiser.data.genome.indexers.ClinVarWhiteListFileAlleleIndexer;
 import org.monarchinitiative.exomiser.data.genome.model.AlleleResource;
@@ -82,6 +83,12 @@ public void run() {
         } catch (IOException e) {
             logger.error("Unable to write tabix index. {}", e);
         }
+
+        // write the binary version of the whitelist which is loaded in preference to the gzipped text file
+        Path binaryWhiteListPath = PackedVariantWhiteList.binaryPathFor(whiteListBgZipPath);
+        PackedVariantWhiteList whiteList = PackedVariantWhiteList.readFromTsvGz(whiteListBgZipPath);
+        whiteList.writeTo(binaryWhiteListPath, whiteListBgZipPath);
+        logger.info("Written {} whitelist variants to {}", whiteList.size(), binaryWhiteListPath);
     }
 
     private static class ExomiserTabixCodec extends AsciiFeatureCodec<ExomiserTabixFeature> {
@@ -0,0 +1,107 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleWriter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+import org.monarchinitiative.exomiser.data.genome.model.AlleleProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the alleles of an existing variants.mv.db, in either {@link AlleleKeyFormat}, into a read-only columnar
+ * store described in {@link ColumnarAlleleFormat} with a column for each {@link AlleleProperty}.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class ColumnarAlleleStoreConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarAlleleStoreConverter.class);
+
+    private static final List<String> COLUMN_NAMES = Arrays.stream(AlleleProperty.values())
+            .map(AlleleProperty::toString)
+            .collect(Collectors.toList());
+
+    private final Path sourcePath;
+    private final Path outputPath;
+
+    public ColumnarAlleleStoreConverter(Path sourcePath, Path outputPath) {
+        this.sourcePath = sourcePath;
+        this.outputPath = outputPath;
+    }
+
+    public void run() {
+        MVStore sourceStore = new MVStore.Builder()
+                .fileName(sourcePath.toString())
+                .readOnly()
+                .open();
+        try (ColumnarAlleleWriter writer = new ColumnarAlleleWriter(outputPath, COLUMN_NAMES)) {
+            long count = writeAlleles(sourceStore, writer);
+            logger.info("Written {} alleles to {}", count, outputPath);
+        } finally {
+            sourceStore.close();
+        }
+    }
+
+    /**
+     * Writes the alleles of the store in key order, i.e. chromosome, position, ref then alt.
+     *
+     * @return the number of alleles written
+     */
+    static long writeAlleles(MVStore sourceStore, ColumnarAlleleWriter writer) {
+        AlleleKeyFormat alleleKeyFormat = MvStoreUtil.detectAlleleKeyFormat(sourceStore);
+        logger.info("Reading alleles with {} keys", alleleKeyFormat);
+        long count = 0;
+        if (alleleKeyFormat == AlleleKeyFormat.BINARY) {
+            MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(sourceStore);
+            for (Map.Entry<byte[], AlleleProperties> entry : map.entrySet()) {
+                writer.write(BinaryAlleleKeyDataType.toAlleleKey(entry.getKey()), entry.getValue());
+                logProgress(++count);
+            }
+        } else {
+            MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(sourceStore);
+            for (Map.Entry<AlleleKey, AlleleProperties> entry : map.entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+                logProgress(++count);
+            }
+        }
+        return count;
+    }
+
+    private static void logProgress(long count) {
+        if (count % 10000000 == 0) {
+            logger.info("Written {} alleles", count);
+        }
+    }
+}
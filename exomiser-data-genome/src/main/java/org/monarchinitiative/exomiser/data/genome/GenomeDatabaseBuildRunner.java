@@ -24,6 +24,9 @@
 import org.apache.commons.io.FileUtils;
 import org.flywaydb.core.Flyway;
 import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.GenomeFeatureSnapshot;
+import org.monarchinitiative.exomiser.core.genome.dao.RegulatoryFeatureDao;
+import org.monarchinitiative.exomiser.core.genome.dao.TadDao;
 import org.monarchinitiative.exomiser.data.genome.model.BuildInfo;
 import org.monarchinitiative.exomiser.data.genome.model.parsers.genome.EnsemblEnhancerParser;
 import org.monarchinitiative.exomiser.data.genome.model.parsers.genome.FantomEnhancerParser;
@@ -86,10 +89,33 @@ public void run() {
 
         //build genome.h2.db
         Path databasePath = outputPath.resolve(String.format("%s_genome", buildInfo.getBuildString()));
-        DataSource dataSource = createDataSource(databasePath);
+        HikariDataSource dataSource = createDataSource(databasePath);
         logger.info("Created database: {}", databasePath);
         migrateDatabase(dataSource);
+        dataSource.close();
         logger.info("Finished importing genome data");
+
+        writeGenomeFeatureSnapshot(databasePath);
+    }
+
+    // The snapshot is read using the same DAOs and connection settings as the exomiser uses to read the database so
+    // that the two are equivalent.
+    private void writeGenomeFeatureSnapshot(Path databasePath) {
+        Path snapshotPath = GenomeFeatureSnapshot.snapshotPathFor(databasePath);
+        logger.info("Writing genome feature snapshot {}", snapshotPath);
+        String url = String.format("jdbc:h2:file:%s;MODE=PostgreSQL;SCHEMA=EXOMISER;DATABASE_TO_UPPER=FALSE;IFEXISTS=TRUE;ACCESS_MODE_DATA=r;", databasePath.toAbsolutePath());
+        try (HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username("sa")
+                .build()) {
+            RegulatoryFeatureDao regulatoryFeatureDao = new RegulatoryFeatureDao(dataSource);
+            TadDao tadDao = new TadDao(dataSource);
+            GenomeFeatureSnapshot genomeFeatureSnapshot = GenomeFeatureSnapshot.of(regulatoryFeatureDao.getRegulatoryFeatures(), tadDao.getAllTads());
+            genomeFeatureSnapshot.writeTo(snapshotPath);
+            logger.info("Written {} regulatory features and {} TADs to {}", genomeFeatureSnapshot.getRegulatoryFeatureCount(), genomeFeatureSnapshot
+                    .getTopologicalDomainCount(), snapshotPath);
+        }
     }
 
     private String getMartQueryString(String martQueryResourcePath) {
@@ -139,7 +165,7 @@ private void downloadResource(URL source, Path destination) {
         }
     }
 
-    private DataSource createDataSource(Path databasePath) {
+    private HikariDataSource createDataSource(Path databasePath) {
         String initSql = "MODE=PostgreSQL;LOG=0;CACHE_SIZE=65536;LOCK_MODE=0;UNDO_LOG=0;MV_STORE=FALSE;";
         String url = String.format("jdbc:h2:file:%s;%s", databasePath.toAbsolutePath(), initSql);
         return DataSourceBuilder.create()
@@ -0,0 +1,125 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.monarchinitiative.exomiser.core.genome.Contig;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts a REMM or CADD SNV tabix file into the per-position score arrays described in {@link PositionScoreFormat}
+ * which can be read by the {@link org.monarchinitiative.exomiser.core.genome.dao.RemmDaoPositionScores} and
+ * {@link org.monarchinitiative.exomiser.core.genome.dao.CaddDaoPositionScores}. The converted file is written next to
+ * the tabix file, from where it will be used in preference to the tabix file.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ * @since 12.1.0
+ */
+public class PositionScoreConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PositionScoreConverter.class);
+
+    public enum ScoreType {
+        // #Chrom Pos REMM
+        REMM(1, 0f, 1f, 2),
+        // #Chrom Pos Ref Alt RawScore PHRED
+        CADD_SNV(3, 0f, 100f, 5);
+
+        private final int slotsPerPosition;
+        private final float minScore;
+        private final float maxScore;
+        private final int scoreColumn;
+
+        ScoreType(int slotsPerPosition, float minScore, float maxScore, int scoreColumn) {
+            this.slotsPerPosition = slotsPerPosition;
+            this.minScore = minScore;
+            this.maxScore = maxScore;
+            this.scoreColumn = scoreColumn;
+        }
+    }
+
+    private final ScoreType scoreType;
+    private final Path tabixPath;
+    private final Path outputPath;
+
+    public PositionScoreConverter(ScoreType scoreType, Path tabixPath, Path outputPath) {
+        this.scoreType = scoreType;
+        this.tabixPath = tabixPath;
+        this.outputPath = outputPath;
+    }
+
+    public void run() {
+        logger.info("Converting {} scores from {} to {}", scoreType, tabixPath, outputPath);
+        // bgzip files are a series of gzip members, which the GZIPInputStream reads as a single stream
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(tabixPath)), StandardCharsets.US_ASCII));
+             PositionScoreWriter writer = new PositionScoreWriter(outputPath, scoreType.slotsPerPosition, scoreType.minScore, scoreType.maxScore)) {
+            long count = writeScores(scoreType, reader, writer);
+            logger.info("Written {} scores to {}", count, outputPath);
+        } catch (IOException e) {
+            throw new PositionScoreConverterException("Unable to read " + tabixPath, e);
+        }
+    }
+
+    /**
+     * @return the number of scores written
+     */
+    static long writeScores(ScoreType scoreType, BufferedReader reader, PositionScoreWriter writer) throws IOException {
+        long count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            int chr = Contig.parseId(fields[0]);
+            if (chr == 0) {
+                continue;
+            }
+            int slot = scoreType == ScoreType.CADD_SNV ? PositionScoreFormat.snvSlot(fields[2], fields[3]) : 0;
+            if (slot == -1) {
+                continue;
+            }
+            writer.write(chr, Integer.parseInt(fields[1]), slot, Float.parseFloat(fields[scoreType.scoreColumn]));
+            count++;
+            if (count % 100000000 == 0) {
+                logger.info("Written {} scores", count);
+            }
+        }
+        return count;
+    }
+
+    private static class PositionScoreConverterException extends RuntimeException {
+
+        private PositionScoreConverterException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
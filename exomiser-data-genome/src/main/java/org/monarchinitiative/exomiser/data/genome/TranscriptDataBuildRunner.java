@@ -20,7 +20,10 @@
 
 package org.monarchinitiative.exomiser.data.genome;
 
+import de.charite.compbio.jannovar.data.JannovarData;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.genome.jannovar.JannovarDataFactory;
+import org.monarchinitiative.exomiser.core.genome.jannovar.JannovarDataProtoSerialiser;
 import org.monarchinitiative.exomiser.core.genome.jannovar.TranscriptSource;
 import org.monarchinitiative.exomiser.data.genome.model.BuildInfo;
 import org.slf4j.Logger;
@@ -50,7 +53,13 @@ public void run() {
         Arrays.stream(TranscriptSource.values()).forEach(transcriptSource -> {
             String outputName = String.format("%s_transcripts_%s.ser", buildInfo.getBuildString(), transcriptSource);
             logger.info("Building {}", outputName);
-            jannovarDataFactory.buildAndWrite(buildInfo.getAssembly(), transcriptSource, outPath.resolve(outputName));
+            Path transcriptFilePath = outPath.resolve(outputName);
+            JannovarData jannovarData = jannovarDataFactory.buildData(buildInfo.getAssembly(), transcriptSource);
+            JannovarDataProtoSerialiser.save(transcriptFilePath, jannovarData);
+            // the chunked copy allows the transcripts to be loaded lazily for each chromosome
+            Path chunkedFilePath = ChunkedJannovarData.chunkedPathFor(transcriptFilePath);
+            logger.info("Writing chunked transcript data to {}", chunkedFilePath);
+            ChunkedJannovarData.write(chunkedFilePath, jannovarData);
         });
     }
 }
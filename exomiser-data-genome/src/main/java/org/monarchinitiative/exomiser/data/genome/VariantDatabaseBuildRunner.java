@@ -22,6 +22,8 @@
 
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
 import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
@@ -48,11 +50,17 @@ public class VariantDatabaseBuildRunner {
     private final Path buildPath;
     private final BuildInfo buildInfo;
     private final List<AlleleResource> alleleResources;
+    private final AlleleKeyFormat alleleKeyFormat;
 
     public VariantDatabaseBuildRunner(BuildInfo buildInfo, Path buildPath, List<AlleleResource> alleleResources) {
+        this(buildInfo, buildPath, alleleResources, AlleleKeyFormat.PROTOBUF);
+    }
+
+    public VariantDatabaseBuildRunner(BuildInfo buildInfo, Path buildPath, List<AlleleResource> alleleResources, AlleleKeyFormat alleleKeyFormat) {
         this.buildPath = buildPath;
         this.buildInfo = buildInfo;
         this.alleleResources = alleleResources;
+        this.alleleKeyFormat = alleleKeyFormat;
     }
 
     public void run() {
@@ -78,9 +86,19 @@ public void run() {
         // of the allele. So as a workaround we're copying the entries from the original store to a new store which
         // will only contain one version of each allele. This leads to significant space savings on disk - e.g. 25 GB original
         // is only 12 GB when the final version is copied over. This operation takes about 40 min for 0.5 billion alleles.
-        copyToNewInstance(mergeStore, finalStore);
-
+        if (alleleKeyFormat == AlleleKeyFormat.BINARY) {
+            BinaryAlleleKeyConverter.copyToBinaryMap(mergeStore, finalStore);
+        } else {
+            copyToNewInstance(mergeStore, finalStore);
+        }
         mergeStore.close();
+
+        // Most of the alleles in a sample are not in the database, so a filter of the final keys is written alongside
+        // the store in order that these can be skipped without touching the store.
+        Path alleleKeyFilterPath = buildPath.resolve(buildInfo.getBuildString() + "_variants" + AlleleKeyBloomFilter.FILE_EXTENSION);
+        logger.info("Writing allele key filter {}", alleleKeyFilterPath);
+        AlleleKeyBloomFilter.writeTo(AlleleKeyBloomFilter.buildFrom(finalStore), finalStore, alleleKeyFilterPath);
+
         finalStore.close();
     }
 
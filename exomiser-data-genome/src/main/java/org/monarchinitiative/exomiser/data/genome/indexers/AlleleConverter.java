@@ -20,6 +20,7 @@
 
 package org.monarchinitiative.exomiser.data.genome.indexers;
 
+import org.monarchinitiative.exomiser.core.model.TypedAlleleProperties;
 import org.monarchinitiative.exomiser.core.model.pathogenicity.ClinVarData;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
 import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
@@ -27,6 +28,7 @@
 import org.monarchinitiative.exomiser.data.genome.model.Allele;
 import org.monarchinitiative.exomiser.data.genome.model.AlleleProperty;
 
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -34,6 +36,19 @@
  */
 public class AlleleConverter {
 
+    // The AlleleProto.AlleleProperty number, i.e. the index in the typed properties array, of each AlleleProperty
+    private static final int[] PROPERTY_NUMBERS = new int[AlleleProperty.values().length];
+
+    static {
+        for (AlleleProperty alleleProperty : AlleleProperty.values()) {
+            int propertyNumber = TypedAlleleProperties.propertyNumber(alleleProperty.toString());
+            if (propertyNumber == -1) {
+                throw new IllegalStateException("No AlleleProto.AlleleProperty defined for " + alleleProperty);
+            }
+            PROPERTY_NUMBERS[alleleProperty.ordinal()] = propertyNumber;
+        }
+    }
+
     private AlleleConverter() {
         //static utility class
     }
@@ -50,12 +65,20 @@ public static AlleleKey toAlleleKey(Allele allele) {
     public static AlleleProperties mergeProperties(AlleleProperties originalProperties, AlleleProperties properties) {
         String updatedRsId = (originalProperties.getRsId()
                 .isEmpty()) ? properties.getRsId() : originalProperties.getRsId();
-        return AlleleProperties.newBuilder()
+        AlleleProperties.Builder builder = AlleleProperties.newBuilder()
                 .mergeFrom(originalProperties)
                 .mergeFrom(properties)
                 //original rsid would have been overwritten by the new one - we don't necessarily want that, so re-set it now.
-                .setRsId(updatedRsId)
-                .build();
+                .setRsId(updatedRsId);
+        // the packed property values would have been concatenated by the mergeFrom, so these are merged separately
+        float[] mergedValues = TypedAlleleProperties.toValueArray(originalProperties);
+        float[] values = TypedAlleleProperties.toValueArray(properties);
+        for (int i = 0; i < values.length; i++) {
+            if (!Float.isNaN(values[i])) {
+                mergedValues[i] = values[i];
+            }
+        }
+        return TypedAlleleProperties.setValues(builder, mergedValues).build();
     }
 
     public static AlleleProperties toAlleleProperties(Allele allele) {
@@ -67,9 +90,12 @@ public static AlleleProperties toAlleleProperties(Allele allele) {
     }
 
     private static void addAllelePropertyValues(AlleleProperties.Builder builder, Map<AlleleProperty, Float> values) {
+        float[] valuesByNumber = new float[TypedAlleleProperties.MAX_PROPERTIES];
+        Arrays.fill(valuesByNumber, Float.NaN);
         for (Map.Entry<AlleleProperty, Float> entry : values.entrySet()) {
-            builder.putProperties(entry.getKey().toString(), entry.getValue());
+            valuesByNumber[PROPERTY_NUMBERS[entry.getKey().ordinal()]] = entry.getValue();
         }
+        TypedAlleleProperties.setValues(builder, valuesByNumber);
     }
 
     private static void addClinVarData(AlleleProperties.Builder builder, Allele allele) {
@@ -0,0 +1,149 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.AllelePropertiesDaoMvStore;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class BinaryAlleleKeyConverterTest {
+
+    private AlleleKey alleleKey(int chr, int pos, String ref, String alt) {
+        return AlleleKey.newBuilder()
+                .setChr(chr)
+                .setPosition(pos)
+                .setRef(ref)
+                .setAlt(alt)
+                .build();
+    }
+
+    private AlleleProperties alleleProperties(String rsId) {
+        return AlleleProperties.newBuilder().setRsId(rsId).putProperties("KG", 0.1f).build();
+    }
+
+    @Test
+    void copyToBinaryMap() {
+        MVStore sourceStore = new MVStore.Builder().open();
+        MVMap<AlleleKey, AlleleProperties> sourceMap = MvStoreUtil.openAlleleMVMap(sourceStore);
+        sourceMap.put(alleleKey(2, 12345, "A", "T"), alleleProperties("rs1"));
+        sourceMap.put(alleleKey(1, 12345, "AT", "A"), alleleProperties("rs2"));
+        sourceMap.put(alleleKey(1, 12345, "A", "AT"), alleleProperties("rs3"));
+
+        MVStore targetStore = new MVStore.Builder().open();
+        long count = BinaryAlleleKeyConverter.copyToBinaryMap(sourceStore, targetStore);
+
+        assertThat(count, equalTo(3L));
+        assertThat(MvStoreUtil.detectAlleleKeyFormat(targetStore), equalTo(AlleleKeyFormat.BINARY));
+
+        MVMap<byte[], AlleleProperties> binaryMap = MvStoreUtil.openBinaryAlleleMVMap(targetStore);
+        List<AlleleKey> binaryKeys = new ArrayList<>();
+        binaryMap.keySet().forEach(key -> binaryKeys.add(BinaryAlleleKeyDataType.toAlleleKey(key)));
+        assertThat(binaryKeys, equalTo(new ArrayList<>(sourceMap.keySet())));
+
+        AllelePropertiesDaoMvStore allelePropertiesDao = new AllelePropertiesDaoMvStore(targetStore);
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "AT", "A"), GenomeAssembly.HG19), equalTo(alleleProperties("rs2")));
+    }
+
+    @Test
+    void runConvertsFileStore(@TempDir Path tempDir) {
+        Path sourcePath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(sourcePath.toString()).open();
+        MvStoreUtil.openAlleleMVMap(sourceStore).put(alleleKey(1, 12345, "A", "T"), alleleProperties("rs1"));
+        sourceStore.close();
+
+        Path outputPath = tempDir.resolve("variants_binary.mv.db");
+        BinaryAlleleKeyConverter instance = new BinaryAlleleKeyConverter(sourcePath, outputPath);
+        instance.run();
+
+        MVStore outputStore = new MVStore.Builder().fileName(outputPath.toString()).readOnly().open();
+        AllelePropertiesDaoMvStore allelePropertiesDao = new AllelePropertiesDaoMvStore(outputStore);
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(alleleProperties("rs1")));
+        outputStore.close();
+    }
+
+    @Test
+    void convertInPlaceReplacesOriginalStore(@TempDir Path tempDir) throws Exception {
+        Path variantsPath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(variantsPath.toString()).open();
+        MvStoreUtil.openAlleleMVMap(sourceStore).put(alleleKey(1, 12345, "A", "T"), alleleProperties("rs1"));
+        sourceStore.close();
+
+        BinaryAlleleKeyConverter.convertInPlace(variantsPath);
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.collect(toList()), equalTo(Collections.singletonList(variantsPath)));
+        }
+        MVStore outputStore = new MVStore.Builder().fileName(variantsPath.toString()).readOnly().open();
+        assertThat(MvStoreUtil.detectAlleleKeyFormat(outputStore), equalTo(AlleleKeyFormat.BINARY));
+        AllelePropertiesDaoMvStore allelePropertiesDao = new AllelePropertiesDaoMvStore(outputStore);
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(alleleProperties("rs1")));
+        outputStore.close();
+    }
+
+    @Test
+    void convertInPlaceLeavesOriginalStoreWhenSourceIsAlreadyBinary(@TempDir Path tempDir) throws Exception {
+        Path variantsPath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(variantsPath.toString()).open();
+        MvStoreUtil.openBinaryAlleleMVMap(sourceStore);
+        sourceStore.close();
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryAlleleKeyConverter.convertInPlace(variantsPath));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.collect(toList()), equalTo(Collections.singletonList(variantsPath)));
+        }
+    }
+
+    @Test
+    void runThrowsExceptionWhenSourceIsAlreadyBinary(@TempDir Path tempDir) {
+        Path sourcePath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(sourcePath.toString()).open();
+        MvStoreUtil.openBinaryAlleleMVMap(sourceStore);
+        sourceStore.close();
+
+        BinaryAlleleKeyConverter instance = new BinaryAlleleKeyConverter(sourcePath, tempDir.resolve("out.mv.db"));
+        assertThrows(IllegalArgumentException.class, instance::run);
+    }
+}
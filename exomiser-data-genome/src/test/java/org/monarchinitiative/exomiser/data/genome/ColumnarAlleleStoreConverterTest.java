@@ -0,0 +1,100 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.GenomeAssembly;
+import org.monarchinitiative.exomiser.core.genome.dao.AllelePropertiesDaoColumnar;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.BinaryAlleleKeyDataType;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.MvStoreUtil;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleKey;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.monarchinitiative.exomiser.data.genome.TestAlleleProperties.typed;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class ColumnarAlleleStoreConverterTest {
+
+    private AlleleKey alleleKey(int chr, int pos, String ref, String alt) {
+        return AlleleKey.newBuilder()
+                .setChr(chr)
+                .setPosition(pos)
+                .setRef(ref)
+                .setAlt(alt)
+                .build();
+    }
+
+    private AlleleProperties alleleProperties(String rsId) {
+        return typed(AlleleProperties.newBuilder()
+                .setRsId(rsId)
+                .putProperties("KG", 0.1f)
+                .putProperties("GNOMAD_G_NFE", 0.02f)
+                .putProperties("PRIMATE_AI", 0.7f)
+                .build());
+    }
+
+    @Test
+    void runConvertsProtobufKeyStore(@TempDir Path tempDir) {
+        Path sourcePath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(sourcePath.toString()).open();
+        MVMap<AlleleKey, AlleleProperties> map = MvStoreUtil.openAlleleMVMap(sourceStore);
+        map.put(alleleKey(2, 12345, "A", "T"), alleleProperties("rs1"));
+        map.put(alleleKey(1, 12345, "AT", "A"), alleleProperties("rs2"));
+        map.put(alleleKey(1, 12345, "A", "AT"), alleleProperties("rs3"));
+        sourceStore.close();
+
+        Path outputPath = tempDir.resolve("variants.alleles");
+        ColumnarAlleleStoreConverter instance = new ColumnarAlleleStoreConverter(sourcePath, outputPath);
+        instance.run();
+
+        AllelePropertiesDaoColumnar allelePropertiesDao = AllelePropertiesDaoColumnar.open(outputPath);
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(2, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(alleleProperties("rs1")));
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "AT", "A"), GenomeAssembly.HG19), equalTo(alleleProperties("rs2")));
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "A", "AT"), GenomeAssembly.HG19), equalTo(alleleProperties("rs3")));
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(AlleleProperties.getDefaultInstance()));
+    }
+
+    @Test
+    void runConvertsBinaryKeyStore(@TempDir Path tempDir) {
+        Path sourcePath = tempDir.resolve("variants.mv.db");
+        MVStore sourceStore = new MVStore.Builder().fileName(sourcePath.toString()).open();
+        MVMap<byte[], AlleleProperties> map = MvStoreUtil.openBinaryAlleleMVMap(sourceStore);
+        map.put(BinaryAlleleKeyDataType.toBytes(alleleKey(1, 12345, "A", "T")), alleleProperties("rs1"));
+        sourceStore.close();
+
+        Path outputPath = tempDir.resolve("variants.alleles");
+        new ColumnarAlleleStoreConverter(sourcePath, outputPath).run();
+
+        AllelePropertiesDaoColumnar allelePropertiesDao = AllelePropertiesDaoColumnar.open(outputPath);
+        assertThat(allelePropertiesDao.getAlleleProperties(alleleKey(1, 12345, "A", "T"), GenomeAssembly.HG19), equalTo(alleleProperties("rs1")));
+    }
+}
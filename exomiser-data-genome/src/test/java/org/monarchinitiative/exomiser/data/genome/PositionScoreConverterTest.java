@@ -0,0 +1,94 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junitpioneer.jupiter.TempDirectory;
+import org.junitpioneer.jupiter.TempDirectory.TempDir;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+@ExtendWith(TempDirectory.class)
+class PositionScoreConverterTest {
+
+    private static Path writeGzipFile(Path path, String content) throws IOException {
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(path));
+             Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.US_ASCII)) {
+            writer.write(content);
+        }
+        return path;
+    }
+
+    @Test
+    void convertRemm(@TempDir Path tempDir) throws IOException {
+        Path tabixPath = writeGzipFile(tempDir.resolve("remmData.tsv.gz"), "" +
+                "#Chrom\tPos\tREMM\n" +
+                "1\t10001\t0.123\n" +
+                "1\t10002\t0.987\n" +
+                "GL000192.1\t1\t0.5\n" +
+                "X\t20\t0.5\n");
+        Path outputPath = PositionScoreFormat.scoresPathFor(tabixPath);
+        new PositionScoreConverter(PositionScoreConverter.ScoreType.REMM, tabixPath, outputPath).run();
+
+        PositionScores instance = PositionScores.open(outputPath);
+        assertThat((double) instance.getScore(1, 10001, 0), closeTo(0.123, 0.00001));
+        assertThat((double) instance.getScore(1, 10002, 0), closeTo(0.987, 0.00001));
+        assertThat((double) instance.getScore(23, 20, 0), closeTo(0.5, 0.00001));
+        assertThat(Float.isNaN(instance.getScore(1, 10003, 0)), is(true));
+    }
+
+    @Test
+    void convertCaddSnvs(@TempDir Path tempDir) throws IOException {
+        Path tabixPath = writeGzipFile(tempDir.resolve("whole_genome_SNVs.tsv.gz"), "" +
+                "## CADD GRCh37-v1.4 (c) University of Washington, Hudson-Alpha Institute for Biotechnology and Berlin Institute of Health 2013-2018. All rights reserved.\n" +
+                "#Chrom\tPos\tRef\tAlt\tRawScore\tPHRED\n" +
+                "1\t10001\tT\tA\t0.088260\t4.066\n" +
+                "1\t10001\tT\tC\t0.105475\t4.353\n" +
+                "1\t10001\tT\tG\t0.091023\t4.112\n" +
+                "1\t10002\tA\tC\t0.490364\t8.922\n");
+        Path outputPath = PositionScoreFormat.scoresPathFor(tabixPath);
+        new PositionScoreConverter(PositionScoreConverter.ScoreType.CADD_SNV, tabixPath, outputPath).run();
+
+        PositionScores instance = PositionScores.open(outputPath);
+        assertThat((double) instance.getScore(1, 10001, PositionScoreFormat.snvSlot("T", "A")), closeTo(4.066, 0.001));
+        assertThat((double) instance.getScore(1, 10001, PositionScoreFormat.snvSlot("T", "C")), closeTo(4.353, 0.001));
+        assertThat((double) instance.getScore(1, 10001, PositionScoreFormat.snvSlot("T", "G")), closeTo(4.112, 0.001));
+        assertThat((double) instance.getScore(1, 10002, PositionScoreFormat.snvSlot("A", "C")), closeTo(8.922, 0.001));
+        assertThat(Float.isNaN(instance.getScore(1, 10002, PositionScoreFormat.snvSlot("A", "G"))), is(true));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.data.genome;
+
+import org.monarchinitiative.exomiser.core.model.TypedAlleleProperties;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto.AlleleProperties;
+
+/**
+ * Test helper for creating the expected {@link AlleleProperties} written by the converters and indexers.
+ *
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+public class TestAlleleProperties {
+
+    private TestAlleleProperties() {
+        //static utility class
+    }
+
+    /**
+     * The properties are written in the typed form, but it is clearer to create the expected values by name. This
+     * converts the named properties into their typed form.
+     */
+    public static AlleleProperties typed(AlleleProperties alleleProperties) {
+        return TypedAlleleProperties.setValues(alleleProperties.toBuilder(), TypedAlleleProperties.toValueArray(alleleProperties)).build();
+    }
+}
@@ -33,6 +33,7 @@
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.monarchinitiative.exomiser.data.genome.TestAlleleProperties.typed;
 
 /**
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -65,11 +66,11 @@ public class AlleleConverterTest {
             .putIncludedAlleles("455645", ClinVar.ClinSig.LIKELY_PATHOGENIC)
             .build();
 
-    private static final AlleleProperties ALLELE_PROPERTIES = AlleleProperties.newBuilder()
+    private static final AlleleProperties ALLELE_PROPERTIES = typed(AlleleProperties.newBuilder()
             .setRsId("rs678910")
             .putProperties("EXAC_AFR", 0.00056f)
             .setClinVar(PROTO_CLINVAR)
-            .build();
+            .build());
 
     private static Allele makeAllele() {
         Allele allele = new Allele(1, 2345, "A", "C");
@@ -93,12 +94,12 @@ public void convertProperties() {
     public void mergeProperties() {
         AlleleProperties toMerge = AlleleProperties.newBuilder().putProperties("POLYPHEN", 1f).build();
 
-        AlleleProperties expected = AlleleProperties.newBuilder()
+        AlleleProperties expected = typed(AlleleProperties.newBuilder()
                 .setRsId("rs678910")
                 .putProperties("EXAC_AFR", 0.00056f)
                 .putProperties("POLYPHEN", 1f)
                 .setClinVar(PROTO_CLINVAR)
-                .build();
+                .build());
 
         assertThat(AlleleConverter.mergeProperties(ALLELE_PROPERTIES, toMerge), equalTo(expected));
     }
@@ -109,12 +110,12 @@ public void mergePropertiesUsesOriginalRsidWhenPresent() {
                 .setRsId("Shouldn't be present in merged")
                 .putProperties("POLYPHEN", 1f).build();
 
-        AlleleProperties expected = AlleleProperties.newBuilder()
+        AlleleProperties expected = typed(AlleleProperties.newBuilder()
                 .setRsId("rs678910")
                 .putProperties("EXAC_AFR", 0.00056f)
                 .putProperties("POLYPHEN", 1f)
                 .setClinVar(PROTO_CLINVAR)
-                .build();
+                .build());
 
         assertThat(AlleleConverter.mergeProperties(ALLELE_PROPERTIES, toMerge), equalTo(expected));
     }
@@ -130,11 +131,11 @@ public void mergePropertiesUsesNewRsidIfOriginalAbsent() {
                 .setRsId("rs45789")
                 .putProperties("POLYPHEN", 1f).build();
 
-        AlleleProperties expected = AlleleProperties.newBuilder()
+        AlleleProperties expected = typed(AlleleProperties.newBuilder()
                 .setRsId("rs45789")
                 .putProperties("EXAC_AFR", 0.00056f)
                 .putProperties("POLYPHEN", 1f)
-                .build();
+                .build());
 
         assertThat(AlleleConverter.mergeProperties(original, toMerge), equalTo(expected));
     }
@@ -52,6 +52,7 @@
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.monarchinitiative.exomiser.data.genome.TestAlleleProperties.typed;
 
 /**
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -77,26 +78,26 @@ private AlleleKey alleleKey(int chr, int pos, String ref, String alt) {
     }
 
     private AlleleProperties alleleProperties(Map<String, Float> properties) {
-        return AlleleProperties.newBuilder()
+        return typed(AlleleProperties.newBuilder()
                 .putAllProperties(properties)
-                .build();
+                .build());
     }
 
     private AlleleProperties alleleProperties(String rsId, Map<String, Float> properties) {
-        return AlleleProperties.newBuilder()
+        return typed(AlleleProperties.newBuilder()
                 .setRsId(rsId)
                 .putAllProperties(properties)
-                .build();
+                .build());
     }
 
     private AlleleProperties alleleProperties(String rsId, ClinVarData clinVarData, Map<String, Float> properties) {
         ClinVar clinVar = AlleleConverter.toProtoClinVar(clinVarData);
 
-        return AlleleProperties.newBuilder()
+        return typed(AlleleProperties.newBuilder()
                 .setRsId(rsId)
                 .setClinVar(clinVar)
                 .putAllProperties(properties)
-                .build();
+                .build());
     }
 
     @Test
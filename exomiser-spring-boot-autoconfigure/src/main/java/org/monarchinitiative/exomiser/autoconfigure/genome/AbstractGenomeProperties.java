@@ -56,6 +56,23 @@ public abstract class AbstractGenomeProperties implements GenomeProperties {
     // datastore
     private String testPathogenicityScorePath = "";
 
+    // Maximum number of readers opened for each tabix file. Increase this to the number of threads querying the files,
+    // i.e. the number of analyses run concurrently times the analysis threads, in order that these do not queue for a
+    // single reader and that each thread keeps a reader of its own.
+    private int tabixPoolSize = 1;
+
+    // Optional file in which to persist the results of the tabix pathogenicity lookups between runs, along with the
+    // maximum number of variants held for each source.
+    private String pathogenicityCachePath = "";
+    private int pathogenicityCacheSize = 1_000_000;
+
+    // Load the transcripts, MVStore, whitelist and tabix files concurrently on startup rather than one after the other.
+    private boolean parallelLoading = false;
+
+    // Optional Guava cache spec e.g. 'maximumSize=100000' for an in-memory cache of the variant annotations. This is
+    // shared by all the analyses run against this assembly so is most useful for batches and the web service.
+    private String variantAnnotationCacheSpec = "";
+
     @Override
     public Path getDataDirectory() {
         return dataDirectory;
@@ -176,4 +193,54 @@ public String getTestPathogenicityScorePath() {
     public void setTestPathogenicityScorePath(String testPathogenicityScorePath) {
         this.testPathogenicityScorePath = testPathogenicityScorePath;
     }
+
+    @Override
+    public int getTabixPoolSize() {
+        return tabixPoolSize;
+    }
+
+    @Override
+    public void setTabixPoolSize(int tabixPoolSize) {
+        this.tabixPoolSize = tabixPoolSize;
+    }
+
+    @Override
+    public String getPathogenicityCachePath() {
+        return pathogenicityCachePath;
+    }
+
+    @Override
+    public void setPathogenicityCachePath(String pathogenicityCachePath) {
+        this.pathogenicityCachePath = pathogenicityCachePath;
+    }
+
+    @Override
+    public int getPathogenicityCacheSize() {
+        return pathogenicityCacheSize;
+    }
+
+    @Override
+    public void setPathogenicityCacheSize(int pathogenicityCacheSize) {
+        this.pathogenicityCacheSize = pathogenicityCacheSize;
+    }
+
+    @Override
+    public boolean isParallelLoading() {
+        return parallelLoading;
+    }
+
+    @Override
+    public void setParallelLoading(boolean parallelLoading) {
+        this.parallelLoading = parallelLoading;
+    }
+
+    @Override
+    public String getVariantAnnotationCacheSpec() {
+        return variantAnnotationCacheSpec;
+    }
+
+    @Override
+    public void setVariantAnnotationCacheSpec(String variantAnnotationCacheSpec) {
+        this.variantAnnotationCacheSpec = variantAnnotationCacheSpec;
+    }
 }
@@ -20,18 +20,34 @@
 
 package org.monarchinitiative.exomiser.autoconfigure.genome;
 
+import com.google.common.hash.BloomFilter;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.data.JannovarData;
 import org.h2.mvstore.MVStore;
 import org.monarchinitiative.exomiser.core.genome.*;
 import org.monarchinitiative.exomiser.core.genome.dao.*;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScores;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.model.ChromosomalRegionIndex;
 import org.monarchinitiative.exomiser.core.model.RegulatoryFeature;
+import org.monarchinitiative.exomiser.core.model.Variant;
+import org.monarchinitiative.exomiser.core.proto.AlleleProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Acts as a manual version of Spring component discovery and DI. This is required as there can be more than one
@@ -49,10 +65,27 @@ public abstract class GenomeAnalysisServiceConfigurer implements GenomeAnalysisS
 
     protected final DataSource dataSource;
     protected final JannovarData jannovarData;
+    // optional alternative to the jannovarData, loaded per-chromosome as required
+    private final ChunkedJannovarData chunkedJannovarData;
     protected final MVStore mvStore;
+    // optional alternative to the alleles in the MVStore
+    private final Path columnarAllelesPath;
+    // optional filter of the allele keys in the MVStore
+    private final Path alleleKeyFilterPath;
+    // optional alternative to the regulatory features and TADs in the genome database
+    private final Path genomeFeatureSnapshotPath;
+    // optional alternatives to the CADD SNV and REMM tabix files
+    private final Path caddSnvScoresPath;
+    private final Path remmScoresPath;
+    // optional persistent cache of the tabix pathogenicity lookups
+    private final PersistentPathogenicityCache pathogenicityCache;
+    private final Map<String, String> pathogenicitySourceIdentities;
 
     protected final VariantWhiteList variantWhiteList;
 
+    // optional in-memory cache of the variant annotations, held in order to report its hit rate on shutdown
+    private CachingVariantAnnotator cachingVariantAnnotator;
+
     //Optional user-provided TabixDataSources
     protected final TabixDataSource localFrequencyTabixDataSource;
     protected final TabixDataSource caddSnvTabixDataSource;
@@ -72,7 +105,17 @@ public GenomeAnalysisServiceConfigurer(GenomeProperties genomeProperties, Path e
         GenomeDataSourceLoader genomeDataSourceLoader = GenomeDataSourceLoader.load(genomeDataSources);
         this.dataSource = genomeDataSourceLoader.getGenomeDataSource();
         this.jannovarData = genomeDataSourceLoader.getJannovarData();
+        this.chunkedJannovarData = genomeDataSourceLoader.getChunkedJannovarData();
         this.mvStore = genomeDataSourceLoader.getMvStore();
+        this.columnarAllelesPath = genomeDataSources.getColumnarAllelesPath().orElse(null);
+        this.alleleKeyFilterPath = genomeDataSources.getAlleleKeyFilterPath().orElse(null);
+        this.genomeFeatureSnapshotPath = genomeDataSources.getGenomeFeatureSnapshotPath().orElse(null);
+        this.caddSnvScoresPath = genomeDataSources.getCaddSnvScoresPath().orElse(null);
+        this.remmScoresPath = genomeDataSources.getRemmScoresPath().orElse(null);
+        this.pathogenicityCache = genomeDataSources.getPathogenicityCachePath()
+                .map(path -> openPathogenicityCacheOrNull(path, genomeDataSources.getPathogenicityCacheSize()))
+                .orElse(null);
+        this.pathogenicitySourceIdentities = pathogenicitySourceIdentities(genomeProperties.getDataVersion(), genomeDataSources);
 
         this.variantWhiteList = genomeDataSourceLoader.getVariantWhiteList();
 
@@ -86,18 +129,57 @@ public GenomeAnalysisServiceConfigurer(GenomeProperties genomeProperties, Path e
         this.testPathogenicitySource = genomeDataSourceLoader.getTestPathogenicityTabixDataSource();
     }
 
+    // The cache file can only be opened by one process at a time, so concurrent runs will continue without it.
+    private static PersistentPathogenicityCache openPathogenicityCacheOrNull(Path pathogenicityCachePath, int maxEntries) {
+        try {
+            logger.info("Using pathogenicity cache {}", pathogenicityCachePath);
+            return PersistentPathogenicityCache.open(pathogenicityCachePath, maxEntries);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to open pathogenicity cache {} - continuing without it", pathogenicityCachePath, e);
+            return null;
+        }
+    }
+
     /**
      * Only one instance of an MVStore can access the store on disk at a time in a single JVM. This prevents tests failing
-     * when the store hasn't been properly closed.
+     * when the store hasn't been properly closed. The same applies to the optional pathogenicity cache, which also needs
+     * to be closed in order that the last entries are written to disk.
      */
     @PreDestroy
     public void closeMvStore() {
         mvStore.close();
+        if (pathogenicityCache != null) {
+            pathogenicityCache.close();
+        }
+        if (cachingVariantAnnotator != null) {
+            logger.info("Variant annotation cache stats: {}", cachingVariantAnnotator);
+        }
+    }
+
+    /**
+     * Returns the fully loaded {@link JannovarData}. Where the chunked transcript data has been opened this will load
+     * all the chromosomes, so this should only be called when the complete data is actually required.
+     */
+    protected JannovarData buildJannovarData() {
+        if (chunkedJannovarData != null) {
+            logger.debug("Loading all chromosomes from {}", chunkedJannovarData);
+            return chunkedJannovarData.toJannovarData();
+        }
+        return jannovarData;
     }
 
     protected VariantAnnotator buildVariantAnnotator() {
         ChromosomalRegionIndex<RegulatoryFeature> regulatoryRegionIndex = genomeDataService().getRegulatoryRegionIndex();
-        return new JannovarVariantAnnotator(genomeProperties.getAssembly(), jannovarData, regulatoryRegionIndex);
+        VariantAnnotator variantAnnotator = chunkedJannovarData == null ?
+                new JannovarVariantAnnotator(genomeProperties.getAssembly(), jannovarData, regulatoryRegionIndex) :
+                new JannovarVariantAnnotator(genomeProperties.getAssembly(), chunkedJannovarData, regulatoryRegionIndex);
+        String variantAnnotationCacheSpec = genomeProperties.getVariantAnnotationCacheSpec();
+        if (variantAnnotationCacheSpec == null || variantAnnotationCacheSpec.isEmpty()) {
+            return variantAnnotator;
+        }
+        logger.info("Using variant annotation cache with spec '{}'", variantAnnotationCacheSpec);
+        cachingVariantAnnotator = new CachingVariantAnnotator(genomeProperties.getAssembly(), variantAnnotator, variantAnnotationCacheSpec);
+        return cachingVariantAnnotator;
     }
 
     protected VariantFactory buildVariantFactory() {
@@ -106,10 +188,8 @@ protected VariantFactory buildVariantFactory() {
 
     //This method is calling the public interface of the concrete implementation so that the caching works on the DAOs
     protected VariantDataService buildVariantDataService() {
-        AllelePropertiesDaoAdapter allelePropertiesDaoAdapter = new AllelePropertiesDaoAdapter(allelePropertiesDao());
         return VariantDataServiceImpl.builder()
-                .defaultFrequencyDao(allelePropertiesDaoAdapter)
-                .defaultPathogenicityDao(allelePropertiesDaoAdapter)
+                .allelePropertiesDao(allelePropertiesDao())
                 .localFrequencyDao(localFrequencyDao())
                 .remmDao(remmDao())
                 .caddDao(caddDao())
@@ -120,11 +200,127 @@ protected VariantDataService buildVariantDataService() {
                 .build();
     }
 
+    protected AllelePropertiesDao buildAllelePropertiesDao() {
+        if (columnarAllelesPath != null) {
+            logger.info("Using columnar allele store {}", columnarAllelesPath);
+            return AllelePropertiesDaoColumnar.open(columnarAllelesPath);
+        }
+        if (alleleKeyFilterPath != null) {
+            return new AllelePropertiesDaoMvStore(mvStore, readAlleleKeyFilterOrNull(alleleKeyFilterPath));
+        }
+        return new AllelePropertiesDaoMvStore(mvStore);
+    }
+
+    // The whole filter is held on the heap, which needs about 1.2 MB per million alleles in the store, i.e. several
+    // hundred MB for a full assembly. A filter which was not built from the current store would skip the lookup of
+    // alleles which are in it, so this is ignored in favour of reading every allele from the store.
+    private BloomFilter<AlleleProto.AlleleKey> readAlleleKeyFilterOrNull(Path alleleKeyFilterPath) {
+        try {
+            BloomFilter<AlleleProto.AlleleKey> alleleKeyFilter = AlleleKeyBloomFilter.readFrom(alleleKeyFilterPath, mvStore);
+            logger.info("Using allele key filter {}", alleleKeyFilterPath);
+            return alleleKeyFilter;
+        } catch (RuntimeException e) {
+            logger.warn("Unable to use allele key filter {} - continuing without it", alleleKeyFilterPath, e);
+            return null;
+        }
+    }
+
+    protected PathogenicityDao buildRemmDao() {
+        if (remmScoresPath != null) {
+            logger.info("Using REMM scores {}", remmScoresPath);
+            return new RemmDaoPositionScores(PositionScores.open(remmScoresPath));
+        }
+        return withPathogenicityCache("remm", new RemmDao(remmTabixDataSource), isNotMissense());
+    }
+
+    protected PathogenicityDao buildCaddDao() {
+        PathogenicityDao caddDao = withPathogenicityCache("cadd", new CaddDao(caddIndelTabixDataSource, caddSnvTabixDataSource));
+        if (caddSnvScoresPath != null) {
+            logger.info("Using CADD SNV scores {}", caddSnvScoresPath);
+            return new CaddDaoPositionScores(PositionScores.open(caddSnvScoresPath), caddDao);
+        }
+        return caddDao;
+    }
+
+    protected PathogenicityDao buildDannDao() {
+        return withPathogenicityCache("dann", new DannDao(dannIndelTabixDataSource, dannSnvTabixDataSource));
+    }
+
+    protected PathogenicityDao buildNcboostDao() {
+        return withPathogenicityCache("ncboost", new NCBoostDao(ncboostTabixDataSource), isNotMissense());
+    }
+
+    // REMM and NCBoost only score non-coding variants, returning empty data for missense variants without reading the
+    // tabix file. The cache is keyed by position and alleles alone, so these are not cached otherwise an intronic score
+    // would be returned for a missense annotation of the same allele or vice versa.
+    private static Predicate<Variant> isNotMissense() {
+        return variant -> variant.getVariantEffect() != VariantEffect.MISSENSE_VARIANT;
+    }
+
+    private PathogenicityDao withPathogenicityCache(String sourceName, PathogenicityDao pathogenicityDao) {
+        return withPathogenicityCache(sourceName, pathogenicityDao, variant -> true);
+    }
+
+    // Wrapping the dao replaces the Spring caching of the dao, which will not be a bean, with the persistent cache.
+    private PathogenicityDao withPathogenicityCache(String sourceName, PathogenicityDao pathogenicityDao, Predicate<Variant> isCacheable) {
+        if (pathogenicityCache == null) {
+            return pathogenicityDao;
+        }
+        String cacheName = genomeProperties.getAssembly() + "." + sourceName;
+        return new PersistentCachingPathogenicityDao(cacheName, pathogenicitySourceIdentities.get(sourceName), pathogenicityDao, pathogenicityCache, isCacheable);
+    }
+
+    // The persistent cache outlives the data it was filled from, so each source is identified by the data version and
+    // the path, size and modification time of its files. Entries cached from a different source are dropped on startup.
+    private static Map<String, String> pathogenicitySourceIdentities(String dataVersion, GenomeDataSources genomeDataSources) {
+        Map<String, String> identities = new HashMap<>();
+        identities.put("cadd", sourceIdentity(dataVersion, genomeDataSources.getCaddSnvPath(), genomeDataSources.getCaddIndelPath()));
+        identities.put("dann", sourceIdentity(dataVersion, genomeDataSources.getDannSnvPath(), genomeDataSources.getDannIndelPath()));
+        identities.put("remm", sourceIdentity(dataVersion, genomeDataSources.getRemmPath()));
+        identities.put("ncboost", sourceIdentity(dataVersion, genomeDataSources.getNCBoostPath()));
+        return identities;
+    }
+
+    @SafeVarargs
+    private static String sourceIdentity(String dataVersion, Optional<Path>... sourcePaths) {
+        String fileIdentities = Arrays.stream(sourcePaths)
+                .map(sourcePath -> sourcePath.map(GenomeAnalysisServiceConfigurer::fileIdentity).orElse("none"))
+                .collect(Collectors.joining(";"));
+        return dataVersion + ";" + fileIdentities;
+    }
+
+    private static String fileIdentity(Path path) {
+        try {
+            Path absolutePath = path.toAbsolutePath();
+            if (Files.notExists(absolutePath)) {
+                return absolutePath + ",missing";
+            }
+            return absolutePath + "," + Files.size(absolutePath) + "," + Files.getLastModifiedTime(absolutePath).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     protected GenomeDataService buildGenomeDataService() {
         RegulatoryFeatureDao regulatoryFeatureDao = new RegulatoryFeatureDao(dataSource);
         TadDao tadDao = new TadDao(dataSource);
-        GeneFactory geneFactory = new GeneFactory(jannovarData);
-        return new GenomeDataServiceImpl(geneFactory, regulatoryFeatureDao, tadDao);
+        GeneFactory geneFactory = chunkedJannovarData == null ? new GeneFactory(jannovarData) : new GeneFactory(chunkedJannovarData);
+        return new GenomeDataServiceImpl(geneFactory, regulatoryFeatureDao, tadDao, readGenomeFeatureSnapshotOrNull());
+    }
+
+    // The snapshot is only an optimisation, so an unreadable snapshot falls back to the genome database.
+    private GenomeFeatureSnapshot readGenomeFeatureSnapshotOrNull() {
+        if (genomeFeatureSnapshotPath == null) {
+            return null;
+        }
+        try {
+            GenomeFeatureSnapshot genomeFeatureSnapshot = GenomeFeatureSnapshot.readFrom(genomeFeatureSnapshotPath);
+            logger.info("Using genome feature snapshot {}", genomeFeatureSnapshotPath);
+            return genomeFeatureSnapshot;
+        } catch (RuntimeException e) {
+            logger.warn("Unable to read genome feature snapshot {} - using genome database instead", genomeFeatureSnapshotPath, e);
+            return null;
+        }
     }
 
     // The protected methods here are exposed so that the concrete sub-classes can call these as a bean method in order that
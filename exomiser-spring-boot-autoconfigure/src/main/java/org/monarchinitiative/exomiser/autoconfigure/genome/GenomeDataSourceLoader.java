@@ -20,29 +20,29 @@
 
 package org.monarchinitiative.exomiser.autoconfigure.genome;
 
-import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.data.JannovarData;
 import org.h2.mvstore.MVStore;
-import org.monarchinitiative.exomiser.core.genome.Contig;
 import org.monarchinitiative.exomiser.core.genome.dao.ErrorThrowingTabixDataSource;
 import org.monarchinitiative.exomiser.core.genome.dao.InMemoryVariantWhiteList;
+import org.monarchinitiative.exomiser.core.genome.dao.PackedVariantWhiteList;
 import org.monarchinitiative.exomiser.core.genome.dao.TabixDataSource;
 import org.monarchinitiative.exomiser.core.genome.dao.VariantWhiteList;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.genome.jannovar.JannovarDataSourceLoader;
-import org.monarchinitiative.exomiser.core.proto.AlleleProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
@@ -52,7 +52,9 @@ public class GenomeDataSourceLoader {
     private static final Logger logger = LoggerFactory.getLogger(GenomeDataSourceLoader.class);
 
     private final DataSource dataSource;
+    // only one of these is loaded, depending on whether the chunked transcript data is present
     private final JannovarData jannovarData;
+    private final ChunkedJannovarData chunkedJannovarData;
     private final MVStore mvStore;
 
     private final VariantWhiteList variantWhiteList;
@@ -66,78 +68,143 @@ public class GenomeDataSourceLoader {
     private final TabixDataSource remmTabixDataSource;
     private final TabixDataSource ncboostTabixDataSource;
     private final TabixDataSource testPathogenicityTabixDataSource;
+    private final int tabixPoolSize;
 
+    // the transcripts, MVStore, whitelist and eight tabix files
+    private static final int NUM_RESOURCES = 11;
+
+    /**
+     * Loads the resources one after the other, or concurrently if {@link GenomeDataSources#isParallelLoading()} is
+     * true. The time taken to load each resource is logged in either case. Should any resource fail to load, those not
+     * yet started are skipped and those already loaded, along with the genome {@link DataSource}, are closed before
+     * the original exception is thrown.
+     */
     public static GenomeDataSourceLoader load(GenomeDataSources genomeDataSources) {
-        return new GenomeDataSourceLoader(genomeDataSources);
+        if (genomeDataSources.isParallelLoading()) {
+            return loadInParallel(genomeDataSources);
+        }
+        return new GenomeDataSourceLoader(genomeDataSources, Runnable::run);
+    }
+
+    /**
+     * Loads the independent resources concurrently, returning once all of them have been loaded. The deserialisation
+     * of the transcript data usually takes the longest, so the remaining resources are loaded in the meantime.
+     *
+     * @since 12.1.0
+     */
+    public static GenomeDataSourceLoader loadInParallel(GenomeDataSources genomeDataSources) {
+        int numThreads = Math.min(NUM_RESOURCES, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads, new LoaderThreadFactory());
+        try {
+            long startTime = System.currentTimeMillis();
+            GenomeDataSourceLoader genomeDataSourceLoader = new GenomeDataSourceLoader(genomeDataSources, executorService);
+            logger.info("Loaded genome data sources in {} ms using {} threads", System.currentTimeMillis() - startTime, numThreads);
+            return genomeDataSourceLoader;
+        } finally {
+            executorService.shutdown();
+        }
     }
 
-    private GenomeDataSourceLoader(GenomeDataSources genomeDataSources) {
+    private GenomeDataSourceLoader(GenomeDataSources genomeDataSources, Executor executor) {
+        this.tabixPoolSize = genomeDataSources.getTabixPoolSize();
         this.dataSource = genomeDataSources.getGenomeDataSource();
+        ResourceLoader resourceLoader = new ResourceLoader(executor);
 
         Path transcriptFilePath = genomeDataSources.getTranscriptFilePath();
-        logger.debug("Loading transcript data from {}", transcriptFilePath);
-        this.jannovarData = JannovarDataSourceLoader.loadJannovarData(transcriptFilePath);
+        Optional<Path> chunkedTranscriptFilePath = genomeDataSources.getChunkedTranscriptFilePath();
+        CompletableFuture<JannovarData> jannovarDataFuture = CompletableFuture.completedFuture(null);
+        CompletableFuture<ChunkedJannovarData> chunkedJannovarDataFuture = CompletableFuture.completedFuture(null);
+        if (chunkedTranscriptFilePath.isPresent()) {
+            chunkedJannovarDataFuture = resourceLoader.loadAsync("chunked transcript data index", () -> ChunkedJannovarData.open(chunkedTranscriptFilePath
+                    .get()));
+        } else {
+            jannovarDataFuture = resourceLoader.loadAsync("transcript data", () -> {
+                logger.debug("Loading transcript data from {}", transcriptFilePath);
+                return JannovarDataSourceLoader.loadJannovarData(transcriptFilePath);
+            });
+        }
 
         Path mvStoreAbsolutePath = genomeDataSources.getMvStorePath();
-        logger.debug("Opening MVStore from {}", mvStoreAbsolutePath);
-        this.mvStore = MvStoreDataSourceLoader.openMvStore(mvStoreAbsolutePath);
-
-        this.variantWhiteList = loadVariantWhiteList(genomeDataSources.getVariantWhiteListPath());
+        CompletableFuture<MVStore> mvStoreFuture = resourceLoader.loadAsync("MVStore", () -> {
+            logger.debug("Opening MVStore from {}", mvStoreAbsolutePath);
+            return MvStoreDataSourceLoader.openMvStore(mvStoreAbsolutePath);
+        });
+
+        CompletableFuture<VariantWhiteList> variantWhiteListFuture = resourceLoader.loadAsync("variant whitelist", () -> loadVariantWhiteList(genomeDataSources
+                .getVariantWhiteListPath()));
+
+        CompletableFuture<TabixDataSource> localFrequencyFuture = loadTabixDataSourceAsync("LOCAL", genomeDataSources.getLocalFrequencyPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> caddSnvFuture = loadTabixDataSourceAsync("CADD snv", genomeDataSources.getCaddSnvPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> caddIndelFuture = loadTabixDataSourceAsync("CADD InDel", genomeDataSources.getCaddIndelPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> dannSnvFuture = loadTabixDataSourceAsync("DANN snv", genomeDataSources.getDannSnvPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> dannIndelFuture = loadTabixDataSourceAsync("DANN InDel", genomeDataSources.getDannIndelPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> remmFuture = loadTabixDataSourceAsync("REMM", genomeDataSources.getRemmPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> ncboostFuture = loadTabixDataSourceAsync("NCBOOST", genomeDataSources.getNCBoostPath(), resourceLoader);
+        CompletableFuture<TabixDataSource> testPathogenicityFuture = loadTabixDataSourceAsync("TEST", genomeDataSources.getTestPathogenicityPath(), resourceLoader);
+
+        // every load has succeeded once this returns, so the joins below will not block or throw
+        resourceLoader.awaitAll(dataSource);
+
+        this.jannovarData = jannovarDataFuture.join();
+        this.chunkedJannovarData = chunkedJannovarDataFuture.join();
+        this.mvStore = mvStoreFuture.join();
+        this.variantWhiteList = variantWhiteListFuture.join();
+
+        this.localFrequencyTabixDataSource = localFrequencyFuture.join();
+        this.caddSnvTabixDataSource = caddSnvFuture.join();
+        this.caddIndelTabixDataSource = caddIndelFuture.join();
+        this.dannSnvTabixDataSource = dannSnvFuture.join();
+        this.dannIndelTabixDataSource = dannIndelFuture.join();
+        this.remmTabixDataSource = remmFuture.join();
+        this.ncboostTabixDataSource = ncboostFuture.join();
+        this.testPathogenicityTabixDataSource = testPathogenicityFuture.join();
+    }
 
-        this.localFrequencyTabixDataSource = getTabixDataSourceOrDefault("LOCAL", genomeDataSources.getLocalFrequencyPath());
-        this.caddSnvTabixDataSource = getTabixDataSourceOrDefault("CADD snv", genomeDataSources.getCaddSnvPath());
-        this.caddIndelTabixDataSource = getTabixDataSourceOrDefault("CADD InDel", genomeDataSources.getCaddIndelPath());
-        this.dannSnvTabixDataSource = getTabixDataSourceOrDefault("DANN snv", genomeDataSources.getDannSnvPath());
-        this.dannIndelTabixDataSource = getTabixDataSourceOrDefault("DANN InDel", genomeDataSources.getDannIndelPath());
-        this.remmTabixDataSource = getTabixDataSourceOrDefault("REMM", genomeDataSources.getRemmPath());
-        this.ncboostTabixDataSource = getTabixDataSourceOrDefault("NCBOOST", genomeDataSources.getNCBoostPath());
-        this.testPathogenicityTabixDataSource = getTabixDataSourceOrDefault("TEST", genomeDataSources.getTestPathogenicityPath());
+    private CompletableFuture<TabixDataSource> loadTabixDataSourceAsync(String dataSourceName, Optional<Path> tabixPath, ResourceLoader resourceLoader) {
+        if (!tabixPath.isPresent()) {
+            return CompletableFuture.completedFuture(getTabixDataSourceOrDefault(dataSourceName, tabixPath));
+        }
+        return resourceLoader.loadAsync(dataSourceName + " tabix index", () -> getTabixDataSourceOrDefault(dataSourceName, tabixPath));
     }
 
     private VariantWhiteList loadVariantWhiteList(Optional<Path> variantWhiteListPath) {
         if (variantWhiteListPath.isPresent()) {
             Path whiteListPath = variantWhiteListPath.get();
-            logger.info("Loading variant whitelist from: {}", whiteListPath);
-            // this should be a tabix-indexed gzip file
-            ImmutableSet.Builder<AlleleProto.AlleleKey> whiteListBuilder = new ImmutableSet.Builder<>();
-            try(BufferedReader  bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(whiteListPath)), StandardCharsets.UTF_8))){
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    if (line.startsWith("#")) {
-                        // comment line
-                        continue;
-                    }
-                    String[] tokens = line.split("\t");
-                    if (tokens.length < 4) {
-                        logger.error("Error parsing variant whitelist. Require minimum 4 tokens in line {}", line);
-                        continue;
-                    }
-                    // Exomiser - simple VCF format
-                    AlleleProto.AlleleKey alleleKey = AlleleProto.AlleleKey.newBuilder()
-                            .setChr(Contig.parseId(tokens[0]))
-                            .setPosition(Integer.parseInt(tokens[1]))
-                            .setRef(tokens[2])
-                            .setAlt(tokens[3])
-                            .build();
-                    whiteListBuilder.add(alleleKey);
-                }
-            } catch (IOException e) {
-                logger.error("AAARRRGH!", e);
-                throw new RuntimeException("Unable to load variant whitelist", e);
+            // the binary whitelist is optional and written next to the gzipped text file by the exomiser-data-genome
+            // module. Reading this is much quicker than parsing the text.
+            Path binaryWhiteListPath = PackedVariantWhiteList.binaryPathFor(whiteListPath);
+            PackedVariantWhiteList whiteList = null;
+            if (Files.exists(binaryWhiteListPath)) {
+                whiteList = readBinaryWhiteListOrNull(binaryWhiteListPath, whiteListPath);
+            }
+            if (whiteList == null) {
+                logger.info("Loading variant whitelist from: {}", whiteListPath);
+                // this should be a tabix-indexed gzip file
+                whiteList = PackedVariantWhiteList.readFromTsvGz(whiteListPath);
             }
-
-            ImmutableSet<AlleleProto.AlleleKey> whiteList = whiteListBuilder.build();
             logger.info("Loaded {} variants into whitelist", whiteList.size());
-            return InMemoryVariantWhiteList.of(whiteList);
+            return whiteList;
         }
         return InMemoryVariantWhiteList.empty();
     }
 
+    // A binary whitelist which was not written from the current text file could be missing the newer alleles, so this
+    // is ignored in favour of parsing the text file.
+    private PackedVariantWhiteList readBinaryWhiteListOrNull(Path binaryWhiteListPath, Path whiteListPath) {
+        try {
+            logger.info("Loading variant whitelist from: {}", binaryWhiteListPath);
+            return PackedVariantWhiteList.readFrom(binaryWhiteListPath, whiteListPath);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to use variant whitelist {} - loading {} instead", binaryWhiteListPath, whiteListPath, e);
+            return null;
+        }
+    }
+
     private TabixDataSource getTabixDataSourceOrDefault(String dataSourceName, Optional<Path> tabixPath) {
         if (tabixPath.isPresent()) {
             Path path = tabixPath.get();
             logger.info("Opening {} data from source: {}", dataSourceName, path);
-            return TabixDataSourceLoader.load(path);
+            return TabixDataSourceLoader.load(path, tabixPoolSize);
         } else {
             logger.warn("Data for {} is not configured. THIS WILL LEAD TO ERRORS IF REQUIRED DURING ANALYSIS. Check the application.properties is pointing to a valid file.", dataSourceName);
             String message = "Data for " + dataSourceName + " is not configured. Check the application.properties is pointing to a valid file.";
@@ -149,10 +216,21 @@ public DataSource getGenomeDataSource() {
         return dataSource;
     }
 
+    /**
+     * @return the transcript data, or null if the chunked transcript data has been opened instead.
+     */
     public JannovarData getJannovarData() {
         return jannovarData;
     }
 
+    /**
+     * @return the chunked transcript data, or null if the full transcript data has been loaded instead.
+     * @since 12.1.0
+     */
+    public ChunkedJannovarData getChunkedJannovarData() {
+        return chunkedJannovarData;
+    }
+
     public MVStore getMvStore() {
         return mvStore;
     }
@@ -200,6 +278,7 @@ public boolean equals(Object o) {
         GenomeDataSourceLoader that = (GenomeDataSourceLoader) o;
         return Objects.equals(dataSource, that.dataSource) &&
                 Objects.equals(jannovarData, that.jannovarData) &&
+                Objects.equals(chunkedJannovarData, that.chunkedJannovarData) &&
                 Objects.equals(mvStore, that.mvStore) &&
                 Objects.equals(localFrequencyTabixDataSource, that.localFrequencyTabixDataSource) &&
                 Objects.equals(caddSnvTabixDataSource, that.caddSnvTabixDataSource) &&
@@ -212,8 +291,91 @@ public boolean equals(Object o) {
 
     @Override
     public int hashCode() {
-        return Objects.hash(dataSource, jannovarData, mvStore, localFrequencyTabixDataSource, caddSnvTabixDataSource, caddIndelTabixDataSource, 
+        return Objects.hash(dataSource, jannovarData, chunkedJannovarData, mvStore, localFrequencyTabixDataSource, caddSnvTabixDataSource, caddIndelTabixDataSource, 
                             dannSnvTabixDataSource, dannIndelTabixDataSource, remmTabixDataSource, ncboostTabixDataSource);
     }
 
+    /**
+     * Runs the loads on the executor, keeping track of them so that the loaded resources can be closed should any
+     * other load fail.
+     */
+    private static class ResourceLoader {
+
+        private final Executor executor;
+        private final List<CompletableFuture<?>> loads = new ArrayList<>();
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        private ResourceLoader(Executor executor) {
+            this.executor = executor;
+        }
+
+        private <T> CompletableFuture<T> loadAsync(String resourceName, Supplier<T> loader) {
+            CompletableFuture<T> load = CompletableFuture.supplyAsync(() -> {
+                if (firstFailure.get() != null) {
+                    throw new CancellationException("Skipped loading " + resourceName + " after an earlier failure");
+                }
+                long startTime = System.currentTimeMillis();
+                try {
+                    T resource = loader.get();
+                    logger.info("Loaded {} in {} ms", resourceName, System.currentTimeMillis() - startTime);
+                    return resource;
+                } catch (RuntimeException | Error e) {
+                    firstFailure.compareAndSet(null, e);
+                    throw e;
+                }
+            }, executor);
+            loads.add(load);
+            return load;
+        }
+
+        /**
+         * Waits for all the loads to finish. If any failed, the resources which were loaded are closed along with the
+         * dataSource and the exception thrown by the first failed load is re-thrown.
+         */
+        private void awaitAll(DataSource dataSource) {
+            // the loads still running have to finish before anything they open can be closed
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(e -> null)
+                    .join();
+            Throwable failure = firstFailure.get();
+            if (failure == null) {
+                return;
+            }
+            logger.error("Unable to load genome data sources - closing those already loaded");
+            for (CompletableFuture<?> load : loads) {
+                if (!load.isCompletedExceptionally()) {
+                    closeQuietly(load.join());
+                }
+            }
+            closeQuietly(dataSource);
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+
+        private static void closeQuietly(Object resource) {
+            try {
+                if (resource instanceof MVStore) {
+                    ((MVStore) resource).close();
+                } else if (resource instanceof AutoCloseable) {
+                    ((AutoCloseable) resource).close();
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to close {}", resource, e);
+            }
+        }
+    }
+
+    private static class LoaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "genome-data-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
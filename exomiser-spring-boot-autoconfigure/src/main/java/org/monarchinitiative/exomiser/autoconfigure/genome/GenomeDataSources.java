@@ -22,11 +22,17 @@
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.monarchinitiative.exomiser.core.genome.dao.GenomeFeatureSnapshot;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.AlleleKeyBloomFilter;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.ColumnarAlleleFormat;
+import org.monarchinitiative.exomiser.core.genome.dao.serialisers.PositionScoreFormat;
+import org.monarchinitiative.exomiser.core.genome.jannovar.ChunkedJannovarData;
 import org.monarchinitiative.exomiser.core.genome.jannovar.TranscriptSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Optional;
@@ -44,8 +50,12 @@ public class GenomeDataSources {
     private static final Logger logger = LoggerFactory.getLogger(GenomeDataSources.class);
 
     private Path transcriptFilePath;
+    private Path chunkedTranscriptFilePath;
     private Path mvStorePath;
+    private Path columnarAllelesPath;
+    private Path alleleKeyFilterPath;
     private DataSource genomeDataSource;
+    private Path genomeFeatureSnapshotPath;
 
     private Path variantWhiteListPath;
 
@@ -57,8 +67,20 @@ public class GenomeDataSources {
     private Path dannIndelPath;
     private Path remmPath;
     private Path ncboostPath;
+    // Optional binary score arrays converted from the tabix files
+    private Path caddSnvScoresPath;
+    private Path remmScoresPath;
 
     private Path testPathogenicityScorePath;
+
+    private int tabixPoolSize;
+
+    // Optional persistent cache of the tabix pathogenicity lookups
+    private Path pathogenicityCachePath;
+    private int pathogenicityCacheSize;
+
+    private boolean parallelLoading;
+
     /**
      * Static constructor which will automatically resolve the resources for the supplied {@code GenomeProperties} where
      * the data directory for the data version and genome assembly are to be found on the {@code exomiserDataDirectory}
@@ -75,8 +97,12 @@ public static GenomeDataSources from(GenomeProperties genomeProperties, Path exo
         GenomeDataResolver genomeDataResolver = new GenomeDataResolver(genomeProperties, exomiserDataDirectory);
 
         Path transcriptFilePath = buildTranscriptPath(genomeProperties, genomeDataResolver);
+        Path chunkedTranscriptFilePath = buildChunkedTranscriptPathOrNullIfMissing(transcriptFilePath);
         Path mvStoreFilePath = buildMvStorePath(genomeDataResolver);
+        Path columnarAllelesPath = buildColumnarAllelesPathOrNullIfMissing(genomeDataResolver);
+        Path alleleKeyFilterPath = buildAlleleKeyFilterPathOrNullIfMissing(genomeDataResolver);
         DataSource genomeDataSource = buildGenomeDataSource(genomeProperties, genomeDataResolver);
+        Path genomeFeatureSnapshotPath = buildGenomeFeatureSnapshotPathOrNullIfMissing(genomeDataResolver);
 
         Path variantWhiteListPath = resolvePathOrNullIfEmpty(genomeProperties.getVariantWhiteListPath(), genomeDataResolver);
 
@@ -87,13 +113,21 @@ public static GenomeDataSources from(GenomeProperties genomeProperties, Path exo
         Path dannIndelPath = resolvePathOrNullIfEmpty(genomeProperties.getDannInDelPath(), genomeDataResolver);
         Path remmPath = resolvePathOrNullIfEmpty(genomeProperties.getRemmPath(), genomeDataResolver);
         Path ncboostPath = resolvePathOrNullIfEmpty(genomeProperties.getNCBoostPath(), genomeDataResolver);
+        Path caddSnvScoresPath = buildScoresPathOrNullIfMissing(caddSnvPath);
+        Path remmScoresPath = buildScoresPathOrNullIfMissing(remmPath);
 
         Path testPathogenicityPath = resolvePathOrNullIfEmpty(genomeProperties.getTestPathogenicityScorePath(), genomeDataResolver);
 
+        Path pathogenicityCachePath = resolvePathOrNullIfEmpty(genomeProperties.getPathogenicityCachePath(), genomeDataResolver);
+
         return GenomeDataSources.builder()
                 .transcriptFilePath(transcriptFilePath)
+                .chunkedTranscriptFilePath(chunkedTranscriptFilePath)
                 .mvStorePath(mvStoreFilePath)
+                .columnarAllelesPath(columnarAllelesPath)
+                .alleleKeyFilterPath(alleleKeyFilterPath)
                 .genomeDataSource(genomeDataSource)
+                .genomeFeatureSnapshotPath(genomeFeatureSnapshotPath)
                 .variantWhiteListPath(variantWhiteListPath)
                 .localFrequencyPath(localFreqPath)
                 .caddSnvPath(caddSnvPath)
@@ -102,7 +136,13 @@ public static GenomeDataSources from(GenomeProperties genomeProperties, Path exo
                 .dannIndelPath(dannIndelPath)
                 .remmPath(remmPath)
                 .ncboostPath(ncboostPath)
+                .caddSnvScoresPath(caddSnvScoresPath)
+                .remmScoresPath(remmScoresPath)
                 .testPathogenicityScorePath(testPathogenicityPath)
+                .tabixPoolSize(genomeProperties.getTabixPoolSize())
+                .pathogenicityCachePath(pathogenicityCachePath)
+                .pathogenicityCacheSize(genomeProperties.getPathogenicityCacheSize())
+                .parallelLoading(genomeProperties.isParallelLoading())
                 .build();
     }
 
@@ -114,11 +154,53 @@ private static Path buildTranscriptPath(GenomeProperties genomeProperties, Genom
         return genomeDataResolver.getGenomeAssemblyDataPath().resolve(transcriptFileNameValue);
     }
 
+    // The chunked transcript data is optional and is written next to the transcript file by the exomiser-data-genome
+    // module. If present the transcripts are loaded from this for each chromosome as they are required.
+    private static Path buildChunkedTranscriptPathOrNullIfMissing(Path transcriptFilePath) {
+        Path chunkedTranscriptFilePath = ChunkedJannovarData.chunkedPathFor(transcriptFilePath);
+        return Files.exists(chunkedTranscriptFilePath) ? chunkedTranscriptFilePath : null;
+    }
+
     private static Path buildMvStorePath(GenomeDataResolver genomeDataResolver) {
         String mvStoreFileName = String.format("%s_variants.mv.db", genomeDataResolver.getVersionAssemblyPrefix());
         return genomeDataResolver.resolveAbsoluteResourcePath(mvStoreFileName);
     }
 
+    // The columnar allele store is an optional alternative to the alleles in the variants MVStore which is used in
+    // preference if it is present. These can be written from the MVStore using the exomiser-data-genome module.
+    private static Path buildColumnarAllelesPathOrNullIfMissing(GenomeDataResolver genomeDataResolver) {
+        String columnarAllelesFileName = String.format("%s_variants%s", genomeDataResolver.getVersionAssemblyPrefix(), ColumnarAlleleFormat.FILE_EXTENSION);
+        Path columnarAllelesPath = genomeDataResolver.resolveAbsoluteResourcePath(columnarAllelesFileName);
+        return Files.exists(columnarAllelesPath) ? columnarAllelesPath : null;
+    }
+
+    // The filter of the allele keys in the variants MVStore is optional and is written alongside the MVStore by the
+    // exomiser-data-genome module. If present it is used to skip the lookup of novel alleles, at the cost of holding the
+    // whole filter on the heap - about 1.2 MB per million alleles, or several hundred MB for a full assembly.
+    private static Path buildAlleleKeyFilterPathOrNullIfMissing(GenomeDataResolver genomeDataResolver) {
+        String alleleKeyFilterFileName = String.format("%s_variants%s", genomeDataResolver.getVersionAssemblyPrefix(), AlleleKeyBloomFilter.FILE_EXTENSION);
+        Path alleleKeyFilterPath = genomeDataResolver.resolveAbsoluteResourcePath(alleleKeyFilterFileName);
+        return Files.exists(alleleKeyFilterPath) ? alleleKeyFilterPath : null;
+    }
+
+    // The tabix files can be converted to binary score arrays by the exomiser-data-genome module. These are written next
+    // to the tabix file and used in preference to it if present.
+    private static Path buildScoresPathOrNullIfMissing(Path tabixPath) {
+        if (tabixPath == null) {
+            return null;
+        }
+        Path scoresPath = PositionScoreFormat.scoresPathFor(tabixPath);
+        return Files.exists(scoresPath) ? scoresPath : null;
+    }
+
+    // The snapshot of the regulatory features and TADs in the genome database is optional and is written alongside the
+    // database by the exomiser-data-genome module. If present it is used in preference to querying the database.
+    private static Path buildGenomeFeatureSnapshotPathOrNullIfMissing(GenomeDataResolver genomeDataResolver) {
+        String snapshotFileName = String.format("%s_genome%s", genomeDataResolver.getVersionAssemblyPrefix(), GenomeFeatureSnapshot.FILE_EXTENSION);
+        Path snapshotPath = genomeDataResolver.resolveAbsoluteResourcePath(snapshotFileName);
+        return Files.exists(snapshotPath) ? snapshotPath : null;
+    }
+
     private static DataSource buildGenomeDataSource(GenomeProperties genomeProperties, GenomeDataResolver genomeDataResolver) {
         logger.debug("{}", genomeProperties.getDatasource());
         //omit the .h2.db extensions
@@ -147,8 +229,12 @@ private static Path resolvePathOrNullIfEmpty(String pathToTabixGzFile, GenomeDat
 
     private GenomeDataSources(Builder builder) {
         this.transcriptFilePath = builder.transcriptFilePath;
+        this.chunkedTranscriptFilePath = builder.chunkedTranscriptFilePath;
         this.genomeDataSource = builder.genomeDataSource;
+        this.genomeFeatureSnapshotPath = builder.genomeFeatureSnapshotPath;
         this.mvStorePath = builder.mvStorePath;
+        this.columnarAllelesPath = builder.columnarAllelesPath;
+        this.alleleKeyFilterPath = builder.alleleKeyFilterPath;
 
         this.variantWhiteListPath = builder.variantWhiteListPath;
 
@@ -159,21 +245,43 @@ private GenomeDataSources(Builder builder) {
         this.dannIndelPath = builder.dannIndelPath;
         this.remmPath = builder.remmPath;
         this.ncboostPath = builder.ncboostPath;
+        this.caddSnvScoresPath = builder.caddSnvScoresPath;
+        this.remmScoresPath = builder.remmScoresPath;
         this.testPathogenicityScorePath = builder.testPathogenicityPath;
+        this.tabixPoolSize = builder.tabixPoolSize;
+        this.pathogenicityCachePath = builder.pathogenicityCachePath;
+        this.pathogenicityCacheSize = builder.pathogenicityCacheSize;
+        this.parallelLoading = builder.parallelLoading;
     }
 
     public Path getTranscriptFilePath() {
         return transcriptFilePath;
     }
 
+    public Optional<Path> getChunkedTranscriptFilePath() {
+        return Optional.ofNullable(chunkedTranscriptFilePath);
+    }
+
     public Path getMvStorePath() {
         return mvStorePath;
     }
 
+    public Optional<Path> getColumnarAllelesPath() {
+        return Optional.ofNullable(columnarAllelesPath);
+    }
+
+    public Optional<Path> getAlleleKeyFilterPath() {
+        return Optional.ofNullable(alleleKeyFilterPath);
+    }
+
     public DataSource getGenomeDataSource() {
         return genomeDataSource;
     }
 
+    public Optional<Path> getGenomeFeatureSnapshotPath() {
+        return Optional.ofNullable(genomeFeatureSnapshotPath);
+    }
+
     public Optional<Path> getVariantWhiteListPath() {
         return Optional.ofNullable(variantWhiteListPath);
     }
@@ -210,38 +318,76 @@ public Optional<Path> getNCBoostPath() {
         return Optional.ofNullable(ncboostPath);
     }
 
+    public Optional<Path> getCaddSnvScoresPath() {
+        return Optional.ofNullable(caddSnvScoresPath);
+    }
+
+    public Optional<Path> getRemmScoresPath() {
+        return Optional.ofNullable(remmScoresPath);
+    }
+
     public Optional<Path> getTestPathogenicityPath() {
         return Optional.ofNullable(testPathogenicityScorePath);
     }
 
+    public int getTabixPoolSize() {
+        return tabixPoolSize;
+    }
+
+    public Optional<Path> getPathogenicityCachePath() {
+        return Optional.ofNullable(pathogenicityCachePath);
+    }
+
+    public int getPathogenicityCacheSize() {
+        return pathogenicityCacheSize;
+    }
+
+    public boolean isParallelLoading() {
+        return parallelLoading;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         GenomeDataSources that = (GenomeDataSources) o;
         return Objects.equals(transcriptFilePath, that.transcriptFilePath) &&
+                Objects.equals(chunkedTranscriptFilePath, that.chunkedTranscriptFilePath) &&
                 Objects.equals(mvStorePath, that.mvStorePath) &&
+                Objects.equals(columnarAllelesPath, that.columnarAllelesPath) &&
+                Objects.equals(alleleKeyFilterPath, that.alleleKeyFilterPath) &&
                 Objects.equals(genomeDataSource, that.genomeDataSource) &&
+                Objects.equals(genomeFeatureSnapshotPath, that.genomeFeatureSnapshotPath) &&
                 Objects.equals(localFrequencyPath, that.localFrequencyPath) &&
                 Objects.equals(caddSnvPath, that.caddSnvPath) &&
                 Objects.equals(caddIndelPath, that.caddIndelPath) &&
                 Objects.equals(dannSnvPath, that.dannSnvPath) &&
                 Objects.equals(dannIndelPath, that.dannIndelPath) &&
                 Objects.equals(remmPath, that.remmPath) &&
-                Objects.equals(ncboostPath, that.ncboostPath);
+                Objects.equals(ncboostPath, that.ncboostPath) &&
+                Objects.equals(caddSnvScoresPath, that.caddSnvScoresPath) &&
+                Objects.equals(remmScoresPath, that.remmScoresPath) &&
+                tabixPoolSize == that.tabixPoolSize &&
+                Objects.equals(pathogenicityCachePath, that.pathogenicityCachePath) &&
+                pathogenicityCacheSize == that.pathogenicityCacheSize &&
+                parallelLoading == that.parallelLoading;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(transcriptFilePath, mvStorePath, genomeDataSource, localFrequencyPath, caddSnvPath, caddIndelPath, dannSnvPath, dannIndelPath, remmPath, ncboostPath);
+        return Objects.hash(transcriptFilePath, chunkedTranscriptFilePath, mvStorePath, columnarAllelesPath, alleleKeyFilterPath, genomeDataSource, genomeFeatureSnapshotPath, localFrequencyPath, caddSnvPath, caddIndelPath, dannSnvPath, dannIndelPath, remmPath, ncboostPath, caddSnvScoresPath, remmScoresPath, tabixPoolSize, pathogenicityCachePath, pathogenicityCacheSize, parallelLoading);
     }
 
     @Override
     public String toString() {
         return "GenomeDataSources{" +
                 "transcriptFilePath=" + transcriptFilePath +
+                ", chunkedTranscriptFilePath=" + chunkedTranscriptFilePath +
                 ", mvStorePath=" + mvStorePath +
+                ", columnarAllelesPath=" + columnarAllelesPath +
+                ", alleleKeyFilterPath=" + alleleKeyFilterPath +
                 ", genomeDataSource=" + genomeDataSource +
+                ", genomeFeatureSnapshotPath=" + genomeFeatureSnapshotPath +
                 ", localFrequencyPath=" + localFrequencyPath +
                 ", caddSnvPath=" + caddSnvPath +
                 ", caddIndelPath=" + caddIndelPath +
@@ -249,6 +395,12 @@ public String toString() {
                 ", dannIndelPath=" + dannIndelPath +
                 ", remmPath=" + remmPath +
                 ", ncboostPath=" + ncboostPath +
+                ", caddSnvScoresPath=" + caddSnvScoresPath +
+                ", remmScoresPath=" + remmScoresPath +
+                ", tabixPoolSize=" + tabixPoolSize +
+                ", pathogenicityCachePath=" + pathogenicityCachePath +
+                ", pathogenicityCacheSize=" + pathogenicityCacheSize +
+                ", parallelLoading=" + parallelLoading +
                 '}';
     }
 
@@ -263,6 +415,10 @@ public static class Builder {
         private DataSource genomeDataSource;
 
         //These are all expected to be null as they are optional data sources
+        private Path chunkedTranscriptFilePath = null;
+        private Path columnarAllelesPath = null;
+        private Path alleleKeyFilterPath = null;
+        private Path genomeFeatureSnapshotPath = null;
         private Path variantWhiteListPath;
         private Path localFrequencyPath = null;
         private Path caddSnvPath = null;
@@ -271,7 +427,13 @@ public static class Builder {
         private Path dannIndelPath = null;
         private Path remmPath = null;
         private Path ncboostPath = null;
+        private Path caddSnvScoresPath = null;
+        private Path remmScoresPath = null;
         private Path testPathogenicityPath = null;
+        private int tabixPoolSize = 1;
+        private Path pathogenicityCachePath = null;
+        private int pathogenicityCacheSize = 1_000_000;
+        private boolean parallelLoading = false;
 
         public Builder transcriptFilePath(Path transcriptFilePath) {
             Objects.requireNonNull(transcriptFilePath);
@@ -279,12 +441,45 @@ public Builder transcriptFilePath(Path transcriptFilePath) {
             return this;
         }
 
+        /**
+         * Optional full system path to chunked transcript data to be loaded lazily instead of the transcript file.
+         */
+        public Builder chunkedTranscriptFilePath(Path chunkedTranscriptFilePath) {
+            this.chunkedTranscriptFilePath = chunkedTranscriptFilePath;
+            return this;
+        }
+
         public Builder mvStorePath(Path mvStorePath) {
             Objects.requireNonNull(mvStorePath);
             this.mvStorePath = mvStorePath;
             return this;
         }
 
+        /**
+         * Optional full system path to a columnar allele store to be used instead of the alleles in the MVStore.
+         */
+        public Builder columnarAllelesPath(Path columnarAllelesPath) {
+            this.columnarAllelesPath = columnarAllelesPath;
+            return this;
+        }
+
+        /**
+         * Optional full system path to a filter of the allele keys in the MVStore. This must have been written from the
+         * same MVStore, otherwise it will be ignored. The whole filter is held on the heap.
+         */
+        public Builder alleleKeyFilterPath(Path alleleKeyFilterPath) {
+            this.alleleKeyFilterPath = alleleKeyFilterPath;
+            return this;
+        }
+
+        /**
+         * Optional full system path to a snapshot of the regulatory features and TADs in the genome database.
+         */
+        public Builder genomeFeatureSnapshotPath(Path genomeFeatureSnapshotPath) {
+            this.genomeFeatureSnapshotPath = genomeFeatureSnapshotPath;
+            return this;
+        }
+
         public Builder genomeDataSource(DataSource genomeDataSource) {
             Objects.requireNonNull(genomeDataSource);
             this.genomeDataSource = genomeDataSource;
@@ -353,11 +548,60 @@ public Builder ncboostPath(Path ncboostPath) {
             return this;
         }
 
+        /**
+         * Optional full system path to the CADD SNV scores converted from the CADD SNV tabix file.
+         */
+        public Builder caddSnvScoresPath(Path caddSnvScoresPath) {
+            this.caddSnvScoresPath = caddSnvScoresPath;
+            return this;
+        }
+
+        /**
+         * Optional full system path to the REMM scores converted from the REMM tabix file.
+         */
+        public Builder remmScoresPath(Path remmScoresPath) {
+            this.remmScoresPath = remmScoresPath;
+            return this;
+        }
+
         public Builder testPathogenicityScorePath(Path testPathogenicityPath) {
             this.testPathogenicityPath = testPathogenicityPath;
             return this;
         }
 
+        /**
+         * Maximum number of readers to open for each of the tabix files. Defaults to 1.
+         */
+        public Builder tabixPoolSize(int tabixPoolSize) {
+            this.tabixPoolSize = tabixPoolSize;
+            return this;
+        }
+
+        /**
+         * Optional full system path to a file in which to persist the results of the tabix pathogenicity lookups
+         * between runs.
+         */
+        public Builder pathogenicityCachePath(Path pathogenicityCachePath) {
+            this.pathogenicityCachePath = pathogenicityCachePath;
+            return this;
+        }
+
+        /**
+         * Maximum number of variants held in the pathogenicity cache for each source. Defaults to 1,000,000.
+         */
+        public Builder pathogenicityCacheSize(int pathogenicityCacheSize) {
+            this.pathogenicityCacheSize = pathogenicityCacheSize;
+            return this;
+        }
+
+        /**
+         * Load the independent resources concurrently on startup. Defaults to false.
+         */
+        public Builder parallelLoading(boolean parallelLoading) {
+            this.parallelLoading = parallelLoading;
+            return this;
+        }
+
         public GenomeDataSources build() {
             Objects.requireNonNull(transcriptFilePath);
             Objects.requireNonNull(mvStorePath);
@@ -94,4 +94,24 @@ interface GenomeProperties {
     public String getTestPathogenicityScorePath();
 
     public void setTestPathogenicityScorePath(String testPathogenicityScorePath);
+
+    public int getTabixPoolSize();
+
+    public void setTabixPoolSize(int tabixPoolSize);
+
+    public String getPathogenicityCachePath();
+
+    public void setPathogenicityCachePath(String pathogenicityCachePath);
+
+    public int getPathogenicityCacheSize();
+
+    public void setPathogenicityCacheSize(int pathogenicityCacheSize);
+
+    public boolean isParallelLoading();
+
+    public void setParallelLoading(boolean parallelLoading);
+
+    public String getVariantAnnotationCacheSpec();
+
+    public void setVariantAnnotationCacheSpec(String variantAnnotationCacheSpec);
 }
@@ -30,6 +30,7 @@
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
 
 import java.nio.file.Path;
 
@@ -46,9 +47,10 @@ public Hg38GenomeAnalysisServiceAutoConfiguration(Hg38GenomeProperties hg38Genom
         super(hg38GenomeProperties, exomiserDataDirectory);
     }
 
+    @Lazy
     @Bean("hg38jannovarData")
     public JannovarData jannovarData() {
-        return jannovarData;
+        return super.buildJannovarData();
     }
 
     @Bean("hg38mvStore")
@@ -90,7 +92,7 @@ public GenomeAnalysisService genomeAnalysisService() {
     @Bean("hg38allelePropertiesDao")
     @Override
     public AllelePropertiesDao allelePropertiesDao() {
-        return new AllelePropertiesDaoMvStore(mvStore);
+        return super.buildAllelePropertiesDao();
     }
 
     @Bean("hg38localFrequencyDao")
@@ -101,26 +103,26 @@ public FrequencyDao localFrequencyDao() {
 
     @Bean("hg38remmDao")
     @Override
-    public RemmDao remmDao() {
-        return new RemmDao(remmTabixDataSource);
+    public PathogenicityDao remmDao() {
+        return super.buildRemmDao();
     }
 
     @Bean("hg38ncboostDao")
     @Override
-    public NCBoostDao ncboostDao() {
-        return new NCBoostDao(ncboostTabixDataSource);
+    public PathogenicityDao ncboostDao() {
+        return super.buildNcboostDao();
     }
 
     @Bean("hg38caddDao")
     @Override
-    public CaddDao caddDao() {
-        return new CaddDao(caddIndelTabixDataSource, caddSnvTabixDataSource);
+    public PathogenicityDao caddDao() {
+        return super.buildCaddDao();
     }
 
     @Bean("hg38dannDao")
     @Override
-    public DannDao dannDao() {
-        return new DannDao(dannIndelTabixDataSource, dannSnvTabixDataSource);
+    public PathogenicityDao dannDao() {
+        return super.buildDannDao();
     }
 
     @Bean("hg38testPathDao")
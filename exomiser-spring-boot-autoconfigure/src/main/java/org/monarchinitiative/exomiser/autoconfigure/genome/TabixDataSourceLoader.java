@@ -23,7 +23,8 @@
 import htsjdk.tribble.readers.TabixReader;
 import org.monarchinitiative.exomiser.autoconfigure.ExomiserAutoConfigurationException;
 import org.monarchinitiative.exomiser.core.genome.dao.TabixDataSource;
-import org.monarchinitiative.exomiser.core.genome.dao.TabixReaderAdaptor;
+import org.monarchinitiative.exomiser.core.genome.dao.PooledTabixDataSource;
+import org.monarchinitiative.exomiser.core.genome.dao.SweepingTabixReaderAdaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +43,23 @@ private TabixDataSourceLoader() {
     }
 
     public static TabixDataSource load(Path pathToTabixGzFile) {
+        return load(pathToTabixGzFile, 1);
+    }
+
+    /**
+     * Loads a {@link TabixDataSource} which can be queried by up to {@code poolSize} threads concurrently.
+     *
+     * @since 12.1.0
+     */
+    public static TabixDataSource load(Path pathToTabixGzFile, int poolSize) {
+        if (poolSize > 1) {
+            logger.debug("Using pool of up to {} readers for {}", poolSize, pathToTabixGzFile);
+            return new PooledTabixDataSource(poolSize, () -> loadReader(pathToTabixGzFile));
+        }
+        return loadReader(pathToTabixGzFile);
+    }
+
+    private static TabixDataSource loadReader(Path pathToTabixGzFile) {
         TabixReader tabixReader;
         try {
             logger.debug("Loading TabixDataSource from {}", pathToTabixGzFile);
@@ -49,6 +67,8 @@ public static TabixDataSource load(Path pathToTabixGzFile) {
         } catch (IOException e) {
             throw new ExomiserAutoConfigurationException("Failed to load/find file " + pathToTabixGzFile + ". Please check exomiser properties file points to a valid tabix .gz file.", e);
         }
-        return new TabixReaderAdaptor(tabixReader);
+        // All the tabix files used by the exomiser have a single position per line and are queried in the order of the
+        // variants in the VCF, so these can be read in a single forward sweep rather than seeking for each variant.
+        return new SweepingTabixReaderAdaptor(tabixReader);
     }
 }
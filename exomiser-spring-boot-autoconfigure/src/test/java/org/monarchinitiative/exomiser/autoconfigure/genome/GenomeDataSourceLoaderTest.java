@@ -0,0 +1,78 @@
+/*
+ * The Exomiser - A tool to annotate and prioritize genomic variants
+ *
+ * Copyright (c) 2016-2019 Queen Mary University of London.
+ * Copyright (c) 2012-2016 Charité Universitätsmedizin Berlin and Genome Research Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.monarchinitiative.exomiser.autoconfigure.genome;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Jules Jacobsen <j.jacobsen@qmul.ac.uk>
+ */
+class GenomeDataSourceLoaderTest {
+
+    private static final Path DATA_PATH = Paths.get("src/test/resources/data/1710_hg19");
+    private static final Path MV_STORE_PATH = DATA_PATH.resolve("1710_hg19_variants.mv.db");
+
+    // the whitelist is loaded after the transcripts and MVStore, so these will have been loaded when it fails
+    private static GenomeDataSources withMissingWhiteList(HikariDataSource dataSource, boolean parallelLoading) {
+        return GenomeDataSources.builder()
+                .transcriptFilePath(DATA_PATH.resolve("1710_hg19_transcripts_ucsc.ser"))
+                .mvStorePath(MV_STORE_PATH)
+                .genomeDataSource(dataSource)
+                .variantWhiteListPath(DATA_PATH.resolve("missing_whitelist.tsv.gz"))
+                .localFrequencyPath(Paths.get("src/test/resources/data/local/local_freq.tsv.gz"))
+                .parallelLoading(parallelLoading)
+                .build();
+    }
+
+    private static void assertMvStoreIsClosed() {
+        // the MVStore file is locked while open, so this would fail were it not closed
+        MVStore mvStore = MvStoreDataSourceLoader.openMvStore(MV_STORE_PATH.toAbsolutePath());
+        assertThat(mvStore.isClosed(), equalTo(false));
+        mvStore.close();
+    }
+
+    @Test
+    void loadClosesLoadedResourcesOnFailure() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        assertThrows(RuntimeException.class, () -> GenomeDataSourceLoader.load(withMissingWhiteList(dataSource, false)));
+        verify(dataSource).close();
+        assertMvStoreIsClosed();
+    }
+
+    @Test
+    void loadInParallelClosesLoadedResourcesOnFailure() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        assertThrows(RuntimeException.class, () -> GenomeDataSourceLoader.load(withMissingWhiteList(dataSource, true)));
+        verify(dataSource).close();
+        assertMvStoreIsClosed();
+    }
+}
@@ -29,6 +29,9 @@
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
@@ -69,6 +72,40 @@ public synchronized void genomeAnalysisServiceWithOptionalTestPathDao() throws E
         assertThat(context.getBean("hg19testPathDao"), instanceOf(TestPathogenicityScoreDao.class));
     }
 
+    @Test
+    public synchronized void genomeAnalysisServiceWithOptionalPathogenicityCache() throws Exception {
+
+        Path pathogenicityCachePath = Files.createTempDirectory("exomiser").resolve("hg19_pathogenicity_cache.mv.db");
+        load(EmptyConfiguration.class, TEST_DATA_ENV, "exomiser.hg19.data-version=1710", "exomiser.hg19.pathogenicity-cache-path=" + pathogenicityCachePath);
+
+        assertThat(context.getBean("hg19remmDao"), instanceOf(PersistentCachingPathogenicityDao.class));
+        assertThat(context.getBean("hg19caddDao"), instanceOf(PersistentCachingPathogenicityDao.class));
+        assertThat(context.getBean("hg19dannDao"), instanceOf(PersistentCachingPathogenicityDao.class));
+        assertThat(context.getBean("hg19ncboostDao"), instanceOf(PersistentCachingPathogenicityDao.class));
+        assertThat(Files.exists(pathogenicityCachePath), equalTo(true));
+    }
+
+    @Test
+    public synchronized void genomeAnalysisServiceWithParallelLoading() throws Exception {
+
+        load(EmptyConfiguration.class, TEST_DATA_ENV, "exomiser.hg19.data-version=1710", "exomiser.hg19.parallel-loading=true", "exomiser.hg19.local-frequency-path=../local/local_freq.tsv.gz");
+
+        GenomeAnalysisService genomeAnalysisService = (GenomeAnalysisService) this.context.getBean("hg19genomeAnalysisService");
+        assertThat(genomeAnalysisService.getGenomeAssembly(), equalTo(GenomeAssembly.HG19));
+
+        assertThat(context.getBean("hg19jannovarData"), instanceOf(JannovarData.class));
+        assertThat(context.getBean("hg19mvStore"), instanceOf(MVStore.class));
+        assertThat(context.getBean("hg19localFrequencyDao"), instanceOf(LocalFrequencyDao.class));
+    }
+
+    @Test
+    public synchronized void genomeAnalysisServiceWithVariantAnnotationCache() throws Exception {
+
+        load(EmptyConfiguration.class, TEST_DATA_ENV, "exomiser.hg19.data-version=1710", "exomiser.hg19.variant-annotation-cache-spec=maximumSize=1000");
+
+        assertThat(context.getBean("hg19variantAnnotator"), instanceOf(CachingVariantAnnotator.class));
+    }
+
     @Configuration
     @ImportAutoConfiguration(value = Hg19GenomeAnalysisServiceAutoConfiguration.class)
     protected static class EmptyConfiguration {}
@@ -40,6 +40,8 @@ public void loadsData() {
         Path mvStorePath = Paths.get("src/test/resources/data/1710_hg19/1710_hg19_variants.mv.db");
         MVStore mvStore = MvStoreDataSourceLoader.openMvStore(mvStorePath);
         assertThat(mvStore, instanceOf(MVStore.class));
+        // the store is locked until closed, which would otherwise fail any later test opening the same file
+        mvStore.close();
     }
 
     @Test
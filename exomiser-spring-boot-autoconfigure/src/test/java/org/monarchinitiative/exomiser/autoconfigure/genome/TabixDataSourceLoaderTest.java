@@ -22,12 +22,14 @@
 
 import org.junit.jupiter.api.Test;
 import org.monarchinitiative.exomiser.autoconfigure.ExomiserAutoConfigurationException;
+import org.monarchinitiative.exomiser.core.genome.dao.PooledTabixDataSource;
 import org.monarchinitiative.exomiser.core.genome.dao.TabixDataSource;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -47,4 +49,17 @@ public void testLoadResource() throws Exception {
         TabixDataSource tabixDataSource = TabixDataSourceLoader.load(remmTabixFilePath);
         assertThat(tabixDataSource.getSource(), equalTo(remmTabixFilePath.toAbsolutePath().toString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadPooledResource() throws Exception {
+        Path remmTabixFilePath = Paths.get("src/test/resources/data/remm/remmData.tsv.gz");
+        TabixDataSource tabixDataSource = TabixDataSourceLoader.load(remmTabixFilePath, 4);
+        assertThat(tabixDataSource, instanceOf(PooledTabixDataSource.class));
+        assertThat(tabixDataSource.getSource(), equalTo(remmTabixFilePath.toAbsolutePath().toString()));
+    }
+
+    @Test
+    public void testUnresolvablePooledResource() throws Exception {
+        assertThrows(ExomiserAutoConfigurationException.class, () -> TabixDataSourceLoader.load(Paths.get("wibble"), 4));
+    }
+}